@@ -0,0 +1,656 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import market.matching.OrderStatus;
+import market.orders.IcebergOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.OrderValidator;
+import market.orders.PricedOrder;
+
+/**
+ * The parts of an order book that don't depend on how its price levels are stored.
+ * 
+ * Each level holds its orders in time priority. An index from order id to the order's place in its level makes cancels and
+ * amends O(1) once the level is known, and each trader's orders are also linked together per side, so a trader's orders can
+ * be found or pulled without looking at anyone else's. Subclasses only decide how the levels of each side are kept, found by
+ * price and walked in priority order
+ */
+abstract class AbstractOrderBook implements OrderBook {
+    private static final long CHECKSUM_SEED = 0xCBF29CE484222325L;
+    private static final long CHECKSUM_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int FINISHED_ORDER_LIMIT = 1 << 14;
+
+    private final Map<UUID, OrderNode> ordersById = new HashMap<>();
+    private final Map<UUID, TraderOrders> ordersByTrader = new HashMap<>();
+    // The final states of the most recently finished orders, oldest first so the oldest is forgotten once it is full
+    private final Map<UUID, OrderState> finishedOrders = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, OrderState> eldest) {
+            return size() > FINISHED_ORDER_LIMIT;
+        }
+    };
+    private final BookDepthView depthView;
+
+    private int numBids;
+    private int numOffers;
+
+    /**
+     * @param publishedDepth the number of levels per side that are published to concurrent readers
+     */
+    AbstractOrderBook(int publishedDepth) {
+        this.depthView = new BookDepthView(publishedDepth);
+    }
+
+    /**
+     * @return the level at a price, or null if there are no orders at that price
+     */
+    abstract PriceLevel getLevel(OrderSide side, double price);
+
+    /**
+     * Add an empty level at a price which has no level yet
+     * @return the new level
+     */
+    abstract PriceLevel createLevel(OrderSide side, double price);
+
+    /**
+     * Remove a level once its last order has gone
+     */
+    abstract void removeLevel(OrderSide side, PriceLevel level);
+
+    /**
+     * @return the level with the best price on a side, or null if the side is empty. Must be O(1)
+     */
+    abstract PriceLevel getBestLevel(OrderSide side);
+
+    /**
+     * @return the levels of a side, best price first
+     */
+    abstract Iterable<PriceLevel> getLevels(OrderSide side);
+
+    /**
+     * Remove every level of both sides
+     */
+    abstract void clearLevels();
+
+    @Override
+    public PricedOrder getBestBid() {
+        PriceLevel level = getBestLevel(OrderSide.BUY);
+        return level == null ? null : level.getHead().order;
+    }
+
+    @Override
+    public PricedOrder getBestOffer() {
+        PriceLevel level = getBestLevel(OrderSide.SELL);
+        return level == null ? null : level.getHead().order;
+    }
+
+    @Override
+    public int getBestBidVolume() {
+        PriceLevel level = getBestLevel(OrderSide.BUY);
+        return level == null ? 0 : level.getVolume();
+    }
+
+    @Override
+    public int getBestOfferVolume() {
+        PriceLevel level = getBestLevel(OrderSide.SELL);
+        return level == null ? 0 : level.getVolume();
+    }
+
+    @Override
+    public int getNumOffers() {
+        return numOffers;
+    }
+    
+    @Override
+    public int getNumBids() {
+        return numBids;
+    }
+
+    @Override
+    public PricedOrder getOrder(UUID orderId) {
+        OrderNode node = ordersById.get(orderId);
+        return node == null ? null : node.order;
+    }
+
+    /**
+     * Look up the state of a resting order and its place in the queue at its price in O(1) time, plus O(log(n)) in the
+     * number of orders at its price to count the orders ahead of it. The last 16384 orders to finish are remembered in
+     * their final state
+     * @param orderId the id of the order
+     * @return the state of the order, or null if it is unknown or finished too long ago to be remembered
+     */
+    @Override
+    public OrderState getOrderState(UUID orderId) {
+        OrderNode node = ordersById.get(orderId);
+        if (node == null) {
+            return finishedOrders.get(orderId);
+        }
+
+        PricedOrder order = node.order;
+        int remaining = IcebergOrder.class.isInstance(order) ? ((IcebergOrder) order).getTotalVolume() : order.getVolume();
+        return new OrderState(order.getOrderId(), order.getTraderId(), order.getSide(), order.getPrice(), order.getVolume(),
+            remaining, node.filledVolume, node.filledVolume > 0 ? OrderStatus.PARTIAL_RESTING : OrderStatus.ALL_RESTING,
+            node.level.getOrdersAhead(node), node.level.getVolumeAhead(node));
+    }
+
+    @Override
+    public void recordFinishedOrder(Order order, OrderStatus status, int filledVolume) {
+        double price = PricedOrder.class.isInstance(order) ? ((PricedOrder) order).getPrice() : Double.NaN;
+        finishedOrders.put(order.getOrderId(), new OrderState(order.getOrderId(), order.getTraderId(), order.getSide(), price,
+            0, 0, filledVolume, status, 0, 0));
+    }
+
+    /**
+     * Hash every resting order in priority order: its price, id, displayed volume and any iceberg reserve. Two books holding
+     * the same orders in the same priority have the same checksum, so it can be used to check that replicas of a book have not
+     * diverged. O(n) in the number of resting orders
+     * @return the checksum
+     */
+    @Override
+    public long checksum() {
+        long hash = CHECKSUM_SEED;
+        for (OrderSide side : OrderSide.values()) {
+            for (PriceLevel level : getLevels(side)) {
+                hash = mix(hash, Double.doubleToLongBits(level.getPrice()));
+                for (OrderNode node = level.getHead(); node != null; node = node.next) {
+                    hash = mix(hash, node.order.getOrderId().getMostSignificantBits());
+                    hash = mix(hash, node.order.getOrderId().getLeastSignificantBits());
+                    hash = mix(hash, node.order.getVolume());
+                    hash = mix(hash, hasReserve(node.order) ? ((IcebergOrder) node.order).getHiddenVolume() : 0);
+                }
+            }
+            hash = mix(hash, side.ordinal());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        // The rotate feeds the high bits of each product back into the low bits for the next value
+        return Long.rotateLeft((hash ^ value) * CHECKSUM_MULTIPLIER, 29);
+    }
+
+    /**
+     * Remove every resting order, leaving the book as if it had just been created. Lets a book be reused rather than
+     * reallocated between independent runs
+     */
+    @Override
+    public void clear() {
+        clearLevels();
+        ordersById.clear();
+        ordersByTrader.clear();
+        finishedOrders.clear();
+        numBids = 0;
+        numOffers = 0;
+        depthView.publish(OrderSide.BUY, getLevels(OrderSide.BUY), 0);
+        depthView.publish(OrderSide.SELL, getLevels(OrderSide.SELL), 0);
+    }
+
+    @Override
+    public BookDepthView getDepthView() {
+        return depthView;
+    }
+    
+    /**
+     * Count the volume an order could trade against without going past its price limit, including volume hidden in iceberg
+     * reserves. Only visits the levels needed to reach the cap
+     * @param order the incoming order
+     * @param cap the volume at which to stop counting
+     * @return the matchable volume, or the cap if at least that much is available
+     */
+    @Override
+    public int getMatchableVolume(Order order, int cap) {
+        long total = 0;
+        for (PriceLevel level : getLevels(order.getInverseSide())) {
+            if (total >= cap || !order.isInPriceLimit(level.getPrice())) {
+                break;
+            }
+            total += level.getVolume() + level.getHiddenVolume();
+        }
+
+        return (int) Math.min(total, cap);
+    }
+
+    /**
+     * Insert an order into the order book behind any orders at the same price placed before it, in O(1) time plus the cost of
+     * finding or creating its level
+     */
+    @Override
+    public void insertRestingOrder(PricedOrder order, int filledVolume) {
+        // The level is found first as creating it may fail, e.g. if the price is off a ladder's tick grid
+        OrderSide side = order.getSide();
+        PriceLevel level = getLevel(side, order.getPrice());
+        if (level == null) {
+            level = createLevel(side, order.getPrice());
+        }
+
+        int hidden = 0;
+        if (IcebergOrder.class.isInstance(order)) {
+            IcebergOrder iceberg = (IcebergOrder) order;
+            iceberg.hideReserve();
+            hidden = iceberg.getHiddenVolume();
+        }
+
+        OrderNode node = new OrderNode(order, level);
+        node.filledVolume = filledVolume;
+        level.insert(node, hidden);
+        ordersById.put(order.getOrderId(), node);
+        linkTraderNode(node);
+        adjustOrderCount(side, 1);
+        publishLevel(side, order.getPrice());
+    }
+
+    /**
+     * Remove an order from the book with a specific id
+     * @param orderId the id of the order to remove
+     * @param side the side which the order is on
+     * @return true if the order existed and could be cancelled, else false
+     */
+    @Override
+    public boolean cancelOrder(UUID orderId, OrderSide side) {
+        OrderNode node = ordersById.get(orderId);
+        if (node == null || node.order.getSide() != side) {
+            return false;
+        }
+
+        removeNode(node);
+        recordFinished(node, OrderStatus.CANCELLED);
+        return true;
+    }
+
+    /**
+     * Remove many orders at once as they expire. Each order is unlinked in O(1) (plus the cost of removing its level if it
+     * empties) and concurrent readers see a single update per side rather than one per order
+     * @param orders the orders to remove. Orders which are no longer resting are skipped
+     * @return the orders that were resting and have been removed
+     */
+    @Override
+    public List<PricedOrder> removeOrders(List<? extends PricedOrder> orders) {
+        List<PricedOrder> removed = new ArrayList<>();
+        for (PricedOrder order : orders) {
+            OrderNode node = ordersById.get(order.getOrderId());
+            if (node != null && node.order == order) {
+                unlinkNode(node);
+                recordFinished(node, OrderStatus.EXPIRED);
+                removed.add(order);
+            }
+        }
+
+        if (!removed.isEmpty()) {
+            depthView.publish(OrderSide.BUY, getLevels(OrderSide.BUY), numBids);
+            depthView.publish(OrderSide.SELL, getLevels(OrderSide.SELL), numOffers);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Get every resting order of a trader
+     * @param traderId the id of the trader
+     * @param side the side to look at, or null for both sides
+     * @return the trader's orders, most recently placed first on each side
+     */
+    @Override
+    public List<PricedOrder> getTraderOrders(UUID traderId, OrderSide side) {
+        List<PricedOrder> orders = new ArrayList<>();
+        TraderOrders traderOrders = ordersByTrader.get(traderId);
+        if (traderOrders == null) {
+            return orders;
+        }
+
+        for (OrderSide s : OrderSide.values()) {
+            if (side == null || side == s) {
+                for (OrderNode node = getTraderHead(traderOrders, s); node != null; node = node.traderNext) {
+                    orders.add(node.order);
+                }
+            }
+        }
+
+        return orders;
+    }
+
+    @Override
+    public int getNumTraderOrders(UUID traderId) {
+        TraderOrders traderOrders = ordersByTrader.get(traderId);
+        return traderOrders == null ? 0 : traderOrders.count;
+    }
+
+    @Override
+    public long getTraderVolume(UUID traderId, OrderSide side) {
+        TraderOrders traderOrders = ordersByTrader.get(traderId);
+        if (traderOrders == null) {
+            return 0;
+        }
+        return side == OrderSide.BUY ? traderOrders.bidVolume : traderOrders.offerVolume;
+    }
+
+    /**
+     * Remove a trader's resting orders on one or both sides within a price range. Only the trader's own orders are visited,
+     * so pulling k orders costs O(k) (plus the cost of removing each price level emptied), and concurrent readers see a single
+     * update per side
+     * @param traderId the id of the trader
+     * @param side the side to cancel on, or null for both sides
+     * @param minPrice the lowest price to cancel at, inclusive
+     * @param maxPrice the highest price to cancel at, inclusive
+     * @return the orders that were removed
+     */
+    @Override
+    public List<PricedOrder> cancelTraderOrders(UUID traderId, OrderSide side, double minPrice, double maxPrice) {
+        List<PricedOrder> removed = new ArrayList<>();
+        TraderOrders traderOrders = ordersByTrader.get(traderId);
+        if (traderOrders == null) {
+            return removed;
+        }
+
+        for (OrderSide s : OrderSide.values()) {
+            if (side != null && side != s) {
+                continue;
+            }
+
+            int removedBefore = removed.size();
+            OrderNode node = getTraderHead(traderOrders, s);
+            while (node != null) {
+                OrderNode next = node.traderNext;
+                double price = node.order.getPrice();
+                if (price >= minPrice && price <= maxPrice) {
+                    unlinkNode(node);
+                    recordFinished(node, OrderStatus.CANCELLED);
+                    removed.add(node.order);
+                }
+                node = next;
+            }
+
+            if (removed.size() > removedBefore) {
+                depthView.publish(s, getLevels(s), s == OrderSide.BUY ? numBids : numOffers);
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Update the volume of an order, keeping its time priority. For an iceberg the new volume is its total volume, shown up
+     * to its display volume
+     * @param orderId the id of the order to update the volume of
+     * @param side the side of the order
+     * @param newVolume the new volume
+     * @return true if the order volume was updated, false if the order was not found or the new volume is invalid
+     */
+    @Override
+    public boolean amendOrderVolume(UUID orderId, OrderSide side, int newVolume) {
+        // Checked here rather than left to the order to throw, so a bad amend is refused as cheaply as a missing order
+        OrderNode node = ordersById.get(orderId);
+        if (!OrderValidator.isValidVolume(newVolume) || node == null || node.order.getSide() != side) {
+            return false;
+        }
+
+        PricedOrder order = node.order;
+        int oldVolume = order.getVolume();
+        adjustTraderVolume(order, newVolume - getRemainingVolume(order));
+        if (IcebergOrder.class.isInstance(order)) {
+            IcebergOrder iceberg = (IcebergOrder) order;
+            int oldHidden = iceberg.getHiddenVolume();
+            iceberg.setTotalVolume(newVolume);
+            node.level.addVolume(node, iceberg.getVolume() - oldVolume, iceberg.getHiddenVolume() - oldHidden);
+        } else {
+            order.setVolume(newVolume);
+            node.level.addVolume(node, newVolume - oldVolume, 0);
+        }
+        publishLevel(side, order.getPrice());
+
+        return true;
+    }
+    
+    /**
+     * Take volume from a resting order, removing it once it is used up. If this uses up the displayed volume of an iceberg
+     * with a reserve, the iceberg is refilled and moved to the back of its level rather than removed
+     * @param order the resting order
+     * @param volume the volume filled, at most the displayed volume of the order
+     */
+    @Override
+    public void fillRestingOrder(PricedOrder order, int volume) {
+        OrderNode node = ordersById.get(order.getOrderId());
+        if (node == null || node.order != order) {
+            throw new OrderNotFoundException("Order to fill is not resting in the book");
+        }
+
+        node.filledVolume += volume;
+        if (order.getVolume() == volume && hasReserve(order)) {
+            adjustTraderVolume(order, -volume);
+            IcebergOrder iceberg = (IcebergOrder) order;
+            iceberg.setVolume(0);
+            int refill = iceberg.replenish();
+            node.level.addVolume(node, refill - volume, -refill);
+            node.level.moveToBack(node);
+            publishLevel(order.getSide(), order.getPrice());
+        } else if (order.getVolume() == volume) {
+            removeNode(node);
+            recordFinished(node, OrderStatus.FILLED);
+        } else {
+            adjustTraderVolume(order, -volume);
+            order.setVolume(order.getVolume() - volume);
+            node.level.addVolume(node, -volume, 0);
+            publishLevel(order.getSide(), order.getPrice());
+        }
+    }
+
+    /**
+     * Find the price at which a crossed book (e.g. at the end of a call auction) should uncross. The price chosen is the one
+     * that maximises the executable volume, then minimises the surplus left on one side. Remaining ties go to the highest
+     * price if every tied price has a surplus of buyers, the lowest if every tied price has a surplus of sellers, and
+     * otherwise to the price nearest the reference price.
+     * 
+     * Only the levels inside the crossed range (and one past it on each side) are visited, and cumulative demand and supply
+     * are built from the level totals (hidden iceberg volume included), so this is O(l) in the number of crossed levels
+     * regardless of how many orders rest at them
+     * @param referencePrice the price to break remaining ties towards, e.g. the last trade, or NaN for none
+     * @return the equilibrium, or null if the book is not crossed
+     */
+    @Override
+    public AuctionEquilibrium findEquilibrium(double referencePrice) {
+        PriceLevel bestBid = getBestLevel(OrderSide.BUY);
+        PriceLevel bestOffer = getBestLevel(OrderSide.SELL);
+        if (bestBid == null || bestOffer == null || bestBid.getPrice() < bestOffer.getPrice()) {
+            return null;
+        }
+
+        // Crossed bids, collected in descending order and then read in ascending order
+        List<PriceLevel> bids = new ArrayList<>();
+        for (PriceLevel level : getLevels(OrderSide.BUY)) {
+            if (level.getPrice() < bestOffer.getPrice()) {
+                break;
+            }
+            bids.add(level);
+        }
+
+        double[] bidPrices = new double[bids.size()];
+        long[] bidVolumes = new long[bids.size()];
+        long demand = 0;
+        for (int i = 0; i < bids.size(); i++) {
+            PriceLevel level = bids.get(bids.size() - 1 - i);
+            bidPrices[i] = level.getPrice();
+            bidVolumes[i] = level.getVolume() + level.getHiddenVolume();
+            demand += bidVolumes[i];
+        }
+
+        // Walk every candidate price in ascending order. Demand at p is bid volume at or above p, supply is offer volume at
+        // or below p. Offers are ascending already and are only read up to the best bid
+        double maxOfferPrice = bestBid.getPrice();
+        Iterator<PriceLevel> offerIt = getLevels(OrderSide.SELL).iterator();
+        PriceLevel nextOffer = offerIt.next();
+        int nextBid = 0;
+        long supply = 0;
+        long bestVolume = -1;
+        long bestSurplus = 0;
+        List<double[]> ties = new ArrayList<>();
+
+        while (nextBid < bidPrices.length || nextOffer != null) {
+            double price = nextOffer == null ? bidPrices[nextBid]
+                : nextBid == bidPrices.length ? nextOffer.getPrice() : Math.min(bidPrices[nextBid], nextOffer.getPrice());
+            while (nextOffer != null && nextOffer.getPrice() == price) {
+                supply += nextOffer.getVolume() + nextOffer.getHiddenVolume();
+                nextOffer = offerIt.hasNext() ? offerIt.next() : null;
+                if (nextOffer != null && nextOffer.getPrice() > maxOfferPrice) {
+                    nextOffer = null;
+                }
+            }
+
+            long volume = Math.min(demand, supply);
+            long surplus = demand - supply;
+            if (volume > bestVolume || (volume == bestVolume && Math.abs(surplus) < Math.abs(bestSurplus))) {
+                bestVolume = volume;
+                bestSurplus = surplus;
+                ties.clear();
+            }
+            if (volume == bestVolume && Math.abs(surplus) == Math.abs(bestSurplus)) {
+                ties.add(new double[] {price, surplus});
+            }
+
+            while (nextBid < bidPrices.length && bidPrices[nextBid] == price) {
+                demand -= bidVolumes[nextBid];
+                nextBid++;
+            }
+        }
+
+        double[] chosen = ties.get(0);
+        boolean allBuyers = ties.stream().allMatch(t -> t[1] > 0);
+        boolean allSellers = ties.stream().allMatch(t -> t[1] < 0);
+        if (allBuyers) {
+            chosen = ties.get(ties.size() - 1);
+        } else if (!allSellers && !Double.isNaN(referencePrice)) {
+            for (double[] tie : ties) {
+                if (Math.abs(tie[0] - referencePrice) < Math.abs(chosen[0] - referencePrice)) {
+                    chosen = tie;
+                }
+            }
+        }
+
+        return new AuctionEquilibrium(chosen[0], (int) bestVolume, (long) chosen[1]);
+    }
+
+    private static boolean hasReserve(PricedOrder order) {
+        return IcebergOrder.class.isInstance(order) && ((IcebergOrder) order).getHiddenVolume() > 0;
+    }
+
+    private void recordFinished(OrderNode node, OrderStatus status) {
+        recordFinishedOrder(node.order, status, node.filledVolume);
+    }
+
+    private void removeNode(OrderNode node) {
+        unlinkNode(node);
+        publishLevel(node.order.getSide(), node.order.getPrice());
+    }
+
+    private void unlinkNode(OrderNode node) {
+        PricedOrder order = node.order;
+        int hidden = IcebergOrder.class.isInstance(order) ? ((IcebergOrder) order).getHiddenVolume() : 0;
+        node.level.remove(node, hidden);
+        ordersById.remove(order.getOrderId());
+        unlinkTraderNode(node);
+        adjustOrderCount(order.getSide(), -1);
+
+        if (node.level.isEmpty()) {
+            removeLevel(order.getSide(), node.level);
+        }
+    }
+
+    private void linkTraderNode(OrderNode node) {
+        TraderOrders traderOrders = ordersByTrader.computeIfAbsent(node.order.getTraderId(), id -> new TraderOrders());
+        OrderSide side = node.order.getSide();
+        OrderNode head = getTraderHead(traderOrders, side);
+        node.traderNext = head;
+        if (head != null) {
+            head.traderPrev = node;
+        }
+        setTraderHead(traderOrders, side, node);
+        traderOrders.count++;
+        adjustTraderVolume(traderOrders, side, getRemainingVolume(node.order));
+    }
+
+    private void unlinkTraderNode(OrderNode node) {
+        TraderOrders traderOrders = ordersByTrader.get(node.order.getTraderId());
+        if (node.traderPrev == null) {
+            setTraderHead(traderOrders, node.order.getSide(), node.traderNext);
+        } else {
+            node.traderPrev.traderNext = node.traderNext;
+        }
+        if (node.traderNext != null) {
+            node.traderNext.traderPrev = node.traderPrev;
+        }
+        node.traderPrev = null;
+        node.traderNext = null;
+        adjustTraderVolume(traderOrders, node.order.getSide(), -getRemainingVolume(node.order));
+
+        if (--traderOrders.count == 0) {
+            ordersByTrader.remove(node.order.getTraderId());
+        }
+    }
+
+    private void adjustTraderVolume(PricedOrder order, long delta) {
+        adjustTraderVolume(ordersByTrader.get(order.getTraderId()), order.getSide(), delta);
+    }
+
+    private static void adjustTraderVolume(TraderOrders traderOrders, OrderSide side, long delta) {
+        if (side == OrderSide.BUY) {
+            traderOrders.bidVolume += delta;
+        } else {
+            traderOrders.offerVolume += delta;
+        }
+    }
+
+    /**
+     * @return the volume of an order still to be filled, including any hidden iceberg reserve
+     */
+    private static int getRemainingVolume(PricedOrder order) {
+        return IcebergOrder.class.isInstance(order) ? ((IcebergOrder) order).getTotalVolume() : order.getVolume();
+    }
+
+    private static OrderNode getTraderHead(TraderOrders traderOrders, OrderSide side) {
+        return side == OrderSide.BUY ? traderOrders.bidHead : traderOrders.offerHead;
+    }
+
+    private static void setTraderHead(TraderOrders traderOrders, OrderSide side, OrderNode head) {
+        if (side == OrderSide.BUY) {
+            traderOrders.bidHead = head;
+        } else {
+            traderOrders.offerHead = head;
+        }
+    }
+
+    /**
+     * Publish a change at a price to concurrent readers, copying the levels only if the change is visible to them
+     * @param side the side of the level
+     * @param price the price of the level
+     */
+    private void publishLevel(OrderSide side, double price) {
+        boolean levelsChanged = depthView.isWithinPublishedDepth(side, price);
+        depthView.publish(side, levelsChanged ? getLevels(side) : null,
+            side == OrderSide.BUY ? numBids : numOffers);
+    }
+
+    private void adjustOrderCount(OrderSide side, int delta) {
+        if (side == OrderSide.BUY) {
+            numBids += delta;
+        } else {
+            numOffers += delta;
+        }
+    }
+
+    /**
+     * The heads of the lists of a trader's resting orders on each side, and the volume the orders of each side have left
+     */
+    private static class TraderOrders {
+        OrderNode bidHead;
+        OrderNode offerHead;
+        int count;
+        long bidVolume;
+        long offerVolume;
+    }
+}
@@ -0,0 +1,9 @@
+package market;
+
+/**
+ * The price a crossed book uncrosses at
+ * @param price the uncrossing price
+ * @param volume the volume that trades at that price
+ * @param surplus the volume left unmatched at that price, positive for buyers and negative for sellers
+ */
+public record AuctionEquilibrium(double price, int volume, long surplus) {}
@@ -0,0 +1,197 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import market.orders.OrderSide;
+
+/**
+ * Top of book depth that is written by the single thread mutating the order book and can be read by any number of other
+ * threads at the same time.
+ * 
+ * Readers only ever take optimistic (seqlock style) stamps and retry if the writer published in the middle of their copy, so
+ * the writer never waits on a reader and readers never see a half written book.
+ */
+public class BookDepthView {
+    public static final int DEFAULT_DEPTH = 10;
+
+    private final StampedLock lock = new StampedLock();
+    private final int maxLevels;
+
+    private final double[] bidPrices;
+    private final int[] bidVolumes;
+    private final int[] bidCounts;
+    private int bidLevels;
+    private int numBids;
+
+    private final double[] offerPrices;
+    private final int[] offerVolumes;
+    private final int[] offerCounts;
+    private int offerLevels;
+    private int numOffers;
+
+    private long version;
+
+    public BookDepthView(int maxLevels) {
+        if (maxLevels <= 0) {
+            throw new IllegalArgumentException("Published depth must be at least one level");
+        }
+
+        this.maxLevels = maxLevels;
+        this.bidPrices = new double[maxLevels];
+        this.bidVolumes = new int[maxLevels];
+        this.bidCounts = new int[maxLevels];
+        this.offerPrices = new double[maxLevels];
+        this.offerVolumes = new int[maxLevels];
+        this.offerCounts = new int[maxLevels];
+    }
+
+    public int getMaxLevels() {
+        return maxLevels;
+    }
+
+    /**
+     * Take a consistent copy of the published depth. Safe to call from any thread and never blocks the writer
+     * @return the snapshot
+     */
+    public BookSnapshot snapshot() {
+        double[] bp = new double[maxLevels];
+        int[] bv = new int[maxLevels];
+        int[] bc = new int[maxLevels];
+        double[] op = new double[maxLevels];
+        int[] ov = new int[maxLevels];
+        int[] oc = new int[maxLevels];
+        int bl;
+        int ol;
+        int nb;
+        int no;
+        long ver;
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                // The writer is mid publish
+                Thread.onSpinWait();
+                continue;
+            }
+
+            bl = bidLevels;
+            ol = offerLevels;
+            nb = numBids;
+            no = numOffers;
+            ver = version;
+            System.arraycopy(bidPrices, 0, bp, 0, maxLevels);
+            System.arraycopy(bidVolumes, 0, bv, 0, maxLevels);
+            System.arraycopy(bidCounts, 0, bc, 0, maxLevels);
+            System.arraycopy(offerPrices, 0, op, 0, maxLevels);
+            System.arraycopy(offerVolumes, 0, ov, 0, maxLevels);
+            System.arraycopy(offerCounts, 0, oc, 0, maxLevels);
+
+            if (lock.validate(stamp)) {
+                break;
+            }
+        }
+
+        return new BookSnapshot(ver, nb, no, toLevels(bp, bv, bc, bl), toLevels(op, ov, oc, ol));
+    }
+
+    /**
+     * Get the best published bid price without copying the rest of the depth
+     * @return the best bid price, or NaN if there are no bids
+     */
+    public double getBestBidPrice() {
+        return readBest(OrderSide.BUY);
+    }
+
+    /**
+     * Get the best published offer price without copying the rest of the depth
+     * @return the best offer price, or NaN if there are no offers
+     */
+    public double getBestOfferPrice() {
+        return readBest(OrderSide.SELL);
+    }
+
+    private double readBest(OrderSide side) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            double best;
+            if (side == OrderSide.BUY) {
+                best = (bidLevels > 0) ? bidPrices[0] : Double.NaN;
+            } else {
+                best = (offerLevels > 0) ? offerPrices[0] : Double.NaN;
+            }
+
+            if (lock.validate(stamp)) {
+                return best;
+            }
+        }
+    }
+
+    /**
+     * Determine if a change at a price could alter the published levels of a side. Only the writer thread may call this
+     * @param side the side of the change
+     * @param price the price of the level that changed
+     * @return true if the change is within (or could move into) the published depth
+     */
+    boolean isWithinPublishedDepth(OrderSide side, double price) {
+        if (side == OrderSide.BUY) {
+            return bidLevels < maxLevels || price >= bidPrices[bidLevels - 1];
+        } else {
+            return offerLevels < maxLevels || price <= offerPrices[offerLevels - 1];
+        }
+    }
+
+    /**
+     * Publish the state of one side of the book. Only the writer thread may call this
+     * @param side the side that changed
+     * @param levels the levels of the side in priority order, or null if the published levels are unchanged
+     * @param numOrders the total number of resting orders on the side
+     */
+    void publish(OrderSide side, Iterable<PriceLevel> levels, int numOrders) {
+        long stamp = lock.writeLock();
+        try {
+            if (side == OrderSide.BUY) {
+                numBids = numOrders;
+                if (levels != null) {
+                    bidLevels = copyLevels(levels, bidPrices, bidVolumes, bidCounts);
+                }
+            } else {
+                numOffers = numOrders;
+                if (levels != null) {
+                    offerLevels = copyLevels(levels, offerPrices, offerVolumes, offerCounts);
+                }
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int copyLevels(Iterable<PriceLevel> levels, double[] prices, int[] volumes, int[] counts) {
+        int i = 0;
+        for (PriceLevel level : levels) {
+            if (i == maxLevels) {
+                break;
+            }
+            prices[i] = level.getPrice();
+            volumes[i] = level.getVolume();
+            counts[i] = level.getOrderCount();
+            i++;
+        }
+        return i;
+    }
+
+    private static List<DepthLevel> toLevels(double[] prices, int[] volumes, int[] counts, int numLevels) {
+        List<DepthLevel> levels = new ArrayList<>(numLevels);
+        for (int i = 0; i < numLevels; i++) {
+            levels.add(new DepthLevel(prices[i], volumes[i], counts[i]));
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,21 @@
+package market;
+
+import java.util.List;
+
+/**
+ * A consistent copy of the top levels of the order book taken at a single point in the writer's history
+ * @param version the number of book mutations published before this snapshot was taken
+ * @param numBids the total number of resting bids (including those below the published depth)
+ * @param numOffers the total number of resting offers (including those below the published depth)
+ * @param bids the best bid levels, best price first
+ * @param offers the best offer levels, best price first
+ */
+public record BookSnapshot(long version, int numBids, int numOffers, List<DepthLevel> bids, List<DepthLevel> offers) {
+    public DepthLevel getBestBid() {
+        return bids.isEmpty() ? null : bids.get(0);
+    }
+
+    public DepthLevel getBestOffer() {
+        return offers.isEmpty() ? null : offers.get(0);
+    }
+}
@@ -0,0 +1,6 @@
+package market;
+
+/**
+ * An aggregated view of one price level as seen by a reader of the book
+ */
+public record DepthLevel(double price, int volume, int orderCount) {}
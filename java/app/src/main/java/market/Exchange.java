@@ -0,0 +1,83 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import market.matching.MassQuoteResult;
+import market.orders.InstrumentQuote;
+import market.orders.Quote;
+
+/**
+ * A set of markets keyed by instrument symbol, e.g. every instrument a market maker quotes on.
+ * 
+ * Markets may be added and looked up from any thread. As with a single market, orders and quotes must only be placed from
+ * one thread at a time, and a mass quote across instruments must run on a thread allowed to write to each market it quotes
+ */
+public class Exchange {
+    private final Map<String, MarketService> markets = new ConcurrentHashMap<>();
+
+    /**
+     * Open a market on a new tree order book
+     * @param symbol the symbol of the instrument traded on the market
+     * @return the new market
+     */
+    public MarketService addMarket(String symbol) {
+        return addMarket(symbol, new TreeOrderBook());
+    }
+
+    /**
+     * Open a market on the given book
+     * @param symbol the symbol of the instrument traded on the market
+     * @param book the market's order book
+     * @return the new market
+     */
+    public MarketService addMarket(String symbol, OrderBook book) {
+        MarketService market = new MarketService(book);
+        if (markets.putIfAbsent(symbol, market) != null) {
+            throw new IllegalArgumentException("Market already open for " + symbol);
+        }
+        return market;
+    }
+
+    /**
+     * @param symbol the symbol of an instrument
+     * @return the instrument's market, or null if there is none
+     */
+    public MarketService getMarket(String symbol) {
+        return markets.get(symbol);
+    }
+
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(markets.keySet());
+    }
+
+    /**
+     * Replace quotes on many instruments in one call, e.g. from a mass quote message, with one aggregated acknowledgement.
+     * The quotes for each instrument are placed as one mass quote on its market, in the order they appear, and markets are
+     * quoted in the order each was first named. Every symbol is checked before anything is placed, so a mass quote naming an
+     * unknown instrument changes nothing
+     * @param quotes the new quotes. A later quote of the same maker on the same instrument replaces an earlier one
+     * @return the acknowledgement of every quote, by market
+     */
+    public ExchangeQuoteResult placeMassQuote(List<InstrumentQuote> quotes) {
+        Map<String, List<Quote>> bySymbol = new LinkedHashMap<>();
+        for (int i = 0; i < quotes.size(); i++) {
+            InstrumentQuote quote = quotes.get(i);
+            if (!markets.containsKey(quote.symbol())) {
+                throw new IllegalArgumentException("No market open for " + quote.symbol());
+            }
+            bySymbol.computeIfAbsent(quote.symbol(), s -> new ArrayList<>()).add(quote.quote());
+        }
+
+        Map<String, MassQuoteResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Quote>> entry : bySymbol.entrySet()) {
+            results.put(entry.getKey(), markets.get(entry.getKey()).placeMassQuote(entry.getValue()));
+        }
+        return ExchangeQuoteResult.of(results);
+    }
+}
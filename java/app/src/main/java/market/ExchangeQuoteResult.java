@@ -0,0 +1,40 @@
+package market;
+
+import java.util.Map;
+
+import market.matching.MassQuoteResult;
+
+/**
+ * The single acknowledgement of a mass quote across instruments, totalling the acknowledgements of each market
+ * @param markets the acknowledgement of each market quoted, by symbol in the order the markets were first quoted
+ * @param rejectedSides the number of quote sides rejected across every market
+ * @param filledVolume the volume traded by quote sides as they were placed, across every market
+ */
+public record ExchangeQuoteResult(Map<String, MassQuoteResult> markets, int rejectedSides, int filledVolume) {
+    /**
+     * Total the acknowledgements of each market
+     * @param markets the acknowledgements by symbol
+     * @return the acknowledgement
+     */
+    public static ExchangeQuoteResult of(Map<String, MassQuoteResult> markets) {
+        int rejectedSides = 0;
+        int filledVolume = 0;
+        for (MassQuoteResult res : markets.values()) {
+            rejectedSides += res.rejectedSides();
+            filledVolume += res.filledVolume();
+        }
+        return new ExchangeQuoteResult(markets, rejectedSides, filledVolume);
+    }
+
+    /**
+     * @param symbol the symbol of a market
+     * @return the acknowledgement of the market's quotes, or null if the mass quote had none for it
+     */
+    public MassQuoteResult get(String symbol) {
+        return markets.get(symbol);
+    }
+
+    public boolean isFullyAccepted() {
+        return rejectedSides == 0;
+    }
+}
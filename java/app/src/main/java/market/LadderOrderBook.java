@@ -0,0 +1,326 @@
+package market;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+
+/**
+ * An order book for instruments that trade on a fixed tick grid within a bounded band of prices, e.g. futures.
+ *
+ * Each side is a ladder: an array of price levels indexed by tick offset from the bottom of a window of ticks, with a bitmap
+ * of which ticks have a level. Finding, adding or removing a level is O(1), and the next best level after the best empties is
+ * found by scanning the bitmap a 64 tick word at a time, so a dense book never touches more than a word or two. When an order
+ * arrives outside the window it is re-centred on the prices in use (and grown if they no longer fit comfortably), copying
+ * only the occupied levels.
+ *
+ * Prices must be a multiple of the tick size to within a millionth of a tick (prices that close share the level of the first
+ * order placed at them), and the resting prices of a side may span at most a set number of ticks. Orders that break either
+ * rule are rejected by the matching engine before they are matched, see checkRestingPrice. A price collar (see
+ * PreTradeRiskCheck) keeps ordinary flow well inside the span
+ */
+public class LadderOrderBook extends AbstractOrderBook {
+    public static final int MAX_SPAN_TICKS = 1 << 26;
+
+    private static final int MIN_WINDOW_TICKS = 1024;
+    private static final double TICK_TOLERANCE = 1e-6;
+
+    private final double tickSize;
+    private final int maxSpanTicks;
+    private final Ladder bids;
+    private final Ladder offers;
+
+    /**
+     * @param tickSize the smallest price increment
+     * @param maxSpanTicks the most ticks the resting prices of one side may span
+     */
+    public LadderOrderBook(double tickSize, int maxSpanTicks) {
+        this(tickSize, maxSpanTicks, BookDepthView.DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param tickSize the smallest price increment
+     * @param maxSpanTicks the most ticks the resting prices of one side may span
+     * @param publishedDepth the number of levels per side that are published to concurrent readers
+     */
+    public LadderOrderBook(double tickSize, int maxSpanTicks, int publishedDepth) {
+        super(publishedDepth);
+        if (!(tickSize > 0) || Double.isInfinite(tickSize)) {
+            throw new IllegalArgumentException("Tick size must be positive");
+        }
+        if (maxSpanTicks <= 0 || maxSpanTicks > MAX_SPAN_TICKS) {
+            throw new IllegalArgumentException("Price span must be between 1 and " + MAX_SPAN_TICKS + " ticks");
+        }
+
+        this.tickSize = tickSize;
+        this.maxSpanTicks = maxSpanTicks;
+        int windowTicks = Math.min(MIN_WINDOW_TICKS, roundUpToWord(maxSpanTicks));
+        this.bids = new Ladder(true, windowTicks);
+        this.offers = new Ladder(false, windowTicks);
+    }
+
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    /**
+     * Reject orders priced off the tick grid or too far from the other resting orders of their side to fit in the ladder
+     */
+    @Override
+    public String checkRestingPrice(PricedOrder order) {
+        return checkTick(getLadder(order.getSide()), toTick(order.getPrice()));
+    }
+
+    @Override
+    PriceLevel getLevel(OrderSide side, double price) {
+        long tick = toTick(price);
+        return tick == Long.MIN_VALUE ? null : getLadder(side).get(tick);
+    }
+
+    @Override
+    PriceLevel createLevel(OrderSide side, double price) {
+        Ladder ladder = getLadder(side);
+        long tick = toTick(price);
+        String rejection = checkTick(ladder, tick);
+        if (rejection != null) {
+            throw new IllegalArgumentException(rejection);
+        }
+
+        PriceLevel level = new PriceLevel(price);
+        ladder.put(tick, level, roundUpToWord(maxSpanTicks));
+        return level;
+    }
+
+    @Override
+    void removeLevel(OrderSide side, PriceLevel level) {
+        getLadder(side).remove(toTick(level.getPrice()));
+    }
+
+    @Override
+    PriceLevel getBestLevel(OrderSide side) {
+        return getLadder(side).getBest();
+    }
+
+    @Override
+    Iterable<PriceLevel> getLevels(OrderSide side) {
+        return getLadder(side);
+    }
+
+    @Override
+    void clearLevels() {
+        bids.clear();
+        offers.clear();
+    }
+
+    private String checkTick(Ladder ladder, long tick) {
+        if (tick == Long.MIN_VALUE) {
+            return "Price is not a multiple of the tick size " + tickSize;
+        }
+        if (!ladder.isEmpty()
+            && Math.max(tick, ladder.getHighTick()) - Math.min(tick, ladder.getLowTick()) + 1 > maxSpanTicks) {
+            return "Price is more than " + maxSpanTicks + " ticks from the rest of its side of the book";
+        }
+        return null;
+    }
+
+    /**
+     * @return the tick a price is on, or Long.MIN_VALUE if it is off the tick grid
+     */
+    private long toTick(double price) {
+        double ticks = price / tickSize;
+        long tick = Math.round(ticks);
+        return Math.abs(ticks - tick) > TICK_TOLERANCE ? Long.MIN_VALUE : tick;
+    }
+
+    private Ladder getLadder(OrderSide side) {
+        return switch (side) {
+            case BUY -> bids;
+            case SELL -> offers;
+            default -> throw new IllegalArgumentException("Order side '" + side.toString() + "' is not known");
+        };
+    }
+
+    private static int roundUpToWord(int ticks) {
+        return (int) (((long) ticks + 63) & ~63L);
+    }
+
+    /**
+     * The levels of one side in a window of ticks, with a bitmap of the occupied ticks. The lowest and highest occupied
+     * ticks are tracked, one of which is the best price
+     */
+    private static final class Ladder implements Iterable<PriceLevel> {
+        private final boolean descending;
+        private PriceLevel[] levels;
+        private long[] words;
+        private long baseTick;
+        private int low = -1;
+        private int high = -1;
+
+        private Ladder(boolean descending, int windowTicks) {
+            this.descending = descending;
+            this.levels = new PriceLevel[windowTicks];
+            this.words = new long[windowTicks >>> 6];
+        }
+
+        private boolean isEmpty() {
+            return low < 0;
+        }
+
+        private long getLowTick() {
+            return baseTick + low;
+        }
+
+        private long getHighTick() {
+            return baseTick + high;
+        }
+
+        private PriceLevel getBest() {
+            return low < 0 ? null : levels[descending ? high : low];
+        }
+
+        private PriceLevel get(long tick) {
+            long i = tick - baseTick;
+            return i >= 0 && i < levels.length ? levels[(int) i] : null;
+        }
+
+        private void put(long tick, PriceLevel level, int maxWindowTicks) {
+            long offset = tick - baseTick;
+            if (low < 0) {
+                // Nothing to move, so an empty side is re-centred on its first level for free
+                baseTick = tick - levels.length / 2;
+                offset = tick - baseTick;
+            } else if (offset < 0 || offset >= levels.length) {
+                recentre(tick, maxWindowTicks);
+                offset = tick - baseTick;
+            }
+
+            int i = (int) offset;
+            levels[i] = level;
+            words[i >>> 6] |= 1L << i;
+            if (low < 0) {
+                low = i;
+                high = i;
+            } else if (i < low) {
+                low = i;
+            } else if (i > high) {
+                high = i;
+            }
+        }
+
+        private void remove(long tick) {
+            int i = (int) (tick - baseTick);
+            levels[i] = null;
+            words[i >>> 6] &= ~(1L << i);
+            if (low == high) {
+                low = -1;
+                high = -1;
+            } else if (i == low) {
+                low = nextSet(i + 1);
+            } else if (i == high) {
+                high = prevSet(i - 1);
+            }
+        }
+
+        private void clear() {
+            if (low >= 0) {
+                Arrays.fill(levels, low, high + 1, null);
+                Arrays.fill(words, low >>> 6, (high >>> 6) + 1, 0);
+            }
+            low = -1;
+            high = -1;
+        }
+
+        /**
+         * Move the window so the occupied ticks and a new tick sit in the middle of it, with at least as many free ticks as
+         * occupied ones where the window can grow to allow it
+         */
+        private void recentre(long tick, int maxWindowTicks) {
+            long lowTick = Math.min(tick, getLowTick());
+            long highTick = Math.max(tick, getHighTick());
+            long span = highTick - lowTick + 1;
+
+            int windowTicks = levels.length;
+            while (windowTicks < span * 2 && windowTicks < maxWindowTicks) {
+                windowTicks = Math.min(windowTicks * 2, maxWindowTicks);
+            }
+            long newBase = lowTick - (windowTicks - span) / 2;
+
+            PriceLevel[] newLevels = new PriceLevel[windowTicks];
+            long[] newWords = new long[windowTicks >>> 6];
+            for (int i = low; i >= 0; i = nextSet(i + 1)) {
+                int j = (int) (baseTick + i - newBase);
+                newLevels[j] = levels[i];
+                newWords[j >>> 6] |= 1L << j;
+            }
+            low = (int) (getLowTick() - newBase);
+            high = (int) (getHighTick() - newBase);
+
+            levels = newLevels;
+            words = newWords;
+            baseTick = newBase;
+        }
+
+        /**
+         * @return the first occupied index at or above from, or -1 if there is none
+         */
+        private int nextSet(int from) {
+            if (from >= levels.length) {
+                return -1;
+            }
+            int w = from >>> 6;
+            long bits = words[w] & (-1L << from);
+            while (bits == 0) {
+                if (++w == words.length) {
+                    return -1;
+                }
+                bits = words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        /**
+         * @return the last occupied index at or below from, or -1 if there is none
+         */
+        private int prevSet(int from) {
+            if (from < 0) {
+                return -1;
+            }
+            int w = from >>> 6;
+            long bits = words[w] & (-1L >>> (63 - (from & 63)));
+            while (bits == 0) {
+                if (--w < 0) {
+                    return -1;
+                }
+                bits = words[w];
+            }
+            return (w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+        }
+
+        /**
+         * Walk the levels best price first
+         */
+        @Override
+        public Iterator<PriceLevel> iterator() {
+            return new Iterator<>() {
+                private int next = low < 0 ? -1 : descending ? high : low;
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public PriceLevel next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    PriceLevel level = levels[next];
+                    next = descending ? prevSet(next - 1) : nextSet(next + 1);
+                    return level;
+                }
+            };
+        }
+    }
+}
@@ -1,6 +1,163 @@
 package market;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import market.matching.EngineWarmup;
+import market.matching.MatchResult;
+import market.matching.MassQuoteResult;
+import market.matching.MatchingEngine;
+import market.matching.QuoteResult;
+import market.matching.WarmupReport;
+import market.orders.Order;
+import market.orders.OrderFactory;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.orders.Quote;
+import market.trader.Portfolio;
+import market.trader.Trader;
+
+/**
+ * A single market, made up of an order book, the matching engine on top of it and the traders allowed to trade on it. An
+ * Exchange keys many markets by instrument symbol.
+ * 
+ * Traders may be registered and looked up from any thread, but orders must only be placed, cancelled or amended from one
+ * thread at a time (normally the thread of whichever gateway owns the market)
+ */
 public class MarketService {
-    // isEmpty
-    // 
+    private final OrderBook book;
+    private final MatchingEngine eng;
+    private final OrderFactory orderFactory = new OrderFactory();
+    private final Map<UUID, Trader> traders = new ConcurrentHashMap<>();
+    private final Map<UUID, Portfolio> portfolios = new ConcurrentHashMap<>();
+
+    public MarketService() {
+        this(new TreeOrderBook());
+    }
+
+    public MarketService(OrderBook book) {
+        this.book = book;
+        this.eng = new MatchingEngine(book);
+    }
+
+    /**
+     * Warm up the JIT on a throwaway book and engine, then open a market on a fresh book from the warm-up's book factory, so
+     * the market's first live orders run compiled code rather than paying for the warm-up themselves
+     * @param warmup the warm-up to run
+     * @param log receives a one line summary of what the warm-up cost
+     * @return the market, ready for live flow
+     */
+    public static MarketService warmedUp(EngineWarmup warmup, Consumer<String> log) {
+        WarmupReport report = warmup.run();
+        log.accept(report.describe());
+        return new MarketService(warmup.getBookFactory().get());
+    }
+
+    /**
+     * Create a trader and allow them to trade in the market
+     * @param name the name of the trader
+     * @return the new trader
+     */
+    public Trader registerTrader(String name) {
+        Trader trader = new Trader(name);
+        traders.put(trader.getId(), trader);
+        portfolios.put(trader.getId(), new Portfolio(trader, eng));
+        return trader;
+    }
+
+    /**
+     * Find a registered trader by their id
+     * @param traderId the id of the trader
+     * @return the trader or null if no trader with that id is registered
+     */
+    public Trader getTrader(UUID traderId) {
+        return traders.get(traderId);
+    }
+
+    /**
+     * Find the portfolio of a registered trader. The portfolio is updated by the market's writer thread, so it should only
+     * be read from that thread
+     * @param traderId the id of the trader
+     * @return the trader's portfolio or null if no trader with that id is registered
+     */
+    public Portfolio getPortfolio(UUID traderId) {
+        return portfolios.get(traderId);
+    }
+
+    public MatchResult placeOrder(Order order) {
+        return eng.placeOrder(order);
+    }
+
+    public List<MatchResult> placeOrders(List<Order> orders) {
+        return eng.placeOrders(orders);
+    }
+
+    public QuoteResult placeQuote(Quote quote) {
+        return eng.placeQuote(quote);
+    }
+
+    public MassQuoteResult placeMassQuote(List<Quote> quotes) {
+        return eng.placeMassQuote(quotes);
+    }
+
+    public boolean cancelOrder(UUID orderId, OrderSide side) {
+        return eng.cancelOrder(orderId, side);
+    }
+
+    /**
+     * Pull every resting order of a trader
+     * @param traderId the id of the trader
+     * @return the orders that were cancelled
+     */
+    public List<PricedOrder> cancelTraderOrders(UUID traderId) {
+        return cancelTraderOrders(traderId, null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Pull a trader's resting orders on one or both sides within a price range
+     * @param traderId the id of the trader
+     * @param side the side to cancel on, or null for both sides
+     * @param minPrice the lowest price to cancel at, inclusive
+     * @param maxPrice the highest price to cancel at, inclusive
+     * @return the orders that were cancelled
+     */
+    public List<PricedOrder> cancelTraderOrders(UUID traderId, OrderSide side, double minPrice, double maxPrice) {
+        return eng.cancelTraderOrders(traderId, side, minPrice, maxPrice);
+    }
+
+    /**
+     * Look up a resting order and its place in the queue at its price
+     * @param orderId the id of the order
+     * @return the state of the order, or null if it isn't resting in the book
+     */
+    public OrderState getOrderState(UUID orderId) {
+        return book.getOrderState(orderId);
+    }
+
+    /**
+     * @param orderId the id of a resting or waiting stop order
+     * @return the id of the trader who placed it, or null if it is neither resting nor waiting
+     */
+    public UUID getOrderOwner(UUID orderId) {
+        return eng.getOrderOwner(orderId);
+    }
+
+    public boolean amendOrder(UUID orderId, OrderSide side, int newVolume) {
+        return eng.amendOrder(orderId, side, newVolume);
+    }
+
+    public OrderBook getBook() {
+        return book;
+    }
+
+    public MatchingEngine getEngine() {
+        return eng;
+    }
+
+    public OrderFactory getOrderFactory() {
+        return orderFactory;
+    }
 }
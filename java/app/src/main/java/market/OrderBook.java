@@ -1,47 +1,50 @@
 package market;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.List;
 import java.util.UUID;
 
+import market.matching.OrderStatus;
 import market.orders.Order;
 import market.orders.OrderSide;
-import market.orders.OrderValidator;
 import market.orders.PricedOrder;
 
-public class OrderBook {
-    private final Comparator<PricedOrder> bidComparator = Comparator.comparing(PricedOrder::getPrice).reversed().thenComparing(PricedOrder::getTimestamp);
-    private final Comparator<PricedOrder> offerComparator = Comparator.comparing(PricedOrder::getPrice).thenComparing(PricedOrder::getTimestamp);
+/**
+ * Resting orders on both sides of the market, in price then time priority.
+ *
+ * This is everything the matching engine needs from a book, so books with different internal layouts can be swapped in
+ * per market. Every implementation must give the same results for the same calls, down to the priority of orders at a
+ * price, which DifferentialReplay checks by running two implementations side by side. Only the depth view may be read from
+ * other threads. Every other method must only be called from a single writer thread
+ */
+public interface OrderBook {
+    PricedOrder getBestBid();
 
-    private final PriorityQueue<PricedOrder> bids = new PriorityQueue<>(bidComparator);
-    private final PriorityQueue<PricedOrder> offers = new PriorityQueue<>(offerComparator);
+    PricedOrder getBestOffer();
 
-    public PricedOrder getBestBid() {
-        return bids.peek();
-    }
+    /**
+     * @return the displayed volume at the best bid price, or 0 if there are no bids
+     */
+    int getBestBidVolume();
 
-    public PricedOrder getBestOffer() {
-        return offers.peek();
-    }
+    /**
+     * @return the displayed volume at the best offer price, or 0 if there are no offers
+     */
+    int getBestOfferVolume();
 
-    public boolean isEmpty() {
-        return (bids.size() == 0 && offers.size() == 0);
-    }
+    int getNumBids();
 
-    public int getNumOffers() {
-        return offers.size();
-    }
-    
-    public int getNumBids() {
-        return bids.size();
+    int getNumOffers();
+
+    default boolean isEmpty() {
+        return getNumBids() == 0 && getNumOffers() == 0;
     }
-    
+
     /**
      * Wrapper for getBestBid and getBestOffer allowing for dynamic routing between these based on an argument
      * @param side the side of the order (bid or ask)
      * @return the best order on that side
      */
-    public PricedOrder getBestOrder(OrderSide side) {
+    default PricedOrder getBestOrder(OrderSide side) {
         return switch (side) {
             case BUY -> getBestOffer();
             case SELL -> getBestBid();
@@ -50,62 +53,143 @@ public class OrderBook {
     }
 
     /**
-     * Insert an order into the order book in O(log(n)) time 
+     * Find a resting order by its id
+     * @param orderId the id of the order
+     * @return the order, or null if it isn't resting in the book
+     */
+    PricedOrder getOrder(UUID orderId);
+
+    /**
+     * Look up the state of a resting order and its place in the queue at its price. Orders that have left the book, or
+     * finished without resting, are remembered in their final state for a while after
+     * @param orderId the id of the order
+     * @return the state of the order, or null if it is unknown or finished too long ago to be remembered
+     */
+    OrderState getOrderState(UUID orderId);
+
+    /**
+     * Remember the final state of an order that finished without resting, e.g. one filled or rejected on arrival, so it
+     * can be looked up like the orders that leave the book
+     * @param order the order
+     * @param status the order's final status
+     * @param filledVolume the volume of the order that was filled
+     */
+    void recordFinishedOrder(Order order, OrderStatus status, int filledVolume);
+
+    /**
+     * Count the volume an order could trade against without going past its price limit, including volume hidden in iceberg
+     * reserves
+     * @param order the incoming order
+     * @param cap the volume at which to stop counting
+     * @return the matchable volume, or the cap if at least that much is available
+     */
+    int getMatchableVolume(Order order, int cap);
+
+    /**
+     * Check that an order could rest at its price, before it is matched. Books that can only hold some prices (e.g. those on
+     * a tick grid) reject the rest here, so an order is never part filled and then found unable to rest
+     * @param order the incoming order
+     * @return null if the order may rest at its price, else the reason it can't
+     */
+    default String checkRestingPrice(PricedOrder order) {
+        return null;
+    }
+
+    /**
+     * Insert an order behind any orders at the same price placed before it. Icebergs show up to their display volume and
+     * hold the rest in reserve
      * @param order the order to insert
      */
-    public void insertRestingOrder(PricedOrder order) {
-        getHeapOfSide(order.getSide()).add(order);
+    default void insertRestingOrder(PricedOrder order) {
+        insertRestingOrder(order, 0);
     }
 
+    /**
+     * Insert an order that has already been partly filled on arrival
+     * @param order the order to insert
+     * @param filledVolume the volume of the order filled before it came to rest
+     */
+    void insertRestingOrder(PricedOrder order, int filledVolume);
 
     /**
-     * Remove an order from the book with a specific 
+     * Remove an order from the book with a specific id
      * @param orderId the id of the order to remove
      * @param side the side which the order is on
      * @return true if the order existed and could be cancelled, else false
      */
-    public boolean cancelOrder(UUID orderId, OrderSide side) {
-        PriorityQueue<PricedOrder> sideHeap = getHeapOfSide(side);
-        return sideHeap.removeIf(o -> o.getOrderId().equals(orderId));
-    }
+    boolean cancelOrder(UUID orderId, OrderSide side);
+
+    /**
+     * Remove many orders at once as they expire
+     * @param orders the orders to remove. Orders which are no longer resting are skipped
+     * @return the orders that were removed
+     */
+    List<PricedOrder> removeOrders(List<? extends PricedOrder> orders);
 
     /**
-     * Update the volume of an order. This operation is slow for non-head elements so use it sparingly
+     * Update the volume of an order, keeping its time priority. For an iceberg the new volume is its total volume, shown up
+     * to its display volume
      * @param orderId the id of the order to update the volume of
      * @param side the side of the order
      * @param newVolume the new volume
-     * @return true if the order volume was updated, false otherwise
-     */
-    public boolean amendOrderVolume(UUID orderId, OrderSide side, int newVolume) {
-        // Call validation here so we can fail fast (even though we check during the update process)
-        OrderValidator.validateVolume(newVolume);
-        
-        PriorityQueue<PricedOrder> relevantHeap = getHeapOfSide(side);
-        for (PricedOrder o : relevantHeap) {
-            if (o.getOrderId().equals(orderId)) {
-                // We have to remove from the queue for re-heapification to occur
-                relevantHeap.remove(o);
-                o.setVolume(newVolume);
-                relevantHeap.add(o);
-
-                return true;
-            }
-        }
+     * @return true if the order volume was updated, false if the order was not found or the new volume is invalid
+     */
+    boolean amendOrderVolume(UUID orderId, OrderSide side, int newVolume);
 
-        return false;
+    /**
+     * Get every resting order of a trader
+     * @param traderId the id of the trader
+     * @param side the side to look at, or null for both sides
+     * @return the trader's orders, most recently placed first on each side
+     */
+    List<PricedOrder> getTraderOrders(UUID traderId, OrderSide side);
+
+    /**
+     * @param traderId the id of the trader
+     * @return the number of resting orders the trader has on both sides
+     */
+    int getNumTraderOrders(UUID traderId);
+
+    /**
+     * @param traderId the id of the trader
+     * @param side the side to total
+     * @return the volume the trader's resting orders on a side have left to fill, including iceberg reserves
+     */
+    long getTraderVolume(UUID traderId, OrderSide side);
+
+    /**
+     * Remove every resting order of a trader, e.g. when their session is lost
+     * @param traderId the id of the trader
+     * @return the orders that were removed
+     */
+    default List<PricedOrder> cancelTraderOrders(UUID traderId) {
+        return cancelTraderOrders(traderId, null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
     }
-    
-    public Trade tradeTop(Order order, int volumeToTrade) {
+
+    /**
+     * Remove a trader's resting orders on one or both sides within a price range
+     * @param traderId the id of the trader
+     * @param side the side to cancel on, or null for both sides
+     * @param minPrice the lowest price to cancel at, inclusive
+     * @param maxPrice the highest price to cancel at, inclusive
+     * @return the orders that were removed
+     */
+    List<PricedOrder> cancelTraderOrders(UUID traderId, OrderSide side, double minPrice, double maxPrice);
+
+    /**
+     * Trade against the best order opposite an incoming order. If this uses up the displayed volume of an iceberg with a
+     * reserve, the iceberg is refilled and moved to the back of its level rather than removed
+     * @param order the incoming order
+     * @param volumeToTrade the volume to trade, at most the volume of the best order
+     * @return the trade that occurred
+     */
+    default Trade tradeTop(Order order, int volumeToTrade) {
         PricedOrder best = getBestOrder(order.getSide());
         if (best == null) {
             throw new OrderNotFoundException("No orders to trade with found");
         }
 
-        if (best.getVolume() == volumeToTrade) {
-            cancelOrder(best.getOrderId(), best.getSide());
-        } else {
-            amendOrderVolume(best.getOrderId(), order.getInverseSide(), best.getVolume() - volumeToTrade);
-        }
+        fillRestingOrder(best, volumeToTrade);
 
         UUID bidId;
         UUID offerId;
@@ -116,7 +200,7 @@ public class OrderBook {
                 break;
             case SELL:
                 offerId = order.getOrderId();
-                bidId = order.getOrderId();
+                bidId = best.getOrderId();
                 break;
             default:
                 throw new IllegalArgumentException("Order side '" + order.getSide().toString() + "' is not known");
@@ -126,15 +210,38 @@ public class OrderBook {
     }
 
     /**
-     * Get the relevant heap in the order book for an order side. Throws an error if the side is unknown
-     * @param side the side to get the heap for
-     * @return the heap for the relevant side
+     * Take volume from a resting order, removing it once it is used up. If this uses up the displayed volume of an iceberg
+     * with a reserve, the iceberg is refilled and moved to the back of its level rather than removed
+     * @param order the resting order
+     * @param volume the volume filled, at most the displayed volume of the order
      */
-    private PriorityQueue<PricedOrder> getHeapOfSide(OrderSide side) {
-        return switch (side) {
-            case BUY -> bids;
-            case SELL -> offers;
-            default -> throw new IllegalArgumentException("Order side '" + side.toString() + "' is not known");
-        };
-    }
+    void fillRestingOrder(PricedOrder order, int volume);
+
+    /**
+     * Find the price at which a crossed book (e.g. at the end of a call auction) should uncross. The price chosen is the one
+     * that maximises the executable volume, then minimises the surplus left on one side. Remaining ties go to the highest
+     * price if every tied price has a surplus of buyers, the lowest if every tied price has a surplus of sellers, and
+     * otherwise to the price nearest the reference price
+     * @param referencePrice the price to break remaining ties towards, e.g. the last trade, or NaN for none
+     * @return the equilibrium, or null if the book is not crossed
+     */
+    AuctionEquilibrium findEquilibrium(double referencePrice);
+
+    /**
+     * Hash every resting order in priority order: its price, id, displayed volume and any iceberg reserve. Two books holding
+     * the same orders in the same priority have the same checksum, whatever their implementation
+     * @return the checksum
+     */
+    long checksum();
+
+    /**
+     * Remove every resting order, leaving the book as if it had just been created
+     */
+    void clear();
+
+    /**
+     * Get the view of this book which other threads can read while the book is being mutated
+     * @return the concurrent depth view
+     */
+    BookDepthView getDepthView();
 }
@@ -0,0 +1,23 @@
+package market;
+
+import market.orders.PricedOrder;
+
+/**
+ * A resting order's place in its price level, and among the other resting orders of its trader on the same side, along with
+ * how much of the order has been filled so far
+ */
+final class OrderNode {
+    final PricedOrder order;
+    final PriceLevel level;
+    OrderNode prev;
+    OrderNode next;
+    OrderNode traderPrev;
+    OrderNode traderNext;
+    int slot;
+    int filledVolume;
+
+    OrderNode(PricedOrder order, PriceLevel level) {
+        this.order = order;
+        this.level = level;
+    }
+}
@@ -0,0 +1,24 @@
+package market;
+
+import java.util.UUID;
+
+import market.matching.OrderStatus;
+import market.orders.OrderSide;
+
+/**
+ * A point in time view of a resting order and where it sits in the queue at its price, or the final state of an order that
+ * has finished. A finished order has no volume left and nothing ahead of it
+ * @param orderId the id of the order
+ * @param traderId the id of the trader who placed the order
+ * @param side the side the order rests on
+ * @param price the price the order rests at, or NaN for a market order
+ * @param displayedVolume the volume shown in the book
+ * @param remainingVolume the volume left to fill, including any iceberg reserve
+ * @param filledVolume the volume filled so far, both on arrival and while resting
+ * @param status ALL_RESTING if nothing has been filled, otherwise PARTIAL_RESTING. An order that has finished is FILLED,
+ * CANCELLED or EXPIRED, or ALL_REJECTED or PARTIAL_REJECTION if it was refused all or the rest of its volume on arrival
+ * @param ordersAhead the number of orders at the same price that will be filled first
+ * @param volumeAhead the displayed volume of the orders ahead
+ */
+public record OrderState(UUID orderId, UUID traderId, OrderSide side, double price, int displayedVolume, int remainingVolume,
+    int filledVolume, OrderStatus status, int ordersAhead, long volumeAhead) {}
@@ -0,0 +1,219 @@
+package market;
+
+import java.util.Arrays;
+
+/**
+ * All resting orders at a single price on one side of the book, in time priority, along with running totals.
+ *
+ * Orders are held in an intrusive doubly linked list of nodes so an order can be removed, or moved to the back of the level
+ * when an iceberg refills, in O(1).
+ *
+ * Each node also holds a slot number that increases from the front of the level to the back, and a Fenwick tree over the
+ * slots keeps the number of orders and displayed volume in every prefix of the queue. This answers how far an order is from
+ * the front in O(log(n)) without walking the level. Orders join at the back so slots are handed out in order, and the slots
+ * are only renumbered when they run out or an order has to be placed in the middle of the queue
+ */
+class PriceLevel {
+    private static final int MIN_SLOTS = 16;
+
+    private final double price;
+    private int volume;
+    private int hiddenVolume;
+    private int orderCount;
+    private OrderNode head;
+    private OrderNode tail;
+
+    // Fenwick trees indexed by slot, from 1
+    private int[] countTree = new int[MIN_SLOTS + 1];
+    private long[] volumeTree = new long[MIN_SLOTS + 1];
+    private int nextSlot = 1;
+
+    PriceLevel(double price) {
+        this.price = price;
+    }
+
+    double getPrice() {
+        return price;
+    }
+
+    /**
+     * @return the displayed volume at this price
+     */
+    int getVolume() {
+        return volume;
+    }
+
+    /**
+     * @return the volume held back in iceberg reserves at this price
+     */
+    int getHiddenVolume() {
+        return hiddenVolume;
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    boolean isEmpty() {
+        return orderCount == 0;
+    }
+
+    /**
+     * @return the order with the highest time priority, or null if the level is empty
+     */
+    OrderNode getHead() {
+        return head;
+    }
+
+    /**
+     * @return the number of orders ahead of a node in this level
+     */
+    int getOrdersAhead(OrderNode node) {
+        int count = 0;
+        for (int i = node.slot - 1; i > 0; i -= i & -i) {
+            count += countTree[i];
+        }
+        return count;
+    }
+
+    /**
+     * @return the displayed volume of the orders ahead of a node in this level
+     */
+    long getVolumeAhead(OrderNode node) {
+        long ahead = 0;
+        for (int i = node.slot - 1; i > 0; i -= i & -i) {
+            ahead += volumeTree[i];
+        }
+        return ahead;
+    }
+
+    /**
+     * Record a change in the volume of one of the level's orders. Must be called for every change to a resting order's
+     * volume so the totals and queue counters stay in step with the orders
+     */
+    void addVolume(OrderNode node, int volumeDelta, int hiddenDelta) {
+        volume += volumeDelta;
+        hiddenVolume += hiddenDelta;
+        updateSlot(node.slot, 0, volumeDelta);
+    }
+
+    /**
+     * Add a node in time priority. Orders almost always arrive in time order, so this walks back from the tail and is usually
+     * O(1)
+     */
+    void insert(OrderNode node, int hidden) {
+        OrderNode after = tail;
+        while (after != null && after.order.getTimestamp().isAfter(node.order.getTimestamp())) {
+            after = after.prev;
+        }
+
+        link(node, after);
+        orderCount++;
+        volume += node.order.getVolume();
+        hiddenVolume += hidden;
+        assignSlot(node);
+    }
+
+    void remove(OrderNode node, int hidden) {
+        updateSlot(node.slot, -1, -node.order.getVolume());
+        unlink(node);
+        orderCount--;
+        volume -= node.order.getVolume();
+        hiddenVolume -= hidden;
+    }
+
+    /**
+     * Give a node the lowest time priority at this price without changing the totals
+     */
+    void moveToBack(OrderNode node) {
+        if (node == tail) {
+            return;
+        }
+
+        updateSlot(node.slot, -1, -node.order.getVolume());
+        unlink(node);
+        link(node, tail);
+        assignSlot(node);
+    }
+
+    /**
+     * Give a newly linked node a slot and count it, renumbering every slot if it isn't at the back or the slots have run out
+     */
+    private void assignSlot(OrderNode node) {
+        if (node == tail && nextSlot < countTree.length) {
+            node.slot = nextSlot++;
+            updateSlot(node.slot, 1, node.order.getVolume());
+        } else {
+            renumber();
+        }
+    }
+
+    /**
+     * Number the nodes from the front and rebuild the trees in O(n), leaving as many free slots as there are orders
+     */
+    private void renumber() {
+        int slots = Math.max(MIN_SLOTS, orderCount * 2);
+        if (slots + 1 != countTree.length) {
+            countTree = new int[slots + 1];
+            volumeTree = new long[slots + 1];
+        } else {
+            Arrays.fill(countTree, 0);
+            Arrays.fill(volumeTree, 0);
+        }
+
+        int slot = 1;
+        for (OrderNode node = head; node != null; node = node.next) {
+            node.slot = slot;
+            countTree[slot] = 1;
+            volumeTree[slot] = node.order.getVolume();
+            slot++;
+        }
+        nextSlot = slot;
+
+        // Standard linear Fenwick build, each entry pushes its partial sum up to its parent
+        for (int i = 1; i < countTree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < countTree.length) {
+                countTree[parent] += countTree[i];
+                volumeTree[parent] += volumeTree[i];
+            }
+        }
+    }
+
+    private void updateSlot(int slot, int countDelta, long volumeDelta) {
+        for (int i = slot; i < countTree.length; i += i & -i) {
+            countTree[i] += countDelta;
+            volumeTree[i] += volumeDelta;
+        }
+    }
+
+    private void link(OrderNode node, OrderNode after) {
+        node.prev = after;
+        node.next = after == null ? head : after.next;
+        if (node.next == null) {
+            tail = node;
+        } else {
+            node.next.prev = node;
+        }
+        if (after == null) {
+            head = node;
+        } else {
+            after.next = node;
+        }
+    }
+
+    private void unlink(OrderNode node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
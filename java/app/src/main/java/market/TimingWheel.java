@@ -0,0 +1,179 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel for scheduling large numbers of deadlines.
+ * 
+ * Time is counted in ticks. The wheel has several levels of 64 slots, each slot on a level spanning 64 times as many ticks as
+ * a slot on the level below. An item is put on the lowest level whose span covers the distance to its deadline, so scheduling
+ * is O(1). As time advances the items in the next slot of a higher level cascade down to the levels below, and items on the
+ * lowest level are fired a whole slot at a time. Stretches of time with nothing scheduled are skipped rather than ticked
+ * through. Deadlines beyond the top level wait in an overflow list until they come into range.
+ * 
+ * Items can't be unscheduled. Owners that cancel work should check an item is still live when it fires
+ * @param <T> the type of item scheduled
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots = new ArrayList<>();
+    private final int[] levelSizes = new int[LEVELS];
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final List<Entry<T>> cascadeScratch = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    private record Entry<T>(long deadlineTick, T item) {}
+
+    /**
+     * @param tickMillis the length of a tick in milliseconds. Items fire on the first advance to a time in or after the tick
+     * holding their deadline
+     * @param startMillis the current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive");
+        }
+
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Schedule an item. Items with a deadline that has already passed fire on the next advance
+     * @param deadlineMillis the deadline in milliseconds
+     * @param item the item to fire at the deadline
+     */
+    public void schedule(long deadlineMillis, T item) {
+        place(new Entry<>(Math.max(Math.floorDiv(deadlineMillis, tickMillis), currentTick), item));
+        size++;
+    }
+
+    /**
+     * Move time forward, firing every item whose deadline has been reached
+     * @param nowMillis the current time in milliseconds
+     * @param fired the list the fired items are appended to, in deadline order
+     */
+    public void advance(long nowMillis, List<T> fired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        // The current tick's slot may hold items scheduled at or before it
+        fireSlot(fired);
+
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+
+            // Skip to the end of the run of ticks covered by empty levels
+            int emptyLevels = 0;
+            while (emptyLevels < LEVELS && levelSizes[emptyLevels] == 0) {
+                emptyLevels++;
+            }
+            long runEnd = currentTick | ((1L << (SLOT_BITS * emptyLevels)) - 1);
+            currentTick = Math.min(runEnd, targetTick - 1) + 1;
+
+            cascade();
+            fireSlot(fired);
+        }
+    }
+
+    /**
+     * Remove every scheduled item
+     */
+    public void clear() {
+        for (List<Entry<T>> slot : slots) {
+            slot.clear();
+        }
+        overflow.clear();
+        Arrays.fill(levelSizes, 0);
+        size = 0;
+    }
+
+    /**
+     * Reset the wheel to a new time, removing every scheduled item
+     * @param nowMillis the current time in milliseconds
+     */
+    public void reset(long nowMillis) {
+        clear();
+        currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    private void place(Entry<T> entry) {
+        long diff = entry.deadlineTick() ^ currentTick;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        if (level >= LEVELS) {
+            overflow.add(entry);
+            return;
+        }
+
+        int slot = (int) (entry.deadlineTick() >>> (SLOT_BITS * level)) & SLOT_MASK;
+        slots.get(level * SLOTS + slot).add(entry);
+        levelSizes[level]++;
+    }
+
+    /**
+     * Move the items of every higher level slot that the current tick has just entered down to the levels below
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            long lowerBits = currentTick & ((1L << (SLOT_BITS * level)) - 1);
+            if (lowerBits != 0) {
+                return;
+            }
+
+            int slot = (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+            List<Entry<T>> entries = slots.get(level * SLOTS + slot);
+            if (!entries.isEmpty()) {
+                cascadeScratch.addAll(entries);
+                levelSizes[level] -= entries.size();
+                entries.clear();
+                for (Entry<T> entry : cascadeScratch) {
+                    place(entry);
+                }
+                cascadeScratch.clear();
+            }
+        }
+
+        if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            cascadeScratch.addAll(overflow);
+            overflow.clear();
+            for (Entry<T> entry : cascadeScratch) {
+                place(entry);
+            }
+            cascadeScratch.clear();
+        }
+    }
+
+    private void fireSlot(List<T> fired) {
+        List<Entry<T>> entries = slots.get((int) currentTick & SLOT_MASK);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        for (Entry<T> entry : entries) {
+            fired.add(entry.item());
+        }
+        levelSizes[0] -= entries.size();
+        size -= entries.size();
+        entries.clear();
+    }
+}
@@ -0,0 +1,94 @@
+package market;
+
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import market.orders.OrderSide;
+
+/**
+ * The default order book, with the resting orders of each side in a sorted map.
+ *
+ * Each side is a sorted map of price levels, best price first, so finding, adding or removing a level is O(log(n)) in the
+ * number of levels on the side, for any spread of prices. The best level of each side is cached so reading the best order is
+ * O(1)
+ */
+public class TreeOrderBook extends AbstractOrderBook {
+    private final NavigableMap<Double, PriceLevel> bidLevels = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Double, PriceLevel> offerLevels = new TreeMap<>();
+
+    private PriceLevel bestBidLevel;
+    private PriceLevel bestOfferLevel;
+
+    public TreeOrderBook() {
+        this(BookDepthView.DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param publishedDepth the number of levels per side that are published to concurrent readers
+     */
+    public TreeOrderBook(int publishedDepth) {
+        super(publishedDepth);
+    }
+
+    @Override
+    PriceLevel getLevel(OrderSide side, double price) {
+        return getLevelsOfSide(side).get(price);
+    }
+
+    @Override
+    PriceLevel createLevel(OrderSide side, double price) {
+        NavigableMap<Double, PriceLevel> levels = getLevelsOfSide(side);
+        PriceLevel level = new PriceLevel(price);
+        levels.put(price, level);
+
+        if (levels.firstKey() == price) {
+            setBestLevel(side, level);
+        }
+
+        return level;
+    }
+
+    @Override
+    void removeLevel(OrderSide side, PriceLevel level) {
+        NavigableMap<Double, PriceLevel> levels = getLevelsOfSide(side);
+        levels.remove(level.getPrice());
+        if (getBestLevel(side) == level) {
+            setBestLevel(side, levels.isEmpty() ? null : levels.firstEntry().getValue());
+        }
+    }
+
+    @Override
+    PriceLevel getBestLevel(OrderSide side) {
+        return side == OrderSide.BUY ? bestBidLevel : bestOfferLevel;
+    }
+
+    @Override
+    Iterable<PriceLevel> getLevels(OrderSide side) {
+        return getLevelsOfSide(side).values();
+    }
+
+    @Override
+    void clearLevels() {
+        bidLevels.clear();
+        offerLevels.clear();
+        bestBidLevel = null;
+        bestOfferLevel = null;
+    }
+
+    private void setBestLevel(OrderSide side, PriceLevel level) {
+        if (side == OrderSide.BUY) {
+            bestBidLevel = level;
+        } else {
+            bestOfferLevel = level;
+        }
+    }
+
+    private NavigableMap<Double, PriceLevel> getLevelsOfSide(OrderSide side) {
+        return switch (side) {
+            case BUY -> bidLevels;
+            case SELL -> offerLevels;
+            default -> throw new IllegalArgumentException("Order side '" + side.toString() + "' is not known");
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package market;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderValidator;
+import market.orders.StopOrder;
+
+/**
+ * Holds stop orders waiting for their trigger price, indexed by trigger price on each side so a trade only ever visits the
+ * stops it triggers.
+ * 
+ * Buy stops are kept in ascending trigger price and sell stops in descending trigger price, so on both sides the stops
+ * nearest the market come first and a trade at price p triggers a prefix of each side. Stops at the same trigger price keep
+ * their arrival order. Finding the triggered stops is O(log n + k) for k triggered stops, and cancelling a stop is O(log n).
+ */
+public class TriggerBook {
+    private final NavigableMap<Double, LinkedHashMap<UUID, StopOrder>> buyStops = new TreeMap<>();
+    private final NavigableMap<Double, LinkedHashMap<UUID, StopOrder>> sellStops = new TreeMap<>(Comparator.reverseOrder());
+    private final Map<UUID, StopOrder> stopsById = new HashMap<>();
+
+    public boolean isEmpty() {
+        return stopsById.isEmpty();
+    }
+
+    public int getNumStops() {
+        return stopsById.size();
+    }
+
+    public StopOrder getStop(UUID orderId) {
+        return stopsById.get(orderId);
+    }
+
+    /**
+     * Add a stop to wait for its trigger price
+     * @param stop the stop to add
+     */
+    public void insertStop(StopOrder stop) {
+        stopsById.put(stop.getOrderId(), stop);
+        getStopsOfSide(stop.getSide())
+            .computeIfAbsent(stop.getTriggerPrice(), p -> new LinkedHashMap<>())
+            .put(stop.getOrderId(), stop);
+    }
+
+    /**
+     * Remove a waiting stop
+     * @param orderId the id of the stop to cancel
+     * @param side the side of the stop
+     * @return true if the stop was waiting and has been cancelled, else false
+     */
+    public boolean cancelStop(UUID orderId, OrderSide side) {
+        StopOrder stop = stopsById.get(orderId);
+        if (stop == null || stop.getSide() != side) {
+            return false;
+        }
+
+        stopsById.remove(orderId);
+        NavigableMap<Double, LinkedHashMap<UUID, StopOrder>> stops = getStopsOfSide(side);
+        LinkedHashMap<UUID, StopOrder> level = stops.get(stop.getTriggerPrice());
+        level.remove(orderId);
+        if (level.isEmpty()) {
+            stops.remove(stop.getTriggerPrice());
+        }
+
+        return true;
+    }
+
+    /**
+     * Change the volume of a waiting stop, keeping its place among stops at the same trigger price
+     * @param orderId the id of the stop to amend
+     * @param side the side of the stop
+     * @param newVolume the new volume of the stop
+     * @return true if the stop was waiting and has been amended, false if it was not waiting or the new volume is invalid
+     */
+    public boolean amendStopVolume(UUID orderId, OrderSide side, int newVolume) {
+        StopOrder stop = stopsById.get(orderId);
+        if (!OrderValidator.isValidVolume(newVolume) || stop == null || stop.getSide() != side) {
+            return false;
+        }
+
+        stop.setVolume(newVolume);
+        return true;
+    }
+
+    /**
+     * Remove every stop triggered by trades in a price range. Buy stops are taken first, nearest the market first, then sell
+     * stops in the same way. Stops at the same trigger price are taken in arrival order
+     * @param lowPrice the lowest price traded
+     * @param highPrice the highest price traded
+     * @param triggered the list the triggered stops are appended to
+     */
+    public void pollTriggered(double lowPrice, double highPrice, List<StopOrder> triggered) {
+        pollSide(buyStops, highPrice, triggered);
+        pollSide(sellStops, lowPrice, triggered);
+    }
+
+    /**
+     * Remove every waiting stop
+     */
+    public void clear() {
+        buyStops.clear();
+        sellStops.clear();
+        stopsById.clear();
+    }
+
+    private void pollSide(NavigableMap<Double, LinkedHashMap<UUID, StopOrder>> stops, double price,
+            List<StopOrder> triggered) {
+        while (!stops.isEmpty()) {
+            Map.Entry<Double, LinkedHashMap<UUID, StopOrder>> nearest = stops.firstEntry();
+            if (!nearest.getValue().values().iterator().next().isTriggeredBy(price)) {
+                return;
+            }
+
+            stops.pollFirstEntry();
+            for (StopOrder stop : nearest.getValue().values()) {
+                stopsById.remove(stop.getOrderId());
+                triggered.add(stop);
+            }
+        }
+    }
+
+    private NavigableMap<Double, LinkedHashMap<UUID, StopOrder>> getStopsOfSide(OrderSide side) {
+        return switch (side) {
+            case BUY -> buyStops;
+            case SELL -> sellStops;
+            default -> throw new IllegalArgumentException("Order side '" + side.toString() + "' is not known");
+        };
+    }
+}
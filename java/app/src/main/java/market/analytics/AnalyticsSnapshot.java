@@ -0,0 +1,19 @@
+package market.analytics;
+
+import java.util.List;
+
+/**
+ * A consistent copy of the running market statistics
+ * @param version increases every time the statistics change
+ * @param tradeCount the number of trades this session
+ * @param sessionVolume the volume traded this session
+ * @param sessionVwap the volume weighted average price this session, or NaN if nothing has traded
+ * @param rollingVolume the volume traded within the rolling window
+ * @param rollingVwap the volume weighted average price within the rolling window, or NaN if nothing traded in it
+ * @param lastPrice the price of the most recent trade, or NaN if nothing has traded
+ * @param imbalance the top of book imbalance between -1 (only offers) and 1 (only bids), or NaN if the book is empty
+ * @param currentBars the bar being built for each interval, in the order the intervals were given, or null for an interval
+ *        with no trades yet
+ */
+public record AnalyticsSnapshot(long version, long tradeCount, long sessionVolume, double sessionVwap, long rollingVolume,
+    double rollingVwap, double lastPrice, double imbalance, List<Bar> currentBars) {}
@@ -0,0 +1,23 @@
+package market.analytics;
+
+/**
+ * Open, high, low, close and volume of the trades in one time interval
+ * @param startMillis the start of the interval in milliseconds since the epoch
+ * @param intervalMillis the length of the interval
+ * @param open the price of the first trade
+ * @param high the highest trade price
+ * @param low the lowest trade price
+ * @param close the price of the last trade
+ * @param volume the total volume traded
+ * @param notional the total of price times volume over every trade
+ */
+public record Bar(long startMillis, long intervalMillis, double open, double high, double low, double close, long volume,
+    double notional) {
+
+    /**
+     * @return the volume weighted average price of the interval
+     */
+    public double getVwap() {
+        return notional / volume;
+    }
+}
@@ -0,0 +1,354 @@
+package market.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import market.OrderBook;
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.orders.OrderSide;
+import market.trader.MatchSubscriber;
+
+/**
+ * Running market statistics kept up to date from match results: OHLCV bars at any number of intervals, session and rolling
+ * VWAP, traded volume and top of book imbalance.
+ *
+ * Statistics are updated on the matching engine's thread in O(1) per trade (amortised for the rolling window) without
+ * looking back over earlier results. Like BookDepthView, any other thread may read them through optimistic (seqlock style)
+ * stamps, so readers never block the engine and never see a half applied trade. The imbalance is read from the book after
+ * each result, so it does not reflect cancels made since the last result
+ */
+public class MarketAnalytics implements MatchSubscriber {
+    private static final int INITIAL_WINDOW_CAPACITY = 64;
+
+    private final StampedLock lock = new StampedLock();
+    private final OrderBook book;
+    private final Clock clock;
+    private final long rollingWindowMillis;
+    private final BarSeries[] series;
+
+    // Trades still inside the rolling window, oldest first, in a ring that grows when full. Only touched by the writer
+    private long[] windowTimes = new long[INITIAL_WINDOW_CAPACITY];
+    private double[] windowNotionals = new double[INITIAL_WINDOW_CAPACITY];
+    private int[] windowVolumes = new int[INITIAL_WINDOW_CAPACITY];
+    private int windowHead;
+    private int windowSize;
+
+    private long tradeCount;
+    private long sessionVolume;
+    private double sessionNotional;
+    private long rollingVolume;
+    private double rollingNotional;
+    private double lastPrice = Double.NaN;
+    private double imbalance = Double.NaN;
+    private long version;
+
+    /**
+     * @param book the book to measure the top of book imbalance of
+     * @param clock the clock trades are timed by, normally the matching engine's clock
+     * @param rollingWindow the length of the rolling VWAP window
+     * @param barHistory the number of bars kept per interval, including the one being built
+     * @param barIntervals the intervals to build bars at
+     */
+    public MarketAnalytics(OrderBook book, Clock clock, Duration rollingWindow, int barHistory, Duration... barIntervals) {
+        if (rollingWindow.toMillis() <= 0) {
+            throw new IllegalArgumentException("Rolling window must be at least one millisecond");
+        }
+        if (barHistory <= 0) {
+            throw new IllegalArgumentException("Must keep at least one bar per interval");
+        }
+
+        this.book = book;
+        this.clock = clock;
+        this.rollingWindowMillis = rollingWindow.toMillis();
+        this.series = new BarSeries[barIntervals.length];
+        for (int i = 0; i < barIntervals.length; i++) {
+            if (barIntervals[i].toMillis() <= 0) {
+                throw new IllegalArgumentException("Bar interval must be at least one millisecond");
+            }
+            series[i] = new BarSeries(barIntervals[i].toMillis(), barHistory);
+        }
+    }
+
+    @Override
+    public void notifyOfMatch(MatchResult matchRes) {
+        // Uncross trades are reported to both of their orders, so are only counted from the buy side
+        boolean countTrades = !(MatchingEngine.UNCROSS_NOTE.equals(matchRes.getNote())
+            && matchRes.getSide() == OrderSide.SELL);
+        List<Trade> trades = countTrades ? matchRes.getTrades() : List.of();
+        long now = clock.millis();
+        int bidVolume = book.getBestBidVolume();
+        int offerVolume = book.getBestOfferVolume();
+
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < trades.size(); i++) {
+                addTrade(now, trades.get(i));
+            }
+            expireWindow(now);
+            imbalance = bidVolume + offerVolume == 0 ? Double.NaN
+                : (double) (bidVolume - offerVolume) / (bidVolume + offerVolume);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forget every trade, e.g. at the start of a new session. Only the engine's thread may call this
+     */
+    public void resetSession() {
+        long stamp = lock.writeLock();
+        try {
+            for (BarSeries s : series) {
+                s.clear();
+            }
+            windowHead = 0;
+            windowSize = 0;
+            tradeCount = 0;
+            sessionVolume = 0;
+            sessionNotional = 0;
+            rollingVolume = 0;
+            rollingNotional = 0;
+            lastPrice = Double.NaN;
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the bar intervals, in the order they were given
+     */
+    public List<Duration> getIntervals() {
+        List<Duration> intervals = new ArrayList<>(series.length);
+        for (BarSeries s : series) {
+            intervals.add(Duration.ofMillis(s.intervalMillis));
+        }
+        return intervals;
+    }
+
+    /**
+     * Take a consistent copy of the statistics. Safe to call from any thread and never blocks the writer
+     * @return the snapshot
+     */
+    public AnalyticsSnapshot snapshot() {
+        double[][] bars = new double[series.length][];
+        long tc;
+        long sv;
+        double sn;
+        long rv;
+        double rn;
+        double lp;
+        double imb;
+        long ver;
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                // The writer is mid update
+                Thread.onSpinWait();
+                continue;
+            }
+
+            tc = tradeCount;
+            sv = sessionVolume;
+            sn = sessionNotional;
+            rv = rollingVolume;
+            rn = rollingNotional;
+            lp = lastPrice;
+            imb = imbalance;
+            ver = version;
+            for (int i = 0; i < series.length; i++) {
+                bars[i] = series[i].copyLatest();
+            }
+
+            if (lock.validate(stamp)) {
+                break;
+            }
+        }
+
+        List<Bar> currentBars = new ArrayList<>(series.length);
+        for (int i = 0; i < series.length; i++) {
+            currentBars.add(bars[i] == null ? null : series[i].toBar(bars[i]));
+        }
+        return new AnalyticsSnapshot(ver, tc, sv, sv == 0 ? Double.NaN : sn / sv, rv, rv == 0 ? Double.NaN : rn / rv, lp, imb,
+            currentBars);
+    }
+
+    /**
+     * Take a consistent copy of the kept bars of one interval. Safe to call from any thread and never blocks the writer
+     * @param interval the index of the interval, in the order the intervals were given
+     * @return the bars, oldest first, ending with the bar being built
+     */
+    public List<Bar> getBars(int interval) {
+        BarSeries s = series[interval];
+        double[][] copy;
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            copy = s.copyAll();
+            if (lock.validate(stamp)) {
+                break;
+            }
+        }
+
+        List<Bar> bars = new ArrayList<>(copy.length);
+        for (double[] bar : copy) {
+            bars.add(s.toBar(bar));
+        }
+        return bars;
+    }
+
+    private void addTrade(long now, Trade trade) {
+        double notional = trade.price() * trade.volume();
+        tradeCount++;
+        sessionVolume += trade.volume();
+        sessionNotional += notional;
+        rollingVolume += trade.volume();
+        rollingNotional += notional;
+        lastPrice = trade.price();
+
+        for (BarSeries s : series) {
+            s.add(now, trade.price(), trade.volume());
+        }
+
+        if (windowSize == windowTimes.length) {
+            growWindow();
+        }
+        int tail = (windowHead + windowSize) % windowTimes.length;
+        windowTimes[tail] = now;
+        windowNotionals[tail] = notional;
+        windowVolumes[tail] = trade.volume();
+        windowSize++;
+    }
+
+    private void expireWindow(long now) {
+        long cutoff = now - rollingWindowMillis;
+        while (windowSize > 0 && windowTimes[windowHead] <= cutoff) {
+            rollingVolume -= windowVolumes[windowHead];
+            rollingNotional -= windowNotionals[windowHead];
+            windowHead = (windowHead + 1) % windowTimes.length;
+            windowSize--;
+        }
+
+        if (windowSize == 0) {
+            // Stops rounding errors in the running notional building up across windows
+            rollingNotional = 0;
+        }
+    }
+
+    private void growWindow() {
+        int capacity = windowTimes.length * 2;
+        long[] times = new long[capacity];
+        double[] notionals = new double[capacity];
+        int[] volumes = new int[capacity];
+        for (int i = 0; i < windowSize; i++) {
+            int from = (windowHead + i) % windowTimes.length;
+            times[i] = windowTimes[from];
+            notionals[i] = windowNotionals[from];
+            volumes[i] = windowVolumes[from];
+        }
+
+        windowTimes = times;
+        windowNotionals = notionals;
+        windowVolumes = volumes;
+        windowHead = 0;
+    }
+
+    /**
+     * A ring of the most recent bars at one interval, with the bar being built last. Held as primitive columns so a trade
+     * allocates nothing
+     */
+    private static class BarSeries {
+        private final long intervalMillis;
+        private final long[] starts;
+        private final double[] opens;
+        private final double[] highs;
+        private final double[] lows;
+        private final double[] closes;
+        private final long[] volumes;
+        private final double[] notionals;
+        private int head;
+        private int count;
+
+        private BarSeries(long intervalMillis, int capacity) {
+            this.intervalMillis = intervalMillis;
+            this.starts = new long[capacity];
+            this.opens = new double[capacity];
+            this.highs = new double[capacity];
+            this.lows = new double[capacity];
+            this.closes = new double[capacity];
+            this.volumes = new long[capacity];
+            this.notionals = new double[capacity];
+        }
+
+        private void add(long now, double price, int volume) {
+            long start = now - Math.floorMod(now, intervalMillis);
+            int last = index(count - 1);
+            if (count == 0 || start > starts[last]) {
+                if (count == starts.length) {
+                    head = (head + 1) % starts.length;
+                    count--;
+                }
+                last = index(count);
+                count++;
+                starts[last] = start;
+                opens[last] = price;
+                highs[last] = price;
+                lows[last] = price;
+                volumes[last] = 0;
+                notionals[last] = 0;
+            }
+
+            highs[last] = Math.max(highs[last], price);
+            lows[last] = Math.min(lows[last], price);
+            closes[last] = price;
+            volumes[last] += volume;
+            notionals[last] += price * volume;
+        }
+
+        private void clear() {
+            head = 0;
+            count = 0;
+        }
+
+        private int index(int i) {
+            return Math.floorMod(head + i, starts.length);
+        }
+
+        /**
+         * Copy the fields of the bar being built, or return null if there are no bars. The copy may be torn, so it must be
+         * validated before use
+         */
+        private double[] copyLatest() {
+            return count == 0 ? null : copy(index(count - 1));
+        }
+
+        private double[][] copyAll() {
+            // count is read once as a torn read could otherwise index past the bars
+            int n = Math.min(count, starts.length);
+            double[][] bars = new double[n][];
+            for (int i = 0; i < n; i++) {
+                bars[i] = copy(index(i));
+            }
+            return bars;
+        }
+
+        private double[] copy(int i) {
+            return new double[] {starts[i], opens[i], highs[i], lows[i], closes[i], volumes[i], notionals[i]};
+        }
+
+        private Bar toBar(double[] bar) {
+            return new Bar((long) bar[0], intervalMillis, bar[1], bar[2], bar[3], bar[4], (long) bar[5], bar[6]);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package market.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import market.Trade;
+import market.matching.MatchResult;
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.PricedOrder;
+import market.orders.StopLimitOrder;
+import market.orders.StopMarketOrder;
+import market.orders.StopOrder;
+
+/**
+ * Schema of the binary codec for orders, match results and trades, for journals, transports and IPC channels.
+ *
+ * Every frame starts with an 8 byte header (i32 frame length including the header, u8 template id, u8 schema version, u16
+ * block length) followed by a block of fixed fields whose layout is set by the template. A match result is followed by a
+ * group of trades, each in a fixed size entry, then its note in UTF-8. Ids are written as their two halves, times as
+ * nanoseconds since the epoch in UTC, and enums as their codes, so nothing is boxed or parsed. All fields are little endian
+ * and are read and written in place with absolute gets and puts, so frames are never copied in or out of their buffer.
+ *
+ * A later version of the schema may only add fields to the end of a block. Decoders find the trade group and note after the
+ * block length written in the frame rather than the one they know, so a decoder reads the fields it knows from frames of any
+ * later version and skips the rest.
+ *
+ * <pre>
+ * TRADE         offerIdMsb i64 @8, offerIdLsb i64 @16, bidIdMsb i64 @24, bidIdLsb i64 @32, price f64 @40, volume i32 @48
+ *                                                                                                             52 bytes
+ * ORDER         orderIdMsb i64 @8, orderIdLsb i64 @16, traderIdMsb i64 @24, traderIdLsb i64 @32, timestamp i64 @40,
+ *               price f64 @48, triggerPrice f64 @56, expiry i64 @64, volume i32 @72, displayVolume i32 @76,
+ *               kind u8 @80, side u8 @81, timeInForce u8 @82                                                  84 bytes
+ * MATCH_RESULT  orderIdMsb i64 @8, orderIdLsb i64 @16, traderIdMsb i64 @24, traderIdLsb i64 @32, timestamp i64 @40,
+ *               avgPrice f64 @48, filledVolume i32 @56, remainingVolume i32 @60, side u8 @64, status u8 @65,
+ *               rejectReason u8 @66, tradeCount i32 @68, noteLength u16 @72                                   76 bytes
+ *               then per trade: offerIdMsb i64 @0, offerIdLsb i64 @8, bidIdMsb i64 @16, bidIdLsb i64 @24, price f64 @32,
+ *               volume i32 @40                                                                                44 bytes
+ *               then noteLength bytes of note
+ * </pre>
+ *
+ * Orders carry the fields of every kind of order, with those a kind doesn't have left 0: a price for all but market and stop
+ * market orders, a trigger price for stops, a display volume for icebergs. The volume of an iceberg is its total volume. An
+ * order with no expiry has an expiry of Long.MIN_VALUE, a missing id is all zeros and a missing enum has the code -1
+ */
+public final class MarketCodec {
+    private MarketCodec() {};
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final byte VERSION = 1;
+
+    public static final int HEADER_LENGTH = 8;
+
+    public static final byte TRADE = 1;
+    public static final byte ORDER = 2;
+    public static final byte MATCH_RESULT = 3;
+
+    public static final int TRADE_BLOCK_LENGTH = 44;
+    public static final int ORDER_BLOCK_LENGTH = 76;
+    public static final int MATCH_RESULT_BLOCK_LENGTH = 68;
+    public static final int TRADE_LENGTH = HEADER_LENGTH + TRADE_BLOCK_LENGTH;
+    public static final int ORDER_LENGTH = HEADER_LENGTH + ORDER_BLOCK_LENGTH;
+    public static final int TRADE_ENTRY_LENGTH = 44;
+    public static final int MAX_NOTE_LENGTH = 0xFFFF;
+
+    // Order kinds
+    public static final byte MARKET = 0;
+    public static final byte LIMIT = 1;
+    public static final byte FOK = 2;
+    public static final byte IOC = 3;
+    public static final byte ICEBERG = 4;
+    public static final byte STOP_MARKET = 5;
+    public static final byte STOP_LIMIT = 6;
+
+    public static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    // Header offsets from the start of the frame
+    public static final int LENGTH_OFFSET = 0;
+    public static final int TEMPLATE_OFFSET = 4;
+    public static final int VERSION_OFFSET = 5;
+    public static final int BLOCK_LENGTH_OFFSET = 6;
+
+    // Trade offsets from the start of the frame, or of the entry in a match result
+    public static final int OFFER_ID_OFFSET = 0;
+    public static final int BID_ID_OFFSET = 16;
+    public static final int TRADE_PRICE_OFFSET = 32;
+    public static final int TRADE_VOLUME_OFFSET = 40;
+
+    // Order and match result offsets from the start of the frame
+    public static final int ORDER_ID_OFFSET = 8;
+    public static final int TRADER_ID_OFFSET = 24;
+    public static final int TIMESTAMP_OFFSET = 40;
+    public static final int PRICE_OFFSET = 48;
+    public static final int TRIGGER_PRICE_OFFSET = 56;
+    public static final int EXPIRY_OFFSET = 64;
+    public static final int VOLUME_OFFSET = 72;
+    public static final int DISPLAY_VOLUME_OFFSET = 76;
+    public static final int KIND_OFFSET = 80;
+    public static final int ORDER_SIDE_OFFSET = 81;
+    public static final int TIME_IN_FORCE_OFFSET = 82;
+    public static final int AVG_PRICE_OFFSET = 48;
+    public static final int FILLED_VOLUME_OFFSET = 56;
+    public static final int REMAINING_VOLUME_OFFSET = 60;
+    public static final int RESULT_SIDE_OFFSET = 64;
+    public static final int STATUS_OFFSET = 65;
+    public static final int REJECT_REASON_OFFSET = 66;
+    public static final int TRADE_COUNT_OFFSET = 68;
+    public static final int NOTE_LENGTH_OFFSET = 72;
+
+    /**
+     * Check that a frame is whole and well formed before decoding it, without throwing, so frames from an untrusted source can
+     * be dropped cheaply. A decoder wrapped around a checked frame never reads outside it
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @param limit the end of the readable bytes
+     * @return the template id of the frame, or 0 if the frame is incomplete, malformed or of an unknown template
+     */
+    public static byte check(ByteBuffer buf, int offset, int limit) {
+        if (offset < 0 || limit > buf.limit() || limit - offset < HEADER_LENGTH || buf.order() != BYTE_ORDER) {
+            return 0;
+        }
+
+        int length = buf.getInt(offset + LENGTH_OFFSET);
+        byte template = buf.get(offset + TEMPLATE_OFFSET);
+        int version = buf.get(offset + VERSION_OFFSET);
+        int blockLength = buf.getShort(offset + BLOCK_LENGTH_OFFSET) & 0xFFFF;
+        if (length < HEADER_LENGTH || length > limit - offset || version < 1 || HEADER_LENGTH + blockLength > length) {
+            return 0;
+        }
+
+        return switch (template) {
+            case TRADE -> blockLength >= TRADE_BLOCK_LENGTH ? TRADE : 0;
+            case ORDER -> blockLength >= ORDER_BLOCK_LENGTH ? ORDER : 0;
+            case MATCH_RESULT -> {
+                if (blockLength < MATCH_RESULT_BLOCK_LENGTH) {
+                    yield 0;
+                }
+                long tradeCount = buf.getInt(offset + TRADE_COUNT_OFFSET);
+                int noteLength = buf.getShort(offset + NOTE_LENGTH_OFFSET) & 0xFFFF;
+                boolean fits = tradeCount >= 0
+                    && HEADER_LENGTH + blockLength + tradeCount * TRADE_ENTRY_LENGTH + noteLength <= length;
+                yield fits ? MATCH_RESULT : 0;
+            }
+            default -> 0;
+        };
+    }
+
+    /**
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return the length of the frame in bytes, including the header
+     */
+    public static int frameLength(ByteBuffer buf, int offset) {
+        return buf.getInt(offset + LENGTH_OFFSET);
+    }
+
+    /**
+     * @param buf the buffer to write into, in BYTE_ORDER
+     * @param offset the offset to write the frame at
+     * @param trade the trade
+     * @return the length of the frame
+     */
+    public static int encodeTrade(ByteBuffer buf, int offset, Trade trade) {
+        return encodeTrade(buf, offset, trade.offerId().getMostSignificantBits(), trade.offerId().getLeastSignificantBits(),
+            trade.bidId().getMostSignificantBits(), trade.bidId().getLeastSignificantBits(), trade.price(), trade.volume());
+    }
+
+    /**
+     * Encode a trade from its fields, for callers that hold them unboxed
+     * @return the length of the frame
+     */
+    public static int encodeTrade(ByteBuffer buf, int offset, long offerIdMsb, long offerIdLsb, long bidIdMsb, long bidIdLsb,
+            double price, int volume) {
+        putHeader(buf, offset, TRADE, TRADE_LENGTH, TRADE_BLOCK_LENGTH);
+        putTradeFields(buf, offset + HEADER_LENGTH, offerIdMsb, offerIdLsb, bidIdMsb, bidIdLsb, price, volume);
+        return TRADE_LENGTH;
+    }
+
+    /**
+     * Encode an order as it was placed
+     * @param buf the buffer to write into, in BYTE_ORDER
+     * @param offset the offset to write the frame at
+     * @param order the order
+     * @return the length of the frame
+     */
+    public static int encodeOrder(ByteBuffer buf, int offset, Order order) {
+        putHeader(buf, offset, ORDER, ORDER_LENGTH, ORDER_BLOCK_LENGTH);
+        putUUID(buf, offset + ORDER_ID_OFFSET, order.getOrderId());
+        putUUID(buf, offset + TRADER_ID_OFFSET, order.getTraderId());
+        buf.putLong(offset + TIMESTAMP_OFFSET, toNanos(order.getTimestamp()));
+        buf.putInt(offset + VOLUME_OFFSET, order.getVolume());
+        buf.put(offset + ORDER_SIDE_OFFSET, (byte) order.getSide().ordinal());
+        buf.putLong(offset + EXPIRY_OFFSET, NO_EXPIRY);
+
+        if (PricedOrder.class.isInstance(order)) {
+            PricedOrder priced = (PricedOrder) order;
+            buf.putDouble(offset + PRICE_OFFSET, priced.getPrice());
+            buf.put(offset + TIME_IN_FORCE_OFFSET, (byte) priced.getTimeInForce().ordinal());
+            if (priced.getExpiry() != null) {
+                buf.putLong(offset + EXPIRY_OFFSET, toNanos(priced.getExpiry()));
+            }
+        } else {
+            buf.put(offset + TIME_IN_FORCE_OFFSET, (byte) -1);
+        }
+        if (StopOrder.class.isInstance(order)) {
+            buf.putDouble(offset + TRIGGER_PRICE_OFFSET, ((StopOrder) order).getTriggerPrice());
+        }
+
+        byte kind;
+        if (MarketOrder.class.isInstance(order)) {
+            kind = MARKET;
+        } else if (LimitOrder.class.isInstance(order)) {
+            kind = LIMIT;
+        } else if (FOKOrder.class.isInstance(order)) {
+            kind = FOK;
+        } else if (IOCOrder.class.isInstance(order)) {
+            kind = IOC;
+        } else if (IcebergOrder.class.isInstance(order)) {
+            IcebergOrder iceberg = (IcebergOrder) order;
+            kind = ICEBERG;
+            buf.putInt(offset + VOLUME_OFFSET, iceberg.getTotalVolume());
+            buf.putInt(offset + DISPLAY_VOLUME_OFFSET, iceberg.getDisplayVolume());
+        } else if (StopMarketOrder.class.isInstance(order)) {
+            kind = STOP_MARKET;
+        } else if (StopLimitOrder.class.isInstance(order)) {
+            kind = STOP_LIMIT;
+            buf.putDouble(offset + PRICE_OFFSET, ((StopLimitOrder) order).getPrice());
+        } else {
+            throw new IllegalArgumentException("Codec does not support order of type '" + order.getClass().toString() + "'");
+        }
+        buf.put(offset + KIND_OFFSET, kind);
+
+        return ORDER_LENGTH;
+    }
+
+    /**
+     * @param res a match result
+     * @return the length of its frame
+     */
+    public static int matchResultLength(MatchResult res) {
+        String note = res.getNote();
+        int noteLength = note == null || note.isEmpty() ? 0 : note.getBytes(StandardCharsets.UTF_8).length;
+        return HEADER_LENGTH + MATCH_RESULT_BLOCK_LENGTH + res.getTrades().size() * TRADE_ENTRY_LENGTH + noteLength;
+    }
+
+    /**
+     * Encode a match result with its trades and note
+     * @param buf the buffer to write into, in BYTE_ORDER
+     * @param offset the offset to write the frame at
+     * @param res the result
+     * @return the length of the frame
+     */
+    public static int encodeMatchResult(ByteBuffer buf, int offset, MatchResult res) {
+        List<Trade> trades = res.getTrades();
+        String note = res.getNote();
+        byte[] noteBytes = note == null || note.isEmpty() ? null : note.getBytes(StandardCharsets.UTF_8);
+        int noteLength = noteBytes == null ? 0 : noteBytes.length;
+        if (noteLength > MAX_NOTE_LENGTH) {
+            throw new IllegalArgumentException("Match result note is too long to encode");
+        }
+        long length = HEADER_LENGTH + MATCH_RESULT_BLOCK_LENGTH + (long) trades.size() * TRADE_ENTRY_LENGTH + noteLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Match result is too large to encode");
+        }
+
+        putHeader(buf, offset, MATCH_RESULT, (int) length, MATCH_RESULT_BLOCK_LENGTH);
+        putUUID(buf, offset + ORDER_ID_OFFSET, res.getOrderId());
+        putUUID(buf, offset + TRADER_ID_OFFSET, res.getTraderId());
+        buf.putLong(offset + TIMESTAMP_OFFSET, toNanos(res.getTimestamp()));
+        buf.putDouble(offset + AVG_PRICE_OFFSET, res.getAvgMatchPrice());
+        buf.putInt(offset + FILLED_VOLUME_OFFSET, res.getFilledVolume());
+        buf.putInt(offset + REMAINING_VOLUME_OFFSET, res.getRemainingVolume());
+        buf.put(offset + RESULT_SIDE_OFFSET, (byte) (res.getSide() == null ? -1 : res.getSide().ordinal()));
+        buf.put(offset + STATUS_OFFSET, (byte) (res.getStatus() == null ? -1 : res.getStatus().ordinal()));
+        buf.put(offset + REJECT_REASON_OFFSET, res.getRejectReason().getCode());
+        buf.putInt(offset + TRADE_COUNT_OFFSET, trades.size());
+        buf.putShort(offset + NOTE_LENGTH_OFFSET, (short) noteLength);
+
+        int entry = offset + HEADER_LENGTH + MATCH_RESULT_BLOCK_LENGTH;
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            putTradeFields(buf, entry, trade.offerId().getMostSignificantBits(), trade.offerId().getLeastSignificantBits(),
+                trade.bidId().getMostSignificantBits(), trade.bidId().getLeastSignificantBits(), trade.price(),
+                trade.volume());
+            entry += TRADE_ENTRY_LENGTH;
+        }
+        if (noteBytes != null) {
+            buf.put(entry, noteBytes);
+        }
+
+        return (int) length;
+    }
+
+    /**
+     * @param time a time, or null
+     * @return the time in nanoseconds since the epoch in UTC, or Long.MIN_VALUE for null
+     */
+    public static long toNanos(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * @param nanos a time in nanoseconds since the epoch in UTC, or Long.MIN_VALUE
+     * @return the time, or null for Long.MIN_VALUE
+     */
+    public static LocalDateTime fromNanos(long nanos) {
+        if (nanos == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L),
+            ZoneOffset.UTC);
+    }
+
+    /**
+     * Write a frame header, first checking the whole frame fits
+     */
+    private static void putHeader(ByteBuffer buf, int offset, byte template, int length, int blockLength) {
+        if (buf.order() != BYTE_ORDER) {
+            throw new IllegalArgumentException("Buffer must be " + BYTE_ORDER);
+        }
+        if (offset < 0 || buf.limit() - offset < length) {
+            throw new BufferOverflowException();
+        }
+
+        buf.putInt(offset + LENGTH_OFFSET, length);
+        buf.put(offset + TEMPLATE_OFFSET, template);
+        buf.put(offset + VERSION_OFFSET, VERSION);
+        buf.putShort(offset + BLOCK_LENGTH_OFFSET, (short) blockLength);
+        // Zero the block so that padding and unused fields are deterministic
+        for (int i = offset + HEADER_LENGTH; i < offset + HEADER_LENGTH + blockLength; i += 4) {
+            buf.putInt(i, 0);
+        }
+    }
+
+    private static void putTradeFields(ByteBuffer buf, int offset, long offerIdMsb, long offerIdLsb, long bidIdMsb,
+            long bidIdLsb, double price, int volume) {
+        buf.putLong(offset + OFFER_ID_OFFSET, offerIdMsb);
+        buf.putLong(offset + OFFER_ID_OFFSET + 8, offerIdLsb);
+        buf.putLong(offset + BID_ID_OFFSET, bidIdMsb);
+        buf.putLong(offset + BID_ID_OFFSET + 8, bidIdLsb);
+        buf.putDouble(offset + TRADE_PRICE_OFFSET, price);
+        buf.putInt(offset + TRADE_VOLUME_OFFSET, volume);
+    }
+
+    private static void putUUID(ByteBuffer buf, int offset, UUID id) {
+        buf.putLong(offset, id == null ? 0 : id.getMostSignificantBits());
+        buf.putLong(offset + 8, id == null ? 0 : id.getLeastSignificantBits());
+    }
+}
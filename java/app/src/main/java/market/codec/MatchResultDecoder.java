@@ -0,0 +1,198 @@
+package market.codec;
+
+import static market.codec.MarketCodec.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.OrderSide;
+
+/**
+ * Flyweight over a match result frame. It is re-pointed at each frame with wrap() rather than being created per message, and
+ * reads every field, and each trade by index, straight out of the underlying buffer
+ */
+public class MatchResultDecoder {
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private ByteBuffer buf;
+    private int offset;
+    private int tradesOffset;
+
+    /**
+     * Point the decoder at a frame, which should have been checked with MarketCodec.check
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return this decoder
+     */
+    public MatchResultDecoder wrap(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        this.offset = offset;
+        // Skips any fields added to the block by a later version
+        this.tradesOffset = offset + HEADER_LENGTH + (buf.getShort(offset + BLOCK_LENGTH_OFFSET) & 0xFFFF);
+        return this;
+    }
+
+    public int getVersion() {
+        return buf.get(offset + VERSION_OFFSET);
+    }
+
+    public long getOrderIdMsb() {
+        return buf.getLong(offset + ORDER_ID_OFFSET);
+    }
+
+    public long getOrderIdLsb() {
+        return buf.getLong(offset + ORDER_ID_OFFSET + 8);
+    }
+
+    public long getTraderIdMsb() {
+        return buf.getLong(offset + TRADER_ID_OFFSET);
+    }
+
+    public long getTraderIdLsb() {
+        return buf.getLong(offset + TRADER_ID_OFFSET + 8);
+    }
+
+    /**
+     * @return the time of the result, in nanoseconds since the epoch in UTC
+     */
+    public long getTimestampNanos() {
+        return buf.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    public double getAvgMatchPrice() {
+        return buf.getDouble(offset + AVG_PRICE_OFFSET);
+    }
+
+    public int getFilledVolume() {
+        return buf.getInt(offset + FILLED_VOLUME_OFFSET);
+    }
+
+    public int getRemainingVolume() {
+        return buf.getInt(offset + REMAINING_VOLUME_OFFSET);
+    }
+
+    /**
+     * @return the side, or null if there was none or the code is not known
+     */
+    public OrderSide getSide() {
+        byte code = buf.get(offset + RESULT_SIDE_OFFSET);
+        return code >= 0 && code < SIDES.length ? SIDES[code] : null;
+    }
+
+    /**
+     * @return the status, or null if there was none or the code is not known
+     */
+    public OrderStatus getStatus() {
+        byte code = buf.get(offset + STATUS_OFFSET);
+        return code >= 0 && code < STATUSES.length ? STATUSES[code] : null;
+    }
+
+    /**
+     * @return the reject reason, or null if the code is not known
+     */
+    public RejectReason getRejectReason() {
+        return RejectReason.fromCode(buf.get(offset + REJECT_REASON_OFFSET));
+    }
+
+    public int getTradeCount() {
+        return buf.getInt(offset + TRADE_COUNT_OFFSET);
+    }
+
+    public long getTradeOfferIdMsb(int index) {
+        return buf.getLong(tradeOffset(index) + OFFER_ID_OFFSET);
+    }
+
+    public long getTradeOfferIdLsb(int index) {
+        return buf.getLong(tradeOffset(index) + OFFER_ID_OFFSET + 8);
+    }
+
+    public long getTradeBidIdMsb(int index) {
+        return buf.getLong(tradeOffset(index) + BID_ID_OFFSET);
+    }
+
+    public long getTradeBidIdLsb(int index) {
+        return buf.getLong(tradeOffset(index) + BID_ID_OFFSET + 8);
+    }
+
+    public double getTradePrice(int index) {
+        return buf.getDouble(tradeOffset(index) + TRADE_PRICE_OFFSET);
+    }
+
+    public int getTradeVolume(int index) {
+        return buf.getInt(tradeOffset(index) + TRADE_VOLUME_OFFSET);
+    }
+
+    /**
+     * Materialise one trade. Allocates, so prefer the field getters on hot paths
+     * @param index the index of the trade in the result
+     * @return the trade
+     */
+    public Trade getTrade(int index) {
+        return new Trade(new UUID(getTradeOfferIdMsb(index), getTradeOfferIdLsb(index)),
+            new UUID(getTradeBidIdMsb(index), getTradeBidIdLsb(index)), getTradePrice(index), getTradeVolume(index));
+    }
+
+    public int getNoteLength() {
+        return buf.getShort(offset + NOTE_LENGTH_OFFSET) & 0xFFFF;
+    }
+
+    /**
+     * Decode the note. Allocates, so check getNoteLength first on hot paths
+     * @return the note, empty if there is none
+     */
+    public String getNote() {
+        int length = getNoteLength();
+        if (length == 0) {
+            return "";
+        }
+
+        byte[] bytes = new byte[length];
+        buf.get(tradeOffset(getTradeCount()), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Materialise the match result. Allocates, so prefer the field getters on hot paths
+     * @return the result
+     */
+    public MatchResult toMatchResult() {
+        MatchResult res = new MatchResult();
+        res.setOrderId(toUUID(getOrderIdMsb(), getOrderIdLsb()));
+        res.setTraderId(toUUID(getTraderIdMsb(), getTraderIdLsb()));
+        res.setSide(getSide());
+        res.setStatus(getStatus());
+        RejectReason reason = getRejectReason();
+        res.setRejectReason(reason == null ? RejectReason.NONE : reason);
+        res.setFilledVolume(getFilledVolume());
+        res.setRemainingVolume(getRemainingVolume());
+        res.setAvgMatchPrice(getAvgMatchPrice());
+        res.setTimestamp(fromNanos(getTimestampNanos()));
+
+        String note = getNote();
+        res.setNote(note.length() > 250 ? note.substring(0, 250) : note);
+
+        int count = getTradeCount();
+        List<Trade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            trades.add(getTrade(i));
+        }
+        res.setTrades(trades);
+        return res;
+    }
+
+    private int tradeOffset(int index) {
+        return tradesOffset + index * TRADE_ENTRY_LENGTH;
+    }
+
+    private static UUID toUUID(long msb, long lsb) {
+        return msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+    }
+}
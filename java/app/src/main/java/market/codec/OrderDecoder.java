@@ -0,0 +1,162 @@
+package market.codec;
+
+import static market.codec.MarketCodec.*;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.orders.StopLimitOrder;
+import market.orders.StopMarketOrder;
+import market.orders.TimeInForce;
+import market.trader.Trader;
+
+/**
+ * Flyweight over an order frame. It is re-pointed at each frame with wrap() rather than being created per message, and reads
+ * every field straight out of the underlying buffer
+ */
+public class OrderDecoder {
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+    private ByteBuffer buf;
+    private int offset;
+
+    /**
+     * Point the decoder at a frame, which should have been checked with MarketCodec.check
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return this decoder
+     */
+    public OrderDecoder wrap(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        this.offset = offset;
+        return this;
+    }
+
+    public int getVersion() {
+        return buf.get(offset + VERSION_OFFSET);
+    }
+
+    public long getOrderIdMsb() {
+        return buf.getLong(offset + ORDER_ID_OFFSET);
+    }
+
+    public long getOrderIdLsb() {
+        return buf.getLong(offset + ORDER_ID_OFFSET + 8);
+    }
+
+    public long getTraderIdMsb() {
+        return buf.getLong(offset + TRADER_ID_OFFSET);
+    }
+
+    public long getTraderIdLsb() {
+        return buf.getLong(offset + TRADER_ID_OFFSET + 8);
+    }
+
+    /**
+     * @return the time the order was placed, in nanoseconds since the epoch in UTC
+     */
+    public long getTimestampNanos() {
+        return buf.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * @return the limit price, or 0 for market and stop market orders
+     */
+    public double getPrice() {
+        return buf.getDouble(offset + PRICE_OFFSET);
+    }
+
+    /**
+     * @return the trigger price of a stop order, else 0
+     */
+    public double getTriggerPrice() {
+        return buf.getDouble(offset + TRIGGER_PRICE_OFFSET);
+    }
+
+    /**
+     * @return the expiry in nanoseconds since the epoch in UTC, or NO_EXPIRY
+     */
+    public long getExpiryNanos() {
+        return buf.getLong(offset + EXPIRY_OFFSET);
+    }
+
+    /**
+     * @return the volume of the order, the total volume for an iceberg
+     */
+    public int getVolume() {
+        return buf.getInt(offset + VOLUME_OFFSET);
+    }
+
+    /**
+     * @return the display volume of an iceberg, else 0
+     */
+    public int getDisplayVolume() {
+        return buf.getInt(offset + DISPLAY_VOLUME_OFFSET);
+    }
+
+    /**
+     * @return the kind of order, one of the order kinds of MarketCodec
+     */
+    public byte getKind() {
+        return buf.get(offset + KIND_OFFSET);
+    }
+
+    /**
+     * @return the side, or null if the code is not a known side
+     */
+    public OrderSide getSide() {
+        byte code = buf.get(offset + ORDER_SIDE_OFFSET);
+        return code >= 0 && code < SIDES.length ? SIDES[code] : null;
+    }
+
+    /**
+     * @return the time in force, or null for stop and market orders or if the code is not known
+     */
+    public TimeInForce getTimeInForce() {
+        byte code = buf.get(offset + TIME_IN_FORCE_OFFSET);
+        return code >= 0 && code < TIMES_IN_FORCE.length ? TIMES_IN_FORCE[code] : null;
+    }
+
+    /**
+     * Materialise the order. Allocates, so prefer the field getters on hot paths
+     * @param trader the trader who placed the order, whose id should match the frame's
+     * @return the order
+     * @throws IllegalArgumentException if the frame holds an order that could not have been placed, e.g. with no volume
+     */
+    public Order toOrder(Trader trader) {
+        OrderSide side = getSide();
+        if (side == null) {
+            throw new IllegalArgumentException("Order side code is not known");
+        }
+
+        UUID orderId = new UUID(getOrderIdMsb(), getOrderIdLsb());
+        LocalDateTime timestamp = fromNanos(getTimestampNanos());
+        Order order = switch (getKind()) {
+            case MARKET -> new MarketOrder(side, trader, getVolume(), orderId, timestamp);
+            case LIMIT -> new LimitOrder(side, trader, getVolume(), getPrice(), orderId, timestamp);
+            case FOK -> new FOKOrder(side, trader, getVolume(), getPrice(), orderId, timestamp);
+            case IOC -> new IOCOrder(side, trader, getVolume(), getPrice(), orderId, timestamp);
+            case ICEBERG -> new IcebergOrder(side, trader, getVolume(), getPrice(), getDisplayVolume(), orderId, timestamp);
+            case STOP_MARKET -> new StopMarketOrder(side, trader, getVolume(), getTriggerPrice(), orderId, timestamp);
+            case STOP_LIMIT -> new StopLimitOrder(side, trader, getVolume(), getTriggerPrice(), getPrice(), orderId,
+                timestamp);
+            default -> throw new IllegalArgumentException("Order kind " + getKind() + " is not known");
+        };
+
+        TimeInForce timeInForce = getTimeInForce();
+        if (PricedOrder.class.isInstance(order) && timeInForce != null && timeInForce != TimeInForce.GTC) {
+            ((PricedOrder) order).setTimeInForce(timeInForce, fromNanos(getExpiryNanos()));
+        }
+        return order;
+    }
+}
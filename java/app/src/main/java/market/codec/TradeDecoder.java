@@ -0,0 +1,62 @@
+package market.codec;
+
+import static market.codec.MarketCodec.*;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import market.Trade;
+
+/**
+ * Flyweight over a trade frame. It is re-pointed at each frame with wrap() rather than being created per message, and reads
+ * every field straight out of the underlying buffer
+ */
+public class TradeDecoder {
+    private ByteBuffer buf;
+    private int offset;
+
+    /**
+     * Point the decoder at a frame, which should have been checked with MarketCodec.check
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return this decoder
+     */
+    public TradeDecoder wrap(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        this.offset = offset + HEADER_LENGTH;
+        return this;
+    }
+
+    public long getOfferIdMsb() {
+        return buf.getLong(offset + OFFER_ID_OFFSET);
+    }
+
+    public long getOfferIdLsb() {
+        return buf.getLong(offset + OFFER_ID_OFFSET + 8);
+    }
+
+    public long getBidIdMsb() {
+        return buf.getLong(offset + BID_ID_OFFSET);
+    }
+
+    public long getBidIdLsb() {
+        return buf.getLong(offset + BID_ID_OFFSET + 8);
+    }
+
+    public double getPrice() {
+        return buf.getDouble(offset + TRADE_PRICE_OFFSET);
+    }
+
+    public int getVolume() {
+        return buf.getInt(offset + TRADE_VOLUME_OFFSET);
+    }
+
+    /**
+     * Materialise the trade. Allocates, so prefer the field getters on hot paths
+     * @return the trade
+     */
+    public Trade toTrade() {
+        return new Trade(new UUID(getOfferIdMsb(), getOfferIdLsb()), new UUID(getBidIdMsb(), getBidIdLsb()), getPrice(),
+            getVolume());
+    }
+}
@@ -0,0 +1,128 @@
+package market.export;
+
+import static market.export.BinaryExportWriter.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.orders.OrderSide;
+
+/**
+ * Reads back the files written by a MatchResultExporter in the BINARY format
+ */
+public final class BinaryExportReader {
+    private BinaryExportReader() {};
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    /**
+     * Read every exported result in a directory, oldest file first. Trades are exported separately, so the results have no
+     * trades attached
+     * @param directory the export directory
+     * @return the results in the order they were exported
+     * @throws IOException if a file can't be read or is not a results export
+     */
+    public static List<MatchResult> readResults(Path directory) throws IOException {
+        List<MatchResult> out = new ArrayList<>();
+        for (Path file : listFiles(directory, "results-")) {
+            ByteBuffer buf = readFile(file, RESULTS_KIND);
+            while (buf.hasRemaining()) {
+                int blockStart = buf.position();
+                int blockBytes = buf.getInt();
+                int rows = buf.getInt();
+                int base = buf.position();
+
+                int noteLengths = base + rows * (RESULT_ROW_LENGTH - 2);
+                int noteOffset = noteLengths + rows * 2;
+                for (int i = 0; i < rows; i++) {
+                    MatchResult res = new MatchResult();
+                    res.setOrderId(new UUID(buf.getLong(base + i * 8), buf.getLong(base + (rows + i) * 8)));
+                    res.setTraderId(new UUID(buf.getLong(base + (2 * rows + i) * 8), buf.getLong(base + (3 * rows + i) * 8)));
+                    res.setTimestamp(fromMicros(buf.getLong(base + (4 * rows + i) * 8)));
+                    res.setAvgMatchPrice(buf.getDouble(base + (5 * rows + i) * 8));
+                    int ints = base + 6 * rows * 8;
+                    res.setFilledVolume(buf.getInt(ints + i * 4));
+                    res.setRemainingVolume(buf.getInt(ints + (rows + i) * 4));
+                    int bytes = ints + 2 * rows * 4;
+                    res.setSide(SIDES[buf.get(bytes + i)]);
+                    res.setStatus(STATUSES[buf.get(bytes + rows + i)]);
+
+                    int noteLength = buf.getShort(noteLengths + i * 2) & 0xFFFF;
+                    byte[] note = new byte[noteLength];
+                    buf.get(noteOffset, note);
+                    noteOffset += noteLength;
+                    res.setNote(new String(note, StandardCharsets.UTF_8));
+                    out.add(res);
+                }
+                buf.position(blockStart + blockBytes);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Read every exported trade in a directory, oldest file first
+     * @param directory the export directory
+     * @return the trades in the order they were exported
+     * @throws IOException if a file can't be read or is not a trades export
+     */
+    public static List<Trade> readTrades(Path directory) throws IOException {
+        List<Trade> out = new ArrayList<>();
+        for (Path file : listFiles(directory, "trades-")) {
+            ByteBuffer buf = readFile(file, TRADES_KIND);
+            while (buf.hasRemaining()) {
+                int blockStart = buf.position();
+                int blockBytes = buf.getInt();
+                int rows = buf.getInt();
+                int base = buf.position();
+
+                for (int i = 0; i < rows; i++) {
+                    UUID offerId = new UUID(buf.getLong(base + (2 * rows + i) * 8), buf.getLong(base + (3 * rows + i) * 8));
+                    UUID bidId = new UUID(buf.getLong(base + (4 * rows + i) * 8), buf.getLong(base + (5 * rows + i) * 8));
+                    double price = buf.getDouble(base + (7 * rows + i) * 8);
+                    int volume = buf.getInt(base + 8 * rows * 8 + i * 4);
+                    out.add(new Trade(offerId, bidId, price, volume));
+                }
+                buf.position(blockStart + blockBytes);
+            }
+        }
+        return out;
+    }
+
+    private static List<Path> listFiles(Path directory, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(p -> p.getFileName().toString().startsWith(prefix) && p.getFileName().toString().endsWith(".bin"))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static ByteBuffer readFile(Path file, byte expectedKind) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < FILE_HEADER_LENGTH || buf.getInt() != FILE_MAGIC) {
+            throw new IOException("'" + file + "' is not an export file");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported export version " + version + " in '" + file + "'");
+        }
+        if (buf.get() != expectedKind) {
+            throw new IOException("'" + file + "' holds the wrong kind of export");
+        }
+        buf.get();
+        return buf;
+    }
+}
@@ -0,0 +1,202 @@
+package market.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import market.Trade;
+import market.matching.MatchResult;
+
+/**
+ * Writes results to results-N.bin and their trades to trades-N.bin as blocks of columns.
+ * 
+ * Every file starts with an 8 byte header (i32 magic, i16 version, u8 kind, u8 reserved). It is followed by blocks of
+ * [i32 block length in bytes, i32 rows] and then one little endian column after another, so a reader interested in one
+ * field can skip straight past the others.
+ * 
+ * <pre>
+ * results: orderIdMsb i64, orderIdLsb i64, traderIdMsb i64, traderIdLsb i64, timestampMicros i64, avgMatchPrice f64,
+ *          filledVolume i32, remainingVolume i32, side u8, status u8, noteLength u16, then the UTF-8 note bytes
+ * trades:  orderIdMsb i64, orderIdLsb i64, offerIdMsb i64, offerIdLsb i64, bidIdMsb i64, bidIdLsb i64,
+ *          timestampMicros i64, price f64, volume i32
+ * </pre>
+ * Timestamps are microseconds since the epoch, treating the engine's local date times as UTC.
+ */
+class BinaryExportWriter implements ExportWriter {
+    static final int FILE_MAGIC = 0x4D455850;
+    static final short VERSION = 1;
+    static final byte RESULTS_KIND = 0;
+    static final byte TRADES_KIND = 1;
+    static final int FILE_HEADER_LENGTH = 8;
+    static final int BLOCK_HEADER_LENGTH = 8;
+    static final int RESULT_ROW_LENGTH = 60;
+    static final int TRADE_ROW_LENGTH = 68;
+    private static final int MAX_BLOCK_ROWS = 4096;
+    // Enough room for a block holding a single result with the longest allowed note
+    private static final int MIN_BLOCK_BYTES = 1024;
+
+    private final RollingFileChannel results;
+    private final RollingFileChannel trades;
+    private final int maxBlockBytes;
+    private final List<byte[]> notes = new ArrayList<>();
+    private final List<Trade> tradeRows = new ArrayList<>();
+    private final List<MatchResult> tradeParents = new ArrayList<>();
+
+    BinaryExportWriter(Path directory, long maxFileBytes, int bufferSize) {
+        this.results = new RollingFileChannel(directory, "results", "bin", maxFileBytes, bufferSize,
+            buf -> putFileHeader(buf, RESULTS_KIND));
+        this.trades = new RollingFileChannel(directory, "trades", "bin", maxFileBytes, bufferSize,
+            buf -> putFileHeader(buf, TRADES_KIND));
+        // Keep blocks no bigger than a file so that files roll close to their size limit
+        this.maxBlockBytes = (int) Math.min(bufferSize - FILE_HEADER_LENGTH, Math.max(maxFileBytes, MIN_BLOCK_BYTES));
+    }
+
+    @Override
+    public void write(List<MatchResult> batch) throws IOException {
+        notes.clear();
+        tradeRows.clear();
+        tradeParents.clear();
+        for (MatchResult res : batch) {
+            String note = res.getNote();
+            notes.add(note == null ? new byte[0] : note.getBytes(StandardCharsets.UTF_8));
+            for (Trade trade : res.getTrades()) {
+                tradeRows.add(trade);
+                tradeParents.add(res);
+            }
+        }
+
+        int start = 0;
+        while (start < batch.size()) {
+            int end = start;
+            int blockBytes = BLOCK_HEADER_LENGTH;
+            while (end < batch.size() && end - start < MAX_BLOCK_ROWS
+                    && blockBytes + RESULT_ROW_LENGTH + notes.get(end).length <= maxBlockBytes) {
+                blockBytes += RESULT_ROW_LENGTH + notes.get(end).length;
+                end++;
+            }
+            writeResultBlock(batch, start, end, blockBytes);
+            start = end;
+        }
+
+        int rowsPerBlock = Math.min(MAX_BLOCK_ROWS, (maxBlockBytes - BLOCK_HEADER_LENGTH) / TRADE_ROW_LENGTH);
+        for (start = 0; start < tradeRows.size(); start += rowsPerBlock) {
+            writeTradeBlock(start, Math.min(tradeRows.size(), start + rowsPerBlock));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        results.flush();
+        trades.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            results.close();
+        } finally {
+            trades.close();
+        }
+    }
+
+    private void writeResultBlock(List<MatchResult> batch, int start, int end, int blockBytes) throws IOException {
+        ByteBuffer buf = results.reserve(blockBytes);
+        buf.putInt(blockBytes).putInt(end - start);
+
+        for (int i = start; i < end; i++) {
+            buf.putLong(batch.get(i).getOrderId().getMostSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(batch.get(i).getOrderId().getLeastSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            UUID traderId = batch.get(i).getTraderId();
+            buf.putLong(traderId == null ? 0 : traderId.getMostSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            UUID traderId = batch.get(i).getTraderId();
+            buf.putLong(traderId == null ? 0 : traderId.getLeastSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(toMicros(batch.get(i).getTimestamp()));
+        }
+        for (int i = start; i < end; i++) {
+            buf.putDouble(batch.get(i).getAvgMatchPrice());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putInt(batch.get(i).getFilledVolume());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putInt(batch.get(i).getRemainingVolume());
+        }
+        for (int i = start; i < end; i++) {
+            buf.put((byte) batch.get(i).getSide().ordinal());
+        }
+        for (int i = start; i < end; i++) {
+            buf.put((byte) batch.get(i).getStatus().ordinal());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putShort((short) notes.get(i).length);
+        }
+        for (int i = start; i < end; i++) {
+            buf.put(notes.get(i));
+        }
+
+        results.endRecord();
+    }
+
+    private void writeTradeBlock(int start, int end) throws IOException {
+        int blockBytes = BLOCK_HEADER_LENGTH + (end - start) * TRADE_ROW_LENGTH;
+        ByteBuffer buf = trades.reserve(blockBytes);
+        buf.putInt(blockBytes).putInt(end - start);
+
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeParents.get(i).getOrderId().getMostSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeParents.get(i).getOrderId().getLeastSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeRows.get(i).offerId().getMostSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeRows.get(i).offerId().getLeastSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeRows.get(i).bidId().getMostSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(tradeRows.get(i).bidId().getLeastSignificantBits());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putLong(toMicros(tradeParents.get(i).getTimestamp()));
+        }
+        for (int i = start; i < end; i++) {
+            buf.putDouble(tradeRows.get(i).price());
+        }
+        for (int i = start; i < end; i++) {
+            buf.putInt(tradeRows.get(i).volume());
+        }
+
+        trades.endRecord();
+    }
+
+    private static void putFileHeader(ByteBuffer buf, byte kind) {
+        buf.putInt(FILE_MAGIC).putShort(VERSION).put(kind).put((byte) 0);
+    }
+
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1000,
+            ZoneOffset.UTC);
+    }
+}
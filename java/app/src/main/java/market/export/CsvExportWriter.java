@@ -0,0 +1,96 @@
+package market.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import market.Trade;
+import market.matching.MatchResult;
+
+/**
+ * Writes results to results-N.csv and their trades to trades-N.csv
+ */
+class CsvExportWriter implements ExportWriter {
+    static final String RESULTS_HEADER =
+        "orderId,traderId,side,status,filledVolume,remainingVolume,avgMatchPrice,timestamp,note\n";
+    static final String TRADES_HEADER = "orderId,offerId,bidId,price,volume,timestamp\n";
+
+    private final RollingFileChannel results;
+    private final RollingFileChannel trades;
+    private final StringBuilder line = new StringBuilder(256);
+
+    CsvExportWriter(Path directory, long maxFileBytes, int bufferSize) {
+        this.results = new RollingFileChannel(directory, "results", "csv", maxFileBytes, bufferSize,
+            buf -> buf.put(RESULTS_HEADER.getBytes(StandardCharsets.US_ASCII)));
+        this.trades = new RollingFileChannel(directory, "trades", "csv", maxFileBytes, bufferSize,
+            buf -> buf.put(TRADES_HEADER.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Override
+    public void write(List<MatchResult> batch) throws IOException {
+        for (MatchResult res : batch) {
+            line.setLength(0);
+            line.append(res.getOrderId()).append(',')
+                .append(res.getTraderId()).append(',')
+                .append(res.getSide()).append(',')
+                .append(res.getStatus()).append(',')
+                .append(res.getFilledVolume()).append(',')
+                .append(res.getRemainingVolume()).append(',')
+                .append(res.getAvgMatchPrice()).append(',')
+                .append(res.getTimestamp()).append(',');
+            appendQuoted(res.getNote());
+            line.append('\n');
+            writeLine(results);
+
+            for (Trade trade : res.getTrades()) {
+                line.setLength(0);
+                line.append(res.getOrderId()).append(',')
+                    .append(trade.offerId()).append(',')
+                    .append(trade.bidId()).append(',')
+                    .append(trade.price()).append(',')
+                    .append(trade.volume()).append(',')
+                    .append(res.getTimestamp()).append('\n');
+                writeLine(trades);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        results.flush();
+        trades.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            results.close();
+        } finally {
+            trades.close();
+        }
+    }
+
+    private void writeLine(RollingFileChannel file) throws IOException {
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = file.reserve(bytes.length);
+        buf.put(bytes);
+        file.endRecord();
+    }
+
+    private void appendQuoted(String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
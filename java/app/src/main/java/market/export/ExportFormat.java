@@ -0,0 +1,8 @@
+package market.export;
+
+public enum ExportFormat {
+    /** Human readable comma separated rows, one file series for results and one for trades */
+    CSV,
+    /** Blocks of fixed width little endian columns, see BinaryExportWriter for the layout */
+    BINARY
+}
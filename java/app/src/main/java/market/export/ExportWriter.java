@@ -0,0 +1,16 @@
+package market.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import market.matching.MatchResult;
+
+/**
+ * Encodes batches of match results (and the trades inside them) to files
+ */
+interface ExportWriter extends Closeable {
+    void write(List<MatchResult> batch) throws IOException;
+
+    void flush() throws IOException;
+}
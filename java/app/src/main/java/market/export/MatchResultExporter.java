@@ -0,0 +1,141 @@
+package market.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import market.matching.MatchResult;
+import market.trader.MatchSubscriber;
+
+/**
+ * Subscriber that saves every match result and trade to rolling files for later analysis.
+ * 
+ * The matching thread only offers each result to a bounded queue. A background thread drains the queue in large batches,
+ * encodes them into a big write buffer and writes to disk when the buffer fills or the queue goes quiet, so exporting never
+ * blocks matching and the disk only sees large sequential writes. If the writer falls so far behind that the queue fills,
+ * further results are dropped (and counted) rather than slowing the engine down.
+ */
+public class MatchResultExporter implements MatchSubscriber, Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+    public static final long DEFAULT_MAX_FILE_BYTES = 256L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_BATCH = 8192;
+    private static final long IDLE_FLUSH_MILLIS = 50;
+
+    private final BlockingQueue<MatchResult> queue;
+    private final ExportWriter writer;
+    private final Thread thread;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    public MatchResultExporter(Path directory, ExportFormat format) throws IOException {
+        this(directory, format, DEFAULT_MAX_FILE_BYTES, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param directory the directory to write the files into. Created if it doesn't exist
+     * @param format the format of the files
+     * @param maxFileBytes the size after which a new file is started
+     * @param queueCapacity the number of results that can wait for the writer before results are dropped
+     * @throws IOException if the directory can't be created
+     */
+    public MatchResultExporter(Path directory, ExportFormat format, long maxFileBytes, int queueCapacity)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = switch (format) {
+            case CSV -> new CsvExportWriter(directory, maxFileBytes, BUFFER_SIZE);
+            case BINARY -> new BinaryExportWriter(directory, maxFileBytes, BUFFER_SIZE);
+            default -> throw new IllegalArgumentException("Export format '" + format.toString() + "' is not known");
+        };
+        this.thread = new Thread(this::run, "match-result-exporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void notifyOfMatch(MatchResult matchRes) {
+        if (!running || !queue.offer(matchRes)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of results that were not exported because the queue was full or the exporter had stopped
+     */
+    public long getDroppedResults() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of results handed to the file writer so far
+     */
+    public long getWrittenResults() {
+        return written.get();
+    }
+
+    /**
+     * @return the error that stopped the writer thread, or null if it hasn't failed
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stop accepting results, write out everything already queued and close the files
+     * @throws IOException if the writer thread failed at any point
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        List<MatchResult> batch = new ArrayList<>(MAX_BATCH);
+        boolean unflushed = false;
+
+        try (writer) {
+            while (running || !queue.isEmpty()) {
+                MatchResult first = queue.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // The queue went quiet, so get what we have onto disk
+                    if (unflushed) {
+                        writer.flush();
+                        unflushed = false;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writer.write(batch);
+                written.addAndGet(batch.size());
+                batch.clear();
+                unflushed = true;
+            }
+        } catch (IOException e) {
+            failure = e;
+            running = false;
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+}
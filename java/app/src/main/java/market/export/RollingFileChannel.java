@@ -0,0 +1,115 @@
+package market.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A series of files written through one large buffer. Records are appended to the buffer and only written to the current
+ * file when the buffer fills or is flushed, so the file sees a few large sequential writes. Once a file passes its size limit
+ * the next record starts a new file (prefix-000000.ext, prefix-000001.ext, ...) rather than overwriting old ones
+ */
+class RollingFileChannel implements Closeable {
+    private final Path directory;
+    private final String prefix;
+    private final String extension;
+    private final long maxFileBytes;
+    private final Consumer<ByteBuffer> headerWriter;
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+    private long fileBytes;
+    private int fileIndex = 0;
+
+    /**
+     * @param directory the directory the files are created in
+     * @param prefix the start of each file name
+     * @param extension the file extension
+     * @param maxFileBytes the size after which the next record goes into a new file
+     * @param bufferSize the size of the write buffer, which also bounds the size of a single record
+     * @param headerWriter writes the header at the start of every new file
+     */
+    RollingFileChannel(Path directory, String prefix, String extension, long maxFileBytes, int bufferSize,
+            Consumer<ByteBuffer> headerWriter) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.extension = extension;
+        this.maxFileBytes = maxFileBytes;
+        this.headerWriter = headerWriter;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Make room in the buffer for a record, opening a new file if needed
+     * @param bytes the size of the record
+     * @return the buffer to write the record into at its current position
+     * @throws IOException if the buffer could not be written out
+     */
+    ByteBuffer reserve(int bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            throw new IllegalArgumentException("Record of " + bytes + " bytes is larger than the export buffer");
+        }
+        if (channel == null) {
+            open();
+        }
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+        return buffer;
+    }
+
+    /**
+     * Mark the end of a record, rolling to a new file if the current one has reached its size limit
+     * @throws IOException if the file could not be written or closed
+     */
+    void endRecord() throws IOException {
+        if (fileBytes + buffer.position() >= maxFileBytes) {
+            drain();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Write everything buffered so far to the current file
+     * @throws IOException if the write fails
+     */
+    void flush() throws IOException {
+        if (channel != null) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            drain();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path file;
+        do {
+            file = directory.resolve(String.format("%s-%06d.%s", prefix, fileIndex++, extension));
+        } while (Files.exists(file));
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        fileBytes = 0;
+        headerWriter.accept(buffer);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.OrderSide;
+
+/**
+ * Flyweight over an execution report frame. It is re-pointed at each frame with wrap() rather than being created per message,
+ * and reads every field straight out of the underlying buffer
+ */
+public class ExecutionReportDecoder {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private ByteBuffer buf;
+    private int offset;
+
+    /**
+     * Point the decoder at a frame
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return this decoder
+     */
+    public ExecutionReportDecoder wrap(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        this.offset = offset;
+        return this;
+    }
+
+    public long getClientOrderId() {
+        return buf.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+    }
+
+    public long getOrderIdMsb() {
+        return buf.getLong(offset + REPORT_ORDER_ID_OFFSET);
+    }
+
+    public long getOrderIdLsb() {
+        return buf.getLong(offset + REPORT_ORDER_ID_OFFSET + 8);
+    }
+
+    /**
+     * Get the engine assigned order id. Allocates, so prefer the msb/lsb getters on hot paths
+     * @return the order id
+     */
+    public UUID getOrderId() {
+        return new UUID(getOrderIdMsb(), getOrderIdLsb());
+    }
+
+    public byte getExecType() {
+        return buf.get(offset + EXEC_TYPE_OFFSET);
+    }
+
+    public int getStatusCode() {
+        return buf.get(offset + STATUS_OFFSET);
+    }
+
+    /**
+     * Get the status of a new order. Only meaningful for EXEC_NEW reports
+     * @return the order status
+     */
+    public OrderStatus getOrderStatus() {
+        return STATUSES[getStatusCode()];
+    }
+
+    public OrderSide getSide() {
+        return decodeSide(buf.get(offset + REPORT_SIDE_OFFSET));
+    }
+
+    public byte getRejectReasonCode() {
+        return buf.get(offset + REJECT_REASON_OFFSET);
+    }
+
+    /**
+     * Get why the order or request was rejected. NONE unless the report is an EXEC_REJECT, or an EXEC_NEW for an order
+     * that was rejected (in part) by the engine
+     * @return the reject reason, or null if the code is not known
+     */
+    public RejectReason getRejectReason() {
+        return RejectReason.fromCode(getRejectReasonCode());
+    }
+
+    public int getFilledVolume() {
+        return buf.getInt(offset + FILLED_VOLUME_OFFSET);
+    }
+
+    public int getRemainingVolume() {
+        return buf.getInt(offset + REMAINING_VOLUME_OFFSET);
+    }
+
+    public double getAvgPrice() {
+        return buf.getDouble(offset + AVG_PRICE_OFFSET);
+    }
+}
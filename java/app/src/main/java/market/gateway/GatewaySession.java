@@ -0,0 +1,91 @@
+package market.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import market.trader.Trader;
+
+/**
+ * The state of one client connection to the TCP gateway. Only ever touched by the gateway's selector thread
+ */
+class GatewaySession implements OrderEntrySession {
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer in;
+    private final ByteBuffer out;
+    private final PendingReports pendingReports = new PendingReports(PendingReports.DEFAULT_CAPACITY);
+    private Trader trader;
+    private boolean dirty = false;
+
+    GatewaySession(SocketChannel channel, SelectionKey key, int bufferSize) {
+        this.channel = channel;
+        this.key = key;
+        this.in = ByteBuffer.allocateDirect(bufferSize).order(OrderEntryProtocol.BYTE_ORDER);
+        this.out = ByteBuffer.allocateDirect(bufferSize).order(OrderEntryProtocol.BYTE_ORDER);
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    ByteBuffer getIn() {
+        return in;
+    }
+
+    ByteBuffer getOut() {
+        return out;
+    }
+
+    @Override
+    public Trader getTrader() {
+        return trader;
+    }
+
+    @Override
+    public void setTrader(Trader trader) {
+        this.trader = trader;
+    }
+
+    @Override
+    public PendingReports getPendingReports() {
+        return pendingReports;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Write as much pending output as the socket will take in a single call.
+     * 
+     * If the socket could not take all of it, stop reading from the client until it can, so a client that never reads its
+     * reports cannot make the gateway buffer without bound
+     * @return true if all pending output was written
+     * @throws IOException if the write fails
+     */
+    boolean flush() throws IOException {
+        dirty = false;
+        out.flip();
+        channel.write(out);
+        boolean drained = !out.hasRemaining();
+        out.compact();
+
+        key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+        return drained;
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more can be done for a connection that fails to close
+        }
+    }
+}
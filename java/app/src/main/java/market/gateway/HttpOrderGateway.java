@@ -0,0 +1,345 @@
+package market.gateway;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import market.BookSnapshot;
+import market.DepthLevel;
+import market.MarketService;
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.RejectReason;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.OrderSummary;
+import market.orders.OrderType;
+import market.orders.OrderValidator;
+import market.trader.Portfolio;
+import market.trader.Trader;
+
+/**
+ * HTTP/JSON front end to a market for low frequency clients and admin tools, built on the JDK's HTTP server.
+ * 
+ * Each request is handled on its own thread (a virtual thread when the runtime supports them) which parses the request,
+ * hands the market work to a MarketRequestBatcher and waits for the result. Book depth is read straight from the book's
+ * concurrent depth view without going through the market thread at all.
+ * 
+ * <pre>
+ * POST   /orders                      {"traderId", "side", "type", "volume", "price"}   place an order
+ * PATCH  /orders/{orderId}            {"side", "volume"}                                  amend a resting order's volume
+ * DELETE /orders/{orderId}?side=SIDE                                                      cancel a resting order
+ * GET    /book?depth=N                                                                    top N levels of each side
+ * GET    /traders/{traderId}/portfolio                                                    a trader's trades and orders
+ * </pre>
+ */
+public class HttpOrderGateway implements Closeable {
+    private final MarketService market;
+    private final MarketRequestBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Create a gateway which handles each request on a virtual thread if the runtime supports them, else on a cached pool
+     * @param market the market to front. The gateway's batcher becomes its only writer
+     * @param bindAddress the address to listen on. Use port 0 to pick any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public HttpOrderGateway(MarketService market, InetSocketAddress bindAddress) throws IOException {
+        this(market, bindAddress, newRequestExecutor(), true);
+    }
+
+    /**
+     * @param market the market to front. The gateway's batcher becomes its only writer
+     * @param bindAddress the address to listen on. Use port 0 to pick any free port
+     * @param requestExecutor the executor that request handlers run on
+     * @throws IOException if the address cannot be bound
+     */
+    public HttpOrderGateway(MarketService market, InetSocketAddress bindAddress, Executor requestExecutor)
+            throws IOException {
+        this(market, bindAddress, requestExecutor, false);
+    }
+
+    private HttpOrderGateway(MarketService market, InetSocketAddress bindAddress, Executor requestExecutor,
+            boolean ownsExecutor) throws IOException {
+        this.market = market;
+        this.batcher = new MarketRequestBatcher(market);
+        this.server = HttpServer.create(bindAddress, 0);
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) requestExecutor : null;
+
+        server.createContext("/", this::handle);
+        server.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Create an executor that runs every task on a new virtual thread. Virtual threads need Java 21 while the project builds
+     * for Java 17, so they are looked up reflectively and a cached thread pool is used on older runtimes
+     * @return the executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        batcher.close();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+
+            try {
+                if (path.length == 2 && path[1].equals("orders")) {
+                    if (allowMethod(exchange, method, "POST")) {
+                        respond(exchange, placeOrder(readBody(exchange)));
+                    }
+                } else if (path.length == 3 && path[1].equals("orders")) {
+                    UUID orderId = UUID.fromString(path[2]);
+                    if (method.equals("DELETE")) {
+                        respond(exchange, 200, cancelOrder(orderId, exchange.getRequestURI()));
+                    } else if (allowMethod(exchange, method, "PATCH")) {
+                        respond(exchange, amendOrder(orderId, readBody(exchange)));
+                    }
+                } else if (path.length == 2 && path[1].equals("book")) {
+                    if (allowMethod(exchange, method, "GET")) {
+                        respond(exchange, 200, bookDepth(exchange.getRequestURI()));
+                    }
+                } else if (path.length == 4 && path[1].equals("traders") && path[3].equals("portfolio")) {
+                    if (allowMethod(exchange, method, "GET")) {
+                        String body = portfolio(UUID.fromString(path[2]));
+                        respond(exchange, body == null ? 404 : 200, body == null ? error("Unknown trader") : body);
+                    }
+                } else {
+                    respond(exchange, 404, error("Unknown path"));
+                }
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+            } catch (ExecutionException e) {
+                respond(exchange, 500, error(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, error("Interrupted"));
+            }
+        }
+    }
+
+    /**
+     * Place an order. An order that can't be built is rejected here with its reason, the same as one the engine rejects,
+     * rather than by catching what the order factory would throw
+     */
+    private Response placeOrder(Map<String, String> fields) throws ExecutionException, InterruptedException {
+        Trader trader = market.getTrader(UUID.fromString(required(fields, "traderId")));
+        if (trader == null) {
+            return rejected(404, RejectReason.UNKNOWN_TRADER);
+        }
+
+        OrderType type = OrderType.valueOf(required(fields, "type"));
+        OrderSide side = OrderSide.valueOf(required(fields, "side"));
+        int volume = Integer.parseInt(required(fields, "volume"));
+        double price = (type == OrderType.MARKET) ? 0 : Double.parseDouble(required(fields, "price"));
+
+        if (!OrderValidator.isValidVolume(volume)) {
+            return rejected(400, RejectReason.INVALID_VOLUME);
+        }
+        if (!market.getOrderFactory().canCreateOrder(type, volume, price)) {
+            return rejected(400, RejectReason.INVALID_PRICE);
+        }
+
+        Order order = market.getOrderFactory().createOrder(type, side, trader, volume, price);
+        return new Response(200, matchResultJson(batcher.placeOrder(order).get()));
+    }
+
+    private String cancelOrder(UUID orderId, URI uri) throws ExecutionException, InterruptedException {
+        OrderSide side = OrderSide.valueOf(required(queryParams(uri), "side"));
+        boolean cancelled = batcher.submit(() -> market.cancelOrder(orderId, side)).get();
+        return "{\"orderId\":" + Json.quote(orderId.toString()) + ",\"cancelled\":" + cancelled + "}";
+    }
+
+    private Response amendOrder(UUID orderId, Map<String, String> fields) throws ExecutionException, InterruptedException {
+        OrderSide side = OrderSide.valueOf(required(fields, "side"));
+        int volume = Integer.parseInt(required(fields, "volume"));
+        if (!OrderValidator.isValidVolume(volume)) {
+            return rejected(400, RejectReason.INVALID_VOLUME);
+        }
+
+        boolean amended = batcher.submit(() -> market.amendOrder(orderId, side, volume)).get();
+        return new Response(200, "{\"orderId\":" + Json.quote(orderId.toString()) + ",\"amended\":" + amended + "}");
+    }
+
+    private String bookDepth(URI uri) {
+        String depthParam = queryParams(uri).get("depth");
+        BookSnapshot snap = market.getBook().getDepthView().snapshot();
+        int depth = (depthParam == null) ? Integer.MAX_VALUE : Integer.parseInt(depthParam);
+
+        return "{\"version\":" + snap.version() + ",\"numBids\":" + snap.numBids() + ",\"numOffers\":" + snap.numOffers()
+            + ",\"bids\":" + levelsJson(snap.bids(), depth) + ",\"offers\":" + levelsJson(snap.offers(), depth) + "}";
+    }
+
+    /**
+     * Render a trader's portfolio. Runs on the market thread since that is the thread that updates portfolios and the
+     * book
+     * @param traderId the id of the trader
+     * @return the portfolio JSON or null if the trader is unknown
+     */
+    private String portfolio(UUID traderId) throws ExecutionException, InterruptedException {
+        return batcher.submit(() -> {
+            Portfolio portfolio = market.getPortfolio(traderId);
+            if (portfolio == null) {
+                return null;
+            }
+
+            StringBuilder sb = new StringBuilder("{\"traderId\":").append(Json.quote(traderId.toString()));
+            sb.append(",\"activeOrders\":[");
+            String sep = "";
+            for (OrderSummary o : portfolio.getActiveOrders()) {
+                sb.append(sep).append("{\"orderId\":").append(Json.quote(o.id().toString()))
+                    .append(",\"side\":").append(Json.quote(o.side().toString()))
+                    .append(",\"volume\":").append(o.volume())
+                    .append(",\"price\":").append(o.price()).append('}');
+                sep = ",";
+            }
+            sb.append("],\"trades\":").append(tradesJson(portfolio.tradeHistory)).append('}');
+            return sb.toString();
+        }).get();
+    }
+
+    private static String matchResultJson(MatchResult res) {
+        return "{\"orderId\":" + Json.quote(res.getOrderId().toString())
+            + ",\"side\":" + Json.quote(res.getSide().toString())
+            + ",\"status\":" + Json.quote(res.getStatus().toString())
+            + ",\"filledVolume\":" + res.getFilledVolume()
+            + ",\"remainingVolume\":" + res.getRemainingVolume()
+            + ",\"avgMatchPrice\":" + res.getAvgMatchPrice()
+            + ",\"timestamp\":" + Json.quote(res.getTimestamp().toString())
+            + ",\"rejectReason\":" + Json.quote(res.getRejectReason().toString())
+            + ",\"note\":" + Json.quote(res.getNote())
+            + ",\"trades\":" + tradesJson(res.getTrades()) + "}";
+    }
+
+    private static String tradesJson(List<Trade> trades) {
+        StringBuilder sb = new StringBuilder("[");
+        String sep = "";
+        for (Trade t : trades) {
+            sb.append(sep).append("{\"offerId\":").append(Json.quote(t.offerId().toString()))
+                .append(",\"bidId\":").append(Json.quote(t.bidId().toString()))
+                .append(",\"price\":").append(t.price())
+                .append(",\"volume\":").append(t.volume()).append('}');
+            sep = ",";
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String levelsJson(List<DepthLevel> levels, int depth) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < Math.min(depth, levels.size()); i++) {
+            DepthLevel level = levels.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"price\":").append(level.price())
+                .append(",\"volume\":").append(level.volume())
+                .append(",\"orderCount\":").append(level.orderCount()).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message == null ? "" : message) + "}";
+    }
+
+    private static Response rejected(int status, RejectReason reason) {
+        return new Response(status, "{\"error\":" + Json.quote(reason.getMessage()) + ",\"rejectReason\":"
+            + Json.quote(reason.toString()) + "}");
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field '" + name + "'");
+        }
+        return value;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseFlatObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Check a request uses the method its path expects, answering it with a 405 if not
+     * @return true if the method is allowed and the request should be handled, false if it has been answered
+     */
+    private static boolean allowMethod(HttpExchange exchange, String method, String expected) throws IOException {
+        if (method.equals(expected)) {
+            return true;
+        }
+        respond(exchange, 405, error("Method " + method + " is not allowed, expected " + expected));
+        return false;
+    }
+
+    private static void respond(HttpExchange exchange, Response response) throws IOException {
+        respond(exchange, response.status(), response.body());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Response(int status, String body) {}
+}
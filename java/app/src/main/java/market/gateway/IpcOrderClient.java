@@ -0,0 +1,142 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import market.gateway.TcpOrderClient.ExecutionReportHandler;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+/**
+ * Client for the IPC order gateway, for a process on the same machine as the market. Requests are written straight into the
+ * shared request ring and are visible to the gateway as soon as each call returns, so there is nothing to flush. Sending
+ * never blocks: a request that finds the ring full is refused and the caller decides whether to retry or drain replies
+ * first. Like the rings it writes to, a client must only be used from one thread
+ */
+public class IpcOrderClient implements Closeable {
+    private static final long LOGON_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SharedMemoryChannel channel;
+    private final SpscRing requests;
+    private final SpscRing replies;
+    private final ExecutionReportDecoder decoder = new ExecutionReportDecoder();
+
+    private IpcOrderClient(SharedMemoryChannel channel) {
+        this.channel = channel;
+        this.requests = channel.getRequests();
+        this.replies = channel.getReplies();
+    }
+
+    /**
+     * Attach to a channel file created by the gateway with openChannel
+     * @param path the channel file
+     * @return the client
+     * @throws IOException if the file cannot be opened or is not a channel
+     */
+    public static IpcOrderClient open(Path path) throws IOException {
+        return new IpcOrderClient(SharedMemoryChannel.open(path));
+    }
+
+    /**
+     * Log on as a registered trader. Spins until the gateway replies, so should be called before any other request
+     * @param traderId the id of the trader
+     * @return true if the gateway accepted the logon
+     * @throws IOException if the gateway doesn't reply in time or replies with something other than an acknowledgement
+     */
+    public boolean logon(UUID traderId) throws IOException {
+        ByteBuffer out = requests.claim();
+        if (out == null) {
+            throw new IOException("Request ring is full");
+        }
+        encodeLogon(out, traderId);
+        requests.commit();
+
+        long deadline = System.nanoTime() + LOGON_TIMEOUT_NANOS;
+        int offset;
+        while ((offset = replies.poll()) < 0) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("Gateway did not acknowledge the logon");
+            }
+            Thread.onSpinWait();
+        }
+
+        ByteBuffer in = replies.getBuffer();
+        if (in.get(offset + TYPE_OFFSET) != LOGON_ACK) {
+            throw new IOException("Expected a logon acknowledgement");
+        }
+        boolean accepted = in.get(offset + ACCEPTED_OFFSET) == 1;
+        replies.release();
+        return accepted;
+    }
+
+    /**
+     * @return true if the order was sent, false if the request ring is full
+     */
+    public boolean newOrder(long clientOrderId, OrderSide side, OrderType type, int volume, double price) {
+        ByteBuffer out = requests.claim();
+        if (out == null) {
+            return false;
+        }
+        encodeNewOrder(out, clientOrderId, side, type, volume, price);
+        requests.commit();
+        return true;
+    }
+
+    /**
+     * @return true if the cancel was sent, false if the request ring is full
+     */
+    public boolean cancel(long clientOrderId, UUID orderId, OrderSide side) {
+        ByteBuffer out = requests.claim();
+        if (out == null) {
+            return false;
+        }
+        encodeCancel(out, clientOrderId, orderId, side);
+        requests.commit();
+        return true;
+    }
+
+    /**
+     * @return true if the amend was sent, false if the request ring is full
+     */
+    public boolean amend(long clientOrderId, UUID orderId, OrderSide side, int newVolume) {
+        ByteBuffer out = requests.claim();
+        if (out == null) {
+            return false;
+        }
+        encodeAmend(out, clientOrderId, orderId, side, newVolume);
+        requests.commit();
+        return true;
+    }
+
+    /**
+     * Pass every execution report waiting in the reply ring to a handler, without blocking
+     * @param handler the handler to pass reports to
+     * @return the number of reports handled, 0 if none were waiting
+     * @throws IOException if the gateway sent something other than an execution report
+     */
+    public int pollReports(ExecutionReportHandler handler) throws IOException {
+        ByteBuffer in = replies.getBuffer();
+        int handled = 0;
+        int offset;
+        while ((offset = replies.poll()) >= 0) {
+            if (in.get(offset + TYPE_OFFSET) != EXECUTION_REPORT) {
+                throw new IOException("Expected an execution report");
+            }
+            handler.onExecutionReport(decoder.wrap(in, offset));
+            replies.release();
+            handled++;
+        }
+        return handled;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,248 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import market.MarketService;
+import market.trader.Trader;
+
+/**
+ * Shared memory front end to a market for client processes on the same machine, speaking the frames described in
+ * OrderEntryProtocol over SharedMemoryChannel files rather than sockets.
+ *
+ * Each client gets its own channel file, opened with openChannel. A single poller thread sweeps every channel, handling each
+ * request in place in its slot and writing the reply straight into the next slot of the reply ring, so it is the one thread
+ * allowed to mutate the market (and must not run alongside another gateway on the same market). No system call is made on
+ * the order path. While there is no work the poller spins briefly, then yields, then backs off to short parks, trading
+ * a little latency after a quiet spell for not burning a core forever.
+ *
+ * A client that stops reading its replies fills its reply ring, after which its requests are left unread until it catches
+ * up, so a slow client only holds up itself. Fills of its trader's resting orders by other orders are queued and written
+ * to the reply ring as soon as it has room, between the replies, and ahead of any later reply. A client that falls so far
+ * behind that its queue of fills overflows has its channel dropped, as it can no longer be given a complete account of
+ * them
+ */
+public class IpcOrderGateway implements Closeable {
+    // Requests handled from one channel before moving on to the next, so a busy client can't starve the others
+    private static final int BATCH_LIMIT = 64;
+    private static final int IDLE_SPINS = 1_000;
+    private static final int IDLE_YIELDS = 1_000;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final OrderEntryHandler handler;
+    private volatile IpcSession[] sessions = new IpcSession[0];
+    // Dropped after failing, kept so their files are still cleaned up on close
+    private final List<IpcSession> failedSessions = new ArrayList<>();
+    private volatile boolean running = true;
+    private Thread thread;
+
+    /**
+     * @param market the market that orders are sent to
+     */
+    public IpcOrderGateway(MarketService market) {
+        // The poller looks for pending reports on every channel each sweep, so needn't be told of them
+        this.handler = new OrderEntryHandler(market, session -> {});
+    }
+
+    /**
+     * Create a channel file for a client to open with IpcOrderClient. The gateway owns the file and deletes it when closed
+     * @param path the file to create, e.g. in SharedMemoryChannel.defaultDirectory()
+     * @param slots the number of slots in each ring, a power of two
+     * @throws IOException if the file cannot be created
+     */
+    public synchronized void openChannel(Path path, int slots) throws IOException {
+        if (!running) {
+            throw new IllegalStateException("Gateway has been closed");
+        }
+
+        SharedMemoryChannel channel = SharedMemoryChannel.create(path, slots);
+        IpcSession[] grown = Arrays.copyOf(sessions, sessions.length + 1);
+        grown[sessions.length] = new IpcSession(channel);
+        sessions = grown;
+    }
+
+    /**
+     * Start the poller thread
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Gateway has already been started");
+        }
+
+        thread = new Thread(this::run, "ipc-order-gateway");
+        thread.start();
+    }
+
+    /**
+     * Stop the poller thread and delete every channel file
+     */
+    @Override
+    public void close() throws IOException {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<IpcSession> all = new ArrayList<>(Arrays.asList(sessions));
+        synchronized (this) {
+            all.addAll(failedSessions);
+        }
+        IOException failure = null;
+        for (IpcSession session : all) {
+            try {
+                session.channel.close();
+                Files.deleteIfExists(session.channel.getPath());
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        int idle = 0;
+        while (running) {
+            int handled = 0;
+            for (IpcSession session : sessions) {
+                try {
+                    handled += poll(session);
+                } catch (RuntimeException e) {
+                    // Failed requests are already rejected by the handler, so this is a channel that can't be read, e.g. one
+                    // a client has corrupted. It is dropped so the poller keeps serving every other channel
+                    dropSession(session);
+                }
+            }
+
+            if (handled > 0) {
+                idle = 0;
+            } else if (idle < IDLE_SPINS) {
+                idle++;
+                Thread.onSpinWait();
+            } else if (idle < IDLE_SPINS + IDLE_YIELDS) {
+                // Lets a client sharing the core run, e.g. on a machine with fewer cores than busy threads
+                idle++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private synchronized void dropSession(IpcSession session) {
+        handler.logoff(session);
+        IpcSession[] kept = new IpcSession[sessions.length - 1];
+        int i = 0;
+        for (IpcSession other : sessions) {
+            if (other != session) {
+                kept[i++] = other;
+            }
+        }
+        sessions = kept;
+        failedSessions.add(session);
+    }
+
+    /**
+     * Handle the requests waiting on one channel, stopping early if its reply ring is full. Pending reports are written
+     * first, and after each reply, and requests are only handled while none are left waiting
+     * @param session the session of the channel
+     * @return the number of requests handled and pending reports written
+     */
+    private int poll(IpcSession session) {
+        SpscRing requests = session.channel.getRequests();
+        SpscRing replies = session.channel.getReplies();
+        ByteBuffer in = requests.getBuffer();
+        PendingReports pending = session.pendingReports;
+        if (pending.hasOverflowed()) {
+            dropSession(session);
+            return 0;
+        }
+
+        int sent = sendPending(pending, replies);
+        int handled = 0;
+        int offset;
+        while (handled < BATCH_LIMIT && pending.isEmpty() && (offset = requests.poll()) >= 0) {
+            ByteBuffer out = replies.claim();
+            if (out == null) {
+                break;
+            }
+
+            int length = frameLength(in, offset);
+            byte type = in.get(offset + TYPE_OFFSET);
+            if (length != requestLength(type) || length > requests.getSlotLength()) {
+                // Unlike a stream, the next slot is still readable after a malformed one
+                OrderEntryHandler.rejectFrame(out);
+            } else {
+                handler.handleFrame(session, in, offset, type, out);
+            }
+
+            replies.commit();
+            requests.release();
+            handled++;
+            sent += sendPending(pending, replies);
+        }
+        return handled + sent;
+    }
+
+    /**
+     * Write pending reports to the reply ring, one per slot, until there are none left or the ring is full
+     * @return the number of reports written
+     */
+    private static int sendPending(PendingReports pending, SpscRing replies) {
+        int sent = 0;
+        ByteBuffer out;
+        while (!pending.isEmpty() && (out = replies.claim()) != null) {
+            pending.moveTo(out);
+            replies.commit();
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * The state of one channel. Only ever touched by the poller thread, apart from the channel being closed after the
+     * thread has stopped
+     */
+    private static final class IpcSession implements OrderEntrySession {
+        private final SharedMemoryChannel channel;
+        private final PendingReports pendingReports = new PendingReports(PendingReports.DEFAULT_CAPACITY);
+        private Trader trader;
+
+        private IpcSession(SharedMemoryChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public Trader getTrader() {
+            return trader;
+        }
+
+        @Override
+        public void setTrader(Trader trader) {
+            this.trader = trader;
+        }
+
+        @Override
+        public PendingReports getPendingReports() {
+            return pendingReports;
+        }
+    }
+}
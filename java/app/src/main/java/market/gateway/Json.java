@@ -0,0 +1,134 @@
+package market.gateway;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the HTTP gateway: parsing flat objects of string, number and boolean values, and writing objects
+ * and arrays
+ */
+final class Json {
+    private Json() {};
+
+    /**
+     * Parse a JSON object whose values are all strings, numbers, booleans or null
+     * @param text the JSON text
+     * @return the raw value of each field (strings are unescaped, everything else is left as written)
+     */
+    static Map<String, String> parseFlatObject(String text) {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skipWhitespace(text, 0)};
+
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+            return fields;
+        }
+
+        while (true) {
+            String key = readString(text, pos);
+            expect(text, pos, ':');
+            char c = peek(text, pos);
+            String value;
+            if (c == '"') {
+                value = readString(text, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                value = text.substring(start, pos[0]);
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Missing value for field '" + key + "'");
+                }
+            }
+            fields.put(key, value);
+
+            char next = peek(text, pos);
+            pos[0]++;
+            if (next == '}') {
+                return fields;
+            } else if (next != ',') {
+                throw new IllegalArgumentException("Expected ',' or '}' at position " + (pos[0] - 1));
+            }
+        }
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String readString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                pos[0] = skipWhitespace(text, pos[0]);
+                return sb.toString();
+            }
+            if (c == '\\') {
+                if (pos[0] >= text.length()) {
+                    break;
+                }
+                char esc = text.charAt(pos[0]++);
+                switch (esc) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos[0] + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                    }
+                    default -> sb.append(esc);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private static void expect(String text, int[] pos, char expected) {
+        if (peek(text, pos) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos[0]);
+        }
+        pos[0] = skipWhitespace(text, pos[0] + 1);
+    }
+
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipWhitespace(text, pos[0]);
+        if (pos[0] >= text.length()) {
+            throw new IllegalArgumentException("Unexpected end of JSON");
+        }
+        return text.charAt(pos[0]);
+    }
+
+    private static int skipWhitespace(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
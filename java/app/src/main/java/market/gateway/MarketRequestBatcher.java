@@ -0,0 +1,149 @@
+package market.gateway;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import market.MarketService;
+import market.matching.MatchResult;
+import market.orders.Order;
+
+/**
+ * Funnels requests from many caller threads onto a single market thread.
+ * 
+ * Callers enqueue requests and wait on the returned future. The market thread wakes on the first request and drains
+ * whatever else has queued up behind it (up to a maximum batch size) before handling them in order, so a burst of
+ * concurrent callers costs one hand off rather than one per request. Each request is applied on its own, so one that fails
+ * only fails its own caller
+ */
+public class MarketRequestBatcher implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+    public static final int DEFAULT_MAX_BATCH = 1024;
+
+    private final MarketService market;
+    private final BlockingQueue<PendingRequest<?>> queue;
+    private final int maxBatch;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * A request waiting for the market thread
+     */
+    private record PendingRequest<T>(Supplier<T> task, CompletableFuture<T> result) {}
+
+    public MarketRequestBatcher(MarketService market) {
+        this(market, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param market the market the requests are applied to. This batcher's thread becomes its only writer
+     * @param queueCapacity the number of requests that can wait before callers block
+     * @param maxBatch the most requests handled per wake up of the market thread
+     */
+    public MarketRequestBatcher(MarketService market, int queueCapacity, int maxBatch) {
+        this.market = market;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "market-request-batcher");
+        thread.start();
+    }
+
+    /**
+     * Queue an order to be placed on the market
+     * @param order the order to place
+     * @return a future completed with the match result once the order has been processed
+     */
+    public CompletableFuture<MatchResult> placeOrder(Order order) {
+        return submit(() -> market.placeOrder(order));
+    }
+
+    /**
+     * Queue any other piece of work (a cancel, amend or query) to run on the market thread, in order with the orders
+     * around it
+     * @param task the work to run
+     * @return a future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return enqueue(new PendingRequest<>(task, new CompletableFuture<>()));
+    }
+
+    /**
+     * Stop the market thread once it has finished the request it is on. Requests still waiting, or queued while closing,
+     * are failed
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Catches requests queued after the market thread's last look, and frees callers blocked on a full queue
+        failQueued();
+    }
+
+    private <T> CompletableFuture<T> enqueue(PendingRequest<T> req) {
+        if (!running) {
+            req.result().completeExceptionally(new IllegalStateException("Request batcher has been closed"));
+            return req.result();
+        }
+
+        try {
+            queue.put(req);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            req.result().completeExceptionally(e);
+            return req.result();
+        }
+
+        // Closed while this was being queued, perhaps after the last drain, so nothing else may ever take it. If it is
+        // already gone, whoever took it completes it
+        if (!running && queue.remove(req)) {
+            req.result().completeExceptionally(new IllegalStateException("Request batcher has been closed"));
+        }
+        return req.result();
+    }
+
+    private void run() {
+        List<PendingRequest<?>> batch = new ArrayList<>(maxBatch);
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+
+            for (int i = 0; i < batch.size(); i++) {
+                runTask(batch.get(i));
+            }
+            batch.clear();
+        }
+
+        // Fail anything still waiting so callers don't hang
+        failQueued();
+    }
+
+    private void failQueued() {
+        PendingRequest<?> req;
+        while ((req = queue.poll()) != null) {
+            req.result().completeExceptionally(new IllegalStateException("Request batcher has been closed"));
+        }
+    }
+
+    private static <T> void runTask(PendingRequest<T> req) {
+        try {
+            req.result().complete(req.task().get());
+        } catch (RuntimeException e) {
+            // Only this request fails. The requests around it have been or will be applied as normal
+            req.result().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import market.MarketService;
+import market.Trade;
+import market.matching.ExecutionReport;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.orders.OrderValidator;
+import market.trader.ExecutionSubscriber;
+import market.trader.Trader;
+
+/**
+ * Applies order entry frames (see OrderEntryProtocol) to a market and writes the replies, for every transport that speaks the
+ * protocol. Frames are decoded in place, and must only be handled on the one thread allowed to mutate the market.
+ * 
+ * The logged on sessions of each trader share one subscription to the fills of the trader's resting orders, which are
+ * queued as EXEC_FILL reports in the pending reports of every one of those sessions for the transport to send
+ */
+class OrderEntryHandler {
+    private final MarketService market;
+    private final Consumer<OrderEntrySession> reportListener;
+    private final Map<UUID, TraderSessions> sessionsByTrader = new HashMap<>();
+
+    /**
+     * @param market the market requests are applied to
+     * @param reportListener told each time a report is queued in a session's pending reports, so the transport can send it
+     */
+    OrderEntryHandler(MarketService market, Consumer<OrderEntrySession> reportListener) {
+        this.market = market;
+        this.reportListener = reportListener;
+    }
+
+    /**
+     * Forget a session that has been closed, so it is sent no more fills. The trader's subscription to fills is dropped
+     * along with their last session
+     * @param session the session, which may never have logged on
+     * @return true if the session was the last logged on session of its trader
+     */
+    boolean logoff(OrderEntrySession session) {
+        Trader trader = session.getTrader();
+        TraderSessions traderSessions = trader == null ? null : sessionsByTrader.get(trader.getId());
+        if (traderSessions == null || !traderSessions.sessions.remove(session)) {
+            return false;
+        }
+
+        if (!traderSessions.sessions.isEmpty()) {
+            return false;
+        }
+        sessionsByTrader.remove(trader.getId());
+        market.getEngine().removeExecutionSubscriber(trader.getId(), traderSessions);
+        return true;
+    }
+
+    /**
+     * Handle one complete request frame of the length its type expects (see requestLength), writing the reply to the
+     * output buffer at its position
+     * @param session the session the frame arrived on
+     * @param in the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @param type the message type of the frame
+     * @param out the buffer to write the reply to, with room for at least MAX_FRAME_LENGTH bytes
+     */
+    void handleFrame(OrderEntrySession session, ByteBuffer in, int offset, byte type, ByteBuffer out) {
+        int start = out.position();
+        try {
+            applyFrame(session, in, offset, type, out);
+        } catch (RuntimeException e) {
+            // A failure in the market (or a subscriber it calls) must not take down the transport and every other session
+            // with it, so the request is rejected and the session carries on. The reply may have been part written
+            out.position(start);
+            boolean hasOrderFields = type != LOGON && requestLength(type) > 0;
+            long clientOrderId = hasOrderFields ? in.getLong(offset + CLIENT_ORDER_ID_OFFSET) : 0;
+            byte sideCode = hasOrderFields ? in.get(offset + SIDE_OFFSET) : 0;
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.REQUEST_FAILED, 0);
+        }
+    }
+
+    /**
+     * Refuse a frame that isn't a well formed request, e.g. one of a type clients may not send, without reading its body
+     * @param out the buffer to write the reply to
+     */
+    static void rejectFrame(ByteBuffer out) {
+        reject(out, 0, 0, 0, (byte) 0, RejectReason.INVALID_REQUEST, 0);
+    }
+
+    private void applyFrame(OrderEntrySession session, ByteBuffer in, int offset, byte type, ByteBuffer out) {
+        if (type == LOGON) {
+            Trader trader = market.getTrader(new UUID(in.getLong(offset + TRADER_ID_OFFSET),
+                in.getLong(offset + TRADER_ID_OFFSET + 8)));
+            boolean accepted = session.getTrader() == null && trader != null;
+            if (accepted) {
+                session.setTrader(trader);
+                logon(session, trader);
+            }
+            encodeLogonAck(out, accepted);
+            return;
+        }
+
+        long clientOrderId = in.getLong(offset + CLIENT_ORDER_ID_OFFSET);
+        byte sideCode = in.get(offset + SIDE_OFFSET);
+        OrderSide side = decodeSide(sideCode);
+        if (session.getTrader() == null) {
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.UNKNOWN_TRADER, 0);
+            return;
+        }
+        if (side == null) {
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.INVALID_REQUEST, 0);
+            return;
+        }
+
+        switch (type) {
+            case NEW_ORDER -> handleNewOrder(session, in, offset, clientOrderId, side, out);
+            case CANCEL -> {
+                long msb = in.getLong(offset + CANCEL_ORDER_ID_OFFSET);
+                long lsb = in.getLong(offset + CANCEL_ORDER_ID_OFFSET + 8);
+                UUID orderId = new UUID(msb, lsb);
+                if (!isOwnOrder(session, orderId)) {
+                    reject(out, clientOrderId, msb, lsb, sideCode, RejectReason.NOT_ORDER_OWNER, 0);
+                    return;
+                }
+                boolean cancelled = market.cancelOrder(orderId, side);
+                encodeExecutionReport(out, clientOrderId, msb, lsb, EXEC_CANCEL, cancelled ? 1 : 0, sideCode,
+                    RejectReason.NONE.getCode(), 0, 0, 0);
+            }
+            case AMEND -> {
+                long msb = in.getLong(offset + AMEND_ORDER_ID_OFFSET);
+                long lsb = in.getLong(offset + AMEND_ORDER_ID_OFFSET + 8);
+                int newVolume = in.getInt(offset + VOLUME_OFFSET);
+                UUID orderId = new UUID(msb, lsb);
+                if (!OrderValidator.isValidVolume(newVolume)) {
+                    reject(out, clientOrderId, msb, lsb, sideCode, RejectReason.INVALID_VOLUME, 0);
+                    return;
+                }
+                if (!isOwnOrder(session, orderId)) {
+                    reject(out, clientOrderId, msb, lsb, sideCode, RejectReason.NOT_ORDER_OWNER, 0);
+                    return;
+                }
+                boolean amended = market.amendOrder(orderId, side, newVolume);
+                encodeExecutionReport(out, clientOrderId, msb, lsb, EXEC_AMEND, amended ? 1 : 0, sideCode,
+                    RejectReason.NONE.getCode(), 0, newVolume, 0);
+            }
+            default -> reject(out, clientOrderId, 0, 0, sideCode, RejectReason.INVALID_REQUEST, 0);
+        }
+    }
+
+    private void handleNewOrder(OrderEntrySession session, ByteBuffer in, int offset, long clientOrderId, OrderSide side,
+            ByteBuffer out) {
+        byte sideCode = (byte) side.ordinal();
+        OrderType orderType = decodeOrderType(in.get(offset + ORDER_TYPE_OFFSET));
+        int volume = in.getInt(offset + VOLUME_OFFSET);
+        double price = in.getDouble(offset + PRICE_OFFSET);
+
+        // Checked up front, as a client sending a flood of bad orders shouldn't cost an exception each
+        if (orderType == null) {
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.INVALID_REQUEST, volume);
+            return;
+        }
+        if (!OrderValidator.isValidVolume(volume)) {
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.INVALID_VOLUME, volume);
+            return;
+        }
+        if (!market.getOrderFactory().canCreateOrder(orderType, volume, price)) {
+            reject(out, clientOrderId, 0, 0, sideCode, RejectReason.INVALID_PRICE, volume);
+            return;
+        }
+
+        Order order = market.getOrderFactory().createOrder(orderType, side, session.getTrader(), volume, price);
+
+        MatchResult res = market.placeOrder(order);
+        UUID orderId = order.getOrderId();
+        encodeExecutionReport(out, clientOrderId, orderId.getMostSignificantBits(), orderId.getLeastSignificantBits(), EXEC_NEW,
+            res.getStatus().ordinal(), sideCode, res.getRejectReason().getCode(), res.getFilledVolume(),
+            res.getRemainingVolume(), res.getAvgMatchPrice());
+    }
+
+    private void logon(OrderEntrySession session, Trader trader) {
+        TraderSessions traderSessions = sessionsByTrader.get(trader.getId());
+        if (traderSessions == null) {
+            traderSessions = new TraderSessions();
+            sessionsByTrader.put(trader.getId(), traderSessions);
+            market.getEngine().addExecutionSubscriber(trader.getId(), traderSessions);
+        }
+        traderSessions.sessions.add(session);
+    }
+
+    private static void reject(ByteBuffer out, long clientOrderId, long orderIdMsb, long orderIdLsb, byte sideCode,
+            RejectReason reason, int remainingVolume) {
+        encodeExecutionReport(out, clientOrderId, orderIdMsb, orderIdLsb, EXEC_REJECT, 0, sideCode, reason.getCode(), 0,
+            remainingVolume, 0);
+    }
+
+    /**
+     * Check an order may be cancelled or amended by a session. Order ids are not secret (trades carry the ids of both of
+     * their orders), so a session must only ever touch orders of the trader it is logged on as
+     * @return true if the order belongs to the session's trader, or is not resting at all so the request will find nothing
+     */
+    private boolean isOwnOrder(OrderEntrySession session, UUID orderId) {
+        UUID owner = market.getOrderOwner(orderId);
+        return owner == null || owner.equals(session.getTrader().getId());
+    }
+
+    /**
+     * The logged on sessions of one trader
+     */
+    private final class TraderSessions implements ExecutionSubscriber {
+        private final List<OrderEntrySession> sessions = new ArrayList<>(1);
+
+        @Override
+        public void notifyOfExecution(ExecutionReport report) {
+            for (int i = 0; i < report.fills().size(); i++) {
+                ExecutionReport.Fill fill = report.fills().get(i);
+                for (int j = 0; j < sessions.size(); j++) {
+                    queueFill(sessions.get(j), fill);
+                }
+            }
+        }
+
+        private void queueFill(OrderEntrySession session, ExecutionReport.Fill fill) {
+            ByteBuffer buf = session.getPendingReports().claim(EXECUTION_REPORT_LENGTH);
+            if (buf != null) {
+                Trade trade = fill.trade();
+                UUID orderId = fill.orderId();
+                OrderSide side = orderId.equals(trade.bidId()) ? OrderSide.BUY : OrderSide.SELL;
+                OrderStatus status = fill.remainingVolume() == 0 ? OrderStatus.FILLED : OrderStatus.PARTIAL_RESTING;
+                encodeExecutionReport(buf, 0, orderId.getMostSignificantBits(), orderId.getLeastSignificantBits(), EXEC_FILL,
+                    status.ordinal(), (byte) side.ordinal(), RejectReason.NONE.getCode(), trade.volume(),
+                    fill.remainingVolume(), trade.price());
+            }
+            // Told even when the report was lost, as the transport then has a session to drop
+            reportListener.accept(session);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package market.gateway;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+/**
+ * Layout of the fixed size binary order entry protocol spoken by the TCP gateway.
+ * 
+ * Every frame starts with a 4 byte header (u16 frame length including the header, u8 message type, u8 reserved) followed by a
+ * body whose layout is fixed for the message type. All fields are little endian and are read in place with absolute gets, so
+ * a frame is never copied out of the buffer it arrived in.
+ * 
+ * Every request gets exactly one execution report in reply, in the order the requests were sent. A logged on session is
+ * also sent an EXEC_FILL report, in between the replies, each time another order fills one of its trader's resting orders.
+ * 
+ * <pre>
+ * LOGON            traderIdMsb i64 @4, traderIdLsb i64 @12                                                          20 bytes
+ * NEW_ORDER        clientOrderId i64 @4, side u8 @12, orderType u8 @13, volume i32 @16, price f64 @20               28 bytes
+ * CANCEL           clientOrderId i64 @4, side u8 @12, orderIdMsb i64 @16, orderIdLsb i64 @24                        32 bytes
+ * AMEND            clientOrderId i64 @4, side u8 @12, newVolume i32 @16, orderIdMsb i64 @20, orderIdLsb i64 @28     36 bytes
+ * LOGON_ACK        accepted u8 @4                                                                                    8 bytes
+ * EXECUTION_REPORT clientOrderId i64 @4, orderIdMsb i64 @12, orderIdLsb i64 @20, execType u8 @28, status u8 @29,
+ *                  side u8 @30, rejectReason u8 @31, filledVolume i32 @32, remainingVolume i32 @36,
+ *                  avgPrice f64 @40                                                                                  48 bytes
+ * </pre>
+ */
+public final class OrderEntryProtocol {
+    private OrderEntryProtocol() {};
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int HEADER_LENGTH = 4;
+    public static final int MAX_FRAME_LENGTH = 48;
+
+    // Message types sent by clients
+    public static final byte LOGON = 1;
+    public static final byte NEW_ORDER = 2;
+    public static final byte CANCEL = 3;
+    public static final byte AMEND = 4;
+
+    // Message types sent by the gateway
+    public static final byte LOGON_ACK = 64;
+    public static final byte EXECUTION_REPORT = 65;
+
+    public static final int LOGON_LENGTH = 20;
+    public static final int NEW_ORDER_LENGTH = 28;
+    public static final int CANCEL_LENGTH = 32;
+    public static final int AMEND_LENGTH = 36;
+    public static final int LOGON_ACK_LENGTH = 8;
+    public static final int EXECUTION_REPORT_LENGTH = 48;
+
+    // Field offsets from the start of the frame
+    public static final int LENGTH_OFFSET = 0;
+    public static final int TYPE_OFFSET = 2;
+    public static final int CLIENT_ORDER_ID_OFFSET = 4;
+    public static final int SIDE_OFFSET = 12;
+    public static final int ORDER_TYPE_OFFSET = 13;
+    public static final int VOLUME_OFFSET = 16;
+    public static final int PRICE_OFFSET = 20;
+    public static final int CANCEL_ORDER_ID_OFFSET = 16;
+    public static final int AMEND_ORDER_ID_OFFSET = 20;
+    public static final int TRADER_ID_OFFSET = 4;
+    public static final int ACCEPTED_OFFSET = 4;
+    public static final int REPORT_ORDER_ID_OFFSET = 12;
+    public static final int EXEC_TYPE_OFFSET = 28;
+    public static final int STATUS_OFFSET = 29;
+    public static final int REPORT_SIDE_OFFSET = 30;
+    public static final int REJECT_REASON_OFFSET = 31;
+    public static final int FILLED_VOLUME_OFFSET = 32;
+    public static final int REMAINING_VOLUME_OFFSET = 36;
+    public static final int AVG_PRICE_OFFSET = 40;
+
+    /** Execution report for a new order. The status is the ordinal of the order's OrderStatus */
+    public static final byte EXEC_NEW = 0;
+    /** Execution report for a cancel. The status is 1 if the order was cancelled, else 0 */
+    public static final byte EXEC_CANCEL = 1;
+    /** Execution report for an amend. The status is 1 if the order was amended, else 0 */
+    public static final byte EXEC_AMEND = 2;
+    /** The request was refused by the gateway, for the RejectReason code in the report */
+    public static final byte EXEC_REJECT = 3;
+    /**
+     * Unsolicited report of a fill of one of the trader's resting orders by another order. The client order id is 0, the
+     * order id is the resting order's, the filled volume and average price are those of the one fill and the remaining
+     * volume is what is left resting. The status is FILLED once nothing is left, else PARTIAL_RESTING
+     */
+    public static final byte EXEC_FILL = 4;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    /**
+     * Get the length of the frame starting at an offset
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return the length of the frame in bytes, including the header
+     */
+    public static int frameLength(ByteBuffer buf, int offset) {
+        return buf.getShort(offset + LENGTH_OFFSET) & 0xFFFF;
+    }
+
+    /**
+     * Get the expected length of a message type sent in either direction
+     * @param type the message type
+     * @return the length of frames of that type, or -1 if the type is not known
+     */
+    public static int expectedLength(byte type) {
+        return switch (type) {
+            case LOGON -> LOGON_LENGTH;
+            case NEW_ORDER -> NEW_ORDER_LENGTH;
+            case CANCEL -> CANCEL_LENGTH;
+            case AMEND -> AMEND_LENGTH;
+            case LOGON_ACK -> LOGON_ACK_LENGTH;
+            case EXECUTION_REPORT -> EXECUTION_REPORT_LENGTH;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Get the expected length of a message type clients may send. Types only the gateway sends are not requests, so a
+     * gateway refuses them rather than reading their bodies with a request's layout
+     * @param type the message type
+     * @return the length of frames of that type, or -1 if the type is not a request
+     */
+    public static int requestLength(byte type) {
+        return switch (type) {
+            case LOGON -> LOGON_LENGTH;
+            case NEW_ORDER -> NEW_ORDER_LENGTH;
+            case CANCEL -> CANCEL_LENGTH;
+            case AMEND -> AMEND_LENGTH;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Decode an order side from its wire code
+     * @param code the wire code
+     * @return the side, or null if the code is not a known side
+     */
+    public static OrderSide decodeSide(byte code) {
+        return (code >= 0 && code < SIDES.length) ? SIDES[code] : null;
+    }
+
+    /**
+     * Decode an order type from its wire code
+     * @param code the wire code
+     * @return the order type, or null if the code is not a known order type
+     */
+    public static OrderType decodeOrderType(byte code) {
+        return (code >= 0 && code < ORDER_TYPES.length) ? ORDER_TYPES[code] : null;
+    }
+
+    public static void encodeLogon(ByteBuffer buf, UUID traderId) {
+        int offset = putHeader(buf, LOGON, LOGON_LENGTH);
+        buf.putLong(offset + TRADER_ID_OFFSET, traderId.getMostSignificantBits());
+        buf.putLong(offset + TRADER_ID_OFFSET + 8, traderId.getLeastSignificantBits());
+    }
+
+    public static void encodeNewOrder(ByteBuffer buf, long clientOrderId, OrderSide side, OrderType type, int volume,
+            double price) {
+        int offset = putHeader(buf, NEW_ORDER, NEW_ORDER_LENGTH);
+        buf.putLong(offset + CLIENT_ORDER_ID_OFFSET, clientOrderId);
+        buf.put(offset + SIDE_OFFSET, (byte) side.ordinal());
+        buf.put(offset + ORDER_TYPE_OFFSET, (byte) type.ordinal());
+        buf.putInt(offset + VOLUME_OFFSET, volume);
+        buf.putDouble(offset + PRICE_OFFSET, price);
+    }
+
+    public static void encodeCancel(ByteBuffer buf, long clientOrderId, UUID orderId, OrderSide side) {
+        int offset = putHeader(buf, CANCEL, CANCEL_LENGTH);
+        buf.putLong(offset + CLIENT_ORDER_ID_OFFSET, clientOrderId);
+        buf.put(offset + SIDE_OFFSET, (byte) side.ordinal());
+        buf.putLong(offset + CANCEL_ORDER_ID_OFFSET, orderId.getMostSignificantBits());
+        buf.putLong(offset + CANCEL_ORDER_ID_OFFSET + 8, orderId.getLeastSignificantBits());
+    }
+
+    public static void encodeAmend(ByteBuffer buf, long clientOrderId, UUID orderId, OrderSide side, int newVolume) {
+        int offset = putHeader(buf, AMEND, AMEND_LENGTH);
+        buf.putLong(offset + CLIENT_ORDER_ID_OFFSET, clientOrderId);
+        buf.put(offset + SIDE_OFFSET, (byte) side.ordinal());
+        buf.putInt(offset + VOLUME_OFFSET, newVolume);
+        buf.putLong(offset + AMEND_ORDER_ID_OFFSET, orderId.getMostSignificantBits());
+        buf.putLong(offset + AMEND_ORDER_ID_OFFSET + 8, orderId.getLeastSignificantBits());
+    }
+
+    public static void encodeLogonAck(ByteBuffer buf, boolean accepted) {
+        int offset = putHeader(buf, LOGON_ACK, LOGON_ACK_LENGTH);
+        buf.put(offset + ACCEPTED_OFFSET, (byte) (accepted ? 1 : 0));
+    }
+
+    public static void encodeExecutionReport(ByteBuffer buf, long clientOrderId, long orderIdMsb, long orderIdLsb,
+            byte execType, int status, byte side, byte rejectReason, int filledVolume, int remainingVolume, double avgPrice) {
+        int offset = putHeader(buf, EXECUTION_REPORT, EXECUTION_REPORT_LENGTH);
+        buf.putLong(offset + CLIENT_ORDER_ID_OFFSET, clientOrderId);
+        buf.putLong(offset + REPORT_ORDER_ID_OFFSET, orderIdMsb);
+        buf.putLong(offset + REPORT_ORDER_ID_OFFSET + 8, orderIdLsb);
+        buf.put(offset + EXEC_TYPE_OFFSET, execType);
+        buf.put(offset + STATUS_OFFSET, (byte) status);
+        buf.put(offset + REPORT_SIDE_OFFSET, side);
+        buf.put(offset + REJECT_REASON_OFFSET, rejectReason);
+        buf.putInt(offset + FILLED_VOLUME_OFFSET, filledVolume);
+        buf.putInt(offset + REMAINING_VOLUME_OFFSET, remainingVolume);
+        buf.putDouble(offset + AVG_PRICE_OFFSET, avgPrice);
+    }
+
+    /**
+     * Write a frame header at the buffer's position and advance the position past the whole frame. The caller fills in the
+     * body with absolute puts relative to the returned offset
+     * @param buf the buffer to write into
+     * @param type the message type
+     * @param length the length of the whole frame
+     * @return the offset of the start of the frame
+     */
+    private static int putHeader(ByteBuffer buf, byte type, int length) {
+        int offset = buf.position();
+        if (buf.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+
+        buf.putShort(offset + LENGTH_OFFSET, (short) length);
+        buf.put(offset + TYPE_OFFSET, type);
+        buf.put(offset + TYPE_OFFSET + 1, (byte) 0);
+        // Zero the body so that padding bytes are deterministic
+        for (int i = HEADER_LENGTH; i < length; i++) {
+            buf.put(offset + i, (byte) 0);
+        }
+        buf.position(offset + length);
+        return offset;
+    }
+}
@@ -0,0 +1,17 @@
+package market.gateway;
+
+import market.trader.Trader;
+
+/**
+ * A client connection to a gateway, logged on as at most one trader
+ */
+interface OrderEntrySession {
+    Trader getTrader();
+
+    void setTrader(Trader trader);
+
+    /**
+     * @return the reports waiting to be sent to the client that none of its requests asked for
+     */
+    PendingReports getPendingReports();
+}
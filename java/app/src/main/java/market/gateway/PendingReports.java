@@ -0,0 +1,102 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reports owed to a session that no request of its asked for, e.g. the fills of its trader's resting orders by other
+ * orders. They are held here as encoded frames, in the order they were made, until the session's transport has room for
+ * them, so they never land in the middle of a reply being written.
+ *
+ * The queue is bounded. A session that falls so far behind that it fills up can no longer be given a complete account of its
+ * fills, so once it has overflowed the transport should drop the session rather than carry on. Only ever touched by the
+ * market's writer thread
+ */
+final class PendingReports {
+    static final int DEFAULT_CAPACITY = 256 * 1024;
+
+    private final int capacity;
+    // Allocated on the first report, as most sessions of a busy trader never have any waiting. Frames are held from
+    // readPosition up to the buffer's position
+    private ByteBuffer buf;
+    private int readPosition;
+    private boolean overflowed = false;
+
+    PendingReports(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Make room for one more frame at the back of the queue
+     * @param length the length of the frame
+     * @return the buffer to encode the frame into at its position, or null if the queue has overflowed
+     */
+    ByteBuffer claim(int length) {
+        if (overflowed) {
+            return null;
+        }
+        if (buf == null) {
+            buf = ByteBuffer.allocate(capacity).order(BYTE_ORDER);
+        }
+
+        if (buf.remaining() < length && readPosition > 0) {
+            // Move the frames still waiting to the front, which is rare as the queue is usually emptied as soon as it fills
+            buf.limit(buf.position()).position(readPosition);
+            buf.compact();
+            readPosition = 0;
+        }
+        if (buf.remaining() < length) {
+            overflowed = true;
+            return null;
+        }
+        return buf;
+    }
+
+    boolean isEmpty() {
+        return buf == null || readPosition == buf.position();
+    }
+
+    /**
+     * @return true if a report has been lost because the queue was full
+     */
+    boolean hasOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Move the oldest frame to a buffer at its position
+     * @param out the buffer to move the frame to
+     * @return true if a frame was moved, false if there are none or the buffer hasn't room for the oldest
+     */
+    boolean moveTo(ByteBuffer out) {
+        if (isEmpty()) {
+            return false;
+        }
+
+        int length = frameLength(buf, readPosition);
+        if (out.remaining() < length) {
+            return false;
+        }
+        out.put(out.position(), buf, readPosition, length);
+        out.position(out.position() + length);
+        readPosition += length;
+
+        if (readPosition == buf.position()) {
+            buf.clear();
+            readPosition = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Move as many whole frames as fit to a buffer, oldest first
+     * @param out the buffer to move the frames to
+     */
+    void drainTo(ByteBuffer out) {
+        boolean moved = moveTo(out);
+        while (moved) {
+            moved = moveTo(out);
+        }
+    }
+}
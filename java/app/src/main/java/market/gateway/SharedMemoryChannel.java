@@ -0,0 +1,149 @@
+package market.gateway;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A pair of rings in a memory mapped file that an order entry client and the IPC gateway share: one carrying requests from
+ * the client and one carrying replies back. Both ends map the same file, so on Linux a file under /dev/shm is shared memory
+ * and no bytes are copied through the kernel once the file is mapped.
+ *
+ * Every slot holds one order entry frame (see OrderEntryProtocol). The gateway creates the file and the client opens it,
+ * checking the header so a client can't attach to a file of a different layout:
+ *
+ * <pre>
+ * magic i32 @0, version i32 @4, slots i32 @8, slotLength i32 @12, request ring @128, reply ring after it
+ * </pre>
+ */
+public class SharedMemoryChannel implements Closeable {
+    public static final int MAGIC = 0x4F454950;
+    public static final int VERSION = 1;
+    public static final int DEFAULT_SLOTS = 1024;
+    // A cache line per slot, which holds the longest frame
+    public static final int SLOT_LENGTH = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int SLOT_LENGTH_OFFSET = 12;
+    private static final int RINGS_OFFSET = 128;
+
+    private final Path path;
+    private final FileChannel file;
+    private final SpscRing requests;
+    private final SpscRing replies;
+
+    private SharedMemoryChannel(Path path, FileChannel file, MappedByteBuffer buf, int slots) {
+        this.path = path;
+        this.file = file;
+        int ringLength = (int) SpscRing.length(slots, SLOT_LENGTH);
+        this.requests = new SpscRing(buf, RINGS_OFFSET, slots, SLOT_LENGTH);
+        this.replies = new SpscRing(buf, RINGS_OFFSET + ringLength, slots, SLOT_LENGTH);
+    }
+
+    /**
+     * Create a channel file, replacing any left over from an earlier run
+     * @param path the file to create, e.g. under /dev/shm
+     * @param slots the number of slots in each ring, a power of two
+     * @return the channel
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static SharedMemoryChannel create(Path path, int slots) throws IOException {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two");
+        }
+
+        long length = RINGS_OFFSET + 2 * SpscRing.length(slots, SLOT_LENGTH);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Channel of " + slots + " slots is too large to map");
+        }
+
+        Files.deleteIfExists(path);
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buf = file.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buf.order(OrderEntryProtocol.BYTE_ORDER);
+            buf.putInt(VERSION_OFFSET, VERSION);
+            buf.putInt(SLOTS_OFFSET, slots);
+            buf.putInt(SLOT_LENGTH_OFFSET, SLOT_LENGTH);
+            // Written last, so a client that sees the magic sees the rest of the header
+            buf.putInt(MAGIC_OFFSET, MAGIC);
+            return new SharedMemoryChannel(path, file, buf, slots);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a channel file created by the gateway
+     * @param path the channel file
+     * @return the channel
+     * @throws IOException if the file cannot be mapped or is not a channel of this version
+     */
+    public static SharedMemoryChannel open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = file.size();
+            if (size < RINGS_OFFSET || size > Integer.MAX_VALUE) {
+                throw new IOException("File " + path + " is not an order entry channel");
+            }
+
+            MappedByteBuffer buf = file.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(OrderEntryProtocol.BYTE_ORDER);
+            if (buf.getInt(MAGIC_OFFSET) != MAGIC || buf.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("File " + path + " is not an order entry channel of version " + VERSION);
+            }
+            int slots = buf.getInt(SLOTS_OFFSET);
+            if (Integer.bitCount(slots) != 1 || buf.getInt(SLOT_LENGTH_OFFSET) != SLOT_LENGTH
+                || size != RINGS_OFFSET + 2 * SpscRing.length(slots, SLOT_LENGTH)) {
+                throw new IOException("File " + path + " has a corrupt header");
+            }
+            return new SharedMemoryChannel(path, file, buf, slots);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return /dev/shm where it exists, so channel files live in memory, else the temporary directory
+     */
+    public static Path defaultDirectory() {
+        Path shm = Path.of("/dev/shm");
+        return Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Path.of(System.getProperty("java.io.tmpdir"));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the ring the client produces requests into and the gateway consumes
+     */
+    public SpscRing getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the ring the gateway produces replies into and the client consumes
+     */
+    public SpscRing getReplies() {
+        return replies;
+    }
+
+    /**
+     * Close the file. The mapping stays valid until it is garbage collected, as the JDK has no way to unmap it eagerly, and
+     * the file itself is left for its creator to delete
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
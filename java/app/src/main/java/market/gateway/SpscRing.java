@@ -0,0 +1,138 @@
+package market.gateway;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A single producer, single consumer ring of fixed size slots laid out in a shared buffer, e.g. a file mapped by two
+ * processes.
+ *
+ * The region holds the producer's count of slots written and the consumer's count of slots read, each on its own pair of
+ * cache lines so the two sides don't contend, followed by the slots. The producer fills a slot with plain writes and then
+ * publishes it by storing its new count with release semantics, and the consumer loads that count with acquire semantics
+ * before reading, so a slot is never seen half written. Slots go back to the producer the same way. Each side keeps a cached
+ * copy of the other's count and only reloads it when the ring looks full or empty, so a busy ring touches the other side's
+ * cache line once per batch rather than once per slot.
+ *
+ * <pre>
+ * written i64 @0, read i64 @128, slots @256
+ * </pre>
+ *
+ * Exactly one thread (in any process) may produce and one may consume
+ */
+public class SpscRing {
+    public static final int HEADER_LENGTH = 256;
+
+    private static final int WRITTEN_OFFSET = 0;
+    private static final int READ_OFFSET = 128;
+    private static final VarHandle COUNTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buf;
+    private final ByteBuffer producerView;
+    private final int offset;
+    private final int slotsOffset;
+    private final int slotLength;
+    private final int mask;
+
+    // Local to the producer
+    private long written;
+    private long cachedRead;
+
+    // Local to the consumer
+    private long read;
+    private long cachedWritten;
+
+    /**
+     * Attach to a ring, picking up the counts of any slots already written and read
+     * @param buf the shared buffer, which must be direct or mapped for another process to see it
+     * @param offset the offset of the ring in the buffer, a multiple of 8
+     * @param slots the number of slots, a power of two
+     * @param slotLength the length of each slot, a multiple of 8
+     */
+    public SpscRing(ByteBuffer buf, int offset, int slots, int slotLength) {
+        if (Integer.bitCount(slots) != 1 || slotLength <= 0 || slotLength % 8 != 0 || offset % 8 != 0) {
+            throw new IllegalArgumentException("Ring needs a power of two slots of a multiple of 8 bytes, 8 byte aligned");
+        }
+        if ((long) offset + length(slots, slotLength) > buf.capacity()) {
+            throw new IllegalArgumentException("Ring does not fit in the buffer");
+        }
+
+        this.buf = buf;
+        this.producerView = buf.duplicate().order(buf.order());
+        this.offset = offset;
+        this.slotsOffset = offset + HEADER_LENGTH;
+        this.slotLength = slotLength;
+        this.mask = slots - 1;
+        this.written = (long) COUNTS.getAcquire(buf, offset + WRITTEN_OFFSET);
+        this.read = (long) COUNTS.getAcquire(buf, offset + READ_OFFSET);
+        this.cachedRead = read;
+        this.cachedWritten = written;
+    }
+
+    /**
+     * @param slots the number of slots
+     * @param slotLength the length of each slot
+     * @return the bytes a ring takes up in its buffer
+     */
+    public static long length(int slots, int slotLength) {
+        return HEADER_LENGTH + (long) slots * slotLength;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buf;
+    }
+
+    public int getSlotLength() {
+        return slotLength;
+    }
+
+    /**
+     * Claim the next slot to write. Producer only
+     * @return a view of the buffer positioned at the start of the slot and limited to its end, or null if the ring is full.
+     * The view is reused by every claim
+     */
+    public ByteBuffer claim() {
+        if (written - cachedRead > mask) {
+            cachedRead = (long) COUNTS.getAcquire(buf, offset + READ_OFFSET);
+            if (written - cachedRead > mask) {
+                return null;
+            }
+        }
+
+        int slot = slotsOffset + (int) (written & mask) * slotLength;
+        producerView.limit(slot + slotLength).position(slot);
+        return producerView;
+    }
+
+    /**
+     * Publish the claimed slot to the consumer. Producer only
+     */
+    public void commit() {
+        written++;
+        COUNTS.setRelease(buf, offset + WRITTEN_OFFSET, written);
+    }
+
+    /**
+     * Find the next slot to read. Consumer only
+     * @return the offset of the slot in the buffer, or -1 if the ring is empty
+     */
+    public int poll() {
+        if (read == cachedWritten) {
+            cachedWritten = (long) COUNTS.getAcquire(buf, offset + WRITTEN_OFFSET);
+            if (read == cachedWritten) {
+                return -1;
+            }
+        }
+        return slotsOffset + (int) (read & mask) * slotLength;
+    }
+
+    /**
+     * Hand the polled slot back to the producer. Consumer only
+     */
+    public void release() {
+        read++;
+        COUNTS.setRelease(buf, offset + READ_OFFSET, read);
+    }
+}
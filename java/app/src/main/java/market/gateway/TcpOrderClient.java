@@ -0,0 +1,143 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+/**
+ * Blocking client for the TCP order gateway. Requests are buffered and only sent on flush() (or when the buffer fills), so
+ * callers can pipeline many orders per write
+ */
+public class TcpOrderClient implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+    private final ExecutionReportDecoder decoder = new ExecutionReportDecoder();
+
+    /**
+     * Handles execution reports read by the client. The decoder is only valid for the duration of the call
+     */
+    @FunctionalInterface
+    public interface ExecutionReportHandler {
+        void onExecutionReport(ExecutionReportDecoder report);
+    }
+
+    private TcpOrderClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    public static TcpOrderClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        return new TcpOrderClient(channel);
+    }
+
+    /**
+     * Log on as a registered trader. Blocks until the gateway replies
+     * @param traderId the id of the trader
+     * @return true if the gateway accepted the logon
+     * @throws IOException if the connection fails
+     */
+    public boolean logon(UUID traderId) throws IOException {
+        encodeLogon(out, traderId);
+        flush();
+
+        readAtLeast(LOGON_ACK_LENGTH);
+        int offset = in.position();
+        if (in.get(offset + TYPE_OFFSET) != LOGON_ACK) {
+            throw new IOException("Expected a logon acknowledgement");
+        }
+        boolean accepted = in.get(offset + ACCEPTED_OFFSET) == 1;
+        in.position(offset + LOGON_ACK_LENGTH);
+        in.compact();
+        return accepted;
+    }
+
+    public void newOrder(long clientOrderId, OrderSide side, OrderType type, int volume, double price) throws IOException {
+        ensureSpace(NEW_ORDER_LENGTH);
+        encodeNewOrder(out, clientOrderId, side, type, volume, price);
+    }
+
+    public void cancel(long clientOrderId, UUID orderId, OrderSide side) throws IOException {
+        ensureSpace(CANCEL_LENGTH);
+        encodeCancel(out, clientOrderId, orderId, side);
+    }
+
+    public void amend(long clientOrderId, UUID orderId, OrderSide side, int newVolume) throws IOException {
+        ensureSpace(AMEND_LENGTH);
+        encodeAmend(out, clientOrderId, orderId, side, newVolume);
+    }
+
+    /**
+     * Send every buffered request
+     * @throws IOException if the connection fails
+     */
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Block until at least one execution report is available and then pass every complete report that has arrived to a
+     * handler
+     * @param handler the handler to pass reports to
+     * @return the number of reports handled
+     * @throws IOException if the connection fails or the gateway sends something other than an execution report
+     */
+    public int pollReports(ExecutionReportHandler handler) throws IOException {
+        readAtLeast(EXECUTION_REPORT_LENGTH);
+
+        int handled = 0;
+        while (in.remaining() >= EXECUTION_REPORT_LENGTH) {
+            int offset = in.position();
+            if (in.get(offset + TYPE_OFFSET) != EXECUTION_REPORT) {
+                throw new IOException("Expected an execution report");
+            }
+            handler.onExecutionReport(decoder.wrap(in, offset));
+            in.position(offset + EXECUTION_REPORT_LENGTH);
+            handled++;
+        }
+
+        in.compact();
+        return handled;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensureSpace(int length) throws IOException {
+        if (out.remaining() < length) {
+            flush();
+        }
+    }
+
+    /**
+     * Read until at least a number of bytes are buffered, leaving the input buffer flipped for reading
+     * @param bytes the minimum number of bytes needed
+     * @throws IOException if the connection fails or is closed
+     */
+    private void readAtLeast(int bytes) throws IOException {
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Gateway closed the connection");
+            }
+        }
+        in.flip();
+    }
+}
@@ -0,0 +1,298 @@
+package market.gateway;
+
+import static market.gateway.OrderEntryProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import market.MarketService;
+import market.trader.Trader;
+
+/**
+ * Non blocking TCP front end to a market using the binary protocol described in OrderEntryProtocol.
+ * 
+ * A single selector thread accepts connections, decodes frames in place from each session's direct buffer and calls
+ * straight into the market, so it is the one thread allowed to mutate the market. Reports are appended to the session's
+ * output buffer and written once per selector wake up, so a burst of orders costs one socket write rather than one per
+ * report. Fills of a trader's resting orders made by other sessions' orders are queued on each of the trader's sessions and
+ * written in the same pass as the reply to the order that made them. A session whose client falls so far behind that its
+ * queue of fills overflows is disconnected, as it can no longer be given a complete account of them.
+ */
+public class TcpOrderGateway implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final MarketService market;
+    private final OrderEntryHandler handler;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<GatewaySession> dirtySessions = new ArrayList<>();
+    private volatile Consumer<Trader> sessionLossHandler;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    /**
+     * Bind the gateway. It does not accept connections until started
+     * @param market the market that orders are sent to
+     * @param bindAddress the address to listen on. Use port 0 to pick any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public TcpOrderGateway(MarketService market, InetSocketAddress bindAddress) throws IOException {
+        this.market = market;
+        this.handler = new OrderEntryHandler(market, session -> markDirty((GatewaySession) session));
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(bindAddress);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Set a hook to run when a trader loses the connection of their last logged on session, whether it drops or is closed
+     * by the gateway, e.g. to pull the trader's resting orders with MarketService.cancelTraderOrders. Losing a session
+     * while the trader still has another logged on doesn't run it. The hook runs on the selector thread, so it may call
+     * into the market directly. It is not run for sessions still open when the gateway itself is closed
+     * @param handler receives the trader of the lost session, or null to remove the hook
+     */
+    public void setSessionLossHandler(Consumer<Trader> handler) {
+        this.sessionLossHandler = handler;
+    }
+
+    /**
+     * Pull every resting order of a trader as soon as they have no logged on session left
+     */
+    public void enableCancelOnDisconnect() {
+        setSessionLossHandler(trader -> market.cancelTraderOrders(trader.getId()));
+    }
+
+    /**
+     * Start the selector thread
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Gateway has already been started");
+        }
+
+        thread = new Thread(this::run, "tcp-order-gateway");
+        thread.start();
+    }
+
+    /**
+     * Stop the selector thread and close every connection
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            closeAll();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handleKey(key);
+                }
+
+                flushDirtySessions();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            try {
+                accept();
+            } catch (IOException e) {
+                // Only the connection being accepted is lost
+            }
+            return;
+        }
+
+        GatewaySession session = (GatewaySession) key.attachment();
+        try {
+            if (key.isWritable() && session.flush()) {
+                // Output drained so we can resume working through any input we stopped part way through
+                processFrames(session);
+            }
+            if (key.isValid() && key.isReadable()) {
+                if (session.getChannel().read(session.getIn()) < 0) {
+                    disconnect(session);
+                    return;
+                }
+                processFrames(session);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Only the session that failed is dropped, the selector thread carries on serving the rest
+            disconnect(session);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new GatewaySession(channel, key, BUFFER_SIZE));
+    }
+
+    /**
+     * Handle every complete frame in a session's input buffer, stopping early if its output buffer is too full to hold another
+     * report. Pending reports are moved to the output first, and after each reply, so that nothing queued is overtaken by a
+     * later reply
+     * @param session the session to process
+     */
+    private void processFrames(GatewaySession session) {
+        ByteBuffer in = session.getIn();
+        ByteBuffer out = session.getOut();
+        PendingReports pending = session.getPendingReports();
+        in.flip();
+
+        pending.drainTo(out);
+        while (pending.isEmpty() && in.remaining() >= HEADER_LENGTH && out.remaining() >= MAX_FRAME_LENGTH) {
+            int offset = in.position();
+            int length = frameLength(in, offset);
+            byte type = in.get(offset + TYPE_OFFSET);
+            int expected = requestLength(type);
+
+            if (expected < 0 ? length < HEADER_LENGTH || length > MAX_FRAME_LENGTH : length != expected) {
+                // The stream can't be re-synchronised after a frame whose length can't be trusted
+                in.clear();
+                disconnect(session);
+                return;
+            }
+            if (in.remaining() < length) {
+                break;
+            }
+
+            if (expected < 0) {
+                // A well framed message that isn't a request, e.g. an echo of one of our own reports, is skipped
+                OrderEntryHandler.rejectFrame(out);
+            } else {
+                handler.handleFrame(session, in, offset, type, out);
+            }
+            in.position(offset + length);
+            pending.drainTo(out);
+        }
+
+        in.compact();
+        if (out.position() > 0) {
+            markDirty(session);
+        }
+    }
+
+    private void markDirty(GatewaySession session) {
+        if (!session.isDirty()) {
+            session.markDirty();
+            dirtySessions.add(session);
+        }
+    }
+
+    /**
+     * Write the output of every session that produced or was queued reports in this selector pass. A session that stopped
+     * processing input because its output was full is resumed once its output drains, which may add it back onto the dirty
+     * list
+     */
+    private void flushDirtySessions() {
+        for (int i = 0; i < dirtySessions.size(); i++) {
+            GatewaySession session = dirtySessions.get(i);
+            if (!session.isDirty()) {
+                continue;
+            }
+            PendingReports pending = session.getPendingReports();
+            if (pending.hasOverflowed()) {
+                disconnect(session);
+                continue;
+            }
+            try {
+                pending.drainTo(session.getOut());
+                boolean drained = session.flush();
+                while (drained && !pending.isEmpty()) {
+                    pending.drainTo(session.getOut());
+                    drained = session.flush();
+                }
+                if (drained && session.getIn().position() >= HEADER_LENGTH) {
+                    processFrames(session);
+                }
+            } catch (IOException | RuntimeException e) {
+                disconnect(session);
+            }
+        }
+        dirtySessions.clear();
+    }
+
+    private void disconnect(GatewaySession session) {
+        if (!session.getChannel().isOpen()) {
+            return;
+        }
+
+        session.close();
+        boolean lastSession = handler.logoff(session);
+        Consumer<Trader> lossHandler = sessionLossHandler;
+        if (lossHandler != null && lastSession) {
+            try {
+                lossHandler.accept(session.getTrader());
+            } catch (RuntimeException e) {
+                // The session is gone either way, and the hook failing must not stop the selector thread
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof GatewaySession session) {
+                session.close();
+            }
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            // Already shutting down
+        }
+    }
+}
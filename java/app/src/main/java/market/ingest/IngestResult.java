@@ -0,0 +1,14 @@
+package market.ingest;
+
+/**
+ * Summary of an ingestion run
+ * @param ordersPlaced the number of orders sent to the engine
+ * @param linesRejected the number of lines that could not be turned into a valid order
+ * @param bytesRead the size of the file
+ * @param elapsedNanos the wall clock time the run took
+ */
+public record IngestResult(long ordersPlaced, long linesRejected, long bytesRead, long elapsedNanos) {
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : ordersPlaced / (elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,12 @@
+package market.ingest;
+
+/**
+ * Formats of order files that can be ingested. Both are line based so that a file can be split into chunks at line
+ * boundaries and parsed in parallel
+ */
+public enum OrderFileFormat {
+    /** Comma separated lines of type,side,traderId,volume,price with an optional header line */
+    CSV,
+    /** One flat JSON object per line with the fields type, side, traderId, volume and price */
+    JSON_LINES
+}
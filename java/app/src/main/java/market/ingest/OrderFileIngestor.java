@@ -0,0 +1,178 @@
+package market.ingest;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import market.MarketService;
+import market.orders.Order;
+import market.orders.OrderFactory;
+import market.trader.Trader;
+
+/**
+ * Streams orders from (possibly very large) CSV or JSON lines files into a market.
+ * 
+ * The file is memory mapped one chunk at a time, each chunk cut back to its last complete line. Chunks are parsed in
+ * parallel on a pool of worker threads, while the calling thread places the parsed orders in file order, a batch at a time.
+ * Only a bounded number of chunks are in flight at once, so memory use depends on the chunk size and parallelism rather than
+ * the size of the file.
+ */
+public class OrderFileIngestor {
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private final Function<UUID, Trader> traderLookup;
+    private final Consumer<List<Order>> sink;
+    private final OrderFactory orderFactory;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int batchSize;
+
+    /**
+     * Create an ingestor that places orders into a market, parsing with one worker per available processor
+     * @param market the market to load orders into. The thread calling ingest must be the market's writer thread
+     */
+    public OrderFileIngestor(MarketService market) {
+        this(market::getTrader, market::placeOrders, market.getOrderFactory(), Runtime.getRuntime().availableProcessors(),
+            DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param traderLookup finds the trader for a trader id in the file, returning null if it is unknown
+     * @param sink receives each batch of orders in file order, on the thread calling ingest
+     * @param orderFactory builds orders from their parsed fields
+     * @param parallelism the number of threads parsing chunks
+     * @param chunkSize the number of bytes mapped and parsed at once. Must be larger than the longest line
+     * @param batchSize the most orders passed to the sink at once
+     */
+    public OrderFileIngestor(Function<UUID, Trader> traderLookup, Consumer<List<Order>> sink, OrderFactory orderFactory,
+            int parallelism, int chunkSize, int batchSize) {
+        if (parallelism <= 0 || chunkSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parallelism, chunk size and batch size must all be positive");
+        }
+
+        this.traderLookup = traderLookup;
+        this.sink = sink;
+        this.orderFactory = orderFactory;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Load every order in a file. Lines that can't be parsed into a valid order from a known trader are skipped and counted
+     * @param file the file to load
+     * @param format the format of the file
+     * @return a summary of the run
+     * @throws IOException if the file can't be read or contains a line longer than the chunk size
+     */
+    public IngestResult ingest(Path file, OrderFileFormat format) throws IOException {
+        long startTime = System.nanoTime();
+        long placed = 0;
+        long rejected = 0;
+        long size;
+
+        // Two chunks per worker keeps every worker busy while the caller places the oldest chunk
+        int maxInFlight = parallelism * 2;
+        ArrayDeque<Future<ParsedOrders>> inFlight = new ArrayDeque<>(maxInFlight);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "order-file-parser");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            long pos = 0;
+
+            while (pos < size) {
+                long length = Math.min(chunkSize, size - pos);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                int end = (int) length;
+                if (pos + length < size) {
+                    end = lastLineEnd(chunk, end);
+                    if (end == 0) {
+                        throw new IOException("Line starting at byte " + pos + " is longer than the chunk size");
+                    }
+                }
+                chunk.limit(end);
+
+                if (inFlight.size() == maxInFlight) {
+                    ParsedOrders parsed = await(inFlight.poll());
+                    rejected += parsed.getRejected();
+                    placed += place(parsed);
+                }
+
+                boolean firstChunk = (pos == 0);
+                inFlight.add(pool.submit(() -> new OrderLineParser(traderLookup).parse(chunk, format, firstChunk)));
+                pos += end;
+            }
+
+            while (!inFlight.isEmpty()) {
+                ParsedOrders parsed = await(inFlight.poll());
+                rejected += parsed.getRejected();
+                placed += place(parsed);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new IngestResult(placed, rejected, size, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Build orders from a parsed chunk and pass them to the sink in batches. Orders are only created here, on the caller's
+     * thread, so their timestamps (and so their time priority) follow file order
+     * @param parsed the parsed chunk
+     * @return the number of orders placed
+     */
+    private int place(ParsedOrders parsed) {
+        int n = parsed.size();
+        for (int start = 0; start < n; start += batchSize) {
+            int end = Math.min(n, start + batchSize);
+            List<Order> batch = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                batch.add(orderFactory.createOrder(parsed.getType(i), parsed.getSide(i), parsed.getTrader(i),
+                    parsed.getVolume(i), parsed.getPrice(i)));
+            }
+            sink.accept(batch);
+        }
+        return n;
+    }
+
+    private static ParsedOrders await(Future<ParsedOrders> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing order file", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse order file", e.getCause());
+        }
+    }
+
+    /**
+     * Find the end of the last complete line in a chunk
+     * @return the index just past the last newline, or 0 if there is no newline
+     */
+    private static int lastLineEnd(MappedByteBuffer chunk, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (chunk.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
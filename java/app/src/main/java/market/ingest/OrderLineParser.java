@@ -0,0 +1,406 @@
+package market.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Function;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.trader.Trader;
+
+/**
+ * Parses order lines straight out of a (normally memory mapped) buffer. Field boundaries are tracked as offsets into the
+ * buffer and numbers, enums and UUIDs are decoded from the raw bytes, so no String is created for a well formed line
+ */
+class OrderLineParser {
+    private static final OrderType[] TYPES = OrderType.values();
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+    private static final byte[][] SIDE_NAMES = new byte[SIDES.length][];
+    private static final byte[] TYPE_KEY = "type".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SIDE_KEY = "side".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRADER_KEY = "traderId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VOLUME_KEY = "volume".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PRICE_KEY = "price".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_VALUE = "null".getBytes(StandardCharsets.US_ASCII);
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POW10 = new double[23];
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        for (int i = 0; i < SIDES.length; i++) {
+            SIDE_NAMES[i] = SIDES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final Function<UUID, Trader> traderLookup;
+    private ByteBuffer buf;
+
+    // Most files contain long runs of orders from the same trader, so remember the last lookup
+    private long cachedMsb;
+    private long cachedLsb;
+    private Trader cachedTrader;
+
+    // Field boundaries of the line currently being parsed, start == -1 when the field is missing
+    private int typeStart, typeEnd, sideStart, sideEnd, traderStart, traderEnd, volumeStart, volumeEnd, priceStart, priceEnd;
+
+    OrderLineParser(Function<UUID, Trader> traderLookup) {
+        this.traderLookup = traderLookup;
+    }
+
+    /**
+     * Parse every line between the buffer's position and limit
+     * @param buf the buffer holding whole lines
+     * @param format the format of the lines
+     * @param mayHaveHeader true if the first line may be a CSV header, which is skipped rather than counted as rejected
+     * @return the parsed orders
+     */
+    ParsedOrders parse(ByteBuffer buf, OrderFileFormat format, boolean mayHaveHeader) {
+        this.buf = buf;
+        int pos = buf.position();
+        int limit = buf.limit();
+        ParsedOrders parsed = new ParsedOrders((limit - pos) / 48);
+        boolean firstLine = true;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > pos && buf.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            int start = skipWhitespace(pos, lineEnd);
+            if (start < lineEnd) {
+                boolean split = (format == OrderFileFormat.CSV) ? splitCsv(start, lineEnd) : splitJson(start, lineEnd);
+                boolean header = firstLine && mayHaveHeader && format == OrderFileFormat.CSV
+                    && matchEnum(TYPE_NAMES, typeStart, typeEnd) < 0;
+                if (!header && !(split && addOrder(parsed))) {
+                    parsed.reject();
+                }
+                firstLine = false;
+            }
+            pos = next;
+        }
+
+        this.buf = null;
+        return parsed;
+    }
+
+    private boolean addOrder(ParsedOrders parsed) {
+        int typeIdx = matchEnum(TYPE_NAMES, typeStart, typeEnd);
+        int sideIdx = matchEnum(SIDE_NAMES, sideStart, sideEnd);
+        if (typeIdx < 0 || sideIdx < 0 || traderStart < 0 || volumeStart < 0) {
+            return false;
+        }
+
+        OrderType type = TYPES[typeIdx];
+        int volume = parseVolume(volumeStart, volumeEnd);
+        double price = 0;
+        if (type != OrderType.MARKET) {
+            price = (priceStart < 0) ? Double.NaN : parsePrice(priceStart, priceEnd);
+            if (!(price > 0)) {
+                return false;
+            }
+        }
+
+        Trader trader = lookupTrader(traderStart, traderEnd);
+        if (volume <= 0 || trader == null) {
+            return false;
+        }
+
+        parsed.add(type, SIDES[sideIdx], trader, volume, price);
+        return true;
+    }
+
+    private boolean splitCsv(int start, int end) {
+        clearFields();
+        int field = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buf.get(i) == ',') {
+                int s = skipWhitespace(fieldStart, i);
+                int e = trimEnd(s, i);
+                switch (field) {
+                    case 0 -> { typeStart = s; typeEnd = e; }
+                    case 1 -> { sideStart = s; sideEnd = e; }
+                    case 2 -> { traderStart = s; traderEnd = e; }
+                    case 3 -> { volumeStart = s; volumeEnd = e; }
+                    case 4 -> {
+                        if (e > s) {
+                            priceStart = s;
+                            priceEnd = e;
+                        }
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        return field >= 4;
+    }
+
+    private boolean splitJson(int start, int end) {
+        clearFields();
+        int p = start;
+        if (buf.get(p) != '{') {
+            return false;
+        }
+        p = skipWhitespace(p + 1, end);
+        if (p < end && buf.get(p) == '}') {
+            return true;
+        }
+
+        while (p < end) {
+            if (buf.get(p) != '"') {
+                return false;
+            }
+            int keyStart = p + 1;
+            int keyEnd = indexOfQuote(keyStart, end);
+            if (keyEnd < 0) {
+                return false;
+            }
+
+            p = skipWhitespace(keyEnd + 1, end);
+            if (p >= end || buf.get(p) != ':') {
+                return false;
+            }
+            p = skipWhitespace(p + 1, end);
+            if (p >= end) {
+                return false;
+            }
+
+            int valueStart;
+            int valueEnd;
+            if (buf.get(p) == '"') {
+                valueStart = p + 1;
+                valueEnd = indexOfQuote(valueStart, end);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                p = valueEnd + 1;
+            } else {
+                valueStart = p;
+                while (p < end && buf.get(p) != ',' && buf.get(p) != '}' && !isWhitespace(buf.get(p))) {
+                    p++;
+                }
+                valueEnd = p;
+                if (matches(NULL_VALUE, valueStart, valueEnd)) {
+                    valueStart = -1;
+                }
+            }
+            assignJsonField(keyStart, keyEnd, valueStart, valueEnd);
+
+            p = skipWhitespace(p, end);
+            if (p >= end) {
+                return false;
+            }
+            if (buf.get(p) == '}') {
+                return true;
+            }
+            if (buf.get(p) != ',') {
+                return false;
+            }
+            p = skipWhitespace(p + 1, end);
+        }
+        return false;
+    }
+
+    private void assignJsonField(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        if (matches(TYPE_KEY, keyStart, keyEnd)) {
+            typeStart = valueStart;
+            typeEnd = valueEnd;
+        } else if (matches(SIDE_KEY, keyStart, keyEnd)) {
+            sideStart = valueStart;
+            sideEnd = valueEnd;
+        } else if (matches(TRADER_KEY, keyStart, keyEnd)) {
+            traderStart = valueStart;
+            traderEnd = valueEnd;
+        } else if (matches(VOLUME_KEY, keyStart, keyEnd)) {
+            volumeStart = valueStart;
+            volumeEnd = valueEnd;
+        } else if (matches(PRICE_KEY, keyStart, keyEnd)) {
+            priceStart = valueStart;
+            priceEnd = valueEnd;
+        }
+    }
+
+    private void clearFields() {
+        typeStart = sideStart = traderStart = volumeStart = priceStart = -1;
+        typeEnd = sideEnd = traderEnd = volumeEnd = priceEnd = -1;
+    }
+
+    /**
+     * Find the closing quote of a JSON string. Escaped strings are not supported since no order field needs them
+     * @return the index of the closing quote or -1 if there isn't one (or the string contains an escape)
+     */
+    private int indexOfQuote(int from, int end) {
+        for (int i = from; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '"') {
+                return i;
+            }
+            if (b == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private Trader lookupTrader(int start, int end) {
+        if (end - start != 36 || buf.get(start + 8) != '-' || buf.get(start + 13) != '-' || buf.get(start + 18) != '-'
+                || buf.get(start + 23) != '-') {
+            return null;
+        }
+
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '-') {
+                continue;
+            }
+            int nibble = Character.digit(b, 16);
+            if (nibble < 0) {
+                return null;
+            }
+            if (digits < 16) {
+                msb = (msb << 4) | nibble;
+            } else {
+                lsb = (lsb << 4) | nibble;
+            }
+            digits++;
+        }
+
+        if (cachedTrader == null || msb != cachedMsb || lsb != cachedLsb) {
+            cachedTrader = traderLookup.apply(new UUID(msb, lsb));
+            cachedMsb = msb;
+            cachedLsb = lsb;
+        }
+        return cachedTrader;
+    }
+
+    /**
+     * @return the volume or -1 if the field is not a positive integer
+     */
+    private int parseVolume(int start, int end) {
+        if (start >= end || end - start > 10) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    /**
+     * Parse a plain decimal price. The result is exact to the same rounding as Double.parseDouble since both the mantissa
+     * and the power of ten are exact doubles. Anything unusual (exponents, very long fractions) takes the slow path
+     * @return the price or NaN if the field is not a number
+     */
+    private double parsePrice(int start, int end) {
+        long mantissa = 0;
+        int scale = -1;
+        boolean negative = false;
+        int i = start;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        if (i >= end) {
+            return Double.NaN;
+        }
+
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+                if (mantissa >= MAX_EXACT_MANTISSA || scale >= POW10.length) {
+                    return parsePriceSlowly(start, end);
+                }
+            } else {
+                return parsePriceSlowly(start, end);
+            }
+        }
+
+        double value = (scale <= 0) ? mantissa : mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private double parsePriceSlowly(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int matchEnum(byte[][] names, int start, int end) {
+        if (start < 0) {
+            return -1;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (matches(names[i], start, end)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(byte[] expected, int start, int end) {
+        if (start < 0 || end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipWhitespace(int pos, int end) {
+        while (pos < end && isWhitespace(buf.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isWhitespace(buf.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,81 @@
+package market.ingest;
+
+import java.util.Arrays;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.trader.Trader;
+
+/**
+ * The orders parsed from one chunk of a file, stored column by column so a chunk holds a handful of arrays rather than an
+ * object per line. Orders are only built from the columns when they are about to be placed, so their timestamps follow
+ * file order
+ */
+class ParsedOrders {
+    private OrderType[] types;
+    private OrderSide[] sides;
+    private Trader[] traders;
+    private int[] volumes;
+    private double[] prices;
+    private int size = 0;
+    private int rejected = 0;
+
+    ParsedOrders(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        types = new OrderType[capacity];
+        sides = new OrderSide[capacity];
+        traders = new Trader[capacity];
+        volumes = new int[capacity];
+        prices = new double[capacity];
+    }
+
+    void add(OrderType type, OrderSide side, Trader trader, int volume, double price) {
+        if (size == volumes.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+            traders = Arrays.copyOf(traders, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+
+        types[size] = type;
+        sides[size] = side;
+        traders[size] = trader;
+        volumes[size] = volume;
+        prices[size] = price;
+        size++;
+    }
+
+    void reject() {
+        rejected++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getRejected() {
+        return rejected;
+    }
+
+    OrderType getType(int i) {
+        return types[i];
+    }
+
+    OrderSide getSide(int i) {
+        return sides[i];
+    }
+
+    Trader getTrader(int i) {
+        return traders[i];
+    }
+
+    int getVolume(int i) {
+        return volumes[i];
+    }
+
+    double getPrice(int i) {
+        return prices[i];
+    }
+}
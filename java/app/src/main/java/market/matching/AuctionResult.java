@@ -0,0 +1,14 @@
+package market.matching;
+
+import java.util.List;
+
+import market.Trade;
+
+/**
+ * The outcome of uncrossing the book at the end of a call auction
+ * @param price the single price every trade was made at, or NaN if the book was not crossed
+ * @param volume the total volume traded
+ * @param trades the trades made, in the order they were filled
+ * @param results the result of every order that traded in the uncross, in the order each was first filled
+ */
+public record AuctionResult(double price, int volume, List<Trade> trades, List<MatchResult> results) {}
@@ -0,0 +1,237 @@
+package market.matching;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import market.OrderBook;
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.orders.StopLimitOrder;
+import market.orders.StopMarketOrder;
+import market.orders.TimeInForce;
+import market.trader.Trader;
+
+/**
+ * Drives synthetic order flow through a throwaway book and engine until the JIT has compiled the hot paths, so the first
+ * orders of a live market don't run in the interpreter.
+ *
+ * The flow covers every order type, icebergs refilling, stops triggering, cancels, amends, mass cancels, queue position
+ * lookups, time in force expiries and an auction uncross each round, against a book from the same factory as the live one
+ * so the JIT profiles the same classes. Rounds of flow run until the JVM has spent no more time compiling for a number of
+ * rounds in a row and the round time has stopped improving, or until the time budget runs out. Nothing is shared with the
+ * live market: the throwaway book, engine and traders are dropped afterwards
+ */
+public class EngineWarmup {
+    public static final int DEFAULT_ORDERS_PER_ROUND = 10_000;
+    public static final int DEFAULT_QUIET_ROUNDS = 5;
+    public static final Duration DEFAULT_MAX_DURATION = Duration.ofSeconds(10);
+
+    private static final double MID_PRICE = 100.0;
+    private static final int NUM_TRADERS = 8;
+    private static final int RECENT_ORDERS = 1024;
+    // A round may be this much slower than the fastest yet and still count as settled, allowing for noise
+    private static final double ROUND_TIME_TOLERANCE = 1.25;
+
+    private final Supplier<OrderBook> bookFactory;
+    private final double tickSize;
+    private final int ordersPerRound;
+    private final int quietRounds;
+    private final Duration maxDuration;
+
+    /**
+     * Warm up with the default round size and time budget, on prices with a tick size of 0.01
+     * @param bookFactory creates a new, empty book of the kind the live market uses
+     */
+    public EngineWarmup(Supplier<OrderBook> bookFactory) {
+        this(bookFactory, 0.01, DEFAULT_ORDERS_PER_ROUND, DEFAULT_QUIET_ROUNDS, DEFAULT_MAX_DURATION);
+    }
+
+    /**
+     * @param bookFactory creates a new, empty book of the kind the live market uses
+     * @param tickSize the tick size synthetic prices are placed on, which must suit the book
+     * @param ordersPerRound the number of orders in each round of flow
+     * @param quietRounds the number of rounds in a row without compilation before the JIT counts as settled
+     * @param maxDuration the longest to warm up for, settled or not
+     */
+    public EngineWarmup(Supplier<OrderBook> bookFactory, double tickSize, int ordersPerRound, int quietRounds,
+        Duration maxDuration) {
+        if (!(tickSize > 0)) {
+            throw new IllegalArgumentException("Tick size must be positive");
+        }
+        if (ordersPerRound <= 0 || quietRounds <= 0) {
+            throw new IllegalArgumentException("Rounds must have at least one order and settle after at least one round");
+        }
+        if (maxDuration.isNegative() || maxDuration.isZero()) {
+            throw new IllegalArgumentException("Warm-up needs a positive time budget");
+        }
+
+        this.bookFactory = bookFactory;
+        this.tickSize = tickSize;
+        this.ordersPerRound = ordersPerRound;
+        this.quietRounds = quietRounds;
+        this.maxDuration = maxDuration;
+    }
+
+    public Supplier<OrderBook> getBookFactory() {
+        return bookFactory;
+    }
+
+    /**
+     * Run rounds of flow until the JIT settles or the time budget runs out
+     * @return what the warm-up did and cost
+     */
+    public WarmupReport run() {
+        OrderBook book = bookFactory.get();
+        if (!book.isEmpty()) {
+            throw new IllegalArgumentException("Cannot warm up on a book which already has orders");
+        }
+
+        MatchingEngine engine = new MatchingEngine(book);
+        Flow flow = new Flow(book, engine);
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean compileTimed = jit != null && jit.isCompilationTimeMonitoringSupported();
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long compileStart = compileTimed ? jit.getTotalCompilationTime() : 0;
+        long lastCompile = compileStart;
+        long fastestRound = Long.MAX_VALUE;
+        long firstRound = 0;
+        long lastRound = 0;
+        int rounds = 0;
+        int quiet = 0;
+
+        while (quiet < quietRounds && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            flow.runRound(ordersPerRound);
+            lastRound = System.nanoTime() - roundStart;
+            if (rounds++ == 0) {
+                firstRound = lastRound;
+            }
+
+            long compile = compileTimed ? jit.getTotalCompilationTime() : 0;
+            boolean settled = compile == lastCompile && lastRound <= fastestRound * ROUND_TIME_TOLERANCE;
+            quiet = settled ? quiet + 1 : 0;
+            lastCompile = compile;
+            fastestRound = Math.min(fastestRound, lastRound);
+        }
+
+        return new WarmupReport(rounds, flow.orders, System.nanoTime() - start,
+            compileTimed ? lastCompile - compileStart : -1, quiet >= quietRounds, firstRound / ordersPerRound,
+            lastRound / ordersPerRound);
+    }
+
+    /**
+     * The synthetic flow of one throwaway engine, keeping the ids of recent orders to cancel and amend
+     */
+    private class Flow {
+        private final OrderBook book;
+        private final MatchingEngine engine;
+        private final Clock clock = Clock.systemDefaultZone();
+        private final Random random = new Random(0);
+        private final Trader[] traders = new Trader[NUM_TRADERS];
+        private final UUID[] recentIds = new UUID[RECENT_ORDERS];
+        private final OrderSide[] recentSides = new OrderSide[RECENT_ORDERS];
+        private long orders;
+
+        private Flow(OrderBook book, MatchingEngine engine) {
+            this.book = book;
+            this.engine = engine;
+            for (int i = 0; i < NUM_TRADERS; i++) {
+                traders[i] = new Trader("Warm-up " + i);
+            }
+        }
+
+        private void runRound(int count) {
+            for (int i = 0; i < count; i++) {
+                step();
+            }
+
+            engine.startAuction();
+            for (int i = 0; i < 50; i++) {
+                engine.placeOrder(new LimitOrder(randomSide(), randomTrader(), randomVolume(), randomPrice(10)));
+            }
+            engine.getIndicativeEquilibrium();
+            engine.uncross();
+            engine.cancelTraderOrders(randomTrader().getId(), null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+            // Keeps the book from growing without bound over many rounds
+            engine.clear();
+        }
+
+        private void step() {
+            int kind = random.nextInt(20);
+            int recent = random.nextInt(RECENT_ORDERS);
+            if (kind == 0 && recentIds[recent] != null) {
+                engine.cancelOrder(recentIds[recent], recentSides[recent]);
+                return;
+            } else if (kind == 1 && recentIds[recent] != null) {
+                engine.amendOrder(recentIds[recent], recentSides[recent], randomVolume());
+                return;
+            } else if (kind == 2 && recentIds[recent] != null) {
+                book.getOrderState(recentIds[recent]);
+                return;
+            }
+
+            OrderSide side = randomSide();
+            Trader trader = randomTrader();
+            int volume = randomVolume();
+            double price = randomPrice(side == OrderSide.BUY ? 20 : -20);
+            Order order = switch (kind) {
+                case 3 -> new MarketOrder(side, trader, volume);
+                case 4 -> new FOKOrder(side, trader, volume, price);
+                case 5 -> new IOCOrder(side, trader, volume, price);
+                case 6 -> new IcebergOrder(side, trader, volume * 5, price, volume);
+                case 7 -> new StopMarketOrder(side, trader, volume, randomPrice(side == OrderSide.BUY ? 30 : -30));
+                case 8 -> new StopLimitOrder(side, trader, volume, randomPrice(side == OrderSide.BUY ? 30 : -30), price);
+                default -> new LimitOrder(side, trader, volume, price);
+            };
+            if (kind == 9) {
+                // Expires within a few rounds' worth of orders
+                ((PricedOrder) order).setTimeInForce(TimeInForce.GTT,
+                    LocalDateTime.now(clock).plusNanos(1_000_000L * (2 + random.nextInt(5))));
+            }
+
+            // A GTT order can expire before it is placed if the warm-up thread is descheduled, as in live flow
+            if (engine.placeOrder(order).getRejectReason() == RejectReason.ALREADY_EXPIRED) {
+                return;
+            }
+            recentIds[recent] = order.getOrderId();
+            recentSides[recent] = side;
+            orders++;
+        }
+
+        private OrderSide randomSide() {
+            return random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        }
+
+        private Trader randomTrader() {
+            return traders[random.nextInt(NUM_TRADERS)];
+        }
+
+        private int randomVolume() {
+            return 1 + random.nextInt(100);
+        }
+
+        /**
+         * @param skew ticks to move the centre of the prices by, so one side can be made to cross the other more often
+         * @return a price on the tick grid within 100 ticks of the skewed mid price
+         */
+        private double randomPrice(int skew) {
+            long midTick = Math.round(MID_PRICE / tickSize);
+            return (midTick + skew + random.nextInt(201) - 100) * tickSize;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package market.matching;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import market.Trade;
+
+/**
+ * The fills of one trader's resting orders by a single incoming order. An incoming order that sweeps several of a trader's
+ * orders produces one report listing every fill, rather than one per trade
+ * @param traderId the trader who owns the resting orders
+ * @param aggressorOrderId the incoming order that traded against them
+ * @param aggressorTraderId the trader who placed the incoming order, the same as traderId for a self trade
+ * @param fills the fills, in the order they were made
+ * @param timestamp the time of the incoming order's match result
+ */
+public record ExecutionReport(UUID traderId, UUID aggressorOrderId, UUID aggressorTraderId, List<Fill> fills,
+    LocalDateTime timestamp) {
+    /**
+     * @return true if the incoming order was placed by the owner of the orders it filled, so the trader also sees these
+     * trades in the match result of their own order
+     */
+    public boolean isSelfTrade() {
+        return traderId.equals(aggressorTraderId);
+    }
+
+    /**
+     * @return the volume filled across every order in the report
+     */
+    public int getFilledVolume() {
+        int volume = 0;
+        for (int i = 0; i < fills.size(); i++) {
+            volume += fills.get(i).trade().volume();
+        }
+        return volume;
+    }
+
+    /**
+     * One fill of a resting order
+     * @param orderId the resting order
+     * @param trade the trade made
+     * @param remainingVolume the volume of the order left resting after the fill, including any iceberg reserve. 0 once the
+     * order is filled and has left the book
+     */
+    public record Fill(UUID orderId, Trade trade, int remainingVolume) {}
+}
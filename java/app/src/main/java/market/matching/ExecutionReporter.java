@@ -0,0 +1,120 @@
+package market.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import market.Trade;
+import market.orders.IcebergOrder;
+import market.orders.PricedOrder;
+import market.trader.ExecutionSubscriber;
+
+/**
+ * Collects the fills of resting orders while an incoming order matches, then batches them into one report per owning trader.
+ *
+ * A resting order carries its trader's id, so the owner of each fill is known without a lookup, and the trader's subscribers
+ * are found in O(1) by id. Fills are only collected for traders with subscribers, so the cost is a single check per fill when
+ * nobody has subscribed
+ */
+class ExecutionReporter {
+    private static final ExecutionSubscriber[] NO_SUBSCRIBERS = new ExecutionSubscriber[0];
+
+    // Copied on write, so subscribers may subscribe or unsubscribe while a report is being delivered
+    private final Map<UUID, ExecutionSubscriber[]> subscribers = new HashMap<>();
+    private final Map<UUID, List<ExecutionReport.Fill>> pending = new LinkedHashMap<>();
+
+    void addSubscriber(UUID traderId, ExecutionSubscriber sub) {
+        ExecutionSubscriber[] subs = subscribers.getOrDefault(traderId, NO_SUBSCRIBERS);
+        ExecutionSubscriber[] grown = Arrays.copyOf(subs, subs.length + 1);
+        grown[subs.length] = sub;
+        subscribers.put(traderId, grown);
+    }
+
+    boolean removeSubscriber(UUID traderId, ExecutionSubscriber sub) {
+        ExecutionSubscriber[] subs = subscribers.get(traderId);
+        if (subs == null) {
+            return false;
+        }
+
+        for (int i = 0; i < subs.length; i++) {
+            if (subs[i].equals(sub)) {
+                if (subs.length == 1) {
+                    subscribers.remove(traderId);
+                } else {
+                    ExecutionSubscriber[] shrunk = new ExecutionSubscriber[subs.length - 1];
+                    System.arraycopy(subs, 0, shrunk, 0, i);
+                    System.arraycopy(subs, i + 1, shrunk, i, subs.length - i - 1);
+                    subscribers.put(traderId, shrunk);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param maker a resting order about to be filled
+     * @return the volume of the order resting before the fill, or -1 if nobody wants its fills reported
+     */
+    int getVolumeBeforeFill(PricedOrder maker) {
+        if (subscribers.isEmpty() || !subscribers.containsKey(maker.getTraderId())) {
+            return -1;
+        }
+        return IcebergOrder.class.isInstance(maker) ? ((IcebergOrder) maker).getTotalVolume() : maker.getVolume();
+    }
+
+    /**
+     * Collect the fill of a resting order
+     * @param maker the resting order
+     * @param trade the trade it made
+     * @param volumeBefore its volume before the fill, from getVolumeBeforeFill
+     */
+    void addFill(PricedOrder maker, Trade trade, int volumeBefore) {
+        pending.computeIfAbsent(maker.getTraderId(), id -> new ArrayList<>())
+            .add(new ExecutionReport.Fill(maker.getOrderId(), trade, volumeBefore - trade.volume()));
+    }
+
+    /**
+     * Forget any fills collected but not reported, e.g. those of an order matched without going through placeOrder
+     */
+    void discardPending() {
+        if (!pending.isEmpty()) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Batch the fills collected since the last call into reports, leaving none pending
+     * @param res the result of the incoming order that made the fills
+     * @return one report per trader whose orders were filled, in the order each was first filled
+     */
+    List<ExecutionReport> takeReports(MatchResult res) {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        List<ExecutionReport> reports = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, List<ExecutionReport.Fill>> entry : pending.entrySet()) {
+            reports.add(new ExecutionReport(entry.getKey(), res.getOrderId(), res.getTraderId(),
+                List.copyOf(entry.getValue()), res.getTimestamp()));
+        }
+        pending.clear();
+        return reports;
+    }
+
+    void deliver(List<ExecutionReport> reports) {
+        for (int i = 0; i < reports.size(); i++) {
+            ExecutionReport report = reports.get(i);
+            ExecutionSubscriber[] subs = subscribers.get(report.traderId());
+            if (subs != null) {
+                for (ExecutionSubscriber sub : subs) {
+                    sub.notifyOfExecution(report);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package market.matching;
+
+import java.util.List;
+
+/**
+ * The single acknowledgement of a mass quote, totalling the results of its quotes
+ * @param quotes the result of each quote, in the order they were placed
+ * @param rejectedSides the number of quote sides rejected across every quote
+ * @param filledVolume the volume traded by quote sides as they were placed
+ */
+public record MassQuoteResult(List<QuoteResult> quotes, int rejectedSides, int filledVolume) {
+    /**
+     * Total the results of a batch of quotes
+     * @param quotes the results
+     * @return the acknowledgement
+     */
+    public static MassQuoteResult of(List<QuoteResult> quotes) {
+        int rejectedSides = 0;
+        int filledVolume = 0;
+        for (int i = 0; i < quotes.size(); i++) {
+            rejectedSides += quotes.get(i).getRejectedSides();
+            filledVolume += quotes.get(i).getFilledVolume();
+        }
+        return new MassQuoteResult(quotes, rejectedSides, filledVolume);
+    }
+
+    public boolean isFullyAccepted() {
+        return rejectedSides == 0;
+    }
+}
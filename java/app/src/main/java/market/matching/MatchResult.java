@@ -13,6 +13,7 @@ import market.orders.OrderSide;
  */
 public class MatchResult {
     private UUID orderId;
+    private UUID traderId;
     private OrderSide side;
     private String note;
     private int filledVolume;
@@ -20,6 +21,7 @@ public class MatchResult {
     private double avgMatchPrice;
     private LocalDateTime timestamp;
     private OrderStatus status;
+    private RejectReason rejectReason = RejectReason.NONE;
     private List<Trade> trades;
     private final static int NO_MATCHES = -1;
 
@@ -31,6 +33,10 @@ public class MatchResult {
         this.orderId = orderId;
     }
 
+    public void setTraderId(UUID traderId) {
+        this.traderId = traderId;
+    }
+
     public void setSide(OrderSide side) {
         this.side = side;
     }
@@ -62,6 +68,10 @@ public class MatchResult {
         this.status = status;
     }
 
+    public void setRejectReason(RejectReason rejectReason) {
+        this.rejectReason = rejectReason;
+    }
+
     public void setTrades(List<Trade> trades) {
         this.trades = (trades == null) ? new ArrayList<>() : new ArrayList<>(trades);
     }
@@ -70,6 +80,10 @@ public class MatchResult {
         return orderId;
     }
 
+    public UUID getTraderId() {
+        return traderId;
+    }
+
     public OrderSide getSide() {
         return side;
     }
@@ -98,6 +112,13 @@ public class MatchResult {
         return status;
     }
 
+    /**
+     * @return why the order or its unfilled volume was rejected, or NONE if nothing was
+     */
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
     public List<Trade> getTrades() {
         return List.copyOf(trades);
     }
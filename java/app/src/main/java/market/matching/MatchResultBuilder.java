@@ -1,13 +1,16 @@
 package market.matching;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import market.Trade;
 import market.orders.FOKOrder;
 import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
 import market.orders.MarketOrder;
 import market.orders.Order;
+import market.orders.StopOrder;
 
 public class MatchResultBuilder {
     private final MatchResult res;
@@ -18,14 +21,24 @@ public class MatchResultBuilder {
      * @param order the order insertion of which the match result is relevant to
      */
     public MatchResultBuilder(Order order) {
+        this(order, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Start building a match result with information we can determine before matching is performed
+     * @param order the order insertion of which the match result is relevant to
+     * @param clock the clock the result is timestamped with
+     */
+    public MatchResultBuilder(Order order, Clock clock) {
         MatchResult res = new MatchResult();
 
         res.setOrderId(order.getOrderId());
+        res.setTraderId(order.getTraderId());
         res.setSide(order.getSide());
         res.setFilledVolume(0);
-        res.setRemainingVolume(order.getVolume());
+        res.setRemainingVolume(getRemainingVolume(order));
         res.setAvgMatchPrice(MatchResult.getNoMatches());
-        res.setTimestamp(LocalDateTime.now());
+        res.setTimestamp(LocalDateTime.now(clock));
         res.setNote("");
 
         this.res = res;
@@ -38,14 +51,44 @@ public class MatchResultBuilder {
      */
     public void finalise(Order incoming, List<Trade> trades) {
         res.setStatus(getOrderStatus(incoming, trades));
-        res.setFilledVolume(res.getRemainingVolume() - incoming.getVolume());
-        res.setRemainingVolume(incoming.getVolume());
+        res.setFilledVolume(res.getRemainingVolume() - getRemainingVolume(incoming));
+        res.setRemainingVolume(getRemainingVolume(incoming));
         res.setAvgMatchPrice(getAverageTradePrice(trades));
         res.setTrades(trades);
         
         isBuilt = true;
     }
 
+    /**
+     * Finish the result of an order that was refused before matching, so never touched the book
+     * @param reason why the order was refused
+     */
+    public void reject(RejectReason reason) {
+        reject(reason, reason.getMessage());
+    }
+
+    /**
+     * Finish the result of an order that was refused before matching, with a more specific note than the reason's message
+     * @param reason why the order was refused
+     * @param note the note to attach
+     */
+    public void reject(RejectReason reason, String note) {
+        res.setStatus(OrderStatus.ALL_REJECTED);
+        res.setRejectReason(reason);
+        res.setNote(note);
+        res.setTrades(List.of());
+
+        isBuilt = true;
+    }
+
+    /**
+     * Record why the unfilled volume of an order was rejected rather than left resting
+     * @param reason the reason
+     */
+    public void setRejectReason(RejectReason reason) {
+        res.setRejectReason(reason);
+    }
+
     /**
      * Attach a note to the match result
      * @param note the string note to add
@@ -72,6 +115,10 @@ public class MatchResultBuilder {
      * @return the status of the order after matching
      */
     private OrderStatus getOrderStatus(Order incoming, List<Trade> trades) {
+        if (StopOrder.class.isInstance(incoming)) {
+            return OrderStatus.PENDING;
+        }
+
         if (incoming.getVolume() == 0) {
             return OrderStatus.FILLED;
         }
@@ -93,20 +140,38 @@ public class MatchResultBuilder {
         }
     }
 
+    /**
+     * Get the volume of an order still to be filled, including any hidden iceberg reserve
+     * @param order the order
+     * @return the unfilled volume
+     */
+    private static int getRemainingVolume(Order order) {
+        if (IcebergOrder.class.isInstance(order)) {
+            return ((IcebergOrder) order).getTotalVolume();
+        }
+
+        return order.getVolume();
+    }
+
     /**
      * Get the average trade price amongst a list of trades
      * @param trades the trades that occurred in the matching process
      * @return the average price of the trades or NO_MATCHES if there were no matches
      */
     private static double getAverageTradePrice(List<Trade> trades) {
-        if (trades.size() > 0) {
-            return trades
-                .stream()
-                .mapToDouble(t -> t.price() * t.volume())
-                .sum() / trades.stream().mapToInt(Trade::volume).sum();
-        } else {
+        if (trades.isEmpty()) {
             return MatchResult.getNoMatches();
         }
+
+        // One pass without streams, as this runs for every result
+        double notional = 0;
+        long volume = 0;
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            notional += trade.price() * trade.volume();
+            volume += trade.volume();
+        }
+        return notional / volume;
     }
 
 }
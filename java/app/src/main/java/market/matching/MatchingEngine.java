@@ -1,36 +1,308 @@
 package market.matching;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import market.AuctionEquilibrium;
 import market.OrderBook;
+import market.TimingWheel;
 import market.Trade;
+import market.TriggerBook;
 import market.orders.FOKOrder;
 import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
 import market.orders.LimitOrder;
 import market.orders.MarketOrder;
 import market.orders.Order;
+import market.orders.OrderSide;
 import market.orders.PricedOrder;
+import market.orders.Quote;
+import market.orders.StopOrder;
+import market.orders.TimeInForce;
+import market.risk.PreTradeRiskCheck;
+import market.risk.RiskRejection;
+import market.trader.ExecutionSubscriber;
 import market.trader.MatchSubject;
+import market.trader.MatchFilter;
+import market.trader.MatchRouter;
 import market.trader.MatchSubscriber;
+import market.trader.Trader;
 
 public class MatchingEngine implements MatchSubject {
+    /**
+     * The note on the result of every order filled in an auction uncross. Each uncross trade is reported to both of its
+     * orders, unlike continuous trading where only the incoming order gets a result
+     */
+    public static final String UNCROSS_NOTE = "Filled in the auction uncross";
+
     private OrderBook book;
-    private final List<MatchSubscriber> matchSubs = new ArrayList<>(); 
+    private final Clock clock;
+    private final TriggerBook triggers = new TriggerBook();
+    private final ArrayDeque<StopOrder> triggeredStops = new ArrayDeque<>();
+    private final List<StopOrder> triggerScratch = new ArrayList<>();
+    private final TimingWheel<PricedOrder> expiries;
+    private final List<PricedOrder> expiryScratch = new ArrayList<>();
+    private final MatchRouter router = new MatchRouter();
+    private final ExecutionReporter executions = new ExecutionReporter();
+    // The orders of each market maker's current quote, by trader id
+    private final Map<UUID, QuoteOrders> quotes = new HashMap<>();
+    private double lastTradePrice = Double.NaN;
+    private boolean runningStops = false;
+    private LocalTime sessionClose = LocalTime.MAX;
+    private PreTradeRiskCheck riskCheck;
+    private TradingPhase phase = TradingPhase.CONTINUOUS;
 
     public MatchingEngine(OrderBook book) {
+        this(book, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param book the book to match against
+     * @param clock the clock match results are timestamped with
+     */
+    public MatchingEngine(OrderBook book, Clock clock) {
         this.book = book;
+        this.clock = clock;
+        this.expiries = new TimingWheel<>(1, clock.millis());
+    }
+
+    public OrderBook getBook() {
+        return book;
+    }
+
+    public TriggerBook getTriggerBook() {
+        return triggers;
+    }
+
+    /**
+     * @return the price of the most recent trade, or NaN if nothing has traded
+     */
+    public double getLastTradePrice() {
+        return lastTradePrice;
+    }
+
+    public PreTradeRiskCheck getRiskCheck() {
+        return riskCheck;
+    }
+
+    /**
+     * Check every order against a pre-trade risk check before matching it. Refused orders get an ALL_REJECTED result and never
+     * touch the book
+     * @param riskCheck the risk check, or null to match orders unchecked
+     */
+    public void setRiskCheck(PreTradeRiskCheck riskCheck) {
+        this.riskCheck = riskCheck;
+    }
+
+    public TradingPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Start a call auction, e.g. for the open or close. Until the book is uncrossed, limit and iceberg orders rest without
+     * matching, even if they cross the other side, and market, FOK and IOC orders are rejected. Stop orders are still held
+     * for their trigger price
+     */
+    public void startAuction() {
+        phase = TradingPhase.AUCTION;
+    }
+
+    /**
+     * Get the price and volume the book would uncross at if the auction ended now
+     * @return the indicative equilibrium, or null if the book is not crossed
+     */
+    public AuctionEquilibrium getIndicativeEquilibrium() {
+        return book.findEquilibrium(lastTradePrice);
+    }
+
+    /**
+     * End the call auction by making every trade at the single price that maximises the executable volume, then return to
+     * continuous matching. Orders are filled in price then time priority on both sides, so the orders left resting are
+     * exactly those that could not trade at the uncrossing price. Every order that traded has its result sent to
+     * subscribers, and stops triggered by the uncrossing price then run as in continuous trading
+     * @return the uncross, with a NaN price and no trades if the book was not crossed
+     */
+    public AuctionResult uncross() {
+        if (phase != TradingPhase.AUCTION) {
+            throw new IllegalStateException("Cannot uncross the book outside of an auction");
+        }
+
+        expireOrders();
+        AuctionEquilibrium equilibrium = book.findEquilibrium(lastTradePrice);
+        phase = TradingPhase.CONTINUOUS;
+        if (equilibrium == null) {
+            return new AuctionResult(Double.NaN, 0, List.of(), List.of());
+        }
+
+        double price = equilibrium.price();
+        List<Trade> trades = new ArrayList<>();
+        Map<UUID, AuctionFill> fills = new LinkedHashMap<>();
+        AuctionFill bidFill = null;
+        AuctionFill offerFill = null;
+
+        int remaining = equilibrium.volume();
+        while (remaining > 0) {
+            PricedOrder bid = book.getBestBid();
+            PricedOrder offer = book.getBestOffer();
+            int volume = Math.min(remaining, Math.min(bid.getVolume(), offer.getVolume()));
+
+            // Each order usually trades in one unbroken run, so it is only looked up when the best order changes
+            if (bidFill == null || bidFill.order != bid) {
+                bidFill = fills.computeIfAbsent(bid.getOrderId(), id -> new AuctionFill(bid, clock));
+            }
+            if (offerFill == null || offerFill.order != offer) {
+                offerFill = fills.computeIfAbsent(offer.getOrderId(), id -> new AuctionFill(offer, clock));
+            }
+
+            Trade trade = new Trade(offer.getOrderId(), bid.getOrderId(), price, volume);
+            book.fillRestingOrder(bid, volume);
+            book.fillRestingOrder(offer, volume);
+            if (riskCheck != null) {
+                riskCheck.onFill(bid.getTraderId(), bid.getSide(), volume);
+                riskCheck.onFill(offer.getTraderId(), offer.getSide(), volume);
+            }
+
+            trades.add(trade);
+            bidFill.trades.add(trade);
+            offerFill.trades.add(trade);
+            remaining -= volume;
+        }
+
+        List<MatchResult> results = new ArrayList<>(fills.size());
+        for (AuctionFill fill : fills.values()) {
+            fill.builder.finalise(fill.order, fill.trades);
+            results.add(fill.builder.getResult());
+        }
+        for (MatchResult res : results) {
+            notifySubscribers(res);
+        }
+
+        queueTriggeredStops(trades);
+        runTriggeredStops();
+        return new AuctionResult(price, equilibrium.volume(), trades, results);
+    }
+
+    public LocalTime getSessionClose() {
+        return sessionClose;
+    }
+
+    /**
+     * Set the time of day that DAY and GTD orders expire. Only applies to orders placed after the change
+     * @param sessionClose the close of the trading session
+     */
+    public void setSessionClose(LocalTime sessionClose) {
+        this.sessionClose = sessionClose;
+    }
+
+    /**
+     * Remove every resting and waiting stop order, forget the last trade price and end any auction, so the engine can be
+     * reused for an unrelated run. The risk check's positions are reset but its limits kept. Subscribers stay attached
+     */
+    public void clear() {
+        book.clear();
+        triggers.clear();
+        triggeredStops.clear();
+        quotes.clear();
+        expiries.reset(clock.millis());
+        lastTradePrice = Double.NaN;
+        phase = TradingPhase.CONTINUOUS;
+        if (riskCheck != null) {
+            riskCheck.resetPositions();
+        }
+    }
+
+    /**
+     * Remove every resting order whose time in force has run out by the engine clock's current time. Orders due at the same
+     * time are removed from the book in one batch. This is also done before every order is placed, so expired orders never
+     * trade, but should be called when the session closes to expire DAY orders promptly
+     * @return the orders that expired
+     */
+    public List<PricedOrder> expireOrders() {
+        expiries.advance(clock.millis(), expiryScratch);
+        if (expiryScratch.isEmpty()) {
+            return List.of();
+        }
+
+        // Filled and cancelled orders are still in the wheel, and are skipped by the book
+        List<PricedOrder> expired = book.removeOrders(expiryScratch);
+        expiryScratch.clear();
+        return expired;
     }
 
     /**
      * Process an order by matching it with other orders in the order book and or inserting some of the volume into other order
-     * book when applicable
+     * book when applicable.
+     * 
+     * Stop orders triggered by the resulting trades are then run in a well defined order. The stops triggered by one order
+     * are queued buy stops first then sell stops, each nearest the market first and in arrival order at the same trigger
+     * price. Queued stops run one at a time, and any stops triggered by their trades join the back of the queue. The result
+     * of each triggered stop is sent to subscribers, after the result of the order that triggered it
      * @param order The order to insert
      * @return The immediate result of the matching process
      */
     public MatchResult placeOrder(Order order) {
+        expireOrders();
+        MatchResult res = matchOrder(order);
+        List<ExecutionReport> reports = executions.takeReports(res);
+        notifySubscribers(res);
+        executions.deliver(reports);
+        runTriggeredStops();
+
+        return res;
+    }
+
+    /**
+     * Match a single order and queue any stops its trades trigger, without running them. An order that finishes without
+     * resting is recorded as finished in the book
+     */
+    private MatchResult matchOrder(Order order) {
+        MatchResult res = checkAndMatchOrder(order);
+        OrderStatus status = res.getStatus();
+        if (status == OrderStatus.FILLED || status == OrderStatus.ALL_REJECTED || status == OrderStatus.PARTIAL_REJECTION) {
+            book.recordFinishedOrder(order, status, res.getFilledVolume());
+        }
+        return res;
+    }
+
+    private MatchResult checkAndMatchOrder(Order order) {
+        executions.discardPending();
+        if (riskCheck != null) {
+            RiskRejection rejection = riskCheck.check(order, book, lastTradePrice);
+            if (rejection != null) {
+                MatchResultBuilder matchResBuilder = new MatchResultBuilder(order, clock);
+                matchResBuilder.reject(RejectReason.of(rejection));
+                return matchResBuilder.getResult();
+            }
+        }
+
+        if (PricedOrder.class.isInstance(order)) {
+            String rejection = book.checkRestingPrice((PricedOrder) order);
+            if (rejection != null) {
+                MatchResultBuilder matchResBuilder = new MatchResultBuilder(order, clock);
+                matchResBuilder.reject(RejectReason.PRICE_NOT_RESTABLE, rejection);
+                return matchResBuilder.getResult();
+            }
+        }
+
+        if (phase == TradingPhase.AUCTION && !StopOrder.class.isInstance(order) && !LimitOrder.class.isInstance(order)
+            && !IcebergOrder.class.isInstance(order)) {
+            MatchResultBuilder matchResBuilder = new MatchResultBuilder(order, clock);
+            matchResBuilder.reject(RejectReason.AUCTION_ORDER_TYPE);
+            return matchResBuilder.getResult();
+        }
+
         MatchResult res;
-        if (MarketOrder.class.isInstance(order)) {
+        if (StopOrder.class.isInstance(order)) {
+            res = processStopOrder((StopOrder) order);
+        } else if (MarketOrder.class.isInstance(order)) {
             res = processMarketOrder((MarketOrder) order);
         } else if (LimitOrder.class.isInstance(order)) {
             res = processLimitOrder((LimitOrder) order);
@@ -38,16 +310,77 @@ public class MatchingEngine implements MatchSubject {
             res = processFOKOrder((FOKOrder) order); 
         } else if (IOCOrder.class.isInstance(order)) {
             res = processIOCOrder((IOCOrder) order);
+        } else if (IcebergOrder.class.isInstance(order)) {
+            res = processIcebergOrder((IcebergOrder) order);
         } else {
             throw new IllegalArgumentException("Matching engine does not support order of type '" + order.getClass().toString()
              + "'");
         }
 
-        notifySubscribers(res);
-
+        queueTriggeredStops(res.getTrades());
         return res;
     }
 
+    /**
+     * Run queued stops until no more are triggered. Orders placed by subscribers while stops are running join the same
+     * cascade rather than starting their own
+     */
+    private void runTriggeredStops() {
+        if (runningStops) {
+            return;
+        }
+
+        runningStops = true;
+        try {
+            StopOrder stop;
+            while ((stop = triggeredStops.poll()) != null) {
+                MatchResult res = matchOrder(stop.trigger(LocalDateTime.now(clock)));
+                List<ExecutionReport> reports = executions.takeReports(res);
+                notifySubscribers(res);
+                executions.deliver(reports);
+            }
+        } finally {
+            runningStops = false;
+        }
+    }
+
+    private void queueTriggeredStops(List<Trade> trades) {
+        if (trades.isEmpty()) {
+            return;
+        }
+
+        double low = Double.MAX_VALUE;
+        double high = -Double.MAX_VALUE;
+        for (Trade trade : trades) {
+            low = Math.min(low, trade.price());
+            high = Math.max(high, trade.price());
+        }
+        lastTradePrice = trades.get(trades.size() - 1).price();
+
+        if (!triggers.isEmpty()) {
+            triggers.pollTriggered(low, high, triggerScratch);
+            triggeredStops.addAll(triggerScratch);
+            triggerScratch.clear();
+        }
+    }
+
+    /**
+     * Hold a stop order until the market trades through its trigger price. A stop whose trigger price has already been
+     * reached by the last trade is triggered straight away
+     * @param incoming the order to process
+     * @return a pending result, or the result of the triggered order
+     */
+    public MatchResult processStopOrder(StopOrder incoming) {
+        if (!Double.isNaN(lastTradePrice) && incoming.isTriggeredBy(lastTradePrice)) {
+            return matchOrder(incoming.trigger(LocalDateTime.now(clock)));
+        }
+
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming, clock);
+        triggers.insertStop(incoming);
+        matchResBuilder.finalise(incoming, new ArrayList<>());
+        return matchResBuilder.getResult();
+    }
+
     /**
      * Process a list of orders via repeated calls on the regular placeOrder method. Insertion
      * occurs in the same order as the iterable is ordered.
@@ -59,19 +392,207 @@ public class MatchingEngine implements MatchSubject {
         
     }
 
+    /**
+     * Replace a market maker's quote in one step, with no other order able to match in between. Both sides of the previous
+     * quote are pulled or amended before either new side is placed, so the new quote can never trade against the old one. A
+     * side whose price is unchanged and whose order is still resting is amended in place and keeps its time priority. Any
+     * other side is cancelled and placed afresh as a limit order, matching like any other incoming order
+     * @param quote the new quote
+     * @return the acknowledgement of both sides
+     */
+    public QuoteResult placeQuote(Quote quote) {
+        expireOrders();
+        QuoteResult res = replaceQuote(quote);
+        runTriggeredStops();
+
+        return res;
+    }
+
+    /**
+     * Replace many quotes in one call, e.g. from a mass quote message, with one aggregated acknowledgement. Quotes are
+     * replaced in list order, and stops triggered by any of them run once every quote is in place
+     * @param quotes the new quotes. A later quote of the same maker replaces an earlier one
+     * @return the acknowledgement of every quote
+     */
+    public MassQuoteResult placeMassQuote(List<Quote> quotes) {
+        expireOrders();
+        List<QuoteResult> results = new ArrayList<>(quotes.size());
+        for (int i = 0; i < quotes.size(); i++) {
+            results.add(replaceQuote(quotes.get(i)));
+        }
+        runTriggeredStops();
+
+        return MassQuoteResult.of(results);
+    }
+
+    /**
+     * Get the order of one side of a market maker's current quote
+     * @param traderId the id of the market maker
+     * @param side the side of the quote
+     * @return the order, or null if that side of the quote is not resting
+     */
+    public PricedOrder getQuoteOrder(UUID traderId, OrderSide side) {
+        QuoteOrders live = quotes.get(traderId);
+        if (live == null) {
+            return null;
+        }
+        return restingOrNull(side == OrderSide.BUY ? live.bid : live.offer);
+    }
+
+    private QuoteResult replaceQuote(Quote quote) {
+        Trader trader = quote.trader();
+        QuoteOrders live = quotes.computeIfAbsent(trader.getId(), id -> new QuoteOrders());
+
+        boolean bidAmended = pullOrAmend(live.bid, quote.bidVolume(), quote.bidPrice());
+        boolean offerAmended = pullOrAmend(live.offer, quote.offerVolume(), quote.offerPrice());
+
+        MatchResult bid;
+        if (bidAmended) {
+            bid = restingResult(live.bid);
+        } else {
+            live.bid = quote.hasBid() ? new LimitOrder(OrderSide.BUY, trader, quote.bidVolume(), quote.bidPrice()) : null;
+            bid = live.bid == null ? null : placeQuoteSide(live.bid);
+        }
+
+        MatchResult offer;
+        if (offerAmended) {
+            offer = restingResult(live.offer);
+        } else {
+            live.offer = quote.hasOffer() ? new LimitOrder(OrderSide.SELL, trader, quote.offerVolume(), quote.offerPrice())
+                : null;
+            offer = live.offer == null ? null : placeQuoteSide(live.offer);
+        }
+
+        if (live.bid == null && live.offer == null) {
+            quotes.remove(trader.getId());
+        }
+        return new QuoteResult(trader.getId(), bid, offer, bidAmended, offerAmended);
+    }
+
+    /**
+     * Amend the resting order of one side of a quote in place if its price is unchanged and the amend passes the risk check,
+     * else cancel it
+     * @param order the order of the previous quote, or null
+     * @param volume the new volume of the side, or 0 to pull it
+     * @param price the new price of the side
+     * @return true if the order was amended in place
+     */
+    private boolean pullOrAmend(PricedOrder order, int volume, double price) {
+        if (restingOrNull(order) == null) {
+            return false;
+        }
+        if (volume > 0 && order.getPrice() == price && passesAmendCheck(order, volume)) {
+            return book.amendOrderVolume(order.getOrderId(), order.getSide(), volume);
+        }
+
+        // Including a side whose amend would break a risk limit, which is then placed afresh and rejected with the reason
+
+        book.cancelOrder(order.getOrderId(), order.getSide());
+        return false;
+    }
+
+    private MatchResult placeQuoteSide(PricedOrder order) {
+        MatchResult res = matchOrder(order);
+        List<ExecutionReport> reports = executions.takeReports(res);
+        notifySubscribers(res);
+        executions.deliver(reports);
+        return res;
+    }
+
+    private MatchResult restingResult(PricedOrder order) {
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(order, clock);
+        matchResBuilder.finalise(order, new ArrayList<>());
+        return matchResBuilder.getResult();
+    }
+
+    /**
+     * @return the order if it is still resting in the book (not filled or cancelled since it was placed), else null
+     */
+    private PricedOrder restingOrNull(PricedOrder order) {
+        return order != null && book.getOrder(order.getOrderId()) == order ? order : null;
+    }
+
+    /**
+     * Remove a resting order from the order book, or a stop order still waiting for its trigger price
+     * @param orderId the id of the order to cancel
+     * @param side the side the order rests on
+     * @return true if the order was resting and has been cancelled, else false
+     */
+    public boolean cancelOrder(UUID orderId, OrderSide side) {
+        return book.cancelOrder(orderId, side) || triggers.cancelStop(orderId, side);
+    }
+
+    /**
+     * Find who owns a resting order or a stop order still waiting for its trigger price, e.g. so a gateway can check that a
+     * session only touches its own orders
+     * @param orderId the id of the order
+     * @return the id of the trader who placed the order, or null if it is neither resting nor waiting
+     */
+    public UUID getOrderOwner(UUID orderId) {
+        PricedOrder order = book.getOrder(orderId);
+        if (order != null) {
+            return order.getTraderId();
+        }
+        StopOrder stop = triggers.getStop(orderId);
+        return stop == null ? null : stop.getTraderId();
+    }
+
+    /**
+     * Remove every resting order of a trader on one or both sides within a price range, in time proportional to the number of
+     * the trader's orders on those sides. Waiting stop orders are not affected
+     * @param traderId the id of the trader
+     * @param side the side to cancel on, or null for both sides
+     * @param minPrice the lowest price to cancel at, inclusive
+     * @param maxPrice the highest price to cancel at, inclusive
+     * @return the orders that were cancelled
+     */
+    public List<PricedOrder> cancelTraderOrders(UUID traderId, OrderSide side, double minPrice, double maxPrice) {
+        return book.cancelTraderOrders(traderId, side, minPrice, maxPrice);
+    }
+
+    /**
+     * Change the volume of a resting order or waiting stop order while keeping its time priority. An increase is refused if it
+     * would break the trader's risk limits
+     * @param orderId the id of the order to amend
+     * @param side the side the order rests on
+     * @param newVolume the new volume of the order
+     * @return true if the order was resting and has been amended, else false
+     */
+    public boolean amendOrder(UUID orderId, OrderSide side, int newVolume) {
+        PricedOrder resting = book.getOrder(orderId);
+        if (resting != null && resting.getSide() == side) {
+            return passesAmendCheck(resting, newVolume) && book.amendOrderVolume(orderId, side, newVolume);
+        }
+
+        StopOrder stop = triggers.getStop(orderId);
+        if (stop != null && stop.getSide() == side) {
+            return passesAmendCheck(stop, newVolume) && triggers.amendStopVolume(orderId, side, newVolume);
+        }
+        return false;
+    }
+
+    /**
+     * Run an increase in an order's volume through the risk check, so an order can't be placed small and then amended past
+     * the trader's limits
+     */
+    private boolean passesAmendCheck(Order order, int newVolume) {
+        return riskCheck == null || riskCheck.checkAmend(order, newVolume, book) == null;
+    }
+
     /**
      * Immediately match an order to the best bid/offer available. If there are no orders to match with raise a liquidity error
      * @param incoming the order to process
      * @return the immediate match result
      */
     public MatchResult processMarketOrder(MarketOrder incoming) {
-        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming);
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming, clock);
         List<Trade> trades = new ArrayList<>();
 
         while (incoming.getVolume() > 0) {
             PricedOrder best = book.getBestOrder(incoming.getSide());
             if (best == null) {
-                matchResBuilder.attachNote("Insufficient liquidity to match order fully");
+                matchResBuilder.attachNote(RejectReason.INSUFFICIENT_LIQUIDITY.getMessage());
+                matchResBuilder.setRejectReason(RejectReason.INSUFFICIENT_LIQUIDITY);
                 break;
             } else {
                 Trade trade = handleMismatchedVolumes(incoming, best);
@@ -90,17 +611,44 @@ public class MatchingEngine implements MatchSubject {
      * @return the immediate match result
      */
     public MatchResult processLimitOrder(LimitOrder incoming) {
-        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming);
+        return matchThenRest(incoming);
+    }
+
+    /**
+     * Match an iceberg order like a limit order using its whole volume. Whatever is left rests showing only its display volume
+     * @param incoming the order to process
+     * @return the immediate match result
+     */
+    public MatchResult processIcebergOrder(IcebergOrder incoming) {
+        return matchThenRest(incoming);
+    }
+
+    private MatchResult matchThenRest(PricedOrder incoming) {
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming, clock);
+        long expiryMillis = 0;
+        if (incoming.getTimeInForce() != TimeInForce.GTC) {
+            expiryMillis = getExpiryMillis(incoming);
+            if (expiryMillis <= clock.millis()) {
+                matchResBuilder.reject(RejectReason.ALREADY_EXPIRED);
+                return matchResBuilder.getResult();
+            }
+        }
+
         List<Trade> trades = new ArrayList<>();
+        int filledVolume = 0;
 
         while (incoming.getVolume() > 0) {
             PricedOrder best = book.getBestOrder(incoming.getSide());
-            if (best == null || !incoming.isInPriceLimit(best.getPrice())) {
-                book.insertRestingOrder(incoming);
+            if (best == null || phase == TradingPhase.AUCTION || !incoming.isInPriceLimit(best.getPrice())) {
+                book.insertRestingOrder(incoming, filledVolume);
+                if (incoming.getTimeInForce() != TimeInForce.GTC) {
+                    expiries.schedule(expiryMillis, incoming);
+                }
                 break;
             } else {
                 Trade trade = handleMismatchedVolumes(incoming, best);
                 trades.add(trade);
+                filledVolume += trade.volume();
             }
         }
 
@@ -109,37 +657,30 @@ public class MatchingEngine implements MatchSubject {
     }
 
     /**
-     * Fill or kill order (A limit order that is cancelled if it can't be immediately met. O(k*log(n)) time complexity where
-     * k is the number of orders that the incoming order must be matched with
+     * Fill or kill order (A limit order that is cancelled if it can't be immediately met). The volume available within the
+     * limit, including iceberg reserves, is counted before any trade is made, so a killed order never touches the book.
+     * O(l + k) time complexity where l is the number of price levels that must be counted and k is the number of orders that
+     * the incoming order must be matched with
      * @param incoming the order to process
      * @return the immediate match result
      */
     public MatchResult processFOKOrder(FOKOrder incoming) {
-        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming);
-        List<PricedOrder> pendingOrdersMatched = new ArrayList<>();
-        List<Trade> pendingTrades = new ArrayList<>();
-        int initialVolume = incoming.getVolume();
-
-        while (incoming.getVolume() > 0) {
-            PricedOrder best = book.getBestOrder(incoming.getSide());
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming, clock);
+        List<Trade> trades = new ArrayList<>();
 
-            if (best == null || !incoming.isInPriceLimit(best.getPrice())) {
-                // 'Kill' step
-                matchResBuilder.attachNote("Insufficient liquidity to match order fully");
-                insertOrders(pendingOrdersMatched);
-                pendingTrades.clear();
-                incoming.setVolume(initialVolume);
-                break;
-            } else {
-                Trade trade = handleMismatchedVolumes(incoming, best);
-                pendingTrades.add(trade);
-                pendingOrdersMatched.add(best);
+        if (book.getMatchableVolume(incoming, incoming.getVolume()) < incoming.getVolume()) {
+            // 'Kill' step
+            matchResBuilder.attachNote(RejectReason.INSUFFICIENT_LIQUIDITY.getMessage());
+            matchResBuilder.setRejectReason(RejectReason.INSUFFICIENT_LIQUIDITY);
+        } else {
+            while (incoming.getVolume() > 0) {
+                Trade trade = handleMismatchedVolumes(incoming, book.getBestOrder(incoming.getSide()));
+                trades.add(trade);
             }
         }
 
-        matchResBuilder.finalise(incoming, pendingTrades);
+        matchResBuilder.finalise(incoming, trades);
         return matchResBuilder.getResult();
-
     }
 
     /**
@@ -148,12 +689,13 @@ public class MatchingEngine implements MatchSubject {
      * @return the immediate match result
      */
     public MatchResult processIOCOrder(IOCOrder incoming) { 
-        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming);
+        MatchResultBuilder matchResBuilder = new MatchResultBuilder(incoming, clock);
         List<Trade> trades = new ArrayList<>();
 
         while (incoming.getVolume() > 0) {
             PricedOrder best = book.getBestOrder(incoming.getSide());
             if (best == null || !incoming.isInPriceLimit(best.getPrice())) {
+                matchResBuilder.setRejectReason(RejectReason.INSUFFICIENT_LIQUIDITY);
                 break;
             } else {
                 Trade trade = handleMismatchedVolumes(incoming, best);
@@ -165,6 +707,23 @@ public class MatchingEngine implements MatchSubject {
         return matchResBuilder.getResult();
     }
 
+    /**
+     * Get the time a resting order expires from its time in force
+     * @param order an order with an expiring time in force
+     * @return the expiry time in milliseconds since the epoch
+     */
+    private long getExpiryMillis(PricedOrder order) {
+        LocalDateTime expiry = switch (order.getTimeInForce()) {
+            case DAY -> order.getTimestamp().toLocalDate().atTime(sessionClose);
+            case GTD -> order.getExpiry().toLocalDate().atTime(sessionClose);
+            case GTT -> order.getExpiry();
+            default -> throw new IllegalArgumentException("Time in force '" + order.getTimeInForce().toString()
+                + "' does not expire");
+        };
+
+        return expiry.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
     /**
      * Resolve a partial match between the incoming order current best order.
      * 
@@ -173,7 +732,8 @@ public class MatchingEngine implements MatchSubject {
      * @param best the best candidate for the incoming order to be matched with
      * @return the trade that occurred
      */
-    private Trade handleMismatchedVolumes(Order incoming, Order best) {
+    private Trade handleMismatchedVolumes(Order incoming, PricedOrder best) {
+        int makerVolume = executions.getVolumeBeforeFill(best);
         Trade trade;
         if (best.getVolume() <= incoming.getVolume()) {
             int newVol = incoming.getVolume() - best.getVolume();
@@ -187,37 +747,83 @@ public class MatchingEngine implements MatchSubject {
             
             incoming.setVolume(newVol);
         }
+
+        if (riskCheck != null) {
+            riskCheck.onFill(incoming.getTraderId(), incoming.getSide(), trade.volume());
+            riskCheck.onFill(best.getTraderId(), best.getSide(), trade.volume());
+        }
+        if (makerVolume >= 0) {
+            executions.addFill(best, trade, makerVolume);
+        }
         
         return trade;
     }
 
-    /**
-     * Take a list of orders and inserts them into the order book. Note that I tested this in reverse and normal sorted order.
-     * Iterating in reverse seems to have no effect or a negative effect on time efficiency. Also, inserting into the order book
-     * is a distinct action from making a trade, as we don't check if there is an order to match with. It is assumed this has
-     * been done already.
-     * @param orders the orders to insert
-     */
-    private void insertOrders(List<PricedOrder> orders) {
-        for (PricedOrder order : orders) {
-            book.insertRestingOrder(order);
-        }
+    @Override
+    public void addSubscriber(MatchSubscriber sub) {
+        router.add(MatchFilter.ALL, sub);
     }
 
     @Override
-    public void addSubscriber(MatchSubscriber sub) {
-        matchSubs.add(sub);
+    public void addSubscriber(MatchFilter filter, MatchSubscriber sub) {
+        router.add(filter, sub);
     }
 
     @Override
     public void removeSubscriber(MatchSubscriber sub) {
-        matchSubs.remove(sub);
+        router.remove(MatchFilter.ALL, sub);
+    }
+
+    @Override
+    public boolean removeSubscriber(MatchFilter filter, MatchSubscriber sub) {
+        return router.remove(filter, sub);
     }
 
     @Override
     public void notifySubscribers(MatchResult res) {
-        for (MatchSubscriber sub : matchSubs) {
-            sub.notifyOfMatch(res);
+        router.route(res);
+    }
+
+    /**
+     * Subscribe to the fills of a trader's resting orders by other orders. The fills made by one incoming order come in a
+     * single report, sent after the incoming order's match result. Orders filled in an auction uncross get a match result of
+     * their own instead
+     * @param traderId the trader who owns the resting orders
+     * @param sub the subscriber
+     */
+    public void addExecutionSubscriber(UUID traderId, ExecutionSubscriber sub) {
+        executions.addSubscriber(traderId, sub);
+    }
+
+    /**
+     * @param traderId the trader the subscriber subscribed to
+     * @param sub the subscriber
+     * @return true if the subscription existed
+     */
+    public boolean removeExecutionSubscriber(UUID traderId, ExecutionSubscriber sub) {
+        return executions.removeSubscriber(traderId, sub);
+    }
+
+    /**
+     * The trades of one order during an uncross, along with its result from before it was filled
+     */
+    private static class AuctionFill {
+        private final PricedOrder order;
+        private final MatchResultBuilder builder;
+        private final List<Trade> trades = new ArrayList<>();
+
+        private AuctionFill(PricedOrder order, Clock clock) {
+            this.order = order;
+            this.builder = new MatchResultBuilder(order, clock);
+            builder.attachNote(UNCROSS_NOTE);
         }
     }
+
+    /**
+     * The orders placed for the current quote of one market maker. Either may since have been filled or cancelled
+     */
+    private static class QuoteOrders {
+        private PricedOrder bid;
+        private PricedOrder offer;
+    }
 }
@@ -1,5 +1,8 @@
 package market.matching;
 
+/**
+ * The status of an order. Ordinals are sent on the wire and exported, so new statuses are only ever added at the end
+ */
 public enum OrderStatus {
-    PENDING, ALL_REJECTED, ALL_RESTING, PARTIAL_REJECTION, PARTIAL_RESTING, FILLED
+    PENDING, ALL_REJECTED, ALL_RESTING, PARTIAL_REJECTION, PARTIAL_RESTING, FILLED, CANCELLED, EXPIRED
 }
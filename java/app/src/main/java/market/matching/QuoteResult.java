@@ -0,0 +1,32 @@
+package market.matching;
+
+import java.util.UUID;
+
+/**
+ * The acknowledgement of one quote. A side whose price was unchanged is amended in place and keeps its time priority, and is
+ * reported as the resting order it was amended to, with no trades
+ * @param traderId the market maker
+ * @param bid the result of the bid, or null if the quote pulled or had no bid
+ * @param offer the result of the offer, or null if the quote pulled or had no offer
+ * @param bidAmended true if the bid was amended in place rather than placed as a new order
+ * @param offerAmended true if the offer was amended in place rather than placed as a new order
+ */
+public record QuoteResult(UUID traderId, MatchResult bid, MatchResult offer, boolean bidAmended, boolean offerAmended) {
+    /**
+     * @return the number of sides of the quote that were rejected
+     */
+    public int getRejectedSides() {
+        return isRejected(bid) + isRejected(offer);
+    }
+
+    /**
+     * @return the volume traded by both sides of the quote as they were placed
+     */
+    public int getFilledVolume() {
+        return (bid == null ? 0 : bid.getFilledVolume()) + (offer == null ? 0 : offer.getFilledVolume());
+    }
+
+    private static int isRejected(MatchResult res) {
+        return res != null && res.getStatus() == OrderStatus.ALL_REJECTED ? 1 : 0;
+    }
+}
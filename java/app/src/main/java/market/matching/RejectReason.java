@@ -0,0 +1,73 @@
+package market.matching;
+
+import market.risk.RiskRejection;
+
+/**
+ * Why an order, or the unfilled part of one, was rejected. Rejects are reported in the match result with one of these codes
+ * rather than thrown, so a storm of bad orders costs no more than a storm of good ones. Each reason has a code that is fixed
+ * for good, for encoding on the wire or on disk
+ */
+public enum RejectReason {
+    NONE(0, ""),
+    INVALID_VOLUME(1, "Cannot have order with volume less than or equal to zero"),
+    INVALID_PRICE(2, "Cannot have order with price less than or equal to zero"),
+    ALREADY_EXPIRED(3, "Cannot place order which has already expired"),
+    INSUFFICIENT_LIQUIDITY(4, "Insufficient liquidity to match order fully"),
+    AUCTION_ORDER_TYPE(5, "Only limit orders can be placed during an auction"),
+    PRICE_NOT_RESTABLE(6, "Price cannot rest in this book"),
+    ORDER_TOO_LARGE(7, RiskRejection.ORDER_TOO_LARGE.getMessage()),
+    NOTIONAL_TOO_LARGE(8, RiskRejection.NOTIONAL_TOO_LARGE.getMessage()),
+    POSITION_LIMIT(9, RiskRejection.POSITION_LIMIT.getMessage()),
+    TOO_MANY_OPEN_ORDERS(10, RiskRejection.TOO_MANY_OPEN_ORDERS.getMessage()),
+    OUTSIDE_PRICE_COLLAR(11, RiskRejection.OUTSIDE_PRICE_COLLAR.getMessage()),
+    UNKNOWN_TRADER(12, "Unknown trader"),
+    INVALID_REQUEST(13, "Request is malformed"),
+    NOT_ORDER_OWNER(14, "Order belongs to another trader"),
+    REQUEST_FAILED(15, "Request failed in the market");
+
+    private static final RejectReason[] BY_CODE = new RejectReason[values().length];
+
+    static {
+        for (RejectReason reason : values()) {
+            BY_CODE[reason.code] = reason;
+        }
+    }
+
+    private final byte code;
+    private final String message;
+
+    RejectReason(int code, String message) {
+        this.code = (byte) code;
+        this.message = message;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @param code a reason code
+     * @return the reason with that code, or null if the code is not known
+     */
+    public static RejectReason fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * @param rejection why the pre-trade risk check refused an order
+     * @return the matching reject reason
+     */
+    public static RejectReason of(RiskRejection rejection) {
+        return switch (rejection) {
+            case ORDER_TOO_LARGE -> ORDER_TOO_LARGE;
+            case NOTIONAL_TOO_LARGE -> NOTIONAL_TOO_LARGE;
+            case POSITION_LIMIT -> POSITION_LIMIT;
+            case TOO_MANY_OPEN_ORDERS -> TOO_MANY_OPEN_ORDERS;
+            case OUTSIDE_PRICE_COLLAR -> OUTSIDE_PRICE_COLLAR;
+        };
+    }
+}
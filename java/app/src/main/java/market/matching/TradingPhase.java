@@ -0,0 +1,11 @@
+package market.matching;
+
+/**
+ * How the matching engine treats incoming orders
+ */
+public enum TradingPhase {
+    /** Orders match as soon as they arrive */
+    CONTINUOUS,
+    /** Limit orders rest without matching until the book is uncrossed */
+    AUCTION
+}
@@ -0,0 +1,24 @@
+package market.matching;
+
+/**
+ * What an engine warm-up did and what it cost
+ * @param rounds the number of rounds of synthetic flow run
+ * @param orders the number of synthetic orders placed
+ * @param elapsedNanos the wall clock time the warm-up took
+ * @param compilationMillis the time the JIT spent compiling during the warm-up, or -1 if the JVM doesn't report it
+ * @param settled true if the JIT settled, false if the time budget ran out first
+ * @param firstRoundNanosPerOrder the mean time per order of the first round
+ * @param lastRoundNanosPerOrder the mean time per order of the last round
+ */
+public record WarmupReport(int rounds, long orders, long elapsedNanos, long compilationMillis, boolean settled,
+        long firstRoundNanosPerOrder, long lastRoundNanosPerOrder) {
+    /**
+     * @return a one line summary for the startup log
+     */
+    public String describe() {
+        return String.format("Engine warm-up %s after %d rounds (%d orders) in %d ms, %s; %d ns per order at first, %d ns at "
+            + "the end", settled ? "settled" : "ran out of time", rounds, orders, elapsedNanos / 1_000_000,
+            compilationMillis < 0 ? "compile time not reported" : compilationMillis + " ms compiling", firstRoundNanosPerOrder,
+            lastRoundNanosPerOrder);
+    }
+}
@@ -0,0 +1,82 @@
+package market.orders;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import market.trader.Trader;
+
+/**
+ * A limit order which only shows part of its volume while resting. The displayed slice (the order's volume) trades like any
+ * other resting order. When it is used up it is refilled from the hidden reserve and goes to the back of its price level.
+ * 
+ * While matching as an incoming order the whole volume is used. The volume is only split into a displayed slice and a reserve
+ * when the order comes to rest
+ */
+public final class IcebergOrder extends PricedOrder {
+    private final int displayVolume;
+    private int hiddenVolume;
+
+    /**
+     * @param volume the total volume of the order
+     * @param displayVolume the most volume shown at once while resting
+     */
+    public IcebergOrder(OrderSide side, Trader trader, int volume, double price, int displayVolume) {
+        this(side, trader, volume, price, displayVolume, UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    public IcebergOrder(OrderSide side, Trader trader, int volume, double price, int displayVolume, UUID orderId,
+            LocalDateTime timestamp) {
+        super(side, trader, volume, price, orderId, timestamp);
+
+        OrderValidator.validateVolume(displayVolume);
+        this.displayVolume = displayVolume;
+    }
+
+    public int getDisplayVolume() {
+        return displayVolume;
+    }
+
+    public int getHiddenVolume() {
+        return hiddenVolume;
+    }
+
+    /**
+     * @return the displayed and hidden volume together
+     */
+    public int getTotalVolume() {
+        return getVolume() + hiddenVolume;
+    }
+
+    /**
+     * Move any volume above the display volume into the hidden reserve
+     */
+    public void hideReserve() {
+        setTotalVolume(getTotalVolume());
+    }
+
+    /**
+     * Set the total volume, showing up to the display volume and hiding the rest
+     * @param totalVolume the new total volume
+     */
+    public void setTotalVolume(int totalVolume) {
+        int shown = Math.min(displayVolume, totalVolume);
+        setVolume(shown);
+        hiddenVolume = totalVolume - shown;
+    }
+
+    /**
+     * Refill the displayed slice from the hidden reserve once it has been used up
+     * @return the volume moved from the reserve, 0 if the reserve is empty
+     */
+    public int replenish() {
+        int refill = Math.min(displayVolume, hiddenVolume);
+        hiddenVolume -= refill;
+        setVolume(getVolume() + refill);
+        return refill;
+    }
+
+    @Override
+    public boolean canRestInBook() {
+        return true;
+    }
+}
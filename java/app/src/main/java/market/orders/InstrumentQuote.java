@@ -0,0 +1,14 @@
+package market.orders;
+
+/**
+ * One entry of a mass quote across instruments: a market maker's quote and the instrument it is for
+ * @param symbol the symbol of the instrument's market
+ * @param quote the quote
+ */
+public record InstrumentQuote(String symbol, Quote quote) {
+    public InstrumentQuote {
+        if (symbol == null || quote == null) {
+            throw new IllegalArgumentException("Cannot have instrument quote without a symbol and a quote");
+        }
+    }
+}
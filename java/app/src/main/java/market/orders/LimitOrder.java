@@ -1,5 +1,8 @@
 package market.orders;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 import market.trader.Trader;
 
 public final class LimitOrder extends PricedOrder {
@@ -7,6 +10,10 @@ public final class LimitOrder extends PricedOrder {
         super(side, trader, volume, price);
     }
 
+    public LimitOrder(OrderSide side, Trader trader, int volume, double price, UUID orderId, LocalDateTime timestamp) {
+        super(side, trader, volume, price, orderId, timestamp);
+    }
+
     @Override
     public boolean canRestInBook() {
         return true;
@@ -1,5 +1,8 @@
 package market.orders;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 import market.orders.strategies.MarketOrderPriceAcceptanceStrategy;
 import market.orders.strategies.PriceAcceptanceStrategy;
 import market.trader.Trader;
@@ -11,6 +14,10 @@ public final class MarketOrder extends Order {
         super(side, trader, volume);
     }
 
+    public MarketOrder(OrderSide side, Trader trader, int volume, UUID orderId, LocalDateTime timestamp) {
+        super(side, trader, volume, orderId, timestamp);
+    }
+
     @Override
     public boolean isInPriceLimit(double price) {
         return paStrategy.acceptsPrice(price);
@@ -8,7 +8,7 @@ import market.trader.Trader;
 /**
  * An order to buy or sell on the market
  */
-public abstract sealed class Order permits MarketOrder, PricedOrder {
+public abstract sealed class Order permits MarketOrder, PricedOrder, StopOrder {
     private final UUID orderId;
     private final UUID traderId;
     private final OrderSide side;
@@ -16,12 +16,20 @@ public abstract sealed class Order permits MarketOrder, PricedOrder {
     private int volume;
 
     public Order(OrderSide side, Trader trader, int volume) {
+        this(side, trader, volume, UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    /**
+     * Create an order with a given id and timestamp rather than a random id and the current time, e.g. when replaying
+     * recorded orders
+     */
+    public Order(OrderSide side, Trader trader, int volume, UUID orderId, LocalDateTime timestamp) {
         OrderValidator.validateVolume(volume);
 
-        this.orderId = UUID.randomUUID();
+        this.orderId = orderId;
         this.traderId = trader.getId();
         this.side = side;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.volume = volume;   
     }
 
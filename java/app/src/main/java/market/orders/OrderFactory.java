@@ -0,0 +1,81 @@
+package market.orders;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import market.trader.Trader;
+
+/**
+ * Creates orders from their type and raw fields, for callers (such as network gateways or file loaders) that only know the
+ * type of order to create at runtime
+ */
+public class OrderFactory {
+    private final Clock clock;
+    private final Supplier<UUID> idGenerator;
+
+    /**
+     * Create a factory which stamps orders with the system clock and gives them random ids
+     */
+    public OrderFactory() {
+        this(Clock.systemDefaultZone(), UUID::randomUUID);
+    }
+
+    /**
+     * @param clock the clock that order timestamps are taken from
+     * @param idGenerator the source of order ids
+     */
+    public OrderFactory(Clock clock, Supplier<UUID> idGenerator) {
+        this.clock = clock;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Check whether createOrder would accept an order, without throwing, so callers facing bad input from clients can reject
+     * it without the cost of an exception
+     * @param type the type of order
+     * @param volume the volume of the order
+     * @param price the limit price of the order. Ignored for market orders
+     * @return true if the order can be created
+     */
+    public boolean canCreateOrder(OrderType type, int volume, double price) {
+        return type != null && OrderValidator.isValidVolume(volume)
+            && (type == OrderType.MARKET || OrderValidator.isValidPrice(price));
+    }
+
+    /**
+     * Create an order of a given type with the next id and the current time
+     * @param type the type of order to create
+     * @param side the side of the order
+     * @param trader the trader placing the order
+     * @param volume the volume of the order
+     * @param price the limit price of the order. Ignored for market orders
+     * @return the new order
+     */
+    public Order createOrder(OrderType type, OrderSide side, Trader trader, int volume, double price) {
+        return createOrder(type, side, trader, volume, price, idGenerator.get(), LocalDateTime.now(clock));
+    }
+
+    /**
+     * Create an order of a given type with a known id and timestamp
+     * @param type the type of order to create
+     * @param side the side of the order
+     * @param trader the trader placing the order
+     * @param volume the volume of the order
+     * @param price the limit price of the order. Ignored for market orders
+     * @param orderId the id of the order
+     * @param timestamp the time the order was placed
+     * @return the new order
+     */
+    public Order createOrder(OrderType type, OrderSide side, Trader trader, int volume, double price, UUID orderId,
+            LocalDateTime timestamp) {
+        return switch (type) {
+            case MARKET -> new MarketOrder(side, trader, volume, orderId, timestamp);
+            case LIMIT -> new LimitOrder(side, trader, volume, price, orderId, timestamp);
+            case FOK -> new FOKOrder(side, trader, volume, price, orderId, timestamp);
+            case IOC -> new IOCOrder(side, trader, volume, price, orderId, timestamp);
+            default -> throw new IllegalArgumentException("Order type '" + type.toString() + "' is not known");
+        };
+    }
+}
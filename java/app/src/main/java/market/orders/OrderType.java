@@ -0,0 +1,5 @@
+package market.orders;
+
+public enum OrderType {
+    MARKET, LIMIT, FOK, IOC
+}
@@ -1,5 +1,7 @@
 package market.orders;
 
+import java.time.LocalDateTime;
+
 /**
  * Validator for orders during creation
  */
@@ -11,7 +13,7 @@ public final class OrderValidator {
      * @param volume
      */
     public static void validateVolume(int volume) {
-        if (volume <= 0) {
+        if (!isValidVolume(volume)) {
             throw new IllegalArgumentException("Cannot have order with volume less than or equal to zero");
         }
     }
@@ -21,8 +23,44 @@ public final class OrderValidator {
      * @param price the prospective order limit
      */
     public static void validatePrice(double price) {
-        if (price <= 0) {
+        if (!isValidPrice(price)) {
             throw new IllegalArgumentException("Cannot have order with price less than or equal to zero");
         }
     }
+
+    /**
+     * Check an order volume without throwing, e.g. to reject a bad order from a client cheaply
+     * @param volume the prospective order volume
+     * @return true if the volume is legal in the market
+     */
+    public static boolean isValidVolume(int volume) {
+        return volume > 0;
+    }
+
+    /**
+     * Check an order price or limit without throwing
+     * @param price the prospective order limit
+     * @return true if the price is legal in the market
+     */
+    public static boolean isValidPrice(double price) {
+        return price > 0;
+    }
+
+    /**
+     * Throw an error if an expiry doesn't suit a time in force
+     * @param timeInForce the prospective time in force
+     * @param expiry the prospective expiry
+     */
+    public static void validateExpiry(TimeInForce timeInForce, LocalDateTime expiry) {
+        if (timeInForce == null) {
+            throw new IllegalArgumentException("Cannot have order without a time in force");
+        }
+
+        boolean needsExpiry = timeInForce == TimeInForce.GTD || timeInForce == TimeInForce.GTT;
+        if (needsExpiry && expiry == null) {
+            throw new IllegalArgumentException("Time in force '" + timeInForce.toString() + "' needs an expiry");
+        } else if (!needsExpiry && expiry != null) {
+            throw new IllegalArgumentException("Time in force '" + timeInForce.toString() + "' can't have an expiry");
+        }
+    }
 }
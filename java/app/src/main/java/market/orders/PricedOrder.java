@@ -1,15 +1,24 @@
 package market.orders;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 import market.orders.strategies.LimitedOrderPriceAcceptanceStrategy;
 import market.orders.strategies.PriceAcceptanceStrategy;
 import market.trader.Trader;
 
-public sealed abstract class PricedOrder extends Order permits LimitOrder, FOKOrder, IOCOrder {
+public sealed abstract class PricedOrder extends Order permits LimitOrder, FOKOrder, IOCOrder, IcebergOrder {
     private double price;
     private final PriceAcceptanceStrategy paStrategy;
+    private TimeInForce timeInForce = TimeInForce.GTC;
+    private LocalDateTime expiry;
 
     public PricedOrder(OrderSide side, Trader trader, int volume, double price) {
-        super(side, trader, volume);
+        this(side, trader, volume, price, UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    public PricedOrder(OrderSide side, Trader trader, int volume, double price, UUID orderId, LocalDateTime timestamp) {
+        super(side, trader, volume, orderId, timestamp);
 
         OrderValidator.validatePrice(price);
         this.price = price;
@@ -24,4 +33,26 @@ public sealed abstract class PricedOrder extends Order permits LimitOrder, FOKOr
     public double getPrice() {
         return price;
     }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    /**
+     * @return the day (GTD) or time (GTT) the order expires, or null for GTC and DAY orders
+     */
+    public LocalDateTime getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Set how long the order may rest in the book. Must be called before the order is placed
+     * @param timeInForce the time in force
+     * @param expiry the day (only the date is used) for GTD, the time for GTT, or null for GTC and DAY
+     */
+    public void setTimeInForce(TimeInForce timeInForce, LocalDateTime expiry) {
+        OrderValidator.validateExpiry(timeInForce, expiry);
+        this.timeInForce = timeInForce;
+        this.expiry = expiry;
+    }
 }
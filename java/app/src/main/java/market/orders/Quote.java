@@ -0,0 +1,47 @@
+package market.orders;
+
+import market.trader.Trader;
+
+/**
+ * A market maker's two sided quote. Placing a quote replaces the maker's previous quote as one unit, so each side becomes a
+ * resting limit order for the trader at its price. A side with a volume of 0 is pulled
+ * @param trader the market maker
+ * @param bidVolume the volume bid, or 0 for no bid
+ * @param bidPrice the bid price, ignored if there is no bid
+ * @param offerVolume the volume offered, or 0 for no offer
+ * @param offerPrice the offer price, ignored if there is no offer
+ */
+public record Quote(Trader trader, int bidVolume, double bidPrice, int offerVolume, double offerPrice) {
+    public Quote {
+        if (trader == null) {
+            throw new IllegalArgumentException("Cannot have quote without a trader");
+        }
+        if (bidVolume != 0) {
+            OrderValidator.validateVolume(bidVolume);
+            OrderValidator.validatePrice(bidPrice);
+        }
+        if (offerVolume != 0) {
+            OrderValidator.validateVolume(offerVolume);
+            OrderValidator.validatePrice(offerPrice);
+        }
+        if (bidVolume > 0 && offerVolume > 0 && bidPrice >= offerPrice) {
+            throw new IllegalArgumentException("Cannot have quote with a bid at or above its offer");
+        }
+    }
+
+    /**
+     * @param trader the market maker
+     * @return a quote that pulls both sides of the maker's quote
+     */
+    public static Quote pull(Trader trader) {
+        return new Quote(trader, 0, 0, 0, 0);
+    }
+
+    public boolean hasBid() {
+        return bidVolume > 0;
+    }
+
+    public boolean hasOffer() {
+        return offerVolume > 0;
+    }
+}
@@ -0,0 +1,43 @@
+package market.orders;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import market.orders.strategies.LimitedOrderPriceAcceptanceStrategy;
+import market.orders.strategies.PriceAcceptanceStrategy;
+import market.trader.Trader;
+
+/**
+ * A stop order which becomes a limit order when triggered
+ */
+public final class StopLimitOrder extends StopOrder {
+    private final double price;
+    private final PriceAcceptanceStrategy paStrategy;
+
+    public StopLimitOrder(OrderSide side, Trader trader, int volume, double triggerPrice, double price) {
+        this(side, trader, volume, triggerPrice, price, UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    public StopLimitOrder(OrderSide side, Trader trader, int volume, double triggerPrice, double price, UUID orderId,
+            LocalDateTime timestamp) {
+        super(side, trader, volume, triggerPrice, orderId, timestamp);
+
+        OrderValidator.validatePrice(price);
+        this.price = price;
+        this.paStrategy = new LimitedOrderPriceAcceptanceStrategy(price, side);
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    @Override
+    public Order trigger(LocalDateTime timestamp) {
+        return new LimitOrder(getSide(), getTrader(), getVolume(), price, getOrderId(), timestamp);
+    }
+
+    @Override
+    public boolean isInPriceLimit(double price) {
+        return paStrategy.acceptsPrice(price);
+    }
+}
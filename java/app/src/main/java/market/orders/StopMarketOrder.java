@@ -0,0 +1,34 @@
+package market.orders;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import market.orders.strategies.MarketOrderPriceAcceptanceStrategy;
+import market.orders.strategies.PriceAcceptanceStrategy;
+import market.trader.Trader;
+
+/**
+ * A stop order which becomes a market order when triggered
+ */
+public final class StopMarketOrder extends StopOrder {
+    private final PriceAcceptanceStrategy paStrategy = new MarketOrderPriceAcceptanceStrategy();
+
+    public StopMarketOrder(OrderSide side, Trader trader, int volume, double triggerPrice) {
+        super(side, trader, volume, triggerPrice);
+    }
+
+    public StopMarketOrder(OrderSide side, Trader trader, int volume, double triggerPrice, UUID orderId,
+            LocalDateTime timestamp) {
+        super(side, trader, volume, triggerPrice, orderId, timestamp);
+    }
+
+    @Override
+    public Order trigger(LocalDateTime timestamp) {
+        return new MarketOrder(getSide(), getTrader(), getVolume(), getOrderId(), timestamp);
+    }
+
+    @Override
+    public boolean isInPriceLimit(double price) {
+        return paStrategy.acceptsPrice(price);
+    }
+}
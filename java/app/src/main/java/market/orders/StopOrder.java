@@ -0,0 +1,62 @@
+package market.orders;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import market.trader.Trader;
+
+/**
+ * An order that waits off the book until the market trades through its trigger price. A buy stop triggers when a trade
+ * happens at or above the trigger price, and a sell stop when a trade happens at or below it. Once triggered it enters the
+ * market as the order returned by trigger
+ */
+public sealed abstract class StopOrder extends Order permits StopMarketOrder, StopLimitOrder {
+    private final double triggerPrice;
+    private final Trader trader;
+
+    public StopOrder(OrderSide side, Trader trader, int volume, double triggerPrice) {
+        this(side, trader, volume, triggerPrice, UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    public StopOrder(OrderSide side, Trader trader, int volume, double triggerPrice, UUID orderId, LocalDateTime timestamp) {
+        super(side, trader, volume, orderId, timestamp);
+
+        OrderValidator.validatePrice(triggerPrice);
+        this.triggerPrice = triggerPrice;
+        this.trader = trader;
+    }
+
+    public double getTriggerPrice() {
+        return triggerPrice;
+    }
+
+    public Trader getTrader() {
+        return trader;
+    }
+
+    /**
+     * Determine if a trade price reaches the trigger price of this order
+     * @param tradePrice the price of a trade
+     * @return true if the trade should trigger this order
+     */
+    public boolean isTriggeredBy(double tradePrice) {
+        if (getSide() == OrderSide.BUY) {
+            return tradePrice >= triggerPrice;
+        } else {
+            return tradePrice <= triggerPrice;
+        }
+    }
+
+    /**
+     * Create the order that enters the market when this order is triggered. It keeps the id and remaining volume of this order
+     * but takes its time priority from the moment of triggering
+     * @param timestamp the time the order was triggered
+     * @return the order to match
+     */
+    public abstract Order trigger(LocalDateTime timestamp);
+
+    @Override
+    public boolean canRestInBook() {
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package market.orders;
+
+/**
+ * How long a resting order stays in the book before it expires
+ */
+public enum TimeInForce {
+    /** Good till cancelled, never expires */
+    GTC,
+    /** Expires at the close of the day it was placed */
+    DAY,
+    /** Good till date, expires at the close of a given day */
+    GTD,
+    /** Good till time, expires at a given time */
+    GTT
+}
@@ -0,0 +1,14 @@
+package market.replay;
+
+import java.util.UUID;
+
+import market.orders.OrderSide;
+
+/**
+ * A recorded volume amendment of a resting order
+ * @param timestampNanos the time of the amendment, in nanoseconds since the epoch
+ * @param orderId the id of the order to amend
+ * @param side the side the order rests on
+ * @param newVolume the new volume of the order
+ */
+public record AmendCommand(long timestampNanos, UUID orderId, OrderSide side, int newVolume) implements ReplayCommand {}
@@ -0,0 +1,13 @@
+package market.replay;
+
+import java.util.UUID;
+
+import market.orders.OrderSide;
+
+/**
+ * A recorded cancellation of a resting order
+ * @param timestampNanos the time of the cancellation, in nanoseconds since the epoch
+ * @param orderId the id of the order to cancel
+ * @param side the side the order rests on
+ */
+public record CancelCommand(long timestampNanos, UUID orderId, OrderSide side) implements ReplayCommand {}
@@ -0,0 +1,33 @@
+package market.replay;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Hands out ids in a fixed sequence, so two replays from the same seed give every order the same id
+ */
+public class DeterministicIdGenerator implements Supplier<UUID> {
+    private long seed;
+    private long next;
+
+    /**
+     * @param seed the high half of every id handed out. Generators with different seeds never clash
+     */
+    public DeterministicIdGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Start the sequence again from a new seed
+     * @param seed the high half of every id handed out from now on
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.next = 0;
+    }
+
+    @Override
+    public UUID get() {
+        return new UUID(seed, next++);
+    }
+}
@@ -0,0 +1,221 @@
+package market.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import market.BookDepthView;
+import market.BookSnapshot;
+import market.DepthLevel;
+import market.OrderBook;
+import market.Trade;
+import market.matching.MatchResult;
+import market.orders.PricedOrder;
+
+/**
+ * Replays the same commands through two order book implementations side by side and checks they behave identically, so a
+ * new (e.g. faster) implementation can be tested against a trusted one on large random flows.
+ *
+ * Each book sits under its own ReplayEngine with the same id seed, so both see the same orders at the same simulated times.
+ * After every command the match results each engine reported (including those of triggered stops) are compared field by
+ * field with their trades, along with whether the command was applied and the top of book. Every few commands, and after
+ * the last, the book checksums and published depth are compared as well, which catches a difference in time priority
+ * before it shows up in a trade. A run stops at the first difference found
+ */
+public class DifferentialReplay {
+    private final ReplayEngine expected;
+    private final ReplayEngine actual;
+    private final int checksumInterval;
+    private final List<MatchResult> expectedResults = new ArrayList<>();
+    private final List<MatchResult> actualResults = new ArrayList<>();
+
+    /**
+     * @param expectedBook an empty book of the trusted implementation
+     * @param actualBook an empty book of the implementation under test
+     * @param idSeed the seed of the ids given to orders recorded without one
+     * @param checksumInterval the number of commands between comparisons of the whole books, or 0 to only compare them at
+     *        the end of a run
+     */
+    public DifferentialReplay(OrderBook expectedBook, OrderBook actualBook, long idSeed, int checksumInterval) {
+        if (checksumInterval < 0) {
+            throw new IllegalArgumentException("Checksum interval cannot be negative");
+        }
+
+        this.expected = new ReplayEngine(idSeed, expectedBook);
+        this.actual = new ReplayEngine(idSeed, actualBook);
+        this.checksumInterval = checksumInterval;
+        expected.getEngine().addSubscriber(expectedResults::add);
+        actual.getEngine().addSubscriber(actualResults::add);
+    }
+
+    public ReplayEngine getExpected() {
+        return expected;
+    }
+
+    public ReplayEngine getActual() {
+        return actual;
+    }
+
+    /**
+     * Apply each command to both engines in turn, stopping at the first difference. The engines keep their books between
+     * runs, so a long recording can be compared in pieces
+     * @param commands the commands
+     * @return what was compared and the first difference, if any
+     */
+    public DifferentialResult run(Iterable<? extends ReplayCommand> commands) {
+        long index = 0;
+        long results = 0;
+        long trades = 0;
+
+        for (ReplayCommand command : commands) {
+            expectedResults.clear();
+            actualResults.clear();
+            boolean expectedApplied = expected.apply(command);
+            boolean actualApplied = actual.apply(command);
+
+            String mismatch = differs("applied", expectedApplied, actualApplied);
+            if (mismatch == null) {
+                mismatch = compareResults();
+            }
+            if (mismatch == null) {
+                mismatch = compareTop();
+            }
+            if (mismatch == null && checksumInterval > 0 && (index + 1) % checksumInterval == 0) {
+                mismatch = compareBooks();
+            }
+
+            results += expectedResults.size();
+            for (MatchResult res : expectedResults) {
+                trades += res.getTrades().size();
+            }
+            if (mismatch != null) {
+                return new DifferentialResult(index + 1, results, trades, index, mismatch);
+            }
+            index++;
+        }
+
+        String mismatch = compareBooks();
+        return new DifferentialResult(index, results, trades, mismatch == null ? -1 : Math.max(0, index - 1), mismatch);
+    }
+
+    private String compareResults() {
+        if (expectedResults.size() != actualResults.size()) {
+            return "expected " + expectedResults.size() + " results, got " + actualResults.size();
+        }
+
+        for (int i = 0; i < expectedResults.size(); i++) {
+            String mismatch = compareResult(expectedResults.get(i), actualResults.get(i));
+            if (mismatch != null) {
+                return "result " + i + " " + mismatch;
+            }
+        }
+        return null;
+    }
+
+    private static String compareResult(MatchResult e, MatchResult a) {
+        String mismatch = differs("order id", e.getOrderId(), a.getOrderId());
+        if (mismatch == null) {
+            mismatch = differs("trader id", e.getTraderId(), a.getTraderId());
+        }
+        if (mismatch == null) {
+            mismatch = differs("side", e.getSide(), a.getSide());
+        }
+        if (mismatch == null) {
+            mismatch = differs("status", e.getStatus(), a.getStatus());
+        }
+        if (mismatch == null) {
+            mismatch = differs("reject reason", e.getRejectReason(), a.getRejectReason());
+        }
+        if (mismatch == null) {
+            mismatch = differs("filled volume", e.getFilledVolume(), a.getFilledVolume());
+        }
+        if (mismatch == null) {
+            mismatch = differs("remaining volume", e.getRemainingVolume(), a.getRemainingVolume());
+        }
+        if (mismatch == null && Double.compare(e.getAvgMatchPrice(), a.getAvgMatchPrice()) != 0) {
+            mismatch = differs("average price", e.getAvgMatchPrice(), a.getAvgMatchPrice());
+        }
+        if (mismatch == null) {
+            mismatch = differs("timestamp", e.getTimestamp(), a.getTimestamp());
+        }
+        if (mismatch == null) {
+            mismatch = differs("note", e.getNote(), a.getNote());
+        }
+        if (mismatch != null) {
+            return "of order " + e.getOrderId() + " differs in " + mismatch;
+        }
+
+        List<Trade> expectedTrades = e.getTrades();
+        List<Trade> actualTrades = a.getTrades();
+        if (expectedTrades.size() != actualTrades.size()) {
+            return "of order " + e.getOrderId() + " expected " + expectedTrades.size() + " trades, got "
+                + actualTrades.size();
+        }
+        for (int i = 0; i < expectedTrades.size(); i++) {
+            if (!expectedTrades.get(i).equals(actualTrades.get(i))) {
+                return "of order " + e.getOrderId() + " differs in trade " + i + ": expected " + expectedTrades.get(i)
+                    + ", got " + actualTrades.get(i);
+            }
+        }
+        return null;
+    }
+
+    private String compareTop() {
+        OrderBook e = expected.getBook();
+        OrderBook a = actual.getBook();
+        String mismatch = differs("best bid", orderId(e.getBestBid()), orderId(a.getBestBid()));
+        if (mismatch == null) {
+            mismatch = differs("best offer", orderId(e.getBestOffer()), orderId(a.getBestOffer()));
+        }
+        if (mismatch == null) {
+            mismatch = differs("best bid volume", e.getBestBidVolume(), a.getBestBidVolume());
+        }
+        if (mismatch == null) {
+            mismatch = differs("best offer volume", e.getBestOfferVolume(), a.getBestOfferVolume());
+        }
+        if (mismatch == null) {
+            mismatch = differs("number of bids", e.getNumBids(), a.getNumBids());
+        }
+        if (mismatch == null) {
+            mismatch = differs("number of offers", e.getNumOffers(), a.getNumOffers());
+        }
+        return mismatch == null ? null : "book " + mismatch;
+    }
+
+    private String compareBooks() {
+        String mismatch = differs("book checksum", expected.getBook().checksum(), actual.getBook().checksum());
+        if (mismatch != null) {
+            return mismatch;
+        }
+
+        // Implementations may publish different depths, so only the levels both publish are compared
+        BookDepthView expectedView = expected.getBook().getDepthView();
+        BookDepthView actualView = actual.getBook().getDepthView();
+        int depth = Math.min(expectedView.getMaxLevels(), actualView.getMaxLevels());
+        BookSnapshot e = expectedView.snapshot();
+        BookSnapshot a = actualView.snapshot();
+        mismatch = differs("published bids", top(e.bids(), depth), top(a.bids(), depth));
+        if (mismatch == null) {
+            mismatch = differs("published offers", top(e.offers(), depth), top(a.offers(), depth));
+        }
+        if (mismatch == null) {
+            mismatch = differs("published number of bids", e.numBids(), a.numBids());
+        }
+        if (mismatch == null) {
+            mismatch = differs("published number of offers", e.numOffers(), a.numOffers());
+        }
+        return mismatch;
+    }
+
+    private static List<DepthLevel> top(List<DepthLevel> levels, int depth) {
+        return levels.subList(0, Math.min(depth, levels.size()));
+    }
+
+    private static Object orderId(PricedOrder order) {
+        return order == null ? null : order.getOrderId();
+    }
+
+    private static String differs(String field, Object e, Object a) {
+        return Objects.equals(e, a) ? null : field + ": expected " + e + ", got " + a;
+    }
+}
@@ -0,0 +1,15 @@
+package market.replay;
+
+/**
+ * Outcome of replaying the same commands through two order book implementations
+ * @param commands the number of commands compared, including any that differed
+ * @param results the number of match results compared
+ * @param trades the number of trades compared
+ * @param mismatchIndex the index of the first command whose outcome differed, or -1 if none did
+ * @param mismatch a description of the first difference, or null if none was found
+ */
+public record DifferentialResult(long commands, long results, long trades, long mismatchIndex, String mismatch) {
+    public boolean isIdentical() {
+        return mismatch == null;
+    }
+}
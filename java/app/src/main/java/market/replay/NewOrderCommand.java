@@ -0,0 +1,19 @@
+package market.replay;
+
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+/**
+ * A recorded order placement
+ * @param timestampNanos the time the order was placed, in nanoseconds since the epoch
+ * @param orderId the id of the order, or null to have the replay assign the next deterministic id
+ * @param traderId the id of the trader placing the order
+ * @param type the type of order
+ * @param side the side of the order
+ * @param volume the volume of the order
+ * @param price the limit price of the order. Ignored for market orders
+ */
+public record NewOrderCommand(long timestampNanos, UUID orderId, UUID traderId, OrderType type, OrderSide side, int volume,
+        double price) implements ReplayCommand {}
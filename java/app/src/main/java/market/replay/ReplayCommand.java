@@ -0,0 +1,12 @@
+package market.replay;
+
+/**
+ * A recorded instruction to the market, replayed against the engine in sequence
+ */
+public sealed interface ReplayCommand permits NewOrderCommand, CancelCommand, AmendCommand {
+    /**
+     * @return the time the command was recorded, in nanoseconds since the epoch. The simulated clock is moved to this time
+     * before the command is applied
+     */
+    long timestampNanos();
+}
@@ -0,0 +1,245 @@
+package market.replay;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import market.OrderBook;
+import market.Trade;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.orders.Order;
+import market.orders.OrderFactory;
+import market.orders.OrderValidator;
+import market.trader.Trader;
+
+/**
+ * Replays recorded commands through a real order book and matching engine as fast as they can be applied.
+ * 
+ * Nothing in a replay reads the wall clock or a random source: the engine and order factory run on a simulated clock which
+ * is moved to each command's recorded time, and orders recorded without an id are given the next id from a seeded
+ * generator. Every outcome (match results, their trades, cancels, amends and rejections) is folded into a SHA-256 digest in a
+ * fixed binary encoding, so two replays of the same flow from the same seed produce the same digest bit for bit.
+ * 
+ * Subscribers may be attached to the engine (e.g. a strategy under test) before replaying. A replay engine keeps its book
+ * between calls to replay, so a long recording can be fed through in pieces, and can be reset to replay an unrelated
+ * recording without reallocating the book.
+ */
+public class ReplayEngine {
+    private static final byte TAG_RESULT = 1;
+    private static final byte TAG_CANCEL = 2;
+    private static final byte TAG_AMEND = 3;
+    private static final byte TAG_REJECT = 4;
+
+    private final SimulatedClock clock = new SimulatedClock();
+    private final OrderBook book;
+    private final MatchingEngine engine;
+    private final OrderFactory orderFactory;
+    private final DeterministicIdGenerator idGenerator;
+    private final Map<UUID, Trader> traders = new HashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private MessageDigest digest;
+    private long trades;
+    private long events;
+
+    /**
+     * @param idSeed the seed of the ids given to orders recorded without one
+     */
+    public ReplayEngine(long idSeed) {
+        this(idSeed, new TreeOrderBook());
+    }
+
+    /**
+     * @param idSeed the seed of the ids given to orders recorded without one
+     * @param book an empty book to replay into
+     */
+    public ReplayEngine(long idSeed, OrderBook book) {
+        if (!book.isEmpty()) {
+            throw new IllegalArgumentException("Cannot replay into a book which already has orders");
+        }
+
+        this.book = book;
+        this.engine = new MatchingEngine(book, clock);
+        this.idGenerator = new DeterministicIdGenerator(idSeed);
+        this.orderFactory = new OrderFactory(clock, idGenerator);
+        // Results are taken from the engine rather than placeOrder so those of triggered stops are included
+        engine.addSubscriber(this::writeResult);
+    }
+
+    /**
+     * Empty the book and rewind the clock and id sequence, so the next replay runs exactly as it would on a new replay engine.
+     * Subscribers stay attached
+     * @param idSeed the seed of the ids given to orders recorded without one
+     */
+    public void reset(long idSeed) {
+        clock.reset(0);
+        engine.clear();
+        idGenerator.reset(idSeed);
+        traders.clear();
+    }
+
+    public OrderBook getBook() {
+        return book;
+    }
+
+    public MatchingEngine getEngine() {
+        return engine;
+    }
+
+    public SimulatedClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Apply each command in order, moving the simulated clock to each command's time first
+     * @param commands the recorded commands
+     * @return a summary of the run, including a digest of every outcome
+     */
+    public ReplayResult replay(Iterable<? extends ReplayCommand> commands) {
+        digest = newDigest();
+        scratch.clear();
+        trades = 0;
+        events = 0;
+        long ordersPlaced = 0;
+        long ordersRejected = 0;
+
+        long start = System.nanoTime();
+        for (ReplayCommand command : commands) {
+            boolean applied = apply(command);
+            if (NewOrderCommand.class.isInstance(command)) {
+                if (applied) {
+                    ordersPlaced++;
+                } else {
+                    ordersRejected++;
+                }
+            }
+        }
+
+        flush();
+        String hex = HexFormat.of().formatHex(digest.digest());
+        digest = null;
+        return new ReplayResult(events, ordersPlaced, ordersRejected, trades, hex, System.nanoTime() - start);
+    }
+
+    /**
+     * Apply a single command, moving the simulated clock to its time first. Lets a live command log (e.g. one being
+     * replicated from another engine) be applied one command at a time, with the same outcome as replaying it
+     * @param command the command
+     * @return false if a new order was rejected or a cancel or amend found no order to change, else true
+     */
+    public boolean apply(ReplayCommand command) {
+        clock.setTimeNanos(command.timestampNanos());
+        events++;
+
+        if (NewOrderCommand.class.isInstance(command)) {
+            NewOrderCommand newOrder = (NewOrderCommand) command;
+            if (!orderFactory.canCreateOrder(newOrder.type(), newOrder.volume(), newOrder.price())) {
+                if (digest != null) {
+                    reserve(9);
+                    scratch.put(TAG_REJECT).putLong(events);
+                }
+                return false;
+            }
+            engine.placeOrder(createOrder(newOrder));
+            return true;
+        } else if (CancelCommand.class.isInstance(command)) {
+            CancelCommand cancel = (CancelCommand) command;
+            boolean cancelled = engine.cancelOrder(cancel.orderId(), cancel.side());
+            if (digest != null) {
+                reserve(18);
+                scratch.put(TAG_CANCEL);
+                putUUID(cancel.orderId());
+                scratch.put((byte) (cancelled ? 1 : 0));
+            }
+            return cancelled;
+        } else if (AmendCommand.class.isInstance(command)) {
+            AmendCommand amend = (AmendCommand) command;
+            boolean amended = OrderValidator.isValidVolume(amend.newVolume())
+                && engine.amendOrder(amend.orderId(), amend.side(), amend.newVolume());
+            if (digest != null) {
+                reserve(22);
+                scratch.put(TAG_AMEND);
+                putUUID(amend.orderId());
+                scratch.putInt(amend.newVolume());
+                scratch.put((byte) (amended ? 1 : 0));
+            }
+            return amended;
+        } else {
+            throw new IllegalArgumentException("Replay does not support command of type '" + command.getClass().toString()
+                + "'");
+        }
+    }
+
+    private Order createOrder(NewOrderCommand command) {
+        Trader trader = traders.computeIfAbsent(command.traderId(), id -> new Trader(id.toString(), id));
+        if (command.orderId() == null) {
+            return orderFactory.createOrder(command.type(), command.side(), trader, command.volume(), command.price());
+        }
+
+        return orderFactory.createOrder(command.type(), command.side(), trader, command.volume(), command.price(),
+            command.orderId(), LocalDateTime.now(clock));
+    }
+
+    private void writeResult(MatchResult res) {
+        if (digest == null) {
+            return;
+        }
+
+        trades += res.getTrades().size();
+        byte[] note = res.getNote() == null ? new byte[0] : res.getNote().getBytes(StandardCharsets.UTF_8);
+        reserve(71 + note.length);
+        scratch.put(TAG_RESULT);
+        putUUID(res.getOrderId());
+        putUUID(res.getTraderId());
+        scratch.put((byte) res.getSide().ordinal());
+        scratch.put((byte) res.getStatus().ordinal());
+        scratch.putInt(res.getFilledVolume());
+        scratch.putInt(res.getRemainingVolume());
+        scratch.putDouble(res.getAvgMatchPrice());
+        LocalDateTime timestamp = res.getTimestamp();
+        scratch.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        scratch.putInt(timestamp.getNano());
+        scratch.putInt(res.getTrades().size());
+        scratch.putInt(note.length);
+        scratch.put(note);
+
+        for (Trade trade : res.getTrades()) {
+            reserve(44);
+            putUUID(trade.offerId());
+            putUUID(trade.bidId());
+            scratch.putDouble(trade.price());
+            scratch.putInt(trade.volume());
+        }
+    }
+
+    private void putUUID(UUID id) {
+        scratch.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+    }
+
+    private void reserve(int bytes) {
+        if (scratch.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        digest.update(scratch.array(), 0, scratch.position());
+        scratch.clear();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
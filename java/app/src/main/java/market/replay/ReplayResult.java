@@ -0,0 +1,17 @@
+package market.replay;
+
+/**
+ * Summary of a replay run
+ * @param events the number of commands replayed
+ * @param ordersPlaced the number of orders placed
+ * @param ordersRejected the number of orders the engine refused
+ * @param trades the number of trades made
+ * @param digest a hex SHA-256 over every outcome of the run, identical for identical runs
+ * @param elapsedNanos the wall clock time the run took
+ */
+public record ReplayResult(long events, long ordersPlaced, long ordersRejected, long trades, String digest,
+        long elapsedNanos) {
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events / (elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,88 @@
+package market.replay;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when told to, so that everything timestamped during a replay depends on the recorded flow rather
+ * than on when the replay happened to run. Time never moves backwards.
+ */
+public class SimulatedClock extends Clock {
+    private final ZoneId zone;
+    private long nanos;
+
+    /**
+     * Create a UTC clock at the epoch
+     */
+    public SimulatedClock() {
+        this(ZoneOffset.UTC, 0);
+    }
+
+    /**
+     * @param zone the zone of the clock
+     * @param nanos the starting time in nanoseconds since the epoch
+     */
+    public SimulatedClock(ZoneId zone, long nanos) {
+        this.zone = zone;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Move the clock to a time, or leave it where it is if the time is in the past
+     * @param nanos the time in nanoseconds since the epoch
+     */
+    public void setTimeNanos(long nanos) {
+        if (nanos > this.nanos) {
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Move the clock forward
+     * @param deltaNanos the number of nanoseconds to move by
+     */
+    public void advanceNanos(long deltaNanos) {
+        if (deltaNanos < 0) {
+            throw new IllegalArgumentException("A simulated clock can't move backwards");
+        }
+
+        nanos += deltaNanos;
+    }
+
+    /**
+     * Move the clock to any time, including one in the past. Only for reusing a clock between independent runs
+     * @param nanos the time in nanoseconds since the epoch
+     */
+    public void reset(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public long getTimeNanos() {
+        return nanos;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return a clock in another zone, stopped at the current time of this clock
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulatedClock(zone, nanos);
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(nanos, 1_000_000L);
+    }
+}
@@ -0,0 +1,293 @@
+package market.replication;
+
+import static market.replication.ReplicationProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import market.replay.ReplayCommand;
+import market.replay.ReplayEngine;
+
+/**
+ * The live side of a primary/standby pair. Every command is given the next sequence number in the command log, applied to
+ * the primary's own engine and streamed to the standby, which applies the same log to a replica of the engine. Both engines
+ * replay the log deterministically (see ReplayEngine), so the replica's book matches the primary's at every sequence number.
+ *
+ * Sending is pipelined: submit never waits for the standby, which acks the highest sequence number it has applied once per
+ * batch it reads. Callers that need a command to be on the standby before answering a client can wait with awaitAck. A
+ * checksum of the book is sent every few commands so the standby can detect divergence, and a heartbeat is sent whenever
+ * the log has been idle for a heartbeat interval so the standby can tell a quiet primary from a dead one.
+ *
+ * Commands must only be submitted from one thread. If the standby is lost the primary carries on alone
+ */
+public class ReplicationPrimary implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final ReplayEngine engine;
+    private final ServerSocketChannel server;
+    private final long heartbeatNanos;
+    private final int checksumInterval;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+    private final Object ackLock = new Object();
+
+    // Guarded by out
+    private long seq;
+    private long lastSendNanos;
+
+    private volatile SocketChannel standby;
+    private volatile long ackedSeq;
+    private volatile boolean running = true;
+    private Thread ackReader;
+    private Thread heartbeater;
+
+    /**
+     * Bind the primary. Commands are applied locally but not replicated until a standby connects
+     * @param engine the engine commands are applied to
+     * @param bindAddress the address the standby connects to. Use port 0 to pick any free port
+     * @param heartbeatInterval the longest the standby goes without hearing from the primary while it is healthy
+     * @param checksumInterval the number of commands between book checksums, or 0 to never send checksums
+     * @throws IOException if the address cannot be bound
+     */
+    public ReplicationPrimary(ReplayEngine engine, InetSocketAddress bindAddress, Duration heartbeatInterval,
+        int checksumInterval) throws IOException {
+        if (heartbeatInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Heartbeat interval must be at least one millisecond");
+        }
+        if (checksumInterval < 0) {
+            throw new IllegalArgumentException("Checksum interval cannot be negative");
+        }
+
+        this.engine = engine;
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.checksumInterval = checksumInterval;
+        this.server = ServerSocketChannel.open();
+        server.bind(bindAddress);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public ReplayEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the sequence number of the last submitted command
+     */
+    public long getSeq() {
+        synchronized (out) {
+            return seq;
+        }
+    }
+
+    /**
+     * @return the highest sequence number the standby has acknowledged applying
+     */
+    public long getAckedSeq() {
+        return ackedSeq;
+    }
+
+    public boolean isStandbyConnected() {
+        return standby != null;
+    }
+
+    /**
+     * Block until a standby connects, then start reading its acks and sending heartbeats. The standby must start from an
+     * engine in the same state as the primary's, e.g. both new with the same id seed, and before any command is submitted
+     * @throws IOException if the connection fails
+     */
+    public void awaitStandby() throws IOException {
+        SocketChannel channel = server.accept();
+        channel.socket().setTcpNoDelay(true);
+        standby = channel;
+
+        ackReader = new Thread(this::readAcks, "replication-ack-reader");
+        ackReader.setDaemon(true);
+        ackReader.start();
+        heartbeater = new Thread(this::sendHeartbeats, "replication-heartbeat");
+        heartbeater.setDaemon(true);
+        heartbeater.start();
+    }
+
+    /**
+     * Apply a command and send it to the standby without waiting for it to be applied there
+     * @param command the command
+     * @return the command's sequence number
+     */
+    public long submit(ReplayCommand command) {
+        long s = append(command);
+        flush();
+        return s;
+    }
+
+    /**
+     * Apply a batch of commands and send them to the standby in as few writes as possible
+     * @param commands the commands, in order
+     * @return the sequence number of the last command
+     */
+    public long submitAll(List<? extends ReplayCommand> commands) {
+        long s = getSeq();
+        for (ReplayCommand command : commands) {
+            s = append(command);
+        }
+        flush();
+        return s;
+    }
+
+    /**
+     * Wait for the standby to acknowledge applying a command
+     * @param seq the sequence number of the command
+     * @param timeout the longest to wait
+     * @return true if the command has been applied on the standby, false if the wait timed out or the standby was lost
+     */
+    public boolean awaitAck(long seq, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (ackLock) {
+            while (ackedSeq < seq) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || standby == null) {
+                    return false;
+                }
+                try {
+                    ackLock.wait(Math.max(1, remaining / 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stop replicating and close the connection to the standby, which will then take over. The engine is left as it is
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        SocketChannel channel = standby;
+        standby = null;
+        if (channel != null) {
+            channel.close();
+        }
+        server.close();
+
+        for (Thread t : new Thread[] {ackReader, heartbeater}) {
+            if (t != null) {
+                LockSupport.unpark(t);
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private long append(ReplayCommand command) {
+        engine.apply(command);
+
+        synchronized (out) {
+            seq++;
+            if (standby != null) {
+                ensureSpace(MAX_FRAME_LENGTH + CHECKSUM_LENGTH);
+                encodeCommand(out, seq, command);
+                if (checksumInterval > 0 && seq % checksumInterval == 0) {
+                    encodeChecksum(out, seq, engine.getBook().checksum());
+                }
+            }
+            return seq;
+        }
+    }
+
+    private void ensureSpace(int length) {
+        if (out.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        synchronized (out) {
+            SocketChannel channel = standby;
+            out.flip();
+            try {
+                while (channel != null && out.hasRemaining()) {
+                    channel.write(out);
+                }
+            } catch (IOException e) {
+                standbyLost();
+            }
+            out.clear();
+            lastSendNanos = System.nanoTime();
+        }
+    }
+
+    private void sendHeartbeats() {
+        while (running && standby != null) {
+            long idleNanos;
+            synchronized (out) {
+                idleNanos = System.nanoTime() - lastSendNanos;
+                if (idleNanos >= heartbeatNanos) {
+                    encodeSeqOnly(out, HEARTBEAT, seq);
+                    flush();
+                    idleNanos = 0;
+                }
+            }
+            LockSupport.parkNanos(heartbeatNanos - idleNanos);
+        }
+    }
+
+    private void readAcks() {
+        SocketChannel channel = standby;
+        try {
+            while (running) {
+                if (channel.read(in) < 0) {
+                    break;
+                }
+                in.flip();
+                long acked = ackedSeq;
+                while (in.remaining() >= ACK_LENGTH) {
+                    int offset = in.position();
+                    if (in.get(offset + TYPE_OFFSET) != ACK || frameLength(in, offset) != ACK_LENGTH) {
+                        throw new IOException("Expected an ack from the standby");
+                    }
+                    acked = Math.max(acked, in.getLong(offset + SEQ_OFFSET));
+                    in.position(offset + ACK_LENGTH);
+                }
+                in.compact();
+
+                synchronized (ackLock) {
+                    ackedSeq = acked;
+                    ackLock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            // Treated the same as the standby closing the connection
+        }
+        standbyLost();
+    }
+
+    private void standbyLost() {
+        SocketChannel channel = standby;
+        standby = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already lost
+            }
+        }
+        synchronized (ackLock) {
+            ackLock.notifyAll();
+        }
+    }
+}
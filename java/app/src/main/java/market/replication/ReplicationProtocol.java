@@ -0,0 +1,209 @@
+package market.replication;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.replay.AmendCommand;
+import market.replay.CancelCommand;
+import market.replay.NewOrderCommand;
+import market.replay.ReplayCommand;
+
+/**
+ * Layout of the fixed size binary frames a primary engine and its standby exchange.
+ *
+ * Every frame starts with a 4 byte header (u16 frame length including the header, u8 message type, u8 reserved) and a
+ * sequence number, followed by a body whose layout is fixed for the message type. Commands carry the sequence number of
+ * their place in the command log. A heartbeat carries the last sequence number sent, a checksum the sequence number of the
+ * command it was taken after, and an ack the last sequence number applied. All fields are little endian.
+ *
+ * <pre>
+ * NEW_ORDER  seq i64 @4, timestamp i64 @12, side u8 @20, orderType u8 @21, hasOrderId u8 @22, volume i32 @24,
+ *            price f64 @28, traderIdMsb i64 @36, traderIdLsb i64 @44, orderIdMsb i64 @52, orderIdLsb i64 @60    68 bytes
+ * CANCEL     seq i64 @4, timestamp i64 @12, side u8 @20, orderIdMsb i64 @24, orderIdLsb i64 @32                  40 bytes
+ * AMEND      seq i64 @4, timestamp i64 @12, side u8 @20, newVolume i32 @24, orderIdMsb i64 @28, orderIdLsb i64 @36
+ *                                                                                                                 44 bytes
+ * HEARTBEAT  seq i64 @4                                                                                           12 bytes
+ * CHECKSUM   seq i64 @4, checksum i64 @12                                                                         20 bytes
+ * ACK        seq i64 @4                                                                                           12 bytes
+ * </pre>
+ */
+public final class ReplicationProtocol {
+    private ReplicationProtocol() {};
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int HEADER_LENGTH = 4;
+    public static final int MAX_FRAME_LENGTH = 68;
+
+    // Message types sent by the primary
+    public static final byte NEW_ORDER = 1;
+    public static final byte CANCEL = 2;
+    public static final byte AMEND = 3;
+    public static final byte HEARTBEAT = 4;
+    public static final byte CHECKSUM = 5;
+
+    // Message types sent by the standby
+    public static final byte ACK = 64;
+
+    public static final int NEW_ORDER_LENGTH = 68;
+    public static final int CANCEL_LENGTH = 40;
+    public static final int AMEND_LENGTH = 44;
+    public static final int HEARTBEAT_LENGTH = 12;
+    public static final int CHECKSUM_LENGTH = 20;
+    public static final int ACK_LENGTH = 12;
+
+    // Field offsets from the start of the frame
+    public static final int LENGTH_OFFSET = 0;
+    public static final int TYPE_OFFSET = 2;
+    public static final int SEQ_OFFSET = 4;
+    public static final int TIMESTAMP_OFFSET = 12;
+    public static final int SIDE_OFFSET = 20;
+    public static final int ORDER_TYPE_OFFSET = 21;
+    public static final int HAS_ORDER_ID_OFFSET = 22;
+    public static final int VOLUME_OFFSET = 24;
+    public static final int PRICE_OFFSET = 28;
+    public static final int TRADER_ID_OFFSET = 36;
+    public static final int NEW_ORDER_ID_OFFSET = 52;
+    public static final int CANCEL_ORDER_ID_OFFSET = 24;
+    public static final int AMEND_ORDER_ID_OFFSET = 28;
+    public static final int CHECKSUM_OFFSET = 12;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    /**
+     * Get the length of the frame starting at an offset
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return the length of the frame in bytes, including the header
+     */
+    public static int frameLength(ByteBuffer buf, int offset) {
+        return buf.getShort(offset + LENGTH_OFFSET) & 0xFFFF;
+    }
+
+    /**
+     * Get the expected length of a message type
+     * @param type the message type
+     * @return the length of frames of that type, or -1 if the type is not known
+     */
+    public static int expectedLength(byte type) {
+        return switch (type) {
+            case NEW_ORDER -> NEW_ORDER_LENGTH;
+            case CANCEL -> CANCEL_LENGTH;
+            case AMEND -> AMEND_LENGTH;
+            case HEARTBEAT -> HEARTBEAT_LENGTH;
+            case CHECKSUM -> CHECKSUM_LENGTH;
+            case ACK -> ACK_LENGTH;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Write a command from the command log
+     * @param buf the buffer to write to, with at least MAX_FRAME_LENGTH bytes remaining
+     * @param seq the command's sequence number
+     * @param command the command
+     */
+    public static void encodeCommand(ByteBuffer buf, long seq, ReplayCommand command) {
+        int offset = buf.position();
+        if (NewOrderCommand.class.isInstance(command)) {
+            NewOrderCommand newOrder = (NewOrderCommand) command;
+            putHeader(buf, offset, NEW_ORDER_LENGTH, NEW_ORDER, seq);
+            buf.putLong(offset + TIMESTAMP_OFFSET, newOrder.timestampNanos());
+            buf.put(offset + SIDE_OFFSET, (byte) newOrder.side().ordinal());
+            buf.put(offset + ORDER_TYPE_OFFSET, (byte) newOrder.type().ordinal());
+            buf.put(offset + HAS_ORDER_ID_OFFSET, (byte) (newOrder.orderId() == null ? 0 : 1));
+            buf.putInt(offset + VOLUME_OFFSET, newOrder.volume());
+            buf.putDouble(offset + PRICE_OFFSET, newOrder.price());
+            putUUID(buf, offset + TRADER_ID_OFFSET, newOrder.traderId());
+            putUUID(buf, offset + NEW_ORDER_ID_OFFSET, newOrder.orderId() == null ? new UUID(0, 0) : newOrder.orderId());
+            buf.position(offset + NEW_ORDER_LENGTH);
+        } else if (CancelCommand.class.isInstance(command)) {
+            CancelCommand cancel = (CancelCommand) command;
+            putHeader(buf, offset, CANCEL_LENGTH, CANCEL, seq);
+            buf.putLong(offset + TIMESTAMP_OFFSET, cancel.timestampNanos());
+            buf.put(offset + SIDE_OFFSET, (byte) cancel.side().ordinal());
+            putUUID(buf, offset + CANCEL_ORDER_ID_OFFSET, cancel.orderId());
+            buf.position(offset + CANCEL_LENGTH);
+        } else if (AmendCommand.class.isInstance(command)) {
+            AmendCommand amend = (AmendCommand) command;
+            putHeader(buf, offset, AMEND_LENGTH, AMEND, seq);
+            buf.putLong(offset + TIMESTAMP_OFFSET, amend.timestampNanos());
+            buf.put(offset + SIDE_OFFSET, (byte) amend.side().ordinal());
+            buf.putInt(offset + VOLUME_OFFSET, amend.newVolume());
+            putUUID(buf, offset + AMEND_ORDER_ID_OFFSET, amend.orderId());
+            buf.position(offset + AMEND_LENGTH);
+        } else {
+            throw new IllegalArgumentException("Cannot replicate command of type '" + command.getClass().toString() + "'");
+        }
+    }
+
+    /**
+     * Read a command frame
+     * @param buf the buffer holding the frame
+     * @param offset the offset of the start of the frame
+     * @return the command
+     * @throws IllegalArgumentException if the frame is not a valid command
+     */
+    public static ReplayCommand decodeCommand(ByteBuffer buf, int offset) {
+        byte type = buf.get(offset + TYPE_OFFSET);
+        long timestamp = buf.getLong(offset + TIMESTAMP_OFFSET);
+        OrderSide side = decode(SIDES, buf.get(offset + SIDE_OFFSET));
+
+        return switch (type) {
+            case NEW_ORDER -> new NewOrderCommand(timestamp,
+                buf.get(offset + HAS_ORDER_ID_OFFSET) == 0 ? null : getUUID(buf, offset + NEW_ORDER_ID_OFFSET),
+                getUUID(buf, offset + TRADER_ID_OFFSET), decode(ORDER_TYPES, buf.get(offset + ORDER_TYPE_OFFSET)), side,
+                buf.getInt(offset + VOLUME_OFFSET), buf.getDouble(offset + PRICE_OFFSET));
+            case CANCEL -> new CancelCommand(timestamp, getUUID(buf, offset + CANCEL_ORDER_ID_OFFSET), side);
+            case AMEND -> new AmendCommand(timestamp, getUUID(buf, offset + AMEND_ORDER_ID_OFFSET), side,
+                buf.getInt(offset + VOLUME_OFFSET));
+            default -> throw new IllegalArgumentException("Frame of type " + type + " is not a command");
+        };
+    }
+
+    /**
+     * Write a frame made up of only a header and sequence number, i.e. a heartbeat or an ack
+     * @param buf the buffer to write to
+     * @param type HEARTBEAT or ACK
+     * @param seq the sequence number
+     */
+    public static void encodeSeqOnly(ByteBuffer buf, byte type, long seq) {
+        int offset = buf.position();
+        putHeader(buf, offset, HEARTBEAT_LENGTH, type, seq);
+        buf.position(offset + HEARTBEAT_LENGTH);
+    }
+
+    public static void encodeChecksum(ByteBuffer buf, long seq, long checksum) {
+        int offset = buf.position();
+        putHeader(buf, offset, CHECKSUM_LENGTH, CHECKSUM, seq);
+        buf.putLong(offset + CHECKSUM_OFFSET, checksum);
+        buf.position(offset + CHECKSUM_LENGTH);
+    }
+
+    private static void putHeader(ByteBuffer buf, int offset, int length, byte type, long seq) {
+        buf.putShort(offset + LENGTH_OFFSET, (short) length);
+        buf.put(offset + TYPE_OFFSET, type);
+        buf.put(offset + TYPE_OFFSET + 1, (byte) 0);
+        buf.putLong(offset + SEQ_OFFSET, seq);
+    }
+
+    private static void putUUID(ByteBuffer buf, int offset, UUID id) {
+        buf.putLong(offset, id.getMostSignificantBits());
+        buf.putLong(offset + 8, id.getLeastSignificantBits());
+    }
+
+    private static UUID getUUID(ByteBuffer buf, int offset) {
+        return new UUID(buf.getLong(offset), buf.getLong(offset + 8));
+    }
+
+    private static <T> T decode(T[] values, byte code) {
+        if (code < 0 || code >= values.length) {
+            throw new IllegalArgumentException("Unknown code " + code);
+        }
+        return values[code];
+    }
+}
@@ -0,0 +1,257 @@
+package market.replication;
+
+import static market.replication.ReplicationProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import market.replay.ReplayEngine;
+
+/**
+ * The replica side of a primary/standby pair. A single thread reads the primary's command log, applies each command to the
+ * standby's own engine in sequence and acks once per batch read, so acks are pipelined with the log rather than sent per
+ * command. Each checksum in the log is compared with the standby's book at the same sequence number, and the first mismatch
+ * is recorded as a divergence.
+ *
+ * If nothing (commands or heartbeats) arrives from the primary within the failover timeout, or the primary's connection is
+ * lost, the standby stops reading and is promoted: its engine then holds every command it applied and may be used as the
+ * live engine. Until then the engine must only be touched by the standby's thread
+ */
+public class ReplicationStandby implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final ReplayEngine engine;
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final long failoverNanos;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(ACK_LENGTH).order(BYTE_ORDER);
+
+    private volatile long appliedSeq;
+    private volatile long divergedSeq = -1;
+    private volatile boolean promoted = false;
+    private volatile boolean running = true;
+    private volatile Consumer<ReplicationStandby> promotionHandler;
+    private Thread thread;
+
+    private ReplicationStandby(ReplayEngine engine, SocketChannel channel, Duration failoverTimeout) throws IOException {
+        this.engine = engine;
+        this.channel = channel;
+        this.failoverNanos = failoverTimeout.toNanos();
+        this.selector = Selector.open();
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    /**
+     * Connect to a primary. Nothing is read until the standby is started
+     * @param engine the engine to apply the log to, in the same state as the primary's engine before its first command
+     * @param primaryAddress the address of the primary
+     * @param failoverTimeout how long the primary may be silent before the standby takes over. Should be a few heartbeat
+     *        intervals
+     * @return the standby
+     * @throws IOException if the primary cannot be reached
+     */
+    public static ReplicationStandby connect(ReplayEngine engine, InetSocketAddress primaryAddress, Duration failoverTimeout)
+        throws IOException {
+        if (failoverTimeout.toMillis() <= 0) {
+            throw new IllegalArgumentException("Failover timeout must be at least one millisecond");
+        }
+
+        SocketChannel channel = SocketChannel.open(primaryAddress);
+        channel.socket().setTcpNoDelay(true);
+        return new ReplicationStandby(engine, channel, failoverTimeout);
+    }
+
+    /**
+     * Set a hook to run once the standby is promoted. It runs on the standby's thread, after the last command has been
+     * applied
+     * @param handler receives the promoted standby, or null to remove the hook
+     */
+    public void setPromotionHandler(Consumer<ReplicationStandby> handler) {
+        this.promotionHandler = handler;
+    }
+
+    /**
+     * Start reading and applying the primary's log
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Standby has already been started");
+        }
+
+        thread = new Thread(this::run, "replication-standby");
+        thread.start();
+    }
+
+    /**
+     * Wait for the standby to be promoted
+     * @param timeout the longest to wait
+     * @return true if the standby has been promoted
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitPromotion(Duration timeout) throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            t.join(Math.max(1, timeout.toMillis()));
+        }
+        return promoted;
+    }
+
+    public ReplayEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the sequence number of the last command applied
+     */
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * @return the sequence number at which the book was first found to differ from the primary's, or -1 if it hasn't
+     */
+    public long getDivergedSeq() {
+        return divergedSeq;
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    /**
+     * Stop reading without being promoted
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+        selector.close();
+    }
+
+    private void run() {
+        long lastHeardNanos = System.nanoTime();
+        boolean primaryLost = false;
+
+        try {
+            while (running) {
+                long silentNanos = System.nanoTime() - lastHeardNanos;
+                if (silentNanos >= failoverNanos) {
+                    primaryLost = true;
+                    break;
+                }
+
+                selector.select(Math.max(1, (failoverNanos - silentNanos) / 1_000_000));
+                selector.selectedKeys().clear();
+                int read = channel.read(in);
+                if (read < 0) {
+                    primaryLost = true;
+                    break;
+                }
+                if (read > 0) {
+                    lastHeardNanos = System.nanoTime();
+                    if (!processFrames()) {
+                        break;
+                    }
+                    sendAck();
+                }
+            }
+        } catch (IOException e) {
+            primaryLost = true;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already lost
+        }
+
+        if (primaryLost && running) {
+            promoted = true;
+            Consumer<ReplicationStandby> handler = promotionHandler;
+            if (handler != null) {
+                handler.accept(this);
+            }
+        }
+    }
+
+    /**
+     * Apply every complete frame in the input buffer
+     * @return false if the log is malformed and can't be followed any further
+     */
+    private boolean processFrames() {
+        in.flip();
+        try {
+            while (in.remaining() >= HEADER_LENGTH) {
+                int offset = in.position();
+                int length = frameLength(in, offset);
+                byte type = in.get(offset + TYPE_OFFSET);
+                if (length != expectedLength(type) || type == ACK) {
+                    diverged(appliedSeq + 1);
+                    return false;
+                }
+                if (in.remaining() < length) {
+                    break;
+                }
+
+                long seq = in.getLong(offset + SEQ_OFFSET);
+                if (type == CHECKSUM) {
+                    if (seq == appliedSeq && in.getLong(offset + CHECKSUM_OFFSET) != engine.getBook().checksum()) {
+                        diverged(seq);
+                    }
+                } else if (type != HEARTBEAT) {
+                    if (seq != appliedSeq + 1) {
+                        // A gap in the log means every later book state is suspect
+                        diverged(appliedSeq + 1);
+                        return false;
+                    }
+                    engine.apply(decodeCommand(in, offset));
+                    appliedSeq = seq;
+                }
+                in.position(offset + length);
+            }
+            return true;
+        } finally {
+            in.compact();
+        }
+    }
+
+    private void diverged(long seq) {
+        if (divergedSeq < 0) {
+            divergedSeq = seq;
+        }
+    }
+
+    private void sendAck() throws IOException {
+        out.clear();
+        encodeSeqOnly(out, ACK, appliedSeq);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+}
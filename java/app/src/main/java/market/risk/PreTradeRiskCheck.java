@@ -0,0 +1,197 @@
+package market.risk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import market.OrderBook;
+import market.orders.IcebergOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+
+/**
+ * Checks orders against per-trader limits before they are matched.
+ * 
+ * Each trader's position is held as a primitive and updated by the matching engine on every fill, and open orders and the
+ * volume they have left on each side are counted by the book, so a check is a handful of comparisons with no allocation.
+ * The worst case position assumes every resting order of the trader on the order's side fills along with the order, so a
+ * limit can't be stepped past by stacking up resting orders (or by amending one up) that each pass alone. Prices are checked
+ * against the best price on the opposite side of the book, falling back to the same side and then the last trade. Checks
+ * that need a reference price are skipped while there is none. Stop orders are checked for size and position when placed,
+ * and for price when they trigger.
+ * 
+ * Like the engine, it must only be used from the market's writer thread
+ */
+public class PreTradeRiskCheck {
+    private final Map<UUID, TraderRisk> traders = new HashMap<>();
+    private final RiskLimits defaultLimits;
+
+    /**
+     * Per trader state, kept as primitives so checks and fills don't allocate
+     */
+    private static class TraderRisk {
+        RiskLimits limits;
+        long position;
+    }
+
+    /**
+     * @param defaultLimits the limits of traders who haven't been given their own
+     */
+    public PreTradeRiskCheck(RiskLimits defaultLimits) {
+        this.defaultLimits = defaultLimits;
+    }
+
+    /**
+     * Give a trader their own limits
+     * @param traderId the id of the trader
+     * @param limits the trader's limits
+     */
+    public void setLimits(UUID traderId, RiskLimits limits) {
+        getTraderRisk(traderId).limits = limits;
+    }
+
+    public RiskLimits getLimits(UUID traderId) {
+        TraderRisk risk = traders.get(traderId);
+        return risk == null ? defaultLimits : risk.limits;
+    }
+
+    /**
+     * @param traderId the id of the trader
+     * @return the trader's net position, positive if long and negative if short
+     */
+    public long getPosition(UUID traderId) {
+        TraderRisk risk = traders.get(traderId);
+        return risk == null ? 0 : risk.position;
+    }
+
+    /**
+     * Check an order against its trader's limits
+     * @param order the order about to be matched
+     * @param book the book it will be matched against
+     * @param lastTradePrice the price of the last trade, or NaN if there hasn't been one
+     * @return the reason the order is refused, or null if it may be matched
+     */
+    public RiskRejection check(Order order, OrderBook book, double lastTradePrice) {
+        TraderRisk risk = traders.get(order.getTraderId());
+        RiskLimits limits = risk == null ? defaultLimits : risk.limits;
+        long position = risk == null ? 0 : risk.position;
+        int volume = order.getVolume();
+
+        if (volume > limits.maxOrderVolume()) {
+            return RiskRejection.ORDER_TOO_LARGE;
+        }
+
+        if (exceedsPosition(order.getTraderId(), order.getSide(), volume, position, limits, book)) {
+            return RiskRejection.POSITION_LIMIT;
+        }
+
+        if (order.canRestInBook() && book.getNumTraderOrders(order.getTraderId()) >= limits.maxOpenOrders()) {
+            return RiskRejection.TOO_MANY_OPEN_ORDERS;
+        }
+
+        double reference = getReferencePrice(order.getSide(), book, lastTradePrice);
+        if (PricedOrder.class.isInstance(order)) {
+            double price = ((PricedOrder) order).getPrice();
+            if (price * volume > limits.maxNotional()) {
+                return RiskRejection.NOTIONAL_TOO_LARGE;
+            }
+            if (!Double.isNaN(reference) && Math.abs(price - reference) > reference * limits.priceCollar()) {
+                return RiskRejection.OUTSIDE_PRICE_COLLAR;
+            }
+        } else if (MarketOrder.class.isInstance(order)) {
+            PricedOrder opposite = book.getBestOrder(order.getSide());
+            if (opposite != null && opposite.getPrice() * volume > limits.maxNotional()) {
+                return RiskRejection.NOTIONAL_TOO_LARGE;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Check an increase in the volume of a resting or waiting stop order against its trader's limits, as if the order had
+     * been placed at its new volume. Reducing an order is always allowed
+     * @param order the order about to be amended
+     * @param newVolume the volume it will be amended to
+     * @param book the book the order rests in
+     * @return the reason the amend is refused, or null if it may go ahead
+     */
+    public RiskRejection checkAmend(Order order, int newVolume, OrderBook book) {
+        boolean resting = book.getOrder(order.getOrderId()) == order;
+        int oldVolume = IcebergOrder.class.isInstance(order) ? ((IcebergOrder) order).getTotalVolume() : order.getVolume();
+        if (newVolume <= oldVolume) {
+            return null;
+        }
+
+        TraderRisk risk = traders.get(order.getTraderId());
+        RiskLimits limits = risk == null ? defaultLimits : risk.limits;
+        long position = risk == null ? 0 : risk.position;
+
+        if (newVolume > limits.maxOrderVolume()) {
+            return RiskRejection.ORDER_TOO_LARGE;
+        }
+        // A resting order's old volume is already part of the trader's resting volume, so only the increase is added
+        if (exceedsPosition(order.getTraderId(), order.getSide(), resting ? newVolume - oldVolume : newVolume, position,
+            limits, book)) {
+            return RiskRejection.POSITION_LIMIT;
+        }
+        if (PricedOrder.class.isInstance(order) && ((PricedOrder) order).getPrice() * newVolume > limits.maxNotional()) {
+            return RiskRejection.NOTIONAL_TOO_LARGE;
+        }
+
+        return null;
+    }
+
+    /**
+     * Apply one side of a fill to a trader's position
+     * @param traderId the id of the trader
+     * @param side the side the trader traded on
+     * @param volume the volume traded
+     */
+    public void onFill(UUID traderId, OrderSide side, int volume) {
+        TraderRisk risk = getTraderRisk(traderId);
+        risk.position += side == OrderSide.BUY ? volume : -volume;
+    }
+
+    /**
+     * Forget every trader's position, keeping their limits
+     */
+    public void resetPositions() {
+        for (TraderRisk risk : traders.values()) {
+            risk.position = 0;
+        }
+    }
+
+    /**
+     * @return true if the trader's position could pass its limit were the volume and every resting order of the trader on
+     * the side to fill
+     */
+    private static boolean exceedsPosition(UUID traderId, OrderSide side, long volume, long position, RiskLimits limits,
+        OrderBook book) {
+        long exposure = book.getTraderVolume(traderId, side) + volume;
+        long worstPosition = side == OrderSide.BUY ? position + exposure : position - exposure;
+        return Math.abs(worstPosition) > limits.maxPosition();
+    }
+
+    private static double getReferencePrice(OrderSide side, OrderBook book, double lastTradePrice) {
+        PricedOrder opposite = book.getBestOrder(side);
+        if (opposite != null) {
+            return opposite.getPrice();
+        }
+
+        PricedOrder same = side == OrderSide.BUY ? book.getBestBid() : book.getBestOffer();
+        return same != null ? same.getPrice() : lastTradePrice;
+    }
+
+    private TraderRisk getTraderRisk(UUID traderId) {
+        TraderRisk risk = traders.get(traderId);
+        if (risk == null) {
+            risk = new TraderRisk();
+            risk.limits = defaultLimits;
+            traders.put(traderId, risk);
+        }
+        return risk;
+    }
+}
@@ -0,0 +1,20 @@
+package market.risk;
+
+/**
+ * The pre-trade limits of one trader
+ * @param maxOrderVolume the largest volume of a single order
+ * @param maxNotional the largest price times volume of a single order. Market orders are valued at the best opposite price
+ * @param maxPosition the largest net position, long or short, the trader may reach if the order fills completely
+ * @param maxOpenOrders the most orders the trader may have resting at once
+ * @param priceCollar the furthest a limit price may be from the reference price, as a fraction of the reference price
+ */
+public record RiskLimits(int maxOrderVolume, double maxNotional, long maxPosition, int maxOpenOrders, double priceCollar) {
+    public static final RiskLimits UNLIMITED = new RiskLimits(Integer.MAX_VALUE, Double.POSITIVE_INFINITY, Long.MAX_VALUE,
+        Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+
+    public RiskLimits {
+        if (maxOrderVolume <= 0 || maxNotional <= 0 || maxPosition <= 0 || maxOpenOrders <= 0 || priceCollar <= 0) {
+            throw new IllegalArgumentException("Risk limits must all be positive");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package market.risk;
+
+/**
+ * The reasons the pre-trade risk check can refuse an order
+ */
+public enum RiskRejection {
+    ORDER_TOO_LARGE("Order volume exceeds the trader's maximum order size"),
+    NOTIONAL_TOO_LARGE("Order notional exceeds the trader's maximum notional"),
+    POSITION_LIMIT("Order could take the trader's position past its limit"),
+    TOO_MANY_OPEN_ORDERS("Trader has reached their maximum number of open orders"),
+    OUTSIDE_PRICE_COLLAR("Order price is too far from the reference price");
+
+    private final String message;
+
+    RiskRejection(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,14 @@
+package market.simulation;
+
+import java.util.function.Supplier;
+
+import market.replay.ReplayCommand;
+
+/**
+ * One independent simulation in a sweep
+ * @param name a label for the scenario
+ * @param idSeed the seed of the ids given to orders generated without one
+ * @param flow produces the commands to run. Called on the worker thread running the scenario, so large flows can be
+ * generated in parallel rather than held in memory for the whole sweep
+ */
+public record Scenario(String name, long idSeed, Supplier<? extends Iterable<? extends ReplayCommand>> flow) {}
@@ -0,0 +1,99 @@
+package market.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import market.replay.ReplayEngine;
+import market.replay.ReplayResult;
+
+/**
+ * Runs many independent scenarios across a fork-join pool.
+ * 
+ * Each scenario is single threaded and runs on its own book, but books are not allocated per scenario: every worker thread
+ * keeps one replay engine which is reset between the scenarios it runs. The list of scenarios is split recursively, and the
+ * statistics of each half are combined as the splits join, so the totals are reduced in parallel rather than on one thread
+ * at the end.
+ */
+public class ScenarioRunner implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ReplayEngine> workerEngines = ThreadLocal.withInitial(() -> new ReplayEngine(0));
+
+    /**
+     * Create a runner with one worker per available processor
+     */
+    public ScenarioRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     */
+    public ScenarioRunner(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Run every scenario, blocking until all have finished
+     * @param scenarios the scenarios to run
+     * @return the result of each scenario and the combined statistics
+     */
+    public SweepResult run(List<Scenario> scenarios) {
+        ReplayResult[] results = new ReplayResult[scenarios.size()];
+        long start = System.nanoTime();
+        ScenarioStats totals = pool.invoke(new SweepTask(scenarios, results, 0, scenarios.size()));
+        return new SweepResult(Arrays.asList(results), totals, System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private ReplayResult runOne(Scenario scenario) {
+        ReplayEngine replay = workerEngines.get();
+        replay.reset(scenario.idSeed());
+        return replay.replay(scenario.flow().get());
+    }
+
+    private class SweepTask extends RecursiveTask<ScenarioStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Scenario> scenarios;
+        private final ReplayResult[] results;
+        private final int from;
+        private final int to;
+
+        SweepTask(List<Scenario> scenarios, ReplayResult[] results, int from, int to) {
+            this.scenarios = scenarios;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ScenarioStats compute() {
+            if (to - from == 1) {
+                results[from] = runOne(scenarios.get(from));
+                return ScenarioStats.of(results[from]);
+            } else if (to == from) {
+                return ScenarioStats.EMPTY;
+            }
+
+            int mid = (from + to) >>> 1;
+            SweepTask left = new SweepTask(scenarios, results, from, mid);
+            left.fork();
+            ScenarioStats right = new SweepTask(scenarios, results, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+}
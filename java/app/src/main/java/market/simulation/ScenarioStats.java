@@ -0,0 +1,28 @@
+package market.simulation;
+
+import market.replay.ReplayResult;
+
+/**
+ * Statistics summed over any number of scenarios. Combining is associative, so per-scenario stats can be reduced in any
+ * grouping
+ * @param scenarios the number of scenarios
+ * @param events the number of commands replayed
+ * @param ordersPlaced the number of orders placed
+ * @param ordersRejected the number of orders the engine refused
+ * @param trades the number of trades made
+ * @param busyNanos the wall clock time spent replaying, summed over scenarios
+ */
+public record ScenarioStats(long scenarios, long events, long ordersPlaced, long ordersRejected, long trades,
+        long busyNanos) {
+    public static final ScenarioStats EMPTY = new ScenarioStats(0, 0, 0, 0, 0, 0);
+
+    public static ScenarioStats of(ReplayResult result) {
+        return new ScenarioStats(1, result.events(), result.ordersPlaced(), result.ordersRejected(), result.trades(),
+            result.elapsedNanos());
+    }
+
+    public ScenarioStats combine(ScenarioStats other) {
+        return new ScenarioStats(scenarios + other.scenarios, events + other.events, ordersPlaced + other.ordersPlaced,
+            ordersRejected + other.ordersRejected, trades + other.trades, busyNanos + other.busyNanos);
+    }
+}
@@ -0,0 +1,24 @@
+package market.simulation;
+
+import java.util.List;
+
+import market.replay.ReplayResult;
+
+/**
+ * The outcome of a sweep of scenarios
+ * @param results the result of each scenario, in the order the scenarios were given
+ * @param totals the statistics of every scenario combined
+ * @param elapsedNanos the wall clock time the whole sweep took
+ */
+public record SweepResult(List<ReplayResult> results, ScenarioStats totals, long elapsedNanos) {
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : totals.events() / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * @return how many times faster the sweep ran than the scenarios would have back to back on one thread
+     */
+    public double getSpeedup() {
+        return elapsedNanos == 0 ? 0 : (double) totals.busyNanos() / elapsedNanos;
+    }
+}
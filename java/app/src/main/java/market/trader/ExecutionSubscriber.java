@@ -0,0 +1,7 @@
+package market.trader;
+
+import market.matching.ExecutionReport;
+
+public interface ExecutionSubscriber {
+    public void notifyOfExecution(ExecutionReport report);
+}
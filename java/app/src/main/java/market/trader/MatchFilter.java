@@ -0,0 +1,69 @@
+package market.trader;
+
+import java.util.List;
+import java.util.UUID;
+
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.orders.OrderSide;
+
+/**
+ * Which match results a subscriber wants. Each field left null matches anything, and a result must match every field that
+ * is set. An order id matches a result for that order and also any result with a trade against it, so a subscriber can
+ * follow a resting order being filled by other traders' orders
+ * @param traderId the trader who placed the order, or null for any
+ * @param orderId the order, or null for any
+ * @param side the side of the order, or null for either
+ * @param status the status of the order after matching, or null for any
+ */
+public record MatchFilter(UUID traderId, UUID orderId, OrderSide side, OrderStatus status) {
+    public static final MatchFilter ALL = new MatchFilter(null, null, null, null);
+
+    public static MatchFilter ofTrader(UUID traderId) {
+        return new MatchFilter(traderId, null, null, null);
+    }
+
+    public static MatchFilter ofOrder(UUID orderId) {
+        return new MatchFilter(null, orderId, null, null);
+    }
+
+    public static MatchFilter ofSide(OrderSide side) {
+        return new MatchFilter(null, null, side, null);
+    }
+
+    public static MatchFilter ofStatus(OrderStatus status) {
+        return new MatchFilter(null, null, null, status);
+    }
+
+    public MatchFilter withSide(OrderSide side) {
+        return new MatchFilter(traderId, orderId, side, status);
+    }
+
+    public MatchFilter withStatus(OrderStatus status) {
+        return new MatchFilter(traderId, orderId, side, status);
+    }
+
+    /**
+     * @param res a match result
+     * @return true if the result is wanted
+     */
+    public boolean matches(MatchResult res) {
+        if ((traderId != null && !traderId.equals(res.getTraderId())) || (side != null && side != res.getSide())
+            || (status != null && status != res.getStatus())) {
+            return false;
+        }
+        if (orderId == null || orderId.equals(res.getOrderId())) {
+            return true;
+        }
+
+        List<Trade> trades = res.getTrades();
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            if (orderId.equals(trade.bidId()) || orderId.equals(trade.offerId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
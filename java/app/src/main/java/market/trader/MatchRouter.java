@@ -0,0 +1,188 @@
+package market.trader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import market.Trade;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.orders.OrderSide;
+
+/**
+ * Delivers each match result only to the subscribers whose filter it matches, without asking every subscriber.
+ *
+ * Each subscription is indexed under the most selective field its filter sets: its order id, else its trader id, else its
+ * status, else its side, else it receives every result. A result is looked up under its own order id, the order ids of the
+ * orders it traded against, its trader id, status and side, so routing costs O(1) per key plus O(t) in its trades when any
+ * order subscriptions exist, however many subscribers there are. Any other fields of a filter are then checked against the
+ * result.
+ *
+ * Results are delivered to subscribers to every result first, then to those found by order, trader, status and side, each in
+ * the order they subscribed. Subscriptions may be added or removed while a result is being delivered (e.g. a subscriber
+ * unsubscribing once its order fills), taking effect from the next result
+ */
+public class MatchRouter {
+    private static final Route[] NO_ROUTES = new Route[0];
+    private static final int NUM_SIDES = OrderSide.values().length;
+    private static final int NUM_STATUSES = OrderStatus.values().length;
+
+    // Every bucket is copied on write, so delivery can walk it while subscribers change their subscriptions
+    private Route[] broadcast = NO_ROUTES;
+    private final Map<UUID, Route[]> byOrder = new HashMap<>();
+    private final Map<UUID, Route[]> byTrader = new HashMap<>();
+    private final Route[][] bySide = new Route[NUM_SIDES][];
+    private final Route[][] byStatus = new Route[NUM_STATUSES][];
+    private int size;
+    private long routed;
+
+    /**
+     * Subscribe to the results a filter matches. The same subscriber may subscribe under many filters, and receives a result
+     * once for each of its subscriptions that match it
+     * @param filter the results wanted
+     * @param sub the subscriber
+     */
+    public void add(MatchFilter filter, MatchSubscriber sub) {
+        Route route = new Route(filter, sub);
+        Route[] bucket = getBucket(filter);
+        Route[] grown = Arrays.copyOf(bucket == null ? NO_ROUTES : bucket, bucket == null ? 1 : bucket.length + 1);
+        grown[grown.length - 1] = route;
+        setBucket(filter, grown);
+        size++;
+    }
+
+    /**
+     * Remove the earliest subscription of a subscriber under a filter
+     * @param filter the filter it subscribed with
+     * @param sub the subscriber
+     * @return true if the subscription existed
+     */
+    public boolean remove(MatchFilter filter, MatchSubscriber sub) {
+        Route[] bucket = getBucket(filter);
+        if (bucket == null) {
+            return false;
+        }
+
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i].filter.equals(filter) && bucket[i].subscriber.equals(sub)) {
+                Route[] shrunk = new Route[bucket.length - 1];
+                System.arraycopy(bucket, 0, shrunk, 0, i);
+                System.arraycopy(bucket, i + 1, shrunk, i, bucket.length - i - 1);
+                setBucket(filter, shrunk.length == 0 ? null : shrunk);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of subscriptions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Deliver a result to every subscription that matches it
+     * @param res the result
+     */
+    public void route(MatchResult res) {
+        long seq = ++routed;
+        deliver(broadcast, res, seq);
+
+        if (!byOrder.isEmpty()) {
+            UUID orderId = res.getOrderId();
+            deliver(byOrder.get(orderId), res, seq);
+            List<Trade> trades = res.getTrades();
+            for (int i = 0; i < trades.size(); i++) {
+                Trade trade = trades.get(i);
+                if (!trade.bidId().equals(orderId)) {
+                    deliver(byOrder.get(trade.bidId()), res, seq);
+                }
+                if (!trade.offerId().equals(orderId)) {
+                    deliver(byOrder.get(trade.offerId()), res, seq);
+                }
+            }
+        }
+        if (!byTrader.isEmpty()) {
+            deliver(byTrader.get(res.getTraderId()), res, seq);
+        }
+        if (res.getStatus() != null) {
+            deliver(byStatus[res.getStatus().ordinal()], res, seq);
+        }
+        if (res.getSide() != null) {
+            deliver(bySide[res.getSide().ordinal()], res, seq);
+        }
+    }
+
+    private static void deliver(Route[] routes, MatchResult res, long seq) {
+        if (routes == null) {
+            return;
+        }
+
+        for (Route route : routes) {
+            // An order subscription can be found more than once for a result that trades against its order repeatedly
+            if (route.lastRouted != seq && (route.keyOnly || route.filter.matches(res))) {
+                route.lastRouted = seq;
+                route.subscriber.notifyOfMatch(res);
+            }
+        }
+    }
+
+    private Route[] getBucket(MatchFilter filter) {
+        if (filter.orderId() != null) {
+            return byOrder.get(filter.orderId());
+        } else if (filter.traderId() != null) {
+            return byTrader.get(filter.traderId());
+        } else if (filter.status() != null) {
+            return byStatus[filter.status().ordinal()];
+        } else if (filter.side() != null) {
+            return bySide[filter.side().ordinal()];
+        }
+        return broadcast.length == 0 ? null : broadcast;
+    }
+
+    private void setBucket(MatchFilter filter, Route[] bucket) {
+        if (filter.orderId() != null) {
+            putOrRemove(byOrder, filter.orderId(), bucket);
+        } else if (filter.traderId() != null) {
+            putOrRemove(byTrader, filter.traderId(), bucket);
+        } else if (filter.status() != null) {
+            byStatus[filter.status().ordinal()] = bucket;
+        } else if (filter.side() != null) {
+            bySide[filter.side().ordinal()] = bucket;
+        } else {
+            broadcast = bucket == null ? NO_ROUTES : bucket;
+        }
+    }
+
+    private static void putOrRemove(Map<UUID, Route[]> index, UUID key, Route[] bucket) {
+        if (bucket == null) {
+            index.remove(key);
+        } else {
+            index.put(key, bucket);
+        }
+    }
+
+    /**
+     * One subscription, remembering the last result it was given
+     */
+    private static final class Route {
+        private final MatchFilter filter;
+        private final MatchSubscriber subscriber;
+        // True if the filter sets nothing but the field it is indexed under, so a result found by that key always matches
+        private final boolean keyOnly;
+        private long lastRouted;
+
+        private Route(MatchFilter filter, MatchSubscriber subscriber) {
+            this.filter = filter;
+            this.subscriber = subscriber;
+            int fields = (filter.orderId() == null ? 0 : 1) + (filter.traderId() == null ? 0 : 1)
+                + (filter.status() == null ? 0 : 1) + (filter.side() == null ? 0 : 1);
+            this.keyOnly = fields <= 1;
+        }
+    }
+}
@@ -3,9 +3,28 @@ package market.trader;
 import market.matching.MatchResult;
 
 public interface MatchSubject {
+    /**
+     * Subscribe to every match result
+     * @param sub the subscriber
+     */
     public void addSubscriber(MatchSubscriber sub);
+
+    /**
+     * Subscribe to only the match results a filter matches, e.g. those of one trader. Subscribers are found through an index
+     * rather than each being asked, so this is much cheaper than filtering in the subscriber when there are many
+     * @param filter the results wanted
+     * @param sub the subscriber
+     */
+    public void addSubscriber(MatchFilter filter, MatchSubscriber sub);
     
     public void removeSubscriber(MatchSubscriber sub);
+
+    /**
+     * @param filter the filter the subscriber subscribed with
+     * @param sub the subscriber
+     * @return true if the subscription existed
+     */
+    public boolean removeSubscriber(MatchFilter filter, MatchSubscriber sub);
     
     public void notifySubscribers(MatchResult res);
 }
@@ -1,49 +1,74 @@
 package market.trader;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.UUID;
 
+import market.OrderBook;
 import market.Trade;
+import market.matching.ExecutionReport;
 import market.matching.MatchResult;
 import market.matching.MatchingEngine;
+import market.orders.IcebergOrder;
+import market.orders.OrderSide;
 import market.orders.OrderSummary;
+import market.orders.PricedOrder;
 
-public class Portfolio implements MatchSubscriber{
-    public final TreeSet<OrderSummary> activeOrders = new TreeSet<>(Comparator.comparing(OrderSummary::id));
+public class Portfolio implements MatchSubscriber, ExecutionSubscriber {
     public final List<Trade> tradeHistory = new ArrayList<>();
+    private final UUID traderId;
+    private final MatchingEngine eng;
 
-    public Portfolio(MatchingEngine eng) {
-        eng.addSubscriber(this);
+    public Portfolio(Trader trader, MatchingEngine eng) {
+        this.traderId = trader.getId();
+        this.eng = eng;
+        eng.addSubscriber(MatchFilter.ofTrader(traderId), this);
+        eng.addExecutionSubscriber(traderId, this);
     }
 
-    @Override
-    public void notifyOfMatch(MatchResult matchRes) {
-        List<Trade> trades = matchRes.getTrades();
-        tradeHistory.addAll(trades);
-        
-        for (Trade trade : trades) {
-            if (activeOrders.stream().anyMatch(o -> linked(o, trade))) {
-                updateOrder(trade);
-            }
-        }
+    public UUID getTraderId() {
+        return traderId;
     }
 
     /**
-     * Update an order in the active order set based on a trade that occurred in relation too it
-     * @param trade
+     * Get the trader's resting orders. These are read from the book rather than tracked here, so fills, cancels,
+     * expiries and amends are always reflected without the portfolio having to hear of each one. Must be called from
+     * the market's writer thread
+     * @return a summary of each resting order with the volume it has left, bids first and most recently placed first
+     * on each side
      */
-    private void updateOrder(Trade trade) {
-        
+    public List<OrderSummary> getActiveOrders() {
+        OrderBook book = eng.getBook();
+        List<OrderSummary> orders = new ArrayList<>(book.getNumTraderOrders(traderId));
+        for (OrderSide side : OrderSide.values()) {
+            for (PricedOrder order : book.getTraderOrders(traderId, side)) {
+                int volume = IcebergOrder.class.isInstance(order) ? ((IcebergOrder) order).getTotalVolume()
+                    : order.getVolume();
+                orders.add(new OrderSummary(order.getOrderId(), volume, order.getPrice(), order.getTimestamp(), side));
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public void notifyOfMatch(MatchResult matchRes) {
+        // Other traders' orders that fill one of this trader's are recorded when the execution report arrives
+        if (traderId.equals(matchRes.getTraderId())) {
+            tradeHistory.addAll(matchRes.getTrades());
+        }
     }
 
     /**
-     * Determine if an order was involved in a trade
-     * @param order
-     * @param trade
+     * Record the fills of this trader's resting orders by other traders' orders. Fills by the trader's own orders were
+     * already recorded from the match result of the order that made them
      */
-    private boolean linked(OrderSummary order, Trade trade) {
-        return order.id().equals(trade.bidId()) || order.id().equals(trade.offerId());
+    @Override
+    public void notifyOfExecution(ExecutionReport report) {
+        if (report.isSelfTrade()) {
+            return;
+        }
+        for (ExecutionReport.Fill fill : report.fills()) {
+            tradeHistory.add(fill.trade());
+        }
     }
 }
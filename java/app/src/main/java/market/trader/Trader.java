@@ -8,8 +8,12 @@ public class Trader {
     private final UUID id;
 
     public Trader(String name) {
+        this(name, UUID.randomUUID());
+    }
+
+    public Trader(String name, UUID id) {
         this.name = name;
-        this.id = UUID.randomUUID();
+        this.id = id;
     }
 
     public String getName() {
@@ -0,0 +1,181 @@
+package market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import market.matching.AuctionResult;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.TradingPhase;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+class AuctionTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("Crossing orders rest without matching during an auction")
+    public void ordersAccumulate() {
+        eng.startAuction();
+        MatchResult sell = eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 9.00));
+        MatchResult buy = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 11.00));
+
+        assertEquals(OrderStatus.ALL_RESTING, sell.getStatus());
+        assertEquals(OrderStatus.ALL_RESTING, buy.getStatus());
+        assertEquals(11.00, book.getBestBid().getPrice());
+        assertEquals(9.00, book.getBestOffer().getPrice());
+        assertEquals(TradingPhase.AUCTION, eng.getPhase());
+    }
+
+    @Test
+    @DisplayName("Market orders are rejected during an auction")
+    public void marketOrdersRejected() {
+        eng.startAuction();
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 9.00));
+        MatchResult res = eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 10));
+
+        assertEquals(OrderStatus.ALL_REJECTED, res.getStatus());
+        assertEquals(10, book.getBestOffer().getVolume());
+    }
+
+    @Test
+    @DisplayName("The book uncrosses at one price that maximises volume, then matches continuously")
+    public void uncrossMaximisesVolume() {
+        eng.startAuction();
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.20));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 20, 10.10));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 30, 9.90));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 15, 9.80));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 25, 10.10));
+
+        AuctionEquilibrium indicative = eng.getIndicativeEquilibrium();
+        List<MatchResult> notified = new ArrayList<>();
+        eng.addSubscriber(notified::add);
+        AuctionResult res = eng.uncross();
+
+        // At 10.10 demand is 30 and supply is 50, at 10.00 demand is 30 and supply is 25
+        assertEquals(10.10, res.price());
+        assertEquals(30, res.volume());
+        assertEquals(indicative.price(), res.price());
+        assertTrue(res.trades().stream().allMatch(t -> t.price() == 10.10));
+        assertEquals(30, res.trades().stream().mapToInt(Trade::volume).sum());
+        assertEquals(res.results(), notified);
+
+        assertEquals(9.90, book.getBestBid().getPrice());
+        assertEquals(10.10, book.getBestOffer().getPrice());
+        assertEquals(20, book.getBestOffer().getVolume());
+        assertEquals(TradingPhase.CONTINUOUS, eng.getPhase());
+
+        MatchResult after = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 5, 10.10));
+        assertEquals(OrderStatus.FILLED, after.getStatus());
+    }
+
+    @Test
+    @DisplayName("Hidden iceberg volume takes part in the uncross")
+    public void icebergReserveCounts() {
+        eng.startAuction();
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 40, 10.00, 10);
+        eng.placeOrder(iceberg);
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 35, 10.00));
+
+        AuctionResult res = eng.uncross();
+        assertEquals(35, res.volume());
+        assertEquals(5, iceberg.getTotalVolume());
+        assertNull(book.getBestBid());
+    }
+
+    @Test
+    @DisplayName("An uncrossed book ends the auction without trading")
+    public void nothingToUncross() {
+        eng.startAuction();
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 9.00));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00));
+
+        AuctionResult res = eng.uncross();
+        assertTrue(Double.isNaN(res.price()));
+        assertTrue(res.trades().isEmpty());
+        assertEquals(TradingPhase.CONTINUOUS, eng.getPhase());
+    }
+
+    @Test
+    @DisplayName("The equilibrium volume matches a brute force search over every price")
+    public void matchesBruteForce() {
+        Random rand = new Random(38);
+        for (int round = 0; round < 50; round++) {
+            eng.clear();
+            eng.startAuction();
+            List<LimitOrder> orders = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                OrderSide side = rand.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                double price = (950 + rand.nextInt(100)) / 100.0;
+                LimitOrder order = new LimitOrder(side, rand.nextBoolean() ? john : jane, 1 + rand.nextInt(50), price);
+                orders.add(order);
+                eng.placeOrder(order);
+            }
+
+            long bestVolume = 0;
+            for (LimitOrder candidate : orders) {
+                double p = candidate.getPrice();
+                long demand = orders.stream().filter(o -> o.getSide() == OrderSide.BUY && o.getPrice() >= p)
+                    .mapToLong(LimitOrder::getVolume).sum();
+                long supply = orders.stream().filter(o -> o.getSide() == OrderSide.SELL && o.getPrice() <= p)
+                    .mapToLong(LimitOrder::getVolume).sum();
+                bestVolume = Math.max(bestVolume, Math.min(demand, supply));
+            }
+
+            AuctionEquilibrium equilibrium = book.findEquilibrium(Double.NaN);
+            assertEquals(bestVolume, equilibrium == null ? 0 : equilibrium.volume());
+
+            AuctionResult res = eng.uncross();
+            assertEquals(bestVolume, res.volume());
+            if (book.getBestBid() != null && book.getBestOffer() != null) {
+                assertTrue(book.getBestBid().getPrice() < book.getBestOffer().getPrice());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A large book uncrosses at the equilibrium found by the search, trading all of its volume")
+    public void largeUncross() {
+        Random rand = new Random(1);
+        eng.startAuction();
+        int numOrders = 200_000;
+        for (int i = 0; i < numOrders; i++) {
+            OrderSide side = i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL;
+            double price = (side == OrderSide.BUY ? 950 + rand.nextInt(100) : 900 + rand.nextInt(100)) / 100.0;
+            eng.placeOrder(new LimitOrder(side, i % 4 < 2 ? john : jane, 1 + rand.nextInt(100), price));
+        }
+
+        AuctionEquilibrium equilibrium = book.findEquilibrium(Double.NaN);
+        AuctionResult res = eng.uncross();
+
+        assertEquals(equilibrium.volume(), res.volume());
+        assertEquals(equilibrium.price(), res.price());
+        assertEquals(res.volume(), res.trades().stream().mapToInt(Trade::volume).sum());
+    }
+}
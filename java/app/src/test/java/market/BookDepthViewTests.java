@@ -0,0 +1,109 @@
+package market;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MatchingEngine;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.trader.Trader;
+
+@Timeout(10)
+public class BookDepthViewTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook(3);
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+    }
+
+    @Test
+    @DisplayName("Resting orders at the same price are aggregated into one level in priority order")
+    public void levelsAreAggregated() {
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 9.00));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 15, 9.00));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 5, 9.50));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 20, 11.00));
+
+        BookSnapshot snap = book.getDepthView().snapshot();
+
+        assertEquals(3, snap.numBids());
+        assertEquals(1, snap.numOffers());
+        assertEquals(List.of(new DepthLevel(9.50, 5, 1), new DepthLevel(9.00, 25, 2)), snap.bids());
+        assertEquals(new DepthLevel(11.00, 20, 1), snap.getBestOffer());
+        assertEquals(9.50, book.getDepthView().getBestBidPrice());
+    }
+
+    @Test
+    @DisplayName("Only the configured number of levels is published and deeper levels move up as the top is traded away")
+    public void depthIsLimitedAndRefreshed() {
+        for (int i = 1; i <= 5; i++) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00 + i));
+        }
+
+        BookSnapshot before = book.getDepthView().snapshot();
+        assertEquals(3, before.offers().size());
+        assertEquals(5, before.numOffers());
+        assertEquals(11.00, before.getBestOffer().price());
+
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 15));
+
+        BookSnapshot after = book.getDepthView().snapshot();
+        assertTrue(after.version() > before.version());
+        assertEquals(4, after.numOffers());
+        assertEquals(List.of(new DepthLevel(12.00, 5, 1), new DepthLevel(13.00, 10, 1), new DepthLevel(14.00, 10, 1)),
+            after.offers());
+        assertNull(after.getBestBid());
+        assertTrue(Double.isNaN(book.getDepthView().getBestBidPrice()));
+    }
+
+    @Test
+    @DisplayName("Readers on other threads always see internally consistent levels while the writer is mutating the book")
+    public void concurrentReadersSeeConsistentSnapshots() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                BookSnapshot snap = book.getDepthView().snapshot();
+                // Every order is volume 10 so each level must hold exactly 10 per order
+                for (DepthLevel level : snap.bids()) {
+                    if (level.volume() != level.orderCount() * 10) {
+                        failure.set("Torn level read: " + level);
+                    }
+                }
+                for (int i = 1; i < snap.bids().size(); i++) {
+                    if (snap.bids().get(i).price() >= snap.bids().get(i - 1).price()) {
+                        failure.set("Levels out of order: " + snap.bids());
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 20000; i++) {
+            LimitOrder bid = new LimitOrder(OrderSide.BUY, john, 10, 100 - (i % 7));
+            book.insertRestingOrder(bid);
+            if (i % 3 == 0) {
+                book.cancelOrder(bid.getOrderId(), OrderSide.BUY);
+            }
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,89 @@
+package market;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.EngineWarmup;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.matching.WarmupReport;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+import market.trader.Trader;
+
+@Timeout(30)
+public class EngineWarmupTests {
+    @Test
+    @DisplayName("Warm-up runs every round on a throwaway book and reports its cost")
+    public void warmupReport() {
+        List<OrderBook> books = new ArrayList<>();
+        EngineWarmup warmup = new EngineWarmup(() -> {
+            OrderBook book = new TreeOrderBook();
+            books.add(book);
+            return book;
+        }, 0.01, 2_000, 3, Duration.ofSeconds(10));
+
+        WarmupReport report = warmup.run();
+
+        assertEquals(1, books.size());
+        assertTrue(report.rounds() >= 3);
+        assertTrue(report.orders() > (report.rounds() - 1) * 1_500L);
+        assertTrue(report.elapsedNanos() > 0);
+        assertTrue(report.settled() || report.elapsedNanos() >= Duration.ofSeconds(10).toNanos());
+        assertTrue(report.describe().contains(report.rounds() + " rounds"));
+    }
+
+    @Test
+    @DisplayName("Warm-up stops when its time budget runs out")
+    public void timeBudget() {
+        EngineWarmup warmup = new EngineWarmup(TreeOrderBook::new, 0.01, 1_000, 1_000, Duration.ofMillis(300));
+
+        long start = System.nanoTime();
+        WarmupReport report = warmup.run();
+
+        assertFalse(report.settled());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        assertTrue(report.rounds() >= 1);
+    }
+
+    @Test
+    @DisplayName("A warmed up market opens on a fresh empty book and logs the warm-up")
+    public void warmedUpMarket() {
+        List<String> log = new ArrayList<>();
+        MarketService market = MarketService.warmedUp(
+            new EngineWarmup(() -> new LadderOrderBook(0.01, 100_000), 0.01, 1_000, 2, Duration.ofSeconds(5)), log::add);
+
+        assertEquals(1, log.size());
+        assertTrue(log.get(0).startsWith("Engine warm-up"));
+        assertTrue(LadderOrderBook.class.isInstance(market.getBook()));
+        assertTrue(market.getBook().isEmpty());
+        assertTrue(Double.isNaN(market.getEngine().getLastTradePrice()));
+
+        Trader john = market.registerTrader("John");
+        MatchResult res = market.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 100.00));
+        assertEquals(OrderStatus.ALL_RESTING, res.getStatus());
+        assertEquals(1, market.getBook().getNumBids());
+    }
+
+    @Test
+    @DisplayName("Warm-up settings are validated")
+    public void validation() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new EngineWarmup(TreeOrderBook::new, 0, 1_000, 1, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new EngineWarmup(TreeOrderBook::new, 0.01, 0, 1, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new EngineWarmup(TreeOrderBook::new, 0.01, 1_000, 1, Duration.ZERO));
+
+        TreeOrderBook used = new TreeOrderBook();
+        used.insertRestingOrder(new LimitOrder(OrderSide.BUY, new Trader("John"), 10, 100.00));
+        assertThrows(IllegalArgumentException.class, () -> new EngineWarmup(() -> used).run());
+    }
+}
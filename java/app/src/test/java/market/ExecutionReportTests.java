@@ -0,0 +1,182 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.ExecutionReport;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.orders.OrderSummary;
+import market.orders.StopMarketOrder;
+import market.trader.ExecutionSubscriber;
+import market.trader.Portfolio;
+import market.trader.Trader;
+
+@Timeout(10)
+public class ExecutionReportTests {
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+    private Trader bob;
+    private List<ExecutionReport> johns;
+
+    @BeforeEach
+    public void setupMarket() {
+        eng = new MatchingEngine(new TreeOrderBook());
+        john = new Trader("John");
+        jane = new Trader("Jane");
+        bob = new Trader("Bob");
+        johns = new ArrayList<>();
+        eng.addExecutionSubscriber(john.getId(), johns::add);
+    }
+
+    @Test
+    @DisplayName("The owner of a resting order is told of each fill, with the volume left resting")
+    public void passiveFill() {
+        LimitOrder resting = new LimitOrder(OrderSide.SELL, john, 30, 10.0);
+        eng.placeOrder(resting);
+
+        MatchResult first = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.0));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 20));
+
+        assertEquals(2, johns.size());
+        ExecutionReport report = johns.get(0);
+        assertEquals(john.getId(), report.traderId());
+        assertEquals(first.getOrderId(), report.aggressorOrderId());
+        assertEquals(1, report.fills().size());
+        assertEquals(resting.getOrderId(), report.fills().get(0).orderId());
+        assertEquals(first.getTrades().get(0), report.fills().get(0).trade());
+        assertEquals(20, report.fills().get(0).remainingVolume());
+        assertEquals(0, johns.get(1).fills().get(0).remainingVolume());
+    }
+
+    @Test
+    @DisplayName("One incoming order sweeping many orders of a trader gives that trader one report")
+    public void batchedPerTrader() {
+        List<ExecutionReport> bobs = new ArrayList<>();
+        eng.addExecutionSubscriber(bob.getId(), bobs::add);
+        for (int i = 0; i < 5; i++) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0 + i));
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, bob, 10, 10.0 + i));
+        }
+
+        MatchResult sweep = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 95, 20.0));
+
+        assertEquals(1, johns.size());
+        assertEquals(5, johns.get(0).fills().size());
+        assertEquals(50, johns.get(0).getFilledVolume());
+        assertEquals(1, bobs.size());
+        assertEquals(45, bobs.get(0).getFilledVolume());
+        assertEquals(5, bobs.get(0).fills().get(4).remainingVolume());
+        assertEquals(sweep.getOrderId(), bobs.get(0).aggressorOrderId());
+    }
+
+    @Test
+    @DisplayName("Iceberg fills report the reserve as still resting")
+    public void icebergReserve() {
+        eng.placeOrder(new IcebergOrder(OrderSide.BUY, john, 50, 10.0, 10));
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 15, 10.0));
+
+        assertEquals(1, johns.size());
+        List<ExecutionReport.Fill> fills = johns.get(0).fills();
+        assertEquals(2, fills.size());
+        assertEquals(40, fills.get(0).remainingVolume());
+        assertEquals(35, fills.get(1).remainingVolume());
+    }
+
+    @Test
+    @DisplayName("Reports come after the incoming order's result, and a triggered stop's fills get their own report")
+    public void orderingWithStops() {
+        List<Object> events = new ArrayList<>();
+        eng.addSubscriber(events::add);
+        ExecutionSubscriber sub = events::add;
+        eng.addExecutionSubscriber(john.getId(), sub);
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 11.0));
+        eng.placeOrder(new StopMarketOrder(OrderSide.BUY, bob, 5, 10.0));
+        events.clear();
+
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.0));
+
+        assertEquals(4, events.size());
+        assertTrue(MatchResult.class.isInstance(events.get(0)));
+        assertTrue(ExecutionReport.class.isInstance(events.get(1)));
+        assertTrue(MatchResult.class.isInstance(events.get(2)));
+        ExecutionReport stopReport = (ExecutionReport) events.get(3);
+        assertEquals(((MatchResult) events.get(2)).getOrderId(), stopReport.aggressorOrderId());
+        assertEquals(11.0, stopReport.fills().get(0).trade().price());
+
+        assertTrue(eng.removeExecutionSubscriber(john.getId(), sub));
+        assertFalse(eng.removeExecutionSubscriber(john.getId(), sub));
+    }
+
+    @Test
+    @DisplayName("Traders without subscribers are not reported to, and portfolios record their passive fills")
+    public void portfolios() {
+        Portfolio janes = new Portfolio(jane, eng);
+        Portfolio bobs = new Portfolio(bob, eng);
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 9.0));
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, bob, 15, 9.0));
+
+        assertEquals(1, janes.tradeHistory.size());
+        assertEquals(2, bobs.tradeHistory.size());
+        assertEquals(1, johns.size());
+        assertEquals(5, johns.get(0).fills().get(0).remainingVolume());
+    }
+
+    @Test
+    @DisplayName("A portfolio lists its trader's resting orders with the volume they have left")
+    public void portfolioActiveOrders() {
+        Portfolio johnsPortfolio = new Portfolio(john, eng);
+        LimitOrder resting = new LimitOrder(OrderSide.SELL, john, 30, 10.0);
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.BUY, john, 50, 9.0, 5);
+        eng.placeOrder(resting);
+        eng.placeOrder(iceberg);
+
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 12, 10.0));
+        List<OrderSummary> active = johnsPortfolio.getActiveOrders();
+        assertEquals(2, active.size());
+        assertEquals(iceberg.getOrderId(), active.get(0).id());
+        assertEquals(50, active.get(0).volume());
+        assertEquals(resting.getOrderId(), active.get(1).id());
+        assertEquals(OrderSide.SELL, active.get(1).side());
+        assertEquals(18, active.get(1).volume());
+        assertEquals(10.0, active.get(1).price());
+
+        eng.cancelOrder(iceberg.getOrderId(), OrderSide.BUY);
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, bob, 18));
+        assertTrue(johnsPortfolio.getActiveOrders().isEmpty());
+        assertEquals(2, johnsPortfolio.tradeHistory.size());
+    }
+
+    @Test
+    @DisplayName("A self trade is reported to the owner of the resting order but recorded once by their portfolio")
+    public void selfTrade() {
+        Portfolio johnsPortfolio = new Portfolio(john, eng);
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0));
+        MatchResult res = eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 4));
+
+        assertEquals(1, johns.size());
+        assertTrue(johns.get(0).isSelfTrade());
+        assertEquals(john.getId(), johns.get(0).aggressorTraderId());
+        assertEquals(List.of(res.getTrades().get(0)), johnsPortfolio.tradeHistory);
+
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 6));
+        assertFalse(johns.get(1).isSelfTrade());
+        assertEquals(2, johnsPortfolio.tradeHistory.size());
+    }
+}
@@ -0,0 +1,203 @@
+package market;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.replay.DifferentialReplay;
+import market.replay.DifferentialResult;
+import market.replay.RandomFlow;
+import market.replay.ReplayCommand;
+import market.replay.ReplayEngine;
+import market.replay.ReplayResult;
+import market.trader.Trader;
+
+@Timeout(30)
+public class LadderOrderBookTests {
+    private static final UUID JOHN = new UUID(1, 1);
+    private static final UUID JANE = new UUID(1, 2);
+
+    private LadderOrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new LadderOrderBook(0.01, 100_000);
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("The best price moves to the next occupied tick when the best level empties, across bitmap words")
+    public void bestPriceScan() {
+        LimitOrder near = new LimitOrder(OrderSide.BUY, john, 10, 100.00);
+        LimitOrder far = new LimitOrder(OrderSide.BUY, john, 10, 98.50);
+        eng.placeOrder(near);
+        eng.placeOrder(far);
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 101.00));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 103.00));
+
+        assertEquals(near, book.getBestBid());
+        assertEquals(101.00, book.getBestOffer().getPrice());
+
+        eng.cancelOrder(near.getOrderId(), OrderSide.BUY);
+        assertEquals(far, book.getBestBid());
+
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 101.00));
+        assertEquals(103.00, book.getBestOffer().getPrice());
+
+        eng.cancelOrder(far.getOrderId(), OrderSide.BUY);
+        assertNull(book.getBestBid());
+        assertEquals(0, book.getNumBids());
+    }
+
+    @Test
+    @DisplayName("Orders far outside the window re-centre it and levels keep their priority order")
+    public void recentre() {
+        double[] prices = {100.00, 150.00, 60.00, 100.05, 400.00};
+        for (double price : prices) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, price));
+        }
+
+        List<Double> levelPrices = new ArrayList<>();
+        for (DepthLevel level : book.getDepthView().snapshot().offers()) {
+            levelPrices.add(level.price());
+        }
+        assertEquals(List.of(60.00, 100.00, 100.05, 150.00, 400.00), levelPrices);
+
+        MatchResult res = eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 45, 1000.00));
+        assertEquals(45, res.getFilledVolume());
+        assertEquals(5, res.getTrades().size());
+        assertEquals(400.00, res.getTrades().get(4).price());
+        assertEquals(400.00, book.getBestOffer().getPrice());
+        assertEquals(5, book.getBestOfferVolume());
+        assertNull(book.getBestBid());
+    }
+
+    @Test
+    @DisplayName("Orders off the tick grid or too far from the rest of their side are rejected before matching")
+    public void rejectedPrices() {
+        LadderOrderBook narrow = new LadderOrderBook(0.5, 100);
+        MatchingEngine narrowEng = new MatchingEngine(narrow);
+        narrowEng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 100.0));
+
+        MatchResult offGrid = narrowEng.placeOrder(new LimitOrder(OrderSide.BUY, john, 5, 100.2));
+        assertEquals(OrderStatus.ALL_REJECTED, offGrid.getStatus());
+        assertTrue(offGrid.getTrades().isEmpty());
+
+        MatchResult tooFar = narrowEng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 5, 150.0));
+        assertEquals(OrderStatus.ALL_REJECTED, tooFar.getStatus());
+        assertEquals(1, narrow.getNumOffers());
+
+        // The other side has its own span
+        MatchResult bid = narrowEng.placeOrder(new LimitOrder(OrderSide.BUY, john, 5, 20.0));
+        assertEquals(OrderStatus.ALL_RESTING, bid.getStatus());
+        MatchResult edge = narrowEng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 5, 149.5));
+        assertEquals(OrderStatus.ALL_RESTING, edge.getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> narrow.insertRestingOrder(new LimitOrder(OrderSide.SELL, jane, 5,
+            150.5)));
+        assertEquals(2, narrow.getNumOffers());
+        assertThrows(IllegalArgumentException.class, () -> new LadderOrderBook(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new LadderOrderBook(0.01, 0));
+    }
+
+    @Test
+    @DisplayName("Matches the tree book result for result on a large random flow that drifts across many windows")
+    public void matchesTreeBook() {
+        DifferentialReplay replay = new DifferentialReplay(new TreeOrderBook(), new LadderOrderBook(0.01, 1_000_000), 7,
+            500);
+
+        DifferentialResult res = replay.run(RandomFlow.of(42).churn(2).drift(8).generate(200_000));
+
+        assertTrue(res.isIdentical(), res.mismatch() + " at command " + res.mismatchIndex());
+        assertTrue(res.trades() > 10_000);
+    }
+
+    @Test
+    @DisplayName("Matches the tree book when prices jump far enough to re-centre the window often")
+    public void matchesTreeBookWithJumps() {
+        DifferentialReplay replay = new DifferentialReplay(new TreeOrderBook(2), new LadderOrderBook(0.01, 1_000_000, 2),
+            7, 50);
+
+        DifferentialResult res = replay.run(RandomFlow.of(43).churn(2).drift(400).generate(50_000));
+
+        assertTrue(res.isIdentical(), res.mismatch() + " at command " + res.mismatchIndex());
+    }
+
+    @Test
+    @DisplayName("Icebergs and the auction equilibrium behave the same as on the tree book")
+    public void icebergsAndEquilibrium() {
+        Random random = new Random(5);
+        TreeOrderBook tree = new TreeOrderBook();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        for (int i = 0; i < 2_000; i++) {
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            double price = (9_900 + random.nextInt(200)) / 100.0;
+            int volume = 1 + random.nextInt(100);
+            UUID id = new UUID(3, i);
+            if (random.nextInt(4) == 0) {
+                int display = 1 + random.nextInt(volume);
+                tree.insertRestingOrder(new IcebergOrder(side, john, volume, price, display, id, time));
+                book.insertRestingOrder(new IcebergOrder(side, john, volume, price, display, id, time));
+            } else {
+                tree.insertRestingOrder(new LimitOrder(side, john, volume, price, id, time));
+                book.insertRestingOrder(new LimitOrder(side, john, volume, price, id, time));
+            }
+        }
+
+        assertEquals(tree.checksum(), book.checksum());
+        assertEquals(tree.findEquilibrium(100.0), book.findEquilibrium(100.0));
+        assertEquals(tree.findEquilibrium(Double.NaN), book.findEquilibrium(Double.NaN));
+
+        for (int i = 0; i < 500; i++) {
+            LimitOrder taker = new LimitOrder(OrderSide.BUY, jane, 10, 99.0);
+            PricedOrder best = tree.getBestOffer();
+            if (best == null) {
+                break;
+            }
+            int volume = Math.min(best.getVolume(), 10);
+            assertEquals(tree.tradeTop(taker, volume), book.tradeTop(taker, volume));
+            assertEquals(tree.checksum(), book.checksum());
+        }
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Replays a dense flow to the same digest as the tree book, reporting the speed of each")
+    public void throughput() {
+        List<ReplayCommand> flow = RandomFlow.of(44).churn(2).drift(2).generate(200_000);
+
+        // Warm up both books before timing them
+        new ReplayEngine(7, new TreeOrderBook()).replay(flow);
+        new ReplayEngine(7, new LadderOrderBook(0.01, 1_000_000)).replay(flow);
+
+        ReplayResult tree = new ReplayEngine(7, new TreeOrderBook()).replay(flow);
+        ReplayResult ladder = new ReplayEngine(7, new LadderOrderBook(0.01, 1_000_000)).replay(flow);
+
+        assertEquals(tree.digest(), ladder.digest());
+        System.out.printf("Tree book %.0f events/s, ladder book %.0f events/s%n", tree.getEventsPerSecond(),
+            ladder.getEventsPerSecond());
+    }
+}
@@ -0,0 +1,118 @@
+package market;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MatchingEngine;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.trader.Trader;
+
+@Timeout(10)
+public class MassCancelTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader maker;
+    private Trader other;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        maker = new Trader("Maker");
+        other = new Trader("Other");
+    }
+
+    private LimitOrder place(Trader trader, OrderSide side, double price) {
+        LimitOrder order = new LimitOrder(side, trader, 10, price);
+        eng.placeOrder(order);
+        return order;
+    }
+
+    @Test
+    @DisplayName("A trader's orders can be listed and pulled without touching anyone else's")
+    public void cancelAllOfTrader() {
+        for (int i = 0; i < 5; i++) {
+            place(maker, OrderSide.BUY, 99 - i);
+            place(maker, OrderSide.SELL, 101 + i);
+            place(other, OrderSide.BUY, 99 - i);
+        }
+        eng.placeOrder(new IcebergOrder(OrderSide.SELL, maker, 100, 101, 10));
+        assertEquals(11, book.getTraderOrders(maker.getId(), null).size());
+        assertEquals(5, book.getTraderOrders(maker.getId(), OrderSide.BUY).size());
+
+        List<PricedOrder> cancelled = book.cancelTraderOrders(maker.getId());
+        assertEquals(11, cancelled.size());
+        assertTrue(book.getTraderOrders(maker.getId(), null).isEmpty());
+        assertEquals(5, book.getNumBids());
+        assertEquals(0, book.getNumOffers());
+        assertEquals(other.getId(), book.getBestBid().getTraderId());
+
+        BookSnapshot snapshot = book.getDepthView().snapshot();
+        assertNull(snapshot.getBestOffer());
+        assertEquals(10, snapshot.getBestBid().volume());
+    }
+
+    @Test
+    @DisplayName("Mass cancels can be limited to a side and a price range")
+    public void cancelBySideAndPrice() {
+        for (int i = 0; i < 10; i++) {
+            place(maker, OrderSide.BUY, 90 + i);
+            place(maker, OrderSide.SELL, 101 + i);
+        }
+
+        List<PricedOrder> cancelled = eng.cancelTraderOrders(maker.getId(), OrderSide.BUY, 95, 97);
+        assertEquals(3, cancelled.size());
+        for (PricedOrder order : cancelled) {
+            assertEquals(OrderSide.BUY, order.getSide());
+            assertTrue(order.getPrice() >= 95 && order.getPrice() <= 97);
+        }
+        assertEquals(7, book.getNumBids());
+        assertEquals(10, book.getNumOffers());
+        assertEquals(99, book.getBestBid().getPrice());
+    }
+
+    @Test
+    @DisplayName("Filled and cancelled orders leave the trader index")
+    public void indexFollowsBook() {
+        LimitOrder filled = place(maker, OrderSide.SELL, 100);
+        LimitOrder cancelled = place(maker, OrderSide.SELL, 101);
+        LimitOrder resting = place(maker, OrderSide.SELL, 102);
+
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, other, 10));
+        eng.cancelOrder(cancelled.getOrderId(), OrderSide.SELL);
+
+        assertEquals(List.of(resting), book.getTraderOrders(maker.getId(), null));
+        assertFalse(book.getTraderOrders(maker.getId(), null).contains(filled));
+        assertEquals(List.of(resting), book.cancelTraderOrders(maker.getId()));
+        assertTrue(book.cancelTraderOrders(maker.getId()).isEmpty());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Pulling a trader's orders from a deep book leaves every other trader's orders resting")
+    public void cancelAmongManyOrders() {
+        for (int i = 0; i < 200_000; i++) {
+            OrderSide side = i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL;
+            place(other, side, side == OrderSide.BUY ? 50 + (i % 400) / 10.0 : 150 - (i % 400) / 10.0);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            place(maker, OrderSide.BUY, 95 + (i % 40) / 10.0);
+        }
+
+        List<PricedOrder> cancelled = book.cancelTraderOrders(maker.getId());
+
+        assertEquals(1_000, cancelled.size());
+        assertEquals(200_000, book.getNumBids() + book.getNumOffers());
+        assertEquals(0, book.getTraderVolume(maker.getId(), OrderSide.BUY));
+    }
+}
@@ -0,0 +1,216 @@
+package market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.orders.FOKOrder;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.orders.TimeInForce;
+import market.replay.SimulatedClock;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+class OrderStateTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("An order's state shows its volume, status and the queue ahead of it")
+    public void queuePosition() {
+        LimitOrder first = new LimitOrder(OrderSide.BUY, john, 10, 9.00);
+        LimitOrder second = new LimitOrder(OrderSide.BUY, jane, 20, 9.00);
+        LimitOrder third = new LimitOrder(OrderSide.BUY, john, 30, 9.00);
+        eng.placeOrder(first);
+        eng.placeOrder(second);
+        eng.placeOrder(third);
+
+        OrderState state = book.getOrderState(third.getOrderId());
+        assertEquals(9.00, state.price());
+        assertEquals(30, state.remainingVolume());
+        assertEquals(OrderStatus.ALL_RESTING, state.status());
+        assertEquals(2, state.ordersAhead());
+        assertEquals(30, state.volumeAhead());
+
+        eng.placeOrder(new MarketOrder(OrderSide.SELL, jane, 15));
+        assertEquals(OrderStatus.FILLED, book.getOrderState(first.getOrderId()).status());
+        OrderState partial = book.getOrderState(second.getOrderId());
+        assertEquals(OrderStatus.PARTIAL_RESTING, partial.status());
+        assertEquals(5, partial.filledVolume());
+        assertEquals(0, partial.ordersAhead());
+
+        state = book.getOrderState(third.getOrderId());
+        assertEquals(1, state.ordersAhead());
+        assertEquals(15, state.volumeAhead());
+    }
+
+    @Test
+    @DisplayName("An order that partly filled on arrival rests as partially filled")
+    public void filledOnArrival() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00));
+        LimitOrder buy = new LimitOrder(OrderSide.BUY, jane, 25, 10.00);
+        eng.placeOrder(buy);
+
+        OrderState state = book.getOrderState(buy.getOrderId());
+        assertEquals(OrderStatus.PARTIAL_RESTING, state.status());
+        assertEquals(10, state.filledVolume());
+        assertEquals(15, state.remainingVolume());
+    }
+
+    @Test
+    @DisplayName("A refilled iceberg goes to the back of the queue and only its display volume counts as ahead")
+    public void icebergRefill() {
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 30, 10.00, 10);
+        LimitOrder later = new LimitOrder(OrderSide.SELL, jane, 5, 10.00);
+        eng.placeOrder(iceberg);
+        eng.placeOrder(later);
+        assertEquals(10, book.getOrderState(later.getOrderId()).volumeAhead());
+
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 10));
+        OrderState state = book.getOrderState(iceberg.getOrderId());
+        assertEquals(1, state.ordersAhead());
+        assertEquals(5, state.volumeAhead());
+        assertEquals(10, state.displayedVolume());
+        assertEquals(20, state.remainingVolume());
+        assertEquals(0, book.getOrderState(later.getOrderId()).ordersAhead());
+    }
+
+    @Test
+    @DisplayName("Orders that have finished are remembered in their final state")
+    public void finishedOrders() {
+        SimulatedClock clock = new SimulatedClock();
+        eng = new MatchingEngine(book, clock);
+        LimitOrder cancelled = new LimitOrder(OrderSide.SELL, john, 20, 10.00);
+        LimitOrder filled = new LimitOrder(OrderSide.SELL, john, 10, 10.10);
+        LimitOrder expired = new LimitOrder(OrderSide.BUY, john, 10, 9.00, UUID.randomUUID(), LocalDateTime.now(clock));
+        expired.setTimeInForce(TimeInForce.GTT, LocalDateTime.now(clock).plusMinutes(1));
+        LimitOrder pulled = new LimitOrder(OrderSide.BUY, jane, 10, 8.00);
+        for (LimitOrder order : List.of(cancelled, filled, expired, pulled)) {
+            eng.placeOrder(order);
+        }
+
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 5));
+        eng.cancelOrder(cancelled.getOrderId(), OrderSide.SELL);
+        OrderState state = book.getOrderState(cancelled.getOrderId());
+        assertEquals(OrderStatus.CANCELLED, state.status());
+        assertEquals(5, state.filledVolume());
+        assertEquals(0, state.remainingVolume());
+        assertEquals(10.00, state.price());
+
+        MarketOrder aggressor = new MarketOrder(OrderSide.BUY, jane, 10);
+        eng.placeOrder(aggressor);
+        assertEquals(OrderStatus.FILLED, book.getOrderState(filled.getOrderId()).status());
+        assertEquals(10, book.getOrderState(filled.getOrderId()).filledVolume());
+        assertEquals(OrderStatus.FILLED, book.getOrderState(aggressor.getOrderId()).status());
+        assertTrue(Double.isNaN(book.getOrderState(aggressor.getOrderId()).price()));
+
+        FOKOrder killed = new FOKOrder(OrderSide.SELL, jane, 100, 9.00);
+        eng.placeOrder(killed);
+        assertEquals(OrderStatus.ALL_REJECTED, book.getOrderState(killed.getOrderId()).status());
+        assertEquals(0, book.getOrderState(killed.getOrderId()).filledVolume());
+
+        clock.advanceNanos(60_000_000_000L);
+        eng.expireOrders();
+        assertEquals(OrderStatus.EXPIRED, book.getOrderState(expired.getOrderId()).status());
+
+        eng.cancelTraderOrders(jane.getId(), null, 0, Double.MAX_VALUE);
+        assertEquals(OrderStatus.CANCELLED, book.getOrderState(pulled.getOrderId()).status());
+        assertNull(book.getOrderState(UUID.randomUUID()));
+
+        eng.clear();
+        assertNull(book.getOrderState(cancelled.getOrderId()));
+    }
+
+    @Test
+    @DisplayName("Queue positions agree with a simple model through random inserts, cancels, amends and fills")
+    public void matchesModel() {
+        Random rand = new Random(39);
+        Map<Double, List<LimitOrder>> bids = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int op = rand.nextInt(10);
+            if (op < 5 || bids.isEmpty()) {
+                LimitOrder order = new LimitOrder(OrderSide.BUY, rand.nextBoolean() ? john : jane, 1 + rand.nextInt(20),
+                    (900 + rand.nextInt(5)) / 100.0);
+                eng.placeOrder(order);
+                bids.computeIfAbsent(order.getPrice(), p -> new ArrayList<>()).add(order);
+            } else {
+                List<LimitOrder> level = new ArrayList<>(bids.values()).get(rand.nextInt(bids.size()));
+                LimitOrder order = level.get(rand.nextInt(level.size()));
+                if (op < 7) {
+                    eng.cancelOrder(order.getOrderId(), OrderSide.BUY);
+                } else if (op < 9) {
+                    eng.amendOrder(order.getOrderId(), OrderSide.BUY, 1 + rand.nextInt(20));
+                } else {
+                    eng.placeOrder(new MarketOrder(OrderSide.SELL, john, 1 + rand.nextInt(40)));
+                }
+            }
+            bids.values().forEach(level -> level.removeIf(o -> book.getOrder(o.getOrderId()) == null));
+            bids.values().removeIf(List::isEmpty);
+
+            if (i % 100 == 0) {
+                for (List<LimitOrder> level : bids.values()) {
+                    long ahead = 0;
+                    for (int j = 0; j < level.size(); j++) {
+                        OrderState state = book.getOrderState(level.get(j).getOrderId());
+                        assertEquals(j, state.ordersAhead());
+                        assertEquals(ahead, state.volumeAhead());
+                        ahead += level.get(j).getVolume();
+                    }
+                }
+            }
+        }
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Looking up the position of an order deep in a long queue is fast")
+    public void deepQueueLookup() {
+        int numOrders = 100_000;
+        List<LimitOrder> orders = new ArrayList<>(numOrders);
+        for (int i = 0; i < numOrders; i++) {
+            LimitOrder order = new LimitOrder(OrderSide.SELL, john, 10, 10.00);
+            orders.add(order);
+            book.insertRestingOrder(order);
+        }
+
+        Random rand = new Random(1);
+        long start = System.nanoTime();
+        long checksum = 0;
+        int lookups = 1_000_000;
+        for (int i = 0; i < lookups; i++) {
+            checksum += book.getOrderState(orders.get(rand.nextInt(numOrders)).getOrderId()).volumeAhead();
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertTrue(checksum > 0);
+        assertEquals(10L * (numOrders - 1), book.getOrderState(orders.get(numOrders - 1).getOrderId()).volumeAhead());
+        System.out.printf("Queue position of a %d order level looked up in %d ns%n", numOrders, nanos / lookups);
+    }
+}
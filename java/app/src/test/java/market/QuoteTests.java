@@ -0,0 +1,204 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MassQuoteResult;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.QuoteResult;
+import market.orders.InstrumentQuote;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.orders.Quote;
+import market.trader.Trader;
+
+@Timeout(10)
+public class QuoteTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader maker;
+    private Trader other;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        maker = new Trader("Maker");
+        other = new Trader("Other");
+    }
+
+    @Test
+    @DisplayName("A quote rests both sides and a new quote at new prices replaces them")
+    public void cancelReplace() {
+        QuoteResult first = eng.placeQuote(new Quote(maker, 10, 99.0, 20, 101.0));
+        assertEquals(OrderStatus.ALL_RESTING, first.bid().getStatus());
+        assertEquals(OrderStatus.ALL_RESTING, first.offer().getStatus());
+        assertEquals(first.bid().getOrderId(), book.getBestBid().getOrderId());
+        assertEquals(20, book.getBestOfferVolume());
+
+        QuoteResult second = eng.placeQuote(new Quote(maker, 15, 99.5, 25, 100.5));
+        assertFalse(second.bidAmended());
+        assertFalse(second.offerAmended());
+        assertNotEquals(first.bid().getOrderId(), second.bid().getOrderId());
+        assertEquals(1, book.getNumBids());
+        assertEquals(1, book.getNumOffers());
+        assertEquals(99.5, book.getBestBid().getPrice());
+        assertEquals(25, book.getBestOfferVolume());
+        assertNull(book.getOrder(first.bid().getOrderId()));
+        assertEquals(second.offer().getOrderId(), eng.getQuoteOrder(maker.getId(), OrderSide.SELL).getOrderId());
+    }
+
+    @Test
+    @DisplayName("A side at an unchanged price is amended in place and keeps its place in the queue")
+    public void amendInPlace() {
+        QuoteResult first = eng.placeQuote(new Quote(maker, 10, 99.0, 10, 101.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, other, 10, 99.0));
+
+        QuoteResult second = eng.placeQuote(new Quote(maker, 30, 99.0, 10, 102.0));
+        assertTrue(second.bidAmended());
+        assertFalse(second.offerAmended());
+        assertEquals(first.bid().getOrderId(), second.bid().getOrderId());
+        assertEquals(30, second.bid().getRemainingVolume());
+        assertTrue(second.bid().getTrades().isEmpty());
+        assertEquals(0, book.getOrderState(first.bid().getOrderId()).ordersAhead());
+
+        // The maker is still first in the queue at 99
+        MatchResult sell = eng.placeOrder(new LimitOrder(OrderSide.SELL, other, 30, 99.0));
+        assertEquals(first.bid().getOrderId(), sell.getTrades().get(0).bidId());
+        assertEquals(30, sell.getTrades().get(0).volume());
+        assertNull(eng.getQuoteOrder(maker.getId(), OrderSide.BUY));
+    }
+
+    @Test
+    @DisplayName("A crossing quote trades as it is placed, and the old quote is pulled before the new one can trade with it")
+    public void crossingQuote() {
+        eng.placeQuote(new Quote(maker, 10, 99.0, 10, 101.0));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, other, 5, 100.0));
+
+        // The new bid crosses the other trader's offer but not the maker's old offer at 101, which is pulled first anyway
+        QuoteResult res = eng.placeQuote(new Quote(maker, 10, 100.0, 10, 100.5));
+        assertEquals(OrderStatus.PARTIAL_RESTING, res.bid().getStatus());
+        assertEquals(5, res.getFilledVolume());
+        assertEquals(5, book.getBestBidVolume());
+        assertEquals(100.5, book.getBestOffer().getPrice());
+        assertEquals(1, book.getNumOffers());
+    }
+
+    @Test
+    @DisplayName("Sides of zero volume pull that side, and an empty quote pulls everything")
+    public void pullSides() {
+        eng.placeQuote(new Quote(maker, 10, 99.0, 10, 101.0));
+        QuoteResult res = eng.placeQuote(new Quote(maker, 0, 0, 10, 101.0));
+        assertNull(res.bid());
+        assertTrue(res.offerAmended());
+        assertEquals(0, book.getNumBids());
+
+        eng.placeQuote(Quote.pull(maker));
+        assertTrue(book.isEmpty());
+        assertNull(eng.getQuoteOrder(maker.getId(), OrderSide.SELL));
+
+        assertThrows(IllegalArgumentException.class, () -> new Quote(maker, 10, 101.0, 10, 100.0));
+        assertThrows(IllegalArgumentException.class, () -> new Quote(maker, -1, 99.0, 10, 100.0));
+        assertThrows(IllegalArgumentException.class, () -> new Quote(maker, 10, 0, 0, 0));
+    }
+
+    @Test
+    @DisplayName("A mass quote replaces many makers' quotes in one call with one acknowledgement")
+    public void massQuote() {
+        List<Trader> makers = new ArrayList<>();
+        List<Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Trader trader = new Trader("Maker " + i);
+            makers.add(trader);
+            quotes.add(new Quote(trader, 10, 90.0 + i * 0.1, 10, 110.0 - i * 0.1));
+        }
+
+        MassQuoteResult first = eng.placeMassQuote(quotes);
+        assertTrue(first.isFullyAccepted());
+        assertEquals(50, first.quotes().size());
+        assertEquals(0, first.filledVolume());
+        assertEquals(50, book.getNumBids());
+        assertEquals(50, book.getNumOffers());
+
+        // Every maker moves their bid and holds their offer, and the first bids up to the last maker's offer
+        quotes.clear();
+        for (int i = 0; i < 50; i++) {
+            quotes.add(new Quote(makers.get(i), 10, 91.0 + i * 0.1, 10, 110.0 - i * 0.1));
+        }
+        quotes.set(0, new Quote(makers.get(0), 10, 110.0 - 49 * 0.1, 10, 110.0));
+        MassQuoteResult second = eng.placeMassQuote(quotes);
+
+        assertTrue(second.isFullyAccepted());
+        assertEquals(10, second.filledVolume());
+        assertEquals(49, book.getNumBids());
+        // The last maker's offer was filled earlier in the batch, so their own quote places it afresh
+        assertEquals(50, book.getNumOffers());
+        for (QuoteResult res : second.quotes()) {
+            assertEquals(!res.traderId().equals(makers.get(49).getId()), res.offerAmended());
+        }
+    }
+
+    @Test
+    @DisplayName("Rejected sides are counted in the acknowledgement and leave nothing resting")
+    public void rejectedSides() {
+        LadderOrderBook ladder = new LadderOrderBook(0.5, 1_000);
+        MatchingEngine ladderEng = new MatchingEngine(ladder);
+
+        MassQuoteResult res = ladderEng.placeMassQuote(List.of(new Quote(maker, 10, 99.5, 10, 100.2),
+            new Quote(other, 10, 99.0, 10, 100.0)));
+        assertEquals(1, res.rejectedSides());
+        assertFalse(res.isFullyAccepted());
+        assertEquals(OrderStatus.ALL_REJECTED, res.quotes().get(0).offer().getStatus());
+        assertNull(ladderEng.getQuoteOrder(maker.getId(), OrderSide.SELL));
+        assertEquals(2, ladder.getNumBids());
+        assertEquals(1, ladder.getNumOffers());
+
+        PricedOrder bid = ladderEng.getQuoteOrder(maker.getId(), OrderSide.BUY);
+        assertEquals(99.5, bid.getPrice());
+    }
+
+    @Test
+    @DisplayName("A mass quote across instruments updates each market in one call with one acknowledgement")
+    public void massQuoteAcrossInstruments() {
+        Exchange exchange = new Exchange();
+        MarketService es = exchange.addMarket("ES");
+        MarketService nq = exchange.addMarket("NQ", new LadderOrderBook(0.5, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> exchange.addMarket("ES"));
+
+        // A quote for an unknown instrument fails the whole mass quote before any market is touched
+        assertThrows(IllegalArgumentException.class, () -> exchange.placeMassQuote(List.of(
+            new InstrumentQuote("ES", new Quote(maker, 10, 99.0, 10, 101.0)),
+            new InstrumentQuote("YM", new Quote(maker, 10, 99.0, 10, 101.0)))));
+        assertTrue(es.getBook().isEmpty());
+
+        ExchangeQuoteResult res = exchange.placeMassQuote(List.of(
+            new InstrumentQuote("ES", new Quote(maker, 10, 99.0, 10, 101.0)),
+            new InstrumentQuote("NQ", new Quote(maker, 5, 99.5, 5, 100.2)),
+            new InstrumentQuote("ES", new Quote(other, 20, 98.0, 20, 102.0))));
+        assertEquals(List.of("ES", "NQ"), new ArrayList<>(res.markets().keySet()));
+        assertEquals(2, res.get("ES").quotes().size());
+        assertEquals(1, res.get("NQ").quotes().size());
+        assertEquals(1, res.rejectedSides());
+        assertFalse(res.isFullyAccepted());
+        assertEquals(2, es.getBook().getNumBids());
+        assertEquals(2, es.getBook().getNumOffers());
+        assertEquals(99.5, nq.getEngine().getQuoteOrder(maker.getId(), OrderSide.BUY).getPrice());
+        assertNull(nq.getEngine().getQuoteOrder(maker.getId(), OrderSide.SELL));
+
+        // Requoting one instrument leaves the others alone
+        ExchangeQuoteResult pull = exchange.placeMassQuote(List.of(new InstrumentQuote("NQ", Quote.pull(maker))));
+        assertNull(pull.get("ES"));
+        assertTrue(nq.getBook().isEmpty());
+        assertEquals(2, es.getBook().getNumBids());
+    }
+}
@@ -0,0 +1,132 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderFactory;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.replay.AmendCommand;
+import market.replay.NewOrderCommand;
+import market.replay.ReplayCommand;
+import market.replay.ReplayEngine;
+import market.replay.ReplayResult;
+import market.trader.Trader;
+
+@Timeout(10)
+public class RejectReasonTests {
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        eng = new MatchingEngine(new TreeOrderBook());
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("Every reason has a distinct code that maps back to it")
+    public void codes() {
+        Set<Byte> codes = new HashSet<>();
+        for (RejectReason reason : RejectReason.values()) {
+            assertTrue(codes.add(reason.getCode()));
+            assertEquals(reason, RejectReason.fromCode(reason.getCode()));
+        }
+        assertNull(RejectReason.fromCode(-1));
+        assertNull(RejectReason.fromCode(RejectReason.values().length));
+        assertEquals(0, RejectReason.NONE.getCode());
+    }
+
+    @Test
+    @DisplayName("Rejected orders and rejected remainders carry their reason, and accepted orders carry none")
+    public void engineRejects() {
+        MatchResult rest = eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 10.0));
+        assertEquals(RejectReason.NONE, rest.getRejectReason());
+
+        MatchResult fok = eng.placeOrder(new FOKOrder(OrderSide.BUY, john, 20, 10.0));
+        assertEquals(OrderStatus.ALL_REJECTED, fok.getStatus());
+        assertEquals(RejectReason.INSUFFICIENT_LIQUIDITY, fok.getRejectReason());
+
+        MatchResult ioc = eng.placeOrder(new IOCOrder(OrderSide.BUY, john, 5, 9.0));
+        assertEquals(RejectReason.INSUFFICIENT_LIQUIDITY, ioc.getRejectReason());
+
+        MatchResult market = eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 15));
+        assertEquals(OrderStatus.PARTIAL_REJECTION, market.getStatus());
+        assertEquals(RejectReason.INSUFFICIENT_LIQUIDITY, market.getRejectReason());
+
+        eng.startAuction();
+        MatchResult auction = eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 5));
+        assertEquals(RejectReason.AUCTION_ORDER_TYPE, auction.getRejectReason());
+        assertEquals(RejectReason.AUCTION_ORDER_TYPE.getMessage(), auction.getNote());
+
+        LadderOrderBook ladder = new LadderOrderBook(0.5, 100);
+        MatchResult offGrid = new MatchingEngine(ladder).placeOrder(new LimitOrder(OrderSide.BUY, john, 5, 10.2));
+        assertEquals(RejectReason.PRICE_NOT_RESTABLE, offGrid.getRejectReason());
+        assertTrue(offGrid.getNote().contains("tick size"));
+    }
+
+    @Test
+    @DisplayName("The order factory says up front whether an order is valid, matching what its constructors accept")
+    public void factoryCheck() {
+        OrderFactory factory = new OrderFactory();
+        assertTrue(factory.canCreateOrder(OrderType.LIMIT, 10, 1.0));
+        assertTrue(factory.canCreateOrder(OrderType.MARKET, 10, 0));
+        assertFalse(factory.canCreateOrder(OrderType.LIMIT, 0, 1.0));
+        assertFalse(factory.canCreateOrder(OrderType.IOC, 10, -1.0));
+        assertFalse(factory.canCreateOrder(OrderType.MARKET, -5, 0));
+        assertFalse(factory.canCreateOrder(null, 10, 1.0));
+
+        for (OrderType type : OrderType.values()) {
+            for (int volume : new int[] {-1, 0, 1}) {
+                for (double price : new double[] {-1, 0, 1}) {
+                    boolean created;
+                    try {
+                        factory.createOrder(type, OrderSide.BUY, john, volume, price);
+                        created = true;
+                    } catch (IllegalArgumentException e) {
+                        created = false;
+                    }
+                    assertEquals(created, factory.canCreateOrder(type, volume, price), type + " " + volume + " " + price);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A replay full of bad orders and amends rejects them without stopping")
+    public void rejectStorm() {
+        List<ReplayCommand> commands = new ArrayList<>();
+        UUID trader = new UUID(1, 1);
+        for (int i = 0; i < 100_000; i++) {
+            commands.add(i % 2 == 0
+                ? new NewOrderCommand(i, null, trader, OrderType.LIMIT, OrderSide.BUY, -i, 10.0)
+                : new AmendCommand(i, new UUID(2, i), OrderSide.BUY, 0));
+        }
+        commands.add(new NewOrderCommand(100_000, null, trader, OrderType.LIMIT, OrderSide.BUY, 10, 10.0));
+
+        ReplayResult res = new ReplayEngine(7, new TreeOrderBook()).replay(commands);
+
+        assertEquals(50_000, res.ordersRejected());
+        assertEquals(1, res.ordersPlaced());
+    }
+}
@@ -0,0 +1,94 @@
+package market;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+public class TimingWheelTests {
+    @Test
+    @DisplayName("Items fire exactly once, on the first advance that reaches their deadline")
+    public void firesAtDeadline() {
+        Random random = new Random(5);
+        long start = 1_700_000_000_000L;
+        TimingWheel<long[]> wheel = new TimingWheel<>(1, start);
+        List<long[]> pending = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            // Spread deadlines from the same tick to beyond the top level of the wheel
+            long delay = (long) Math.pow(2, random.nextDouble() * 40);
+            long[] item = {start + delay};
+            wheel.schedule(item[0], item);
+            pending.add(item);
+        }
+
+        long now = start;
+        Set<long[]> fired = new HashSet<>();
+        List<long[]> out = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            now += (long) Math.pow(2, random.nextDouble() * 36);
+            wheel.advance(now, out);
+
+            for (long[] item : out) {
+                assertTrue(item[0] <= now, "fired early");
+                assertTrue(fired.add(item), "fired twice");
+            }
+            out.clear();
+
+            long current = now;
+            pending.removeIf(item -> item[0] <= current && fired.contains(item));
+            for (long[] item : pending) {
+                assertTrue(item[0] > now, "missed deadline");
+            }
+        }
+
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Items due in the past fire on the next advance")
+    public void pastDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 1_000);
+        wheel.schedule(500, "late");
+        wheel.schedule(1_005, "now");
+        wheel.schedule(1_010, "next tick");
+
+        List<String> out = new ArrayList<>();
+        wheel.advance(1_000, out);
+        assertEquals(List.of("late", "now"), out);
+
+        out.clear();
+        wheel.advance(1_010, out);
+        assertEquals(List.of("next tick"), out);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Mass expiries at one time fire together in schedule order")
+    public void massExpiry() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        for (int i = 0; i < 300_000; i++) {
+            wheel.schedule(8 * 3_600_000L, i);
+        }
+        wheel.schedule(1, -1);
+
+        List<Integer> out = new ArrayList<>();
+        wheel.advance(8 * 3_600_000L - 1, out);
+        assertEquals(List.of(-1), out);
+
+        out.clear();
+        wheel.advance(8 * 3_600_000L, out);
+        assertEquals(300_000, out.size());
+        for (int i = 0; i < out.size(); i++) {
+            assertEquals(i, out.get(i).intValue());
+        }
+    }
+}
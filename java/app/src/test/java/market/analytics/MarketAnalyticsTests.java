@@ -0,0 +1,165 @@
+package market.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import market.OrderBook;
+import market.TreeOrderBook;
+import market.matching.MatchingEngine;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.replay.SimulatedClock;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+class MarketAnalyticsTests {
+    private static final long SECOND = 1_000_000_000L;
+
+    private SimulatedClock clock;
+    private OrderBook book;
+    private MatchingEngine eng;
+    private MarketAnalytics analytics;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        clock = new SimulatedClock();
+        clock.setTimeNanos(1_000 * SECOND);
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book, clock);
+        analytics = new MarketAnalytics(book, clock, Duration.ofSeconds(10), 5, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        eng.addSubscriber(analytics);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    private void trade(double price, int volume) {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, volume, price));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, volume));
+    }
+
+    @Test
+    @DisplayName("Bars are built at every interval from the trades in them")
+    public void bars() {
+        trade(10.00, 10);
+        trade(10.50, 20);
+        clock.advanceNanos(SECOND);
+        trade(9.50, 10);
+
+        List<Bar> seconds = analytics.getBars(0);
+        assertEquals(2, seconds.size());
+        Bar first = seconds.get(0);
+        assertEquals(10.00, first.open());
+        assertEquals(10.50, first.high());
+        assertEquals(10.00, first.low());
+        assertEquals(10.50, first.close());
+        assertEquals(30, first.volume());
+        assertEquals((10.00 * 10 + 10.50 * 20) / 30, first.getVwap(), 1e-9);
+
+        Bar minute = analytics.snapshot().currentBars().get(1);
+        assertEquals(1, analytics.getBars(1).size());
+        assertEquals(10.00, minute.open());
+        assertEquals(9.50, minute.low());
+        assertEquals(9.50, minute.close());
+        assertEquals(40, minute.volume());
+    }
+
+    @Test
+    @DisplayName("Only the most recent bars are kept")
+    public void barHistory() {
+        for (int i = 0; i < 8; i++) {
+            trade(10.00 + i, 1);
+            clock.advanceNanos(SECOND);
+        }
+
+        List<Bar> seconds = analytics.getBars(0);
+        assertEquals(5, seconds.size());
+        assertEquals(13.00, seconds.get(0).open());
+        assertEquals(17.00, seconds.get(4).close());
+    }
+
+    @Test
+    @DisplayName("Session VWAP covers every trade and rolling VWAP only the window")
+    public void vwap() {
+        trade(10.00, 10);
+        clock.advanceNanos(8 * SECOND);
+        trade(12.00, 10);
+
+        AnalyticsSnapshot snapshot = analytics.snapshot();
+        assertEquals(11.00, snapshot.sessionVwap(), 1e-9);
+        assertEquals(11.00, snapshot.rollingVwap(), 1e-9);
+        assertEquals(2, snapshot.tradeCount());
+
+        clock.advanceNanos(3 * SECOND);
+        trade(14.00, 30);
+        snapshot = analytics.snapshot();
+        assertEquals((10.00 * 10 + 12.00 * 10 + 14.00 * 30) / 50, snapshot.sessionVwap(), 1e-9);
+        assertEquals((12.00 * 10 + 14.00 * 30) / 40, snapshot.rollingVwap(), 1e-9);
+        assertEquals(40, snapshot.rollingVolume());
+        assertEquals(50, snapshot.sessionVolume());
+        assertEquals(14.00, snapshot.lastPrice());
+    }
+
+    @Test
+    @DisplayName("Imbalance compares the displayed volume at the best bid and offer")
+    public void imbalance() {
+        assertTrue(Double.isNaN(analytics.snapshot().imbalance()));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 30, 9.00));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00));
+        assertEquals(0.5, analytics.snapshot().imbalance(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Uncross trades are only counted once")
+    public void uncrossCountedOnce() {
+        eng.startAuction();
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.00));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00));
+        eng.uncross();
+
+        AnalyticsSnapshot snapshot = analytics.snapshot();
+        assertEquals(1, snapshot.tradeCount());
+        assertEquals(10, snapshot.sessionVolume());
+    }
+
+    @Test
+    @DisplayName("Readers on another thread always see consistent statistics")
+    public void concurrentReaders() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                AnalyticsSnapshot snapshot = analytics.snapshot();
+                if (snapshot.sessionVolume() != snapshot.tradeCount() * 5) {
+                    failure.set("Torn snapshot " + snapshot);
+                }
+                Bar bar = snapshot.currentBars().get(1);
+                if (bar != null && bar.volume() != snapshot.sessionVolume()) {
+                    failure.set("Torn bar " + snapshot);
+                }
+            }
+        });
+        reader.start();
+
+        int trades = 100_000;
+        for (int i = 0; i < trades; i++) {
+            trade(10.00 + (i % 7) * 0.01, 5);
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(trades, analytics.snapshot().tradeCount());
+    }
+}
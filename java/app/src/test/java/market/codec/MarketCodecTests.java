@@ -0,0 +1,337 @@
+package market.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.Trade;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.IcebergOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.orders.StopLimitOrder;
+import market.orders.StopMarketOrder;
+import market.orders.StopOrder;
+import market.orders.TimeInForce;
+import market.trader.Trader;
+
+@Timeout(30)
+public class MarketCodecTests {
+    private ByteBuffer buf;
+    private Trader john;
+
+    @BeforeEach
+    public void setup() {
+        buf = ByteBuffer.allocate(1 << 20).order(MarketCodec.BYTE_ORDER);
+        john = new Trader("John");
+    }
+
+    private static UUID randomId(Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+
+    private Order randomOrder(Random random) {
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        int volume = 1 + random.nextInt(1_000_000);
+        double price = 0.01 + random.nextInt(1_000_000) / 100.0;
+        double trigger = 0.01 + random.nextInt(1_000_000) / 100.0;
+        UUID id = randomId(random);
+        LocalDateTime time = LocalDateTime.of(1990 + random.nextInt(80), 1 + random.nextInt(12), 1 + random.nextInt(28),
+            random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1_000_000_000));
+
+        Order order = switch (random.nextInt(7)) {
+            case 0 -> new MarketOrder(side, john, volume, id, time);
+            case 1 -> new LimitOrder(side, john, volume, price, id, time);
+            case 2 -> new FOKOrder(side, john, volume, price, id, time);
+            case 3 -> new IOCOrder(side, john, volume, price, id, time);
+            case 4 -> new IcebergOrder(side, john, volume, price, 1 + random.nextInt(volume), id, time);
+            case 5 -> new StopMarketOrder(side, john, volume, trigger, id, time);
+            default -> new StopLimitOrder(side, john, volume, trigger, price, id, time);
+        };
+        if (PricedOrder.class.isInstance(order) && random.nextBoolean()) {
+            TimeInForce timeInForce = TimeInForce.values()[1 + random.nextInt(3)];
+            LocalDateTime expiry = timeInForce == TimeInForce.DAY ? null : time.plusNanos(random.nextInt(1_000_000_000));
+            ((PricedOrder) order).setTimeInForce(timeInForce, expiry);
+        }
+        return order;
+    }
+
+    private static MatchResult randomResult(Random random) {
+        MatchResult res = new MatchResult();
+        res.setOrderId(randomId(random));
+        res.setTraderId(randomId(random));
+        res.setSide(random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL);
+        res.setStatus(OrderStatus.values()[random.nextInt(OrderStatus.values().length)]);
+        res.setRejectReason(RejectReason.values()[random.nextInt(RejectReason.values().length)]);
+        res.setFilledVolume(random.nextInt());
+        res.setRemainingVolume(random.nextInt());
+        res.setAvgMatchPrice(random.nextDouble() * 1000);
+        res.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusNanos(random.nextLong() >>> 8));
+
+        StringBuilder note = new StringBuilder();
+        int noteLength = random.nextInt(4) == 0 ? random.nextInt(80) : 0;
+        for (int i = 0; i < noteLength; i++) {
+            note.append(i % 7 == 0 ? '\u00e9' : (char) ('a' + random.nextInt(26)));
+        }
+        res.setNote(note.toString());
+
+        List<Trade> trades = new ArrayList<>();
+        int count = random.nextInt(3) == 0 ? random.nextInt(200) : random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            trades.add(new Trade(randomId(random), randomId(random), random.nextDouble() * 1000, random.nextInt()));
+        }
+        res.setTrades(trades);
+        return res;
+    }
+
+    private static void assertSameOrder(Order expected, Order actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getOrderId(), actual.getOrderId());
+        assertEquals(expected.getTraderId(), actual.getTraderId());
+        assertEquals(expected.getSide(), actual.getSide());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getVolume(), actual.getVolume());
+        if (PricedOrder.class.isInstance(expected)) {
+            PricedOrder e = (PricedOrder) expected;
+            PricedOrder a = (PricedOrder) actual;
+            assertEquals(e.getPrice(), a.getPrice());
+            assertEquals(e.getTimeInForce(), a.getTimeInForce());
+            assertEquals(e.getExpiry(), a.getExpiry());
+        }
+        if (IcebergOrder.class.isInstance(expected)) {
+            assertEquals(((IcebergOrder) expected).getTotalVolume(), ((IcebergOrder) actual).getTotalVolume());
+            assertEquals(((IcebergOrder) expected).getDisplayVolume(), ((IcebergOrder) actual).getDisplayVolume());
+        }
+        if (StopOrder.class.isInstance(expected)) {
+            assertEquals(((StopOrder) expected).getTriggerPrice(), ((StopOrder) actual).getTriggerPrice());
+        }
+        if (StopLimitOrder.class.isInstance(expected)) {
+            assertEquals(((StopLimitOrder) expected).getPrice(), ((StopLimitOrder) actual).getPrice());
+        }
+    }
+
+    private static void assertSameResult(MatchResult expected, MatchResult actual) {
+        assertEquals(expected.getOrderId(), actual.getOrderId());
+        assertEquals(expected.getTraderId(), actual.getTraderId());
+        assertEquals(expected.getSide(), actual.getSide());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getRejectReason(), actual.getRejectReason());
+        assertEquals(expected.getFilledVolume(), actual.getFilledVolume());
+        assertEquals(expected.getRemainingVolume(), actual.getRemainingVolume());
+        assertEquals(expected.getAvgMatchPrice(), actual.getAvgMatchPrice());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getNote(), actual.getNote());
+        assertEquals(expected.getTrades(), actual.getTrades());
+    }
+
+    @Test
+    @DisplayName("Random orders of every kind round trip through the codec, back to back in one buffer")
+    public void ordersRoundTrip() {
+        Random random = new Random(1);
+        List<Order> orders = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Order order = randomOrder(random);
+            orders.add(order);
+            offset += MarketCodec.encodeOrder(buf, offset, order);
+        }
+
+        OrderDecoder decoder = new OrderDecoder();
+        offset = 0;
+        for (Order order : orders) {
+            assertEquals(MarketCodec.ORDER, MarketCodec.check(buf, offset, buf.limit()));
+            assertSameOrder(order, decoder.wrap(buf, offset).toOrder(john));
+            assertEquals(order.getOrderId().getMostSignificantBits(), decoder.getOrderIdMsb());
+            offset += MarketCodec.frameLength(buf, offset);
+        }
+    }
+
+    @Test
+    @DisplayName("Random match results and trades round trip through the codec")
+    public void resultsRoundTrip() {
+        Random random = new Random(2);
+        MatchResultDecoder resultDecoder = new MatchResultDecoder();
+        TradeDecoder tradeDecoder = new TradeDecoder();
+
+        for (int i = 0; i < 5_000; i++) {
+            MatchResult res = randomResult(random);
+            int length = MarketCodec.encodeMatchResult(buf, 0, res);
+            assertEquals(MarketCodec.matchResultLength(res), length);
+            assertEquals(MarketCodec.MATCH_RESULT, MarketCodec.check(buf, 0, length));
+            assertSameResult(res, resultDecoder.wrap(buf, 0).toMatchResult());
+
+            for (Trade trade : res.getTrades()) {
+                assertEquals(MarketCodec.TRADE_LENGTH, MarketCodec.encodeTrade(buf, 0, trade));
+                assertEquals(MarketCodec.TRADE, MarketCodec.check(buf, 0, MarketCodec.TRADE_LENGTH));
+                assertEquals(trade, tradeDecoder.wrap(buf, 0).toTrade());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The results of a live engine round trip, including rejects, notes and sweeps")
+    public void engineResultsRoundTrip() {
+        MatchingEngine eng = new MatchingEngine(new TreeOrderBook());
+        Trader jane = new Trader("Jane");
+        List<MatchResult> results = new ArrayList<>();
+        eng.addSubscriber(results::add);
+
+        for (int i = 0; i < 100; i++) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 10.0 + i / 100.0));
+        }
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 2_000));
+        eng.placeOrder(new FOKOrder(OrderSide.SELL, john, 10, 1.0));
+        LimitOrder expired = new LimitOrder(OrderSide.BUY, john, 10, 9.0);
+        expired.setTimeInForce(TimeInForce.GTT, LocalDateTime.now().minusSeconds(1));
+        eng.placeOrder(expired);
+
+        MatchResultDecoder decoder = new MatchResultDecoder();
+        for (MatchResult res : results) {
+            int length = MarketCodec.encodeMatchResult(buf, 0, res);
+            assertEquals(MarketCodec.MATCH_RESULT, MarketCodec.check(buf, 0, length));
+            assertSameResult(res, decoder.wrap(buf, 0).toMatchResult());
+        }
+        assertEquals(100, results.get(100).getTrades().size());
+        assertEquals(RejectReason.ALREADY_EXPIRED, decoder.getRejectReason());
+    }
+
+    @Test
+    @DisplayName("Corrupted and truncated frames are refused by the check or decode without reading outside the frame")
+    public void fuzzCorruption() {
+        Random random = new Random(3);
+        MatchResultDecoder resultDecoder = new MatchResultDecoder();
+        OrderDecoder orderDecoder = new OrderDecoder();
+        TradeDecoder tradeDecoder = new TradeDecoder();
+        int refused = 0;
+
+        for (int i = 0; i < 20_000; i++) {
+            int length = switch (i % 3) {
+                case 0 -> MarketCodec.encodeMatchResult(buf, 0, randomResult(random));
+                case 1 -> MarketCodec.encodeOrder(buf, 0, randomOrder(random));
+                default -> MarketCodec.encodeTrade(buf, 0, new Trade(randomId(random), randomId(random), 1, 1));
+            };
+            for (int flips = random.nextInt(4); flips >= 0; flips--) {
+                int at = random.nextInt(Math.min(length, 80));
+                buf.put(at, (byte) random.nextInt(256));
+            }
+            int limit = random.nextBoolean() ? length : random.nextInt(length + 1);
+
+            // Any read past the limit of the copy throws
+            ByteBuffer frame = ByteBuffer.allocate(limit).order(MarketCodec.BYTE_ORDER);
+            frame.put(0, buf, 0, limit);
+            switch (MarketCodec.check(frame, 0, limit)) {
+                case MarketCodec.MATCH_RESULT -> {
+                    resultDecoder.wrap(frame, 0);
+                    resultDecoder.getSide();
+                    resultDecoder.getStatus();
+                    resultDecoder.getRejectReason();
+                    resultDecoder.getNote();
+                    for (int t = 0; t < resultDecoder.getTradeCount(); t++) {
+                        resultDecoder.getTrade(t);
+                    }
+                }
+                case MarketCodec.ORDER -> {
+                    orderDecoder.wrap(frame, 0);
+                    orderDecoder.getSide();
+                    orderDecoder.getTimeInForce();
+                    orderDecoder.getVolume();
+                }
+                case MarketCodec.TRADE -> tradeDecoder.wrap(frame, 0).toTrade();
+                default -> refused++;
+            }
+        }
+
+        assertTrue(refused > 0);
+        assertEquals(0, MarketCodec.check(buf, 0, 4));
+        assertEquals(0, MarketCodec.check(ByteBuffer.allocate(64), 0, 64));
+    }
+
+    @Test
+    @DisplayName("Frames of a later version with a longer block are still decoded, skipping the fields added")
+    public void laterVersion() {
+        MatchResult res = randomResult(new Random(4));
+        res.setNote("later");
+        int length = MarketCodec.encodeMatchResult(buf, 0, res);
+
+        // Rebuild the frame as a version 2 writer would, with 8 more bytes at the end of the block
+        int blockEnd = MarketCodec.HEADER_LENGTH + MarketCodec.MATCH_RESULT_BLOCK_LENGTH;
+        ByteBuffer later = ByteBuffer.allocate(length + 8).order(MarketCodec.BYTE_ORDER);
+        later.put(0, buf, 0, blockEnd);
+        later.putLong(blockEnd, -1L);
+        later.put(blockEnd + 8, buf, blockEnd, length - blockEnd);
+        later.putInt(MarketCodec.LENGTH_OFFSET, length + 8);
+        later.put(MarketCodec.VERSION_OFFSET, (byte) 2);
+        later.putShort(MarketCodec.BLOCK_LENGTH_OFFSET, (short) (MarketCodec.MATCH_RESULT_BLOCK_LENGTH + 8));
+
+        assertEquals(MarketCodec.MATCH_RESULT, MarketCodec.check(later, 0, length + 8));
+        MatchResultDecoder decoder = new MatchResultDecoder().wrap(later, 0);
+        assertEquals(2, decoder.getVersion());
+        assertSameResult(res, decoder.toMatchResult());
+
+        later.put(MarketCodec.VERSION_OFFSET, (byte) 0);
+        assertEquals(0, MarketCodec.check(later, 0, length + 8));
+    }
+
+    @Test
+    @DisplayName("Encoding into a buffer that is too small or in the wrong byte order fails without writing")
+    public void badBuffers() {
+        Trade trade = new Trade(new UUID(1, 2), new UUID(3, 4), 10.0, 5);
+        ByteBuffer small = ByteBuffer.allocate(MarketCodec.TRADE_LENGTH - 1).order(MarketCodec.BYTE_ORDER);
+        assertThrows(BufferOverflowException.class, () -> MarketCodec.encodeTrade(small, 0, trade));
+        assertEquals(0, small.getInt(0));
+        assertThrows(IllegalArgumentException.class, () -> MarketCodec.encodeTrade(ByteBuffer.allocate(64), 0, trade));
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Encoding and decoding a fill takes tens of nanoseconds")
+    public void fillSpeed() {
+        Random random = new Random(5);
+        Trade[] trades = new Trade[1024];
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = new Trade(randomId(random), randomId(random), random.nextDouble() * 100, 1 + random.nextInt(100));
+        }
+        TradeDecoder decoder = new TradeDecoder();
+        int n = 2_000_000;
+
+        long sum = 0;
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the JIT
+            start = System.nanoTime();
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                if (offset + MarketCodec.TRADE_LENGTH > buf.capacity()) {
+                    offset = 0;
+                }
+                offset += MarketCodec.encodeTrade(buf, offset, trades[i & 1023]);
+                sum += decoder.wrap(buf, offset - MarketCodec.TRADE_LENGTH).getVolume();
+            }
+        }
+        double nanosPerFill = (System.nanoTime() - start) / (double) n;
+
+        assertTrue(sum > 0);
+        System.out.printf("Encoded and decoded a fill in %.1f ns%n", nanosPerFill);
+    }
+}
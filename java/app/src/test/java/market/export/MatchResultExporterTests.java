@@ -0,0 +1,122 @@
+package market.export;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.Trade;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.trader.Trader;
+
+@Timeout(10)
+public class MatchResultExporterTests {
+    @TempDir
+    Path dir;
+
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        eng = new MatchingEngine(new TreeOrderBook());
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    /**
+     * Place resting offers and then sweep them, returning every result produced
+     */
+    private List<MatchResult> trade(int rounds) {
+        List<MatchResult> results = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            results.add(eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.00 + i)));
+            results.add(eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 5, 10.00 + i)));
+            results.add(eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 20)));
+        }
+        return results;
+    }
+
+    private static List<Path> files(Path dir, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    @Test
+    @DisplayName("CSV export writes one row per result and one per trade")
+    public void csvExport() throws IOException {
+        MatchResultExporter exporter = new MatchResultExporter(dir, ExportFormat.CSV);
+        eng.addSubscriber(exporter);
+        List<MatchResult> results = trade(3);
+        exporter.close();
+
+        List<String> resultLines = Files.readAllLines(files(dir, "results-").get(0));
+        List<String> tradeLines = Files.readAllLines(files(dir, "trades-").get(0));
+
+        assertEquals(CsvExportWriter.RESULTS_HEADER.trim(), resultLines.get(0));
+        assertEquals(results.size() + 1, resultLines.size());
+        assertTrue(resultLines.get(3).startsWith(results.get(2).getOrderId() + "," + jane.getId() + ",BUY,"));
+        assertTrue(resultLines.get(3).endsWith("\"Insufficient liquidity to match order fully\""));
+        assertEquals(6 + 1, tradeLines.size());
+        assertEquals(0, exporter.getDroppedResults());
+    }
+
+    @Test
+    @DisplayName("Binary export reads back to the same results and trades")
+    public void binaryRoundTrip() throws IOException {
+        MatchResultExporter exporter = new MatchResultExporter(dir, ExportFormat.BINARY);
+        eng.addSubscriber(exporter);
+        List<MatchResult> results = trade(50);
+        exporter.close();
+
+        List<MatchResult> read = BinaryExportReader.readResults(dir);
+        assertEquals(results.size(), read.size());
+        for (int i = 0; i < results.size(); i++) {
+            MatchResult expected = results.get(i);
+            MatchResult actual = read.get(i);
+            assertEquals(expected.getOrderId(), actual.getOrderId());
+            assertEquals(expected.getTraderId(), actual.getTraderId());
+            assertEquals(expected.getSide(), actual.getSide());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getFilledVolume(), actual.getFilledVolume());
+            assertEquals(expected.getRemainingVolume(), actual.getRemainingVolume());
+            assertEquals(expected.getAvgMatchPrice(), actual.getAvgMatchPrice());
+            assertEquals(expected.getNote(), actual.getNote());
+            assertEquals(BinaryExportWriter.toMicros(expected.getTimestamp()),
+                BinaryExportWriter.toMicros(actual.getTimestamp()));
+        }
+
+        List<Trade> expectedTrades = results.stream().flatMap(r -> r.getTrades().stream()).toList();
+        assertEquals(expectedTrades, BinaryExportReader.readTrades(dir));
+    }
+
+    @Test
+    @DisplayName("Files roll over once they pass the size limit and no rows are lost across files")
+    public void filesRoll() throws IOException {
+        MatchResultExporter exporter = new MatchResultExporter(dir, ExportFormat.BINARY, 2048, 1024);
+        eng.addSubscriber(exporter);
+        List<MatchResult> results = trade(100);
+        exporter.close();
+
+        assertTrue(files(dir, "results-").size() > 1);
+        assertTrue(files(dir, "trades-").size() > 1);
+        assertEquals(results.size() - exporter.getDroppedResults(), BinaryExportReader.readResults(dir).size());
+    }
+}
@@ -0,0 +1,149 @@
+package market.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.MarketService;
+import market.trader.Trader;
+
+@Timeout(30)
+public class HttpOrderGatewayTests {
+    private MarketService market;
+    private HttpOrderGateway gateway;
+    private HttpClient client;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupGateway() throws IOException {
+        market = new MarketService();
+        john = market.registerTrader("John");
+        jane = market.registerTrader("Jane");
+        gateway = new HttpOrderGateway(market, new InetSocketAddress("127.0.0.1", 0));
+        gateway.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void closeGateway() {
+        gateway.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = (body == null)
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + gateway.getPort() + path))
+            .method(method, publisher)
+            .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String orderJson(Trader trader, String side, String type, int volume, double price) {
+        return "{\"traderId\": \"" + trader.getId() + "\", \"side\": \"" + side + "\", \"type\": \"" + type
+            + "\", \"volume\": " + volume + ", \"price\": " + price + "}";
+    }
+
+    @Test
+    @DisplayName("Orders can be placed, amended, cancelled and queried over HTTP")
+    public void orderLifecycleOverHttp() throws IOException, InterruptedException {
+        HttpResponse<String> placed = send("POST", "/orders", orderJson(john, "SELL", "LIMIT", 100, 10.5));
+        assertEquals(200, placed.statusCode());
+        Map<String, String> placedRes = Json.parseFlatObject(placed.body().replaceAll(",\"trades\":\\[.*\\]", ""));
+        assertEquals("ALL_RESTING", placedRes.get("status"));
+        String orderId = placedRes.get("orderId");
+
+        HttpResponse<String> book = send("GET", "/book?depth=1", null);
+        assertEquals(200, book.statusCode());
+        assertTrue(book.body().contains("\"offers\":[{\"price\":10.5,\"volume\":100,\"orderCount\":1}]"));
+
+        HttpResponse<String> amended = send("PATCH", "/orders/" + orderId, "{\"side\": \"SELL\", \"volume\": 60}");
+        assertTrue(amended.body().contains("\"amended\":true"));
+        assertEquals(60, market.getBook().getBestOffer().getVolume());
+
+        HttpResponse<String> filled = send("POST", "/orders", orderJson(jane, "BUY", "MARKET", 20, 0));
+        assertTrue(filled.body().contains("\"status\":\"FILLED\""));
+        assertTrue(filled.body().contains("\"offerId\":\"" + orderId + "\""));
+
+        HttpResponse<String> portfolio = send("GET", "/traders/" + jane.getId() + "/portfolio", null);
+        assertEquals(200, portfolio.statusCode());
+        assertTrue(portfolio.body().contains("\"volume\":20"));
+
+        HttpResponse<String> cancelled = send("DELETE", "/orders/" + orderId + "?side=SELL", null);
+        assertTrue(cancelled.body().contains("\"cancelled\":true"));
+        assertTrue(market.getBook().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A trader's portfolio lists their resting orders with the volume left")
+    public void portfolioListsRestingOrders() throws IOException, InterruptedException {
+        HttpResponse<String> placed = send("POST", "/orders", orderJson(john, "SELL", "LIMIT", 100, 10.5));
+        String orderId = Json.parseFlatObject(placed.body().replaceAll(",\"trades\":\\[.*\\]", "")).get("orderId");
+        send("POST", "/orders", orderJson(jane, "BUY", "MARKET", 30, 0));
+
+        HttpResponse<String> portfolio = send("GET", "/traders/" + john.getId() + "/portfolio", null);
+        assertEquals(200, portfolio.statusCode());
+        assertTrue(portfolio.body().contains("\"activeOrders\":[{\"orderId\":\"" + orderId
+            + "\",\"side\":\"SELL\",\"volume\":70,\"price\":10.5}]"));
+
+        send("DELETE", "/orders/" + orderId + "?side=SELL", null);
+        portfolio = send("GET", "/traders/" + john.getId() + "/portfolio", null);
+        assertTrue(portfolio.body().contains("\"activeOrders\":[]"));
+    }
+
+    @Test
+    @DisplayName("Malformed requests get client errors and never reach the book")
+    public void badRequestsAreRejected() throws IOException, InterruptedException {
+        assertEquals(400, send("POST", "/orders", orderJson(john, "SIDEWAYS", "LIMIT", 10, 10)).statusCode());
+        HttpResponse<String> badVolume = send("POST", "/orders", orderJson(john, "BUY", "LIMIT", -5, 10));
+        assertEquals(400, badVolume.statusCode());
+        assertTrue(badVolume.body().contains("\"rejectReason\":\"INVALID_VOLUME\""));
+        HttpResponse<String> badPrice = send("POST", "/orders", orderJson(john, "BUY", "LIMIT", 5, -10));
+        assertEquals(400, badPrice.statusCode());
+        assertTrue(badPrice.body().contains("\"rejectReason\":\"INVALID_PRICE\""));
+        HttpResponse<String> unknownTrader = send("POST", "/orders", orderJson(new Trader("Nobody"), "BUY", "LIMIT", 5, 10));
+        assertEquals(404, unknownTrader.statusCode());
+        assertTrue(unknownTrader.body().contains("\"rejectReason\":\"UNKNOWN_TRADER\""));
+        assertEquals(400, send("POST", "/orders", "{\"traderId\": ").statusCode());
+        assertEquals(405, send("GET", "/orders", null).statusCode());
+        assertEquals(404, send("GET", "/nowhere", null).statusCode());
+        assertEquals(404, send("GET", "/traders/" + UUID.randomUUID() + "/portfolio", null).statusCode());
+        assertTrue(market.getBook().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Many concurrent clients are all served and every order reaches the book exactly once")
+    public void concurrentClients() {
+        int clients = 200;
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            HttpRequest req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + gateway.getPort() + "/orders"))
+                .POST(HttpRequest.BodyPublishers.ofString(orderJson(john, "BUY", "LIMIT", 10, 1 + (i % 5))))
+                .build();
+            responses.add(client.sendAsync(req, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> res : responses) {
+            assertEquals(200, res.join().statusCode());
+        }
+        assertEquals(clients, market.getBook().getNumBids());
+        assertEquals(clients, market.getBook().getDepthView().snapshot().numBids());
+    }
+}
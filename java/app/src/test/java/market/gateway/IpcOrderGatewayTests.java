@@ -0,0 +1,303 @@
+package market.gateway;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.MarketService;
+import market.matching.OrderStatus;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.trader.Trader;
+
+@Timeout(30)
+public class IpcOrderGatewayTests {
+    private MarketService market;
+    private IpcOrderGateway gateway;
+    private IpcOrderClient client;
+    private Path path;
+    private Trader john;
+
+    /**
+     * Decoded copy of an execution report, since the decoder is only valid inside the handler
+     */
+    private record Report(long clientOrderId, UUID orderId, byte execType, int status, int filled, int remaining,
+            double avgPrice) {}
+
+    /**
+     * Runs in a second JVM: logs on over the channel file it is given, sells 25 at 10.00 and exits with the status code
+     * of the execution report it gets back
+     */
+    public static class ClientProcess {
+        public static void main(String[] args) throws IOException {
+            try (IpcOrderClient client = IpcOrderClient.open(Path.of(args[0]))) {
+                if (!client.logon(UUID.fromString(args[1]))) {
+                    System.exit(100);
+                }
+                client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 25, 10.00);
+
+                int[] status = new int[1];
+                while (client.pollReports(r -> status[0] = r.getStatusCode()) == 0) {
+                    Thread.onSpinWait();
+                }
+                System.exit(status[0]);
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setupGateway() throws IOException {
+        market = new MarketService();
+        john = market.registerTrader("John");
+        path = SharedMemoryChannel.defaultDirectory().resolve("ipc-gateway-test-" + UUID.randomUUID());
+        gateway = new IpcOrderGateway(market);
+        gateway.openChannel(path, 64);
+        gateway.start();
+        client = IpcOrderClient.open(path);
+    }
+
+    @AfterEach
+    public void closeGateway() throws IOException {
+        client.close();
+        gateway.close();
+    }
+
+    private List<Report> readReports(int count) throws IOException {
+        List<Report> reports = new ArrayList<>();
+        while (reports.size() < count) {
+            // Yields rather than spins, so the gateway thread gets to run on machines with few cores
+            Thread.yield();
+            client.pollReports(r -> reports.add(new Report(r.getClientOrderId(), r.getOrderId(), r.getExecType(),
+                r.getStatusCode(), r.getFilledVolume(), r.getRemainingVolume(), r.getAvgPrice())));
+        }
+        return reports;
+    }
+
+    @Test
+    @DisplayName("Orders, amends and cancels written to shared memory reach the engine and are reported back in order")
+    public void orderLifecycleOverIpc() throws IOException {
+        assertTrue(client.logon(john.getId()));
+
+        assertTrue(client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00));
+        assertTrue(client.newOrder(2, OrderSide.BUY, OrderType.MARKET, 40, 0));
+
+        // The buy fills John's own resting sell, so the replies are followed by a fill of the sell
+        List<Report> reports = readReports(3);
+        Report resting = reports.get(0);
+        assertEquals(1, resting.clientOrderId());
+        assertEquals(OrderEntryProtocol.EXEC_NEW, resting.execType());
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), resting.status());
+
+        Report filled = reports.get(1);
+        assertEquals(OrderStatus.FILLED.ordinal(), filled.status());
+        assertEquals(40, filled.filled());
+        assertEquals(10.00, filled.avgPrice());
+        assertEquals(OrderEntryProtocol.EXEC_FILL, reports.get(2).execType());
+        assertEquals(resting.orderId(), reports.get(2).orderId());
+        assertEquals(60, reports.get(2).remaining());
+
+        client.amend(3, resting.orderId(), OrderSide.SELL, 30);
+        Report amended = readReports(1).get(0);
+        assertEquals(OrderEntryProtocol.EXEC_AMEND, amended.execType());
+        assertEquals(1, amended.status());
+
+        client.cancel(4, resting.orderId(), OrderSide.SELL);
+        client.cancel(5, resting.orderId(), OrderSide.SELL);
+        List<Report> cancels = readReports(2);
+        assertEquals(1, cancels.get(0).status());
+        assertEquals(0, cancels.get(1).status());
+        // The depth view is the book's thread safe view
+        assertEquals(0, market.getBook().getDepthView().snapshot().numOffers());
+    }
+
+    @Test
+    @DisplayName("Requests before logon and malformed slots are rejected without stopping the channel")
+    public void invalidRequestsAreRejected() throws IOException {
+        assertTrue(client.newOrder(1, OrderSide.BUY, OrderType.LIMIT, 10, 10.00));
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, readReports(1).get(0).execType());
+
+        assertFalse(client.logon(UUID.randomUUID()));
+        assertTrue(client.logon(john.getId()));
+
+        // A second producer can't share the ring, so the bad slot is written while the client isn't sending
+        try (SharedMemoryChannel raw = SharedMemoryChannel.open(path)) {
+            ByteBuffer slot = raw.getRequests().claim();
+            slot.putShort(slot.position() + OrderEntryProtocol.LENGTH_OFFSET, (short) 60);
+            slot.put(slot.position() + OrderEntryProtocol.TYPE_OFFSET, OrderEntryProtocol.NEW_ORDER);
+            raw.getRequests().commit();
+            // Correctly sized, but only the gateway sends this type, and its body is too short to hold any order fields
+            OrderEntryProtocol.encodeLogonAck(raw.getRequests().claim(), true);
+            raw.getRequests().commit();
+        }
+        List<Report> rejects = readReports(2);
+        assertTrue(rejects.stream().allMatch(r -> r.execType() == OrderEntryProtocol.EXEC_REJECT));
+
+        // The raw channel picked up the count of slots written, so the client's own view of it is out of date
+        client.close();
+        client = IpcOrderClient.open(path);
+        assertTrue(client.newOrder(2, OrderSide.BUY, OrderType.LIMIT, 10, 10.00));
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), readReports(1).get(0).status());
+    }
+
+    @Test
+    @DisplayName("A request that fails inside the market is rejected and the poller keeps serving the channel")
+    public void failingRequestIsRejected() throws IOException {
+        market.getEngine().addSubscriber(res -> {
+            if (res.getRemainingVolume() == 13) {
+                throw new IllegalStateException("Subscriber failed");
+            }
+        });
+        assertTrue(client.logon(john.getId()));
+
+        assertTrue(client.newOrder(1, OrderSide.BUY, OrderType.LIMIT, 13, 10.00));
+        assertTrue(client.newOrder(2, OrderSide.BUY, OrderType.LIMIT, 10, 10.00));
+        List<Report> reports = readReports(2);
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(0).execType());
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), reports.get(1).status());
+    }
+
+    @Test
+    @DisplayName("The rings wrap many times and a client that stops reading is held back rather than losing replies")
+    public void backpressure() throws IOException {
+        assertTrue(client.logon(john.getId()));
+
+        // Nothing is read, so the reply ring fills and then the request ring behind it
+        int sent = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (client.newOrder(sent, OrderSide.BUY, OrderType.LIMIT, 1, 9.00)) {
+                sent++;
+            } else if (sent >= 128) {
+                break;
+            } else {
+                Thread.yield();
+            }
+        }
+        assertEquals(128, sent);
+        assertFalse(client.newOrder(sent, OrderSide.BUY, OrderType.LIMIT, 1, 9.00));
+
+        List<Report> reports = readReports(128);
+        for (int i = 0; i < reports.size(); i++) {
+            assertEquals(i, reports.get(i).clientOrderId());
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            OrderSide side = i % 2 == 0 ? OrderSide.SELL : OrderSide.BUY;
+            while (!client.newOrder(i, side, OrderType.LIMIT, 1, 10.00)) {
+                Thread.yield();
+            }
+            // Each buy fills the sell before it, which is reported after the buy's reply
+            List<Report> replies = readReports(side == OrderSide.BUY ? 2 : 1);
+            assertEquals(i, replies.get(0).clientOrderId());
+            if (side == OrderSide.BUY) {
+                assertEquals(OrderEntryProtocol.EXEC_FILL, replies.get(1).execType());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Fills of resting orders by other channels' orders are written to the reply ring, waiting while it is full")
+    public void passiveFillsAreReported() throws IOException {
+        assertTrue(client.logon(john.getId()));
+        Trader jane = market.registerTrader("Jane");
+        Path janePath = SharedMemoryChannel.defaultDirectory().resolve("ipc-gateway-test-" + UUID.randomUUID());
+        gateway.openChannel(janePath, 64);
+
+        try (IpcOrderClient janes = IpcOrderClient.open(janePath)) {
+            assertTrue(janes.logon(jane.getId()));
+            assertTrue(client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00));
+            Report resting = readReports(1).get(0);
+
+            // More fills than John's reply ring holds, made while he isn't reading
+            int janesReplies = 0;
+            for (int i = 0; i < 100; i++) {
+                while (!janes.newOrder(i, OrderSide.BUY, OrderType.MARKET, 1, 0)) {
+                    janesReplies += janes.pollReports(r -> {});
+                }
+            }
+            while (janesReplies < 100) {
+                Thread.yield();
+                janesReplies += janes.pollReports(r -> {});
+            }
+
+            List<Report> fills = readReports(100);
+            for (int i = 0; i < fills.size(); i++) {
+                Report fill = fills.get(i);
+                assertEquals(OrderEntryProtocol.EXEC_FILL, fill.execType());
+                assertEquals(resting.orderId(), fill.orderId());
+                assertEquals(1, fill.filled());
+                assertEquals(99 - i, fill.remaining());
+            }
+            assertEquals(OrderStatus.FILLED.ordinal(), fills.get(99).status());
+        }
+    }
+
+    @Test
+    @DisplayName("A client in another JVM trades over the channel file")
+    public void secondProcess() throws IOException, InterruptedException {
+        assertTrue(client.logon(john.getId()));
+        Trader jane = market.registerTrader("Jane");
+        // Each client process gets a channel of its own
+        Path janePath = SharedMemoryChannel.defaultDirectory().resolve("ipc-gateway-test-" + UUID.randomUUID());
+        gateway.openChannel(janePath, 64);
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            ClientProcess.class.getName(), janePath.toString(), jane.getId().toString())
+            .redirectErrorStream(true)
+            .redirectOutput(File.createTempFile("ipc-client", ".log"))
+            .start();
+        assertTrue(child.waitFor(20, TimeUnit.SECONDS));
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), child.exitValue());
+
+        client.newOrder(1, OrderSide.BUY, OrderType.LIMIT, 10, 10.00);
+        Report report = readReports(1).get(0);
+        assertEquals(10, report.filled());
+        assertEquals(15, market.getBook().getDepthView().snapshot().offers().get(0).volume());
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Round trip latency from writing an order to reading its report")
+    public void latency() throws IOException {
+        assertTrue(client.logon(john.getId()));
+
+        int count = 20_000;
+        long[] samples = new long[count];
+        int[] replies = new int[1];
+        for (int i = 0; i < count; i++) {
+            // Alternate sides at one price so the book never grows. Each buy also fills the sell before it, and the fill's
+            // report isn't counted as a reply
+            OrderSide side = (i % 2 == 0) ? OrderSide.SELL : OrderSide.BUY;
+            long start = System.nanoTime();
+            client.newOrder(i, side, OrderType.LIMIT, 10, 100.00);
+            while (replies[0] <= i) {
+                if (client.pollReports(r -> replies[0] += r.getExecType() == OrderEntryProtocol.EXEC_FILL ? 0 : 1) == 0) {
+                    Thread.yield();
+                }
+            }
+            samples[i] = System.nanoTime() - start;
+        }
+
+        // The first half warms up the JIT and isn't counted
+        int warm = count / 2;
+        Arrays.sort(samples, warm, count);
+        System.out.printf("IPC gateway round trip: median %.1f us, 99th percentile %.1f us%n",
+            samples[warm + (count - warm) / 2] / 1e3, samples[warm + (count - warm) * 99 / 100] / 1e3);
+    }
+}
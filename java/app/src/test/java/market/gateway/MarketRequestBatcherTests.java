@@ -0,0 +1,107 @@
+package market.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.MarketService;
+import market.matching.MatchResult;
+import market.matching.OrderStatus;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+import market.trader.Trader;
+
+@Timeout(30)
+public class MarketRequestBatcherTests {
+    private MarketService market;
+    private MarketRequestBatcher batcher;
+    private Trader john;
+
+    @BeforeEach
+    public void setupBatcher() {
+        market = new MarketService();
+        john = market.registerTrader("John");
+        batcher = new MarketRequestBatcher(market);
+    }
+
+    @AfterEach
+    public void closeBatcher() {
+        batcher.close();
+    }
+
+    @Test
+    @DisplayName("An order that fails only fails its own caller, and the orders drained with it are still placed")
+    public void failingOrderInBatch() throws InterruptedException, ExecutionException {
+        market.getEngine().addSubscriber(res -> {
+            if (res.getRemainingVolume() == 13) {
+                throw new IllegalStateException("Subscriber failed");
+            }
+        });
+
+        // Hold the market thread so the orders queue up behind it and are drained as one batch
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> hold = batcher.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        CompletableFuture<MatchResult> before = batcher.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 9.00));
+        CompletableFuture<MatchResult> failing = batcher.placeOrder(new LimitOrder(OrderSide.BUY, john, 13, 9.00));
+        CompletableFuture<MatchResult> after = batcher.placeOrder(new LimitOrder(OrderSide.BUY, john, 20, 9.00));
+        release.countDown();
+
+        assertTrue(hold.get());
+        assertEquals(OrderStatus.ALL_RESTING, before.get().getStatus());
+        ExecutionException failure = assertThrows(ExecutionException.class, failing::get);
+        assertTrue(IllegalStateException.class.isInstance(failure.getCause()));
+        assertEquals(OrderStatus.ALL_RESTING, after.get().getStatus());
+        int volume = batcher.submit(() -> market.getBook().getBestBidVolume()).get();
+        assertEquals(43, volume);
+    }
+
+    @Test
+    @DisplayName("Every request completes, normally or exceptionally, when the batcher is closed while callers are queueing")
+    public void closeWhileSubmitting() throws InterruptedException {
+        int numThreads = 8;
+        List<List<CompletableFuture<Integer>>> futures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            List<CompletableFuture<Integer>> own = new ArrayList<>();
+            futures.add(own);
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                CompletableFuture<Integer> last;
+                do {
+                    last = batcher.submit(() -> 1);
+                    own.add(last);
+                } while (!last.isCompletedExceptionally());
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        started.await();
+        batcher.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (List<CompletableFuture<Integer>> own : futures) {
+            assertTrue(own.stream().allMatch(CompletableFuture::isDone));
+        }
+    }
+}
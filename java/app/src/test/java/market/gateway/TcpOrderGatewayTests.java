@@ -0,0 +1,325 @@
+package market.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.MarketService;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.trader.Trader;
+
+@Timeout(30)
+public class TcpOrderGatewayTests {
+    private MarketService market;
+    private TcpOrderGateway gateway;
+    private TcpOrderClient client;
+    private Trader john;
+
+    /**
+     * Decoded copy of an execution report, since the decoder is only valid inside the handler
+     */
+    private record Report(long clientOrderId, UUID orderId, byte execType, int status, RejectReason rejectReason, int filled,
+            int remaining, double avgPrice) {}
+
+    @BeforeEach
+    public void setupGateway() throws IOException {
+        market = new MarketService();
+        john = market.registerTrader("John");
+        gateway = new TcpOrderGateway(market, new InetSocketAddress("127.0.0.1", 0));
+        gateway.start();
+        client = TcpOrderClient.connect(new InetSocketAddress("127.0.0.1", gateway.getPort()));
+    }
+
+    @AfterEach
+    public void closeGateway() throws IOException {
+        client.close();
+        gateway.close();
+    }
+
+    private List<Report> readReports(int count) throws IOException {
+        List<Report> reports = new ArrayList<>();
+        while (reports.size() < count) {
+            client.pollReports(r -> reports.add(new Report(r.getClientOrderId(), r.getOrderId(), r.getExecType(),
+                r.getStatusCode(), r.getRejectReason(), r.getFilledVolume(), r.getRemainingVolume(), r.getAvgPrice())));
+        }
+        return reports;
+    }
+
+    @Test
+    @DisplayName("Orders, amends and cancels sent over the wire reach the engine and are reported back in order")
+    public void orderLifecycleOverTcp() throws IOException {
+        assertTrue(client.logon(john.getId()));
+
+        client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00);
+        client.newOrder(2, OrderSide.BUY, OrderType.MARKET, 40, 0);
+        client.flush();
+
+        // The buy fills John's own resting sell, so the replies are followed by a fill of the sell
+        List<Report> reports = readReports(3);
+        Report resting = reports.get(0);
+        assertEquals(1, resting.clientOrderId());
+        assertEquals(OrderEntryProtocol.EXEC_NEW, resting.execType());
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), resting.status());
+        assertEquals(resting.orderId(), market.getBook().getBestOffer().getOrderId());
+
+        Report filled = reports.get(1);
+        assertEquals(OrderStatus.FILLED.ordinal(), filled.status());
+        assertEquals(40, filled.filled());
+        assertEquals(10.00, filled.avgPrice());
+        assertEquals(OrderEntryProtocol.EXEC_FILL, reports.get(2).execType());
+        assertEquals(resting.orderId(), reports.get(2).orderId());
+
+        client.amend(3, resting.orderId(), OrderSide.SELL, 30);
+        client.flush();
+        Report amended = readReports(1).get(0);
+        assertEquals(OrderEntryProtocol.EXEC_AMEND, amended.execType());
+        assertEquals(1, amended.status());
+        assertEquals(30, market.getBook().getBestOffer().getVolume());
+
+        client.cancel(4, resting.orderId(), OrderSide.SELL);
+        client.cancel(5, resting.orderId(), OrderSide.SELL);
+        client.flush();
+        List<Report> cancels = readReports(2);
+        assertEquals(1, cancels.get(0).status());
+        assertEquals(0, cancels.get(1).status());
+        assertTrue(market.getBook().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Orders are rejected before logon and when their fields are invalid")
+    public void invalidRequestsAreRejected() throws IOException {
+        client.newOrder(1, OrderSide.BUY, OrderType.LIMIT, 10, 10.00);
+        client.flush();
+        Report notLoggedOn = readReports(1).get(0);
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, notLoggedOn.execType());
+        assertEquals(RejectReason.UNKNOWN_TRADER, notLoggedOn.rejectReason());
+
+        assertFalse(client.logon(UUID.randomUUID()));
+        assertTrue(client.logon(john.getId()));
+
+        client.newOrder(2, OrderSide.BUY, OrderType.LIMIT, 0, 10.00);
+        client.newOrder(3, OrderSide.BUY, OrderType.LIMIT, 10, -1);
+        client.flush();
+        List<Report> reports = readReports(2);
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(0).execType());
+        assertEquals(RejectReason.INVALID_VOLUME, reports.get(0).rejectReason());
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(1).execType());
+        assertEquals(RejectReason.INVALID_PRICE, reports.get(1).rejectReason());
+        assertTrue(market.getBook().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A well framed message of a type clients don't send is rejected without dropping the session")
+    public void nonRequestFramesAreRejected() throws IOException {
+        try (SocketChannel raw = SocketChannel.open(new InetSocketAddress("127.0.0.1", gateway.getPort()))) {
+            ByteBuffer buf = ByteBuffer.allocate(128).order(OrderEntryProtocol.BYTE_ORDER);
+            // Too short to hold the order fields of a request, so it must not be read as one
+            OrderEntryProtocol.encodeLogonAck(buf, true);
+            OrderEntryProtocol.encodeLogon(buf, john.getId());
+            buf.flip();
+            while (buf.hasRemaining()) {
+                raw.write(buf);
+            }
+
+            buf.clear().limit(OrderEntryProtocol.EXECUTION_REPORT_LENGTH + OrderEntryProtocol.LOGON_ACK_LENGTH);
+            while (buf.hasRemaining()) {
+                assertTrue(raw.read(buf) >= 0);
+            }
+            assertEquals(OrderEntryProtocol.EXECUTION_REPORT, buf.get(OrderEntryProtocol.TYPE_OFFSET));
+            assertEquals(OrderEntryProtocol.EXEC_REJECT, buf.get(OrderEntryProtocol.EXEC_TYPE_OFFSET));
+            assertEquals(RejectReason.INVALID_REQUEST.getCode(), buf.get(OrderEntryProtocol.REJECT_REASON_OFFSET));
+            int ack = OrderEntryProtocol.EXECUTION_REPORT_LENGTH;
+            assertEquals(OrderEntryProtocol.LOGON_ACK, buf.get(ack + OrderEntryProtocol.TYPE_OFFSET));
+            assertEquals(1, buf.get(ack + OrderEntryProtocol.ACCEPTED_OFFSET));
+        }
+    }
+
+    @Test
+    @DisplayName("A session can't cancel or amend another trader's orders, even knowing their ids")
+    public void otherTradersOrdersAreRejected() throws IOException {
+        Trader jane = market.registerTrader("Jane");
+        LimitOrder janes = new LimitOrder(OrderSide.SELL, jane, 10, 10.00);
+        market.placeOrder(janes);
+        assertTrue(client.logon(john.getId()));
+
+        client.cancel(1, janes.getOrderId(), OrderSide.SELL);
+        client.amend(2, janes.getOrderId(), OrderSide.SELL, 1);
+        client.flush();
+        List<Report> reports = readReports(2);
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(0).execType());
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(1).execType());
+        assertTrue(reports.stream().allMatch(r -> r.rejectReason() == RejectReason.NOT_ORDER_OWNER));
+        assertEquals(janes, market.getBook().getBestOffer());
+        assertEquals(10, janes.getVolume());
+    }
+
+    @Test
+    @DisplayName("A request that fails inside the market is rejected and the gateway keeps serving the session")
+    public void failingRequestIsRejected() throws IOException {
+        market.getEngine().addSubscriber(res -> {
+            if (res.getRemainingVolume() == 13) {
+                throw new IllegalStateException("Subscriber failed");
+            }
+        });
+        assertTrue(client.logon(john.getId()));
+
+        client.newOrder(1, OrderSide.BUY, OrderType.LIMIT, 13, 10.00);
+        client.newOrder(2, OrderSide.BUY, OrderType.LIMIT, 10, 10.00);
+        client.flush();
+        List<Report> reports = readReports(2);
+        assertEquals(OrderEntryProtocol.EXEC_REJECT, reports.get(0).execType());
+        assertEquals(1, reports.get(0).clientOrderId());
+        assertEquals(RejectReason.REQUEST_FAILED, reports.get(0).rejectReason());
+        assertEquals(OrderEntryProtocol.EXEC_NEW, reports.get(1).execType());
+        assertEquals(OrderStatus.ALL_RESTING.ordinal(), reports.get(1).status());
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Sustained pipelined throughput on a single connection")
+    public void throughput() throws IOException {
+        assertTrue(client.logon(john.getId()));
+
+        int window = 2000;
+        int windows = 100;
+        int[] received = new int[1];
+
+        long start = System.nanoTime();
+        for (int w = 0; w < windows; w++) {
+            for (int i = 0; i < window; i++) {
+                // Alternate sides at one price so the book never grows
+                OrderSide side = (i % 2 == 0) ? OrderSide.SELL : OrderSide.BUY;
+                client.newOrder(w * window + i, side, OrderType.LIMIT, 10, 100.00);
+            }
+            client.flush();
+
+            int target = (w + 1) * window;
+            while (received[0] < target) {
+                // Every buy also fills the sell before it, which is reported as well as the replies
+                client.pollReports(r -> received[0] += r.getExecType() == OrderEntryProtocol.EXEC_FILL ? 0 : 1);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(window * windows, received[0]);
+        assertTrue(market.getBook().isEmpty());
+        System.out.printf("TCP gateway: %d messages in %.1f ms (%.0f msgs/s)%n", received[0], elapsed / 1e6,
+            received[0] / (elapsed / 1e9));
+    }
+
+    @Test
+    @DisplayName("Fills of resting orders by other traders are reported to every session of the order's trader")
+    public void passiveFillsAreReported() throws IOException {
+        Trader jane = market.registerTrader("Jane");
+        assertTrue(client.logon(john.getId()));
+        try (TcpOrderClient second = TcpOrderClient.connect(new InetSocketAddress("127.0.0.1", gateway.getPort()));
+                TcpOrderClient janes = TcpOrderClient.connect(new InetSocketAddress("127.0.0.1", gateway.getPort()))) {
+            assertTrue(second.logon(john.getId()));
+            assertTrue(janes.logon(jane.getId()));
+
+            client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00);
+            client.flush();
+            Report resting = readReports(1).get(0);
+
+            janes.newOrder(1, OrderSide.BUY, OrderType.MARKET, 30, 0);
+            janes.newOrder(2, OrderSide.BUY, OrderType.LIMIT, 70, 10.00);
+            janes.flush();
+
+            List<Report> fills = readReports(2);
+            for (Report fill : fills) {
+                assertEquals(OrderEntryProtocol.EXEC_FILL, fill.execType());
+                assertEquals(0, fill.clientOrderId());
+                assertEquals(resting.orderId(), fill.orderId());
+                assertEquals(10.00, fill.avgPrice());
+            }
+            assertEquals(30, fills.get(0).filled());
+            assertEquals(70, fills.get(0).remaining());
+            assertEquals(OrderStatus.PARTIAL_RESTING.ordinal(), fills.get(0).status());
+            assertEquals(70, fills.get(1).filled());
+            assertEquals(0, fills.get(1).remaining());
+            assertEquals(OrderStatus.FILLED.ordinal(), fills.get(1).status());
+
+            int[] secondFills = new int[1];
+            while (secondFills[0] < 2) {
+                second.pollReports(r -> secondFills[0] += r.getExecType() == OrderEntryProtocol.EXEC_FILL ? 1 : 0);
+            }
+
+            // The aggressor only gets its replies
+            List<Report> janesReports = new ArrayList<>();
+            while (janesReports.size() < 2) {
+                janes.pollReports(r -> janesReports.add(new Report(r.getClientOrderId(), r.getOrderId(), r.getExecType(),
+                    r.getStatusCode(), r.getRejectReason(), r.getFilledVolume(), r.getRemainingVolume(), r.getAvgPrice())));
+            }
+            assertTrue(janesReports.stream().allMatch(r -> r.execType() == OrderEntryProtocol.EXEC_NEW));
+        }
+    }
+
+    @Test
+    @DisplayName("With cancel on disconnect, losing a session pulls the trader's resting orders")
+    public void cancelOnDisconnect() throws IOException, InterruptedException {
+        gateway.enableCancelOnDisconnect();
+        Trader jane = market.registerTrader("Jane");
+        market.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 9.00));
+
+        assertTrue(client.logon(john.getId()));
+        client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00);
+        client.newOrder(2, OrderSide.SELL, OrderType.LIMIT, 100, 10.50);
+        client.flush();
+        readReports(2);
+        assertEquals(2, market.getBook().getNumOffers());
+
+        client.close();
+        // The depth view is the book's thread safe view, read here while the gateway thread pulls the orders
+        while (market.getBook().getDepthView().snapshot().numOffers() > 0) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, market.getBook().getDepthView().snapshot().numBids());
+    }
+
+    @Test
+    @DisplayName("With cancel on disconnect, a trader's orders stay while they still have a session logged on")
+    public void cancelOnLastDisconnect() throws IOException, InterruptedException {
+        gateway.enableCancelOnDisconnect();
+        assertTrue(client.logon(john.getId()));
+        TcpOrderClient second = TcpOrderClient.connect(new InetSocketAddress("127.0.0.1", gateway.getPort()));
+        assertTrue(second.logon(john.getId()));
+
+        client.newOrder(1, OrderSide.SELL, OrderType.LIMIT, 100, 10.00);
+        client.flush();
+        readReports(1);
+        client.close();
+        // Nothing is sent back for the first session going, so the gateway is given time to see it
+        Thread.sleep(100);
+
+        second.newOrder(2, OrderSide.SELL, OrderType.LIMIT, 100, 10.50);
+        second.flush();
+        int[] replies = new int[1];
+        while (replies[0] < 1) {
+            replies[0] += second.pollReports(r -> {});
+        }
+        assertEquals(2, market.getBook().getDepthView().snapshot().numOffers());
+
+        second.close();
+        while (market.getBook().getDepthView().snapshot().numOffers() > 0) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package market.ingest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.MarketService;
+import market.orders.FOKOrder;
+import market.orders.IOCOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.PricedOrder;
+import market.trader.Trader;
+
+@Timeout(10)
+public class OrderFileIngestorTests {
+    @TempDir
+    Path dir;
+
+    private MarketService market;
+    private Trader john;
+    private Trader jane;
+    private List<Order> received;
+
+    @BeforeEach
+    public void setupMarket() {
+        market = new MarketService();
+        john = market.registerTrader("John");
+        jane = market.registerTrader("Jane");
+        received = new ArrayList<>();
+    }
+
+    private OrderFileIngestor capturingIngestor(int parallelism, int chunkSize) {
+        return new OrderFileIngestor(market::getTrader, received::addAll, market.getOrderFactory(), parallelism, chunkSize, 3);
+    }
+
+    @Test
+    @DisplayName("CSV files are parsed into the right order types, skipping the header and counting bad lines")
+    public void csvOrderTypes() throws IOException {
+        Path file = dir.resolve("orders.csv");
+        Files.writeString(file, String.join("\n",
+            "type,side,traderId,volume,price",
+            "LIMIT,BUY," + john.getId() + ",100,10.25",
+            "MARKET,SELL," + jane.getId() + ",40,",
+            "FOK, SELL ," + jane.getId() + ",10,9.5\r",
+            "IOC,BUY," + john.getId() + ",5,11",
+            "LIMIT,BUY," + john.getId() + ",0,10",
+            "LIMIT,UP," + john.getId() + ",10,10",
+            "LIMIT,BUY,not-a-trader,10,10",
+            "",
+            "LIMIT,SELL," + jane.getId() + ",7,1e1"));
+
+        IngestResult res = capturingIngestor(2, 1024).ingest(file, OrderFileFormat.CSV);
+
+        assertEquals(5, res.ordersPlaced());
+        assertEquals(3, res.linesRejected());
+        assertInstanceOf(LimitOrder.class, received.get(0));
+        assertEquals(10.25, ((PricedOrder) received.get(0)).getPrice());
+        assertEquals(john.getId(), received.get(0).getTraderId());
+        assertInstanceOf(MarketOrder.class, received.get(1));
+        assertEquals(OrderSide.SELL, received.get(1).getSide());
+        assertInstanceOf(FOKOrder.class, received.get(2));
+        assertInstanceOf(IOCOrder.class, received.get(3));
+        assertEquals(10.0, ((PricedOrder) received.get(4)).getPrice());
+    }
+
+    @Test
+    @DisplayName("JSON lines may order fields freely and market orders may have a null price")
+    public void jsonLines() throws IOException {
+        Path file = dir.resolve("orders.jsonl");
+        Files.writeString(file, String.join("\n",
+            "{\"type\": \"LIMIT\", \"side\": \"SELL\", \"traderId\": \"" + jane.getId() + "\", \"volume\": 50, \"price\": 12.5}",
+            "{\"volume\":20,\"price\":null,\"traderId\":\"" + john.getId() + "\",\"side\":\"BUY\",\"type\":\"MARKET\"}",
+            "{\"type\": \"LIMIT\", \"side\": \"SELL\"",
+            "{\"type\": \"LIMIT\", \"side\": \"SELL\", \"traderId\": \"" + jane.getId() + "\", \"volume\": 5, \"price\": 13}"));
+
+        IngestResult res = new OrderFileIngestor(market).ingest(file, OrderFileFormat.JSON_LINES);
+
+        assertEquals(3, res.ordersPlaced());
+        assertEquals(1, res.linesRejected());
+        assertEquals(2, market.getBook().getNumOffers());
+        assertEquals(30, market.getBook().getBestOffer().getVolume());
+    }
+
+    @Test
+    @DisplayName("Orders split over many small chunks parsed in parallel still reach the engine in file order")
+    public void chunksKeepFileOrder() throws IOException {
+        Path file = dir.resolve("many.csv");
+        StringBuilder sb = new StringBuilder();
+        int n = 2000;
+        for (int i = 1; i <= n; i++) {
+            sb.append("LIMIT,BUY,").append(john.getId()).append(',').append(i).append(",100\n");
+        }
+        Files.writeString(file, sb.toString());
+
+        IngestResult res = capturingIngestor(4, 256).ingest(file, OrderFileFormat.CSV);
+
+        assertEquals(n, res.ordersPlaced());
+        assertEquals(0, res.linesRejected());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, received.get(i).getVolume());
+        }
+    }
+
+    @Test
+    @DisplayName("A line longer than the chunk size is reported rather than split")
+    public void lineLongerThanChunk() throws IOException {
+        Path file = dir.resolve("long.csv");
+        Files.writeString(file, "LIMIT,BUY," + john.getId() + ",10,10\nLIMIT,BUY," + john.getId() + ",10,10\n");
+
+        assertThrows(IOException.class, () -> capturingIngestor(1, 16).ingest(file, OrderFileFormat.CSV));
+    }
+}
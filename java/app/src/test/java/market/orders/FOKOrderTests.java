@@ -12,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import market.OrderBook;
 import market.Trade;
+import market.TreeOrderBook;
 import market.matching.MatchResult;
 import market.matching.MatchingEngine;
 import market.matching.OrderStatus;
@@ -26,7 +27,7 @@ public class FOKOrderTests {
 
     @BeforeEach
     public void setupMarket() {
-        book = new OrderBook();
+        book = new TreeOrderBook();
         eng = new MatchingEngine(book);
 
         List<String> names = List.of("John", "Jane", "Jack", "Dave", "Mike", "Sally");
@@ -12,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import market.OrderBook;
 import market.Trade;
+import market.TreeOrderBook;
 import market.matching.MatchResult;
 import market.matching.MatchingEngine;
 import market.matching.OrderStatus;
@@ -28,7 +29,7 @@ public class IOCOrderTests {
 
     @BeforeEach
     public void setupMarket() {
-        book = new OrderBook();
+        book = new TreeOrderBook();
         eng = new MatchingEngine(book);
 
         List<String> names = List.of("John", "Jane", "Jack", "Dave", "Mike", "Sally");
@@ -0,0 +1,157 @@
+package market.orders;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import market.BookSnapshot;
+import market.OrderBook;
+import market.Trade;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(5)
+class IcebergOrderTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("A resting iceberg only shows its display volume")
+    public void restingIcebergShowsSlice() {
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 100, 10.00, 15);
+        MatchResult res = eng.placeOrder(iceberg);
+
+        assertEquals(OrderStatus.ALL_RESTING, res.getStatus());
+        assertEquals(100, res.getRemainingVolume());
+        assertEquals(15, iceberg.getVolume());
+        assertEquals(85, iceberg.getHiddenVolume());
+
+        BookSnapshot snapshot = book.getDepthView().snapshot();
+        assertEquals(15, snapshot.getBestOffer().volume());
+    }
+
+    @Test
+    @DisplayName("A used up slice is refilled from the reserve and moves to the back of its level")
+    public void refillLosesPriority() {
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 30, 10.00, 10);
+        LimitOrder later = new LimitOrder(OrderSide.SELL, jane, 10, 10.00);
+        eng.placeOrder(iceberg);
+        eng.placeOrder(later);
+
+        Trade first = eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 10)).getTrades().get(0);
+        assertEquals(iceberg.getOrderId(), first.offerId());
+        assertEquals(10, iceberg.getVolume());
+        assertEquals(10, iceberg.getHiddenVolume());
+        assertEquals(later.getOrderId(), book.getBestOffer().getOrderId());
+
+        Trade second = eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 10)).getTrades().get(0);
+        assertEquals(later.getOrderId(), second.offerId());
+        assertEquals(iceberg.getOrderId(), book.getBestOffer().getOrderId());
+        assertEquals(1, book.getNumOffers());
+    }
+
+    @Test
+    @DisplayName("Large orders trade through the hidden reserve")
+    public void sweepReserve() {
+        eng.placeOrder(new IcebergOrder(OrderSide.BUY, john, 50, 10.00, 5));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 9.00));
+
+        MatchResult res = eng.placeOrder(new MarketOrder(OrderSide.SELL, jane, 55));
+        assertEquals(OrderStatus.FILLED, res.getStatus());
+        assertEquals(11, res.getTrades().size());
+        assertEquals(5, book.getBestBid().getVolume());
+        assertEquals(9.00, book.getBestBid().getPrice());
+    }
+
+    @Test
+    @DisplayName("FOK orders count hidden volume and leave the book alone when killed")
+    public void fokCountsHiddenVolume() {
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 30, 10.00, 10);
+        LimitOrder visible = new LimitOrder(OrderSide.SELL, jane, 5, 9.50);
+        eng.placeOrder(visible);
+        eng.placeOrder(iceberg);
+
+        MatchResult killed = eng.placeOrder(new FOKOrder(OrderSide.BUY, jane, 36, 10.00));
+        assertEquals(OrderStatus.ALL_REJECTED, killed.getStatus());
+        assertTrue(killed.getTrades().isEmpty());
+        assertEquals(visible.getOrderId(), book.getBestOffer().getOrderId());
+        assertEquals(5, visible.getVolume());
+        assertEquals(30, iceberg.getTotalVolume());
+
+        MatchResult filled = eng.placeOrder(new FOKOrder(OrderSide.BUY, jane, 35, 10.00));
+        assertEquals(OrderStatus.FILLED, filled.getStatus());
+        assertEquals(35, filled.getFilledVolume());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("IOC orders fill from hidden volume within their limit")
+    public void iocUsesHiddenVolume() {
+        eng.placeOrder(new IcebergOrder(OrderSide.SELL, john, 30, 10.00, 10));
+
+        MatchResult res = eng.placeOrder(new IOCOrder(OrderSide.BUY, jane, 40, 10.00));
+        assertEquals(OrderStatus.PARTIAL_REJECTION, res.getStatus());
+        assertEquals(30, res.getFilledVolume());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("An incoming iceberg matches with its whole volume before resting the remainder")
+    public void incomingIceberg() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 12, 10.00));
+
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.BUY, john, 50, 10.00, 10);
+        MatchResult res = eng.placeOrder(iceberg);
+        assertEquals(OrderStatus.PARTIAL_RESTING, res.getStatus());
+        assertEquals(12, res.getFilledVolume());
+        assertEquals(38, res.getRemainingVolume());
+        assertEquals(10, book.getBestBid().getVolume());
+        assertEquals(28, iceberg.getHiddenVolume());
+    }
+
+    @Test
+    @DisplayName("Icebergs can be cancelled and amended to a new total volume")
+    public void cancelAndAmend() {
+        IcebergOrder iceberg = new IcebergOrder(OrderSide.SELL, john, 30, 10.00, 10);
+        eng.placeOrder(iceberg);
+
+        assertFalse(eng.amendOrder(iceberg.getOrderId(), OrderSide.SELL, -1));
+        assertEquals(30, iceberg.getTotalVolume());
+        assertTrue(eng.amendOrder(iceberg.getOrderId(), OrderSide.SELL, 14));
+        assertEquals(10, iceberg.getVolume());
+        assertEquals(4, iceberg.getHiddenVolume());
+        assertEquals(10, book.getDepthView().snapshot().getBestOffer().volume());
+
+        assertTrue(eng.cancelOrder(iceberg.getOrderId(), OrderSide.SELL));
+        assertTrue(book.isEmpty());
+        assertNull(book.getDepthView().snapshot().getBestOffer());
+    }
+
+    @Test
+    @DisplayName("Trades from sell orders name the resting bid")
+    public void sellTradeIds() {
+        LimitOrder bid = new LimitOrder(OrderSide.BUY, john, 10, 10.00);
+        eng.placeOrder(bid);
+
+        MarketOrder offer = new MarketOrder(OrderSide.SELL, jane, 10);
+        Trade trade = eng.placeOrder(offer).getTrades().get(0);
+        assertEquals(bid.getOrderId(), trade.bidId());
+        assertEquals(offer.getOrderId(), trade.offerId());
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 
 import market.OrderBook;
+import market.TreeOrderBook;
 import market.matching.MatchResult;
 import market.matching.MatchingEngine;
 import market.matching.OrderStatus;
@@ -27,7 +28,7 @@ class LimitOrderTests {
 
     @BeforeEach
     public void setupMarket() {
-        book = new OrderBook();
+        book = new TreeOrderBook();
         eng = new MatchingEngine(book);
 
         List<String> names = List.of("John", "Jane", "Jack", "Dave", "Mike", "Sally");
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.BeforeEach;
 
 import market.OrderBook;
+import market.TreeOrderBook;
 import market.matching.MatchResult;
 import market.matching.MatchingEngine;
 import market.matching.OrderStatus;
@@ -25,7 +26,7 @@ class MarketOrderTests {
 
     @BeforeEach
     public void setupMarket() {
-        book = new OrderBook();
+        book = new TreeOrderBook();
         eng = new MatchingEngine(book);
 
         List<String> names = List.of("John", "Jane", "Jack", "Dave", "Mike", "Sally");
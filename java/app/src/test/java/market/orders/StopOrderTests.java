@@ -0,0 +1,177 @@
+package market.orders;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import market.OrderBook;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Timeout(10)
+class StopOrderTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+    private List<MatchResult> notified;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+        notified = new ArrayList<>();
+        eng.addSubscriber(notified::add);
+    }
+
+    @Test
+    @DisplayName("A buy stop waits off the book until a trade reaches its trigger price, then trades as a market order")
+    public void buyStopTriggers() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 100));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 101));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 102));
+
+        StopOrder stop = new StopMarketOrder(OrderSide.BUY, john, 15, 101);
+        MatchResult stopRes = eng.placeOrder(stop);
+        assertEquals(OrderStatus.PENDING, stopRes.getStatus());
+        assertEquals(1, eng.getTriggerBook().getNumStops());
+        assertEquals(3, book.getNumOffers());
+
+        // Trades at 100 only, which is below the trigger
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 10));
+        assertEquals(1, eng.getTriggerBook().getNumStops());
+
+        // Trades at 101, triggering the stop which takes the rest of 101 and 10 at 102
+        notified.clear();
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 5));
+        assertTrue(eng.getTriggerBook().isEmpty());
+        assertEquals(2, notified.size());
+
+        MatchResult triggered = notified.get(1);
+        assertEquals(stop.getOrderId(), triggered.getOrderId());
+        assertEquals(OrderStatus.FILLED, triggered.getStatus());
+        assertEquals(15, triggered.getFilledVolume());
+        assertEquals(2, triggered.getTrades().size());
+        assertEquals(102.0, eng.getLastTradePrice());
+        assertNull(book.getBestOffer());
+    }
+
+    @Test
+    @DisplayName("A triggered sell stop limit rests any volume it can't fill at its limit")
+    public void sellStopLimitRests() {
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 100));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 98));
+
+        StopLimitOrder stop = new StopLimitOrder(OrderSide.SELL, john, 30, 100, 99);
+        eng.placeOrder(stop);
+        eng.placeOrder(new MarketOrder(OrderSide.SELL, jane, 5));
+
+        MatchResult triggered = notified.get(notified.size() - 1);
+        assertEquals(stop.getOrderId(), triggered.getOrderId());
+        assertEquals(OrderStatus.PARTIAL_RESTING, triggered.getStatus());
+        assertEquals(5, triggered.getFilledVolume());
+        assertEquals(25, book.getBestOffer().getVolume());
+        assertEquals(99, book.getBestOffer().getPrice());
+        assertEquals(stop.getOrderId(), book.getBestOffer().getOrderId());
+    }
+
+    @Test
+    @DisplayName("Cascading stops run nearest the market first, arrival order within a price, then in trigger order")
+    public void cascadeOrder() {
+        for (int price = 100; price <= 105; price++) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, price));
+        }
+
+        StopOrder far = new StopMarketOrder(OrderSide.BUY, john, 5, 102);
+        StopOrder nearFirst = new StopMarketOrder(OrderSide.BUY, john, 5, 101);
+        StopOrder nearSecond = new StopMarketOrder(OrderSide.BUY, jane, 10, 101);
+        // Only reached by the trades of the stops above
+        StopOrder cascaded = new StopMarketOrder(OrderSide.BUY, john, 1, 103);
+        eng.placeOrder(far);
+        eng.placeOrder(nearFirst);
+        eng.placeOrder(nearSecond);
+        eng.placeOrder(cascaded);
+
+        notified.clear();
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 15));
+
+        List<UUID> order = notified.stream().map(MatchResult::getOrderId).toList();
+        assertEquals(List.of(notified.get(0).getOrderId(), nearFirst.getOrderId(), nearSecond.getOrderId(), far.getOrderId(),
+            cascaded.getOrderId()), order);
+        assertTrue(eng.getTriggerBook().isEmpty());
+        assertEquals(103.0, eng.getLastTradePrice());
+    }
+
+    @Test
+    @DisplayName("Waiting stops can be cancelled and amended")
+    public void cancelAndAmendStops() {
+        StopOrder buyStop = new StopMarketOrder(OrderSide.BUY, john, 10, 101);
+        StopOrder sellStop = new StopLimitOrder(OrderSide.SELL, john, 10, 99, 98);
+        eng.placeOrder(buyStop);
+        eng.placeOrder(sellStop);
+
+        assertFalse(eng.cancelOrder(buyStop.getOrderId(), OrderSide.SELL));
+        assertTrue(eng.cancelOrder(buyStop.getOrderId(), OrderSide.BUY));
+        assertFalse(eng.cancelOrder(buyStop.getOrderId(), OrderSide.BUY));
+
+        assertFalse(eng.amendOrder(sellStop.getOrderId(), OrderSide.SELL, 0));
+        assertTrue(eng.amendOrder(sellStop.getOrderId(), OrderSide.SELL, 3));
+        assertEquals(3, eng.getTriggerBook().getStop(sellStop.getOrderId()).getVolume());
+        assertEquals(1, eng.getTriggerBook().getNumStops());
+    }
+
+    @Test
+    @DisplayName("A stop whose trigger has already been traded through is triggered straight away")
+    public void alreadyTriggered() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 100));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 101));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 5));
+
+        MatchResult res = eng.placeOrder(new StopMarketOrder(OrderSide.BUY, john, 10, 99));
+        assertEquals(OrderStatus.FILLED, res.getStatus());
+        assertEquals(100.5, res.getAvgMatchPrice());
+        assertTrue(eng.getTriggerBook().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Stop order prices are validated")
+    public void invalidTriggers() {
+        assertThrows(IllegalArgumentException.class, () -> new StopMarketOrder(OrderSide.BUY, john, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StopLimitOrder(OrderSide.BUY, john, 10, 100, -1));
+        assertThrows(IllegalArgumentException.class, () -> new StopLimitOrder(OrderSide.BUY, john, 0, 100, 100));
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("A trade only visits the stops it triggers, however many are waiting")
+    public void manyWaitingStops() {
+        for (int i = 0; i < 200_000; i++) {
+            eng.placeOrder(new StopMarketOrder(OrderSide.BUY, john, 1, 200 + (i % 1000) / 10.0));
+            eng.placeOrder(new StopMarketOrder(OrderSide.SELL, john, 1, 50 - (i % 1000) / 100.0));
+        }
+        assertEquals(400_000, eng.getTriggerBook().getNumStops());
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 1_000_000, 100));
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            eng.placeOrder(new MarketOrder(OrderSide.BUY, jane, 1));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(400_000, eng.getTriggerBook().getNumStops());
+        System.out.printf("100000 trades with 400000 waiting stops took %d ms%n", elapsed / 1_000_000);
+    }
+}
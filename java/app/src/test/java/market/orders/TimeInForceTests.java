@@ -0,0 +1,141 @@
+package market.orders;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
+
+import market.OrderBook;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.RejectReason;
+import market.replay.SimulatedClock;
+import market.trader.Trader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+@Timeout(10)
+class TimeInForceTests {
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 3, 4, 8, 0);
+
+    private SimulatedClock clock;
+    private OrderBook book;
+    private MatchingEngine eng;
+    private Trader john;
+
+    @BeforeEach
+    public void setupMarket() {
+        clock = new SimulatedClock();
+        clock.setTimeNanos(toNanos(OPEN));
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book, clock);
+        eng.setSessionClose(LocalTime.of(16, 30));
+        john = new Trader("John");
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private LimitOrder order(OrderSide side, double price, TimeInForce tif, LocalDateTime expiry) {
+        LimitOrder order = new LimitOrder(side, john, 10, price, UUID.randomUUID(), LocalDateTime.now(clock));
+        order.setTimeInForce(tif, expiry);
+        return order;
+    }
+
+    @Test
+    @DisplayName("DAY orders expire at the session close, GTD at the close of their date and GTT at their time")
+    public void expiryTimes() {
+        LimitOrder gtc = order(OrderSide.BUY, 9, TimeInForce.GTC, null);
+        LimitOrder day = order(OrderSide.BUY, 10, TimeInForce.DAY, null);
+        LimitOrder gtd = order(OrderSide.SELL, 12, TimeInForce.GTD, OPEN.plusDays(1));
+        LimitOrder gtt = order(OrderSide.SELL, 11, TimeInForce.GTT, OPEN.plusMinutes(30));
+        for (LimitOrder order : List.of(gtc, day, gtd, gtt)) {
+            eng.placeOrder(order);
+        }
+
+        clock.setTimeNanos(toNanos(OPEN.plusMinutes(30)) - 1);
+        assertTrue(eng.expireOrders().isEmpty());
+        clock.setTimeNanos(toNanos(OPEN.plusMinutes(30)));
+        assertEquals(List.of(gtt), eng.expireOrders());
+        assertEquals(gtd.getOrderId(), book.getBestOffer().getOrderId());
+
+        clock.setTimeNanos(toNanos(OPEN.with(LocalTime.of(16, 30))));
+        assertEquals(List.of(day), eng.expireOrders());
+        assertEquals(gtc.getOrderId(), book.getBestBid().getOrderId());
+
+        clock.setTimeNanos(toNanos(OPEN.plusDays(1).with(LocalTime.of(16, 30))));
+        assertEquals(List.of(gtd), eng.expireOrders());
+        assertEquals(1, book.getNumBids());
+        assertEquals(0, book.getNumOffers());
+    }
+
+    @Test
+    @DisplayName("Expired orders are removed before the next order can trade with them")
+    public void expiredOrdersDoNotTrade() {
+        eng.placeOrder(order(OrderSide.SELL, 10, TimeInForce.GTT, OPEN.plusSeconds(1)));
+        clock.advanceNanos(1_000_000_000L);
+
+        assertTrue(eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 10)).getTrades().isEmpty());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Filled and cancelled orders are not expired again")
+    public void filledAndCancelled() {
+        LimitOrder filled = order(OrderSide.SELL, 10, TimeInForce.DAY, null);
+        LimitOrder cancelled = order(OrderSide.SELL, 11, TimeInForce.DAY, null);
+        LimitOrder remaining = order(OrderSide.SELL, 12, TimeInForce.DAY, null);
+        eng.placeOrder(filled);
+        eng.placeOrder(cancelled);
+        eng.placeOrder(remaining);
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 10));
+        eng.cancelOrder(cancelled.getOrderId(), OrderSide.SELL);
+
+        clock.setTimeNanos(toNanos(OPEN.with(LocalTime.of(16, 30))));
+        assertEquals(List.of(remaining), eng.expireOrders());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Orders with a bad or past expiry are refused")
+    public void invalidExpiries() {
+        LimitOrder order = new LimitOrder(OrderSide.BUY, john, 10, 10);
+        assertThrows(IllegalArgumentException.class, () -> order.setTimeInForce(TimeInForce.GTT, null));
+        assertThrows(IllegalArgumentException.class, () -> order.setTimeInForce(TimeInForce.DAY, OPEN));
+        assertThrows(IllegalArgumentException.class, () -> order.setTimeInForce(null, null));
+
+        LimitOrder past = order(OrderSide.BUY, 10, TimeInForce.GTT, OPEN.minusSeconds(1));
+        MatchResult res = eng.placeOrder(past);
+        assertEquals(OrderStatus.ALL_REJECTED, res.getStatus());
+        assertEquals(RejectReason.ALREADY_EXPIRED, res.getRejectReason());
+        assertTrue(book.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Hundreds of thousands of DAY orders expire in one batch at the close")
+    public void massExpiryAtClose() {
+        for (int i = 0; i < 300_000; i++) {
+            clock.advanceNanos(50_000);
+            OrderSide side = i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL;
+            double price = side == OrderSide.BUY ? 90 + (i % 500) / 100.0 : 110 - (i % 500) / 100.0;
+            eng.placeOrder(order(side, price, TimeInForce.DAY, null));
+        }
+        assertEquals(150_000, book.getNumBids());
+
+        clock.setTimeNanos(toNanos(OPEN.with(LocalTime.of(16, 30))));
+        List<PricedOrder> expired = eng.expireOrders();
+
+        assertEquals(300_000, expired.size());
+        assertTrue(book.isEmpty());
+        assertNull(book.getDepthView().snapshot().getBestBid());
+    }
+}
@@ -0,0 +1,87 @@
+package market.replay;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.TreeOrderBook;
+import market.orders.Order;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+@Timeout(30)
+public class DifferentialReplayTests {
+    private static final UUID JOHN = new UUID(1, 1);
+    private static final UUID JANE = new UUID(1, 2);
+
+    /**
+     * A book that misses one unit of volume when an order could take exactly all the volume it can reach, so it wrongly
+     * kills fill or kill orders that would empty its side of the book
+     */
+    private static class ShortSightedOrderBook extends TreeOrderBook {
+        @Override
+        public int getMatchableVolume(Order order, int cap) {
+            int volume = super.getMatchableVolume(order, cap + 1);
+            return volume == cap ? cap - 1 : Math.min(volume, cap);
+        }
+    }
+
+    @Test
+    @DisplayName("Two books of the same implementation agree on a large random flow")
+    public void identicalBooks() {
+        DifferentialReplay replay = new DifferentialReplay(new TreeOrderBook(), new TreeOrderBook(), 7, 1_000);
+
+        DifferentialResult res = replay.run(RandomFlow.of(42).churn(2).generate(200_000));
+
+        assertTrue(res.isIdentical(), res.mismatch());
+        assertEquals(-1, res.mismatchIndex());
+        assertEquals(200_000, res.commands());
+        assertTrue(res.trades() > 10_000);
+        assertEquals(replay.getExpected().getBook().checksum(), replay.getActual().getBook().checksum());
+    }
+
+    @Test
+    @DisplayName("A book with a bug is caught at the first command it gets wrong")
+    public void brokenBook() {
+        DifferentialReplay replay = new DifferentialReplay(new TreeOrderBook(), new ShortSightedOrderBook(), 7, 0);
+
+        DifferentialResult res = replay.run(List.of(
+            new NewOrderCommand(1, null, JOHN, OrderType.LIMIT, OrderSide.SELL, 10, 100),
+            new NewOrderCommand(2, null, JANE, OrderType.FOK, OrderSide.BUY, 5, 100),
+            new NewOrderCommand(3, null, JANE, OrderType.FOK, OrderSide.BUY, 5, 100),
+            new NewOrderCommand(4, null, JANE, OrderType.LIMIT, OrderSide.BUY, 5, 100)));
+
+        assertFalse(res.isIdentical());
+        assertEquals(2, res.mismatchIndex());
+        assertEquals(3, res.commands());
+        assertTrue(res.mismatch().contains("status"), res.mismatch());
+    }
+
+    @Test
+    @DisplayName("A book with a bug is caught on a random flow")
+    public void brokenBookRandomFlow() {
+        DifferentialReplay replay = new DifferentialReplay(new TreeOrderBook(), new ShortSightedOrderBook(), 7, 100);
+
+        DifferentialResult res = replay.run(RandomFlow.of(42).churn(2).generate(200_000));
+
+        assertFalse(res.isIdentical());
+        assertTrue(res.mismatchIndex() >= 0 && res.mismatchIndex() < 200_000);
+        assertEquals(res.mismatchIndex() + 1, res.commands());
+    }
+
+    @Test
+    @DisplayName("Books that already hold orders can't be compared")
+    public void nonEmptyBook() {
+        TreeOrderBook book = new TreeOrderBook();
+        new ReplayEngine(7, book).apply(new NewOrderCommand(1, null, JOHN, OrderType.LIMIT, OrderSide.SELL, 10, 100));
+
+        assertThrows(IllegalArgumentException.class, () -> new DifferentialReplay(new TreeOrderBook(), book, 7, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new DifferentialReplay(new TreeOrderBook(), new TreeOrderBook(), 7, -1));
+    }
+}
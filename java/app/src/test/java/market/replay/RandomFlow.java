@@ -0,0 +1,121 @@
+package market.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+/**
+ * A random but repeatable flow of orders, cancels and amends for replay tests. By default it trades two traders around a
+ * price of 100, with one command in twenty a cancel, one in twenty an amend and one in twenty a market order
+ */
+public final class RandomFlow {
+    private static final UUID JOHN = new UUID(1, 1);
+    private static final UUID JANE = new UUID(1, 2);
+    // The high half of the ids the flow gives its orders. Replays hand out ids under their own seed, which the tests keep
+    // small and positive, so the two never clash
+    private static final long ORDER_ID_SEED = -1;
+
+    private final long seed;
+    private int churn = 1;
+    private double marketRatio = 0.05;
+    private int maxStep = -1;
+
+    private RandomFlow(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param seed the seed of the flow, the same seed always giving the same flow
+     */
+    public static RandomFlow of(long seed) {
+        return new RandomFlow(seed);
+    }
+
+    /**
+     * Generate a flow with the default mix
+     */
+    public static List<ReplayCommand> generate(long seed, int count) {
+        return of(seed).generate(count);
+    }
+
+    /**
+     * @param churn how many commands in twenty are cancels, and as many again amends, of orders placed earlier
+     */
+    public RandomFlow churn(int churn) {
+        this.churn = churn;
+        return this;
+    }
+
+    /**
+     * @param marketRatio the share of new orders that are market orders
+     */
+    public RandomFlow marketRatio(double marketRatio) {
+        this.marketRatio = marketRatio;
+        return this;
+    }
+
+    /**
+     * Let the price wander instead of staying around 100. Orders are then priced on a grid of 0.01 within two of a mid
+     * price that moves up to a number of ticks with each command, and which only cross it by 0.20 so most of them rest
+     * @param maxStep the most ticks the mid price moves by with one command
+     */
+    public RandomFlow drift(int maxStep) {
+        this.maxStep = maxStep;
+        return this;
+    }
+
+    public List<ReplayCommand> generate(int count) {
+        Random random = new Random(seed);
+        List<ReplayCommand> commands = new ArrayList<>(count);
+        List<UUID> placed = new ArrayList<>();
+        List<OrderSide> placedSides = new ArrayList<>();
+        long time = 1_700_000_000_000_000_000L;
+        int midTick = 10_000;
+
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(5_000);
+            if (maxStep >= 0) {
+                midTick = Math.max(500, midTick + random.nextInt(2 * maxStep + 1) - maxStep);
+            }
+            int kind = random.nextInt(20);
+            if (kind < churn && !placed.isEmpty()) {
+                int idx = random.nextInt(placed.size());
+                commands.add(new CancelCommand(time, placed.get(idx), placedSides.get(idx)));
+            } else if (kind < 2 * churn && !placed.isEmpty()) {
+                int idx = random.nextInt(placed.size());
+                commands.add(new AmendCommand(time, placed.get(idx), placedSides.get(idx), 1 + random.nextInt(50)));
+            } else {
+                OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                OrderType type = OrderType.LIMIT;
+                if (random.nextDouble() < marketRatio) {
+                    type = OrderType.MARKET;
+                } else if (kind == 2 * churn) {
+                    type = OrderType.FOK;
+                } else if (kind == 2 * churn + 1) {
+                    type = OrderType.IOC;
+                }
+                double price;
+                if (maxStep >= 0) {
+                    int offset = random.nextInt(200);
+                    price = (side == OrderSide.BUY ? midTick - offset + 20 : midTick + offset - 20) / 100.0;
+                } else {
+                    price = 95 + random.nextInt(100) / 10.0;
+                }
+                UUID orderId = null;
+                if (random.nextBoolean()) {
+                    orderId = new UUID(ORDER_ID_SEED, i);
+                    placed.add(orderId);
+                    placedSides.add(side);
+                }
+                commands.add(new NewOrderCommand(time, orderId, random.nextBoolean() ? JOHN : JANE, type, side,
+                    1 + random.nextInt(100), price));
+            }
+        }
+
+        return commands;
+    }
+}
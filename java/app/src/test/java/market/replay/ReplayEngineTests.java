@@ -0,0 +1,92 @@
+package market.replay;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.matching.MatchResult;
+import market.orders.OrderSide;
+import market.orders.OrderType;
+
+@Timeout(20)
+public class ReplayEngineTests {
+    private static final UUID JOHN = new UUID(1, 1);
+    private static final UUID JANE = new UUID(1, 2);
+
+    @Test
+    @DisplayName("Replaying the same flow twice gives bit for bit identical output")
+    public void identicalRuns() {
+        List<ReplayCommand> flow = RandomFlow.generate(42, 50_000);
+
+        ReplayResult first = new ReplayEngine(7).replay(flow);
+        ReplayResult second = new ReplayEngine(7).replay(flow);
+
+        assertEquals(first.digest(), second.digest());
+        assertEquals(first.trades(), second.trades());
+        assertEquals(50_000, first.events());
+        assertTrue(first.trades() > 0);
+    }
+
+    @Test
+    @DisplayName("A different flow or id seed gives a different digest")
+    public void differentRuns() {
+        List<ReplayCommand> flow = RandomFlow.generate(42, 5_000);
+
+        String base = new ReplayEngine(7).replay(flow).digest();
+        assertNotEquals(base, new ReplayEngine(8).replay(flow).digest());
+        assertNotEquals(base, new ReplayEngine(7).replay(RandomFlow.generate(43, 5_000)).digest());
+    }
+
+    @Test
+    @DisplayName("Results are stamped with the recorded time and orders without ids get deterministic ones")
+    public void simulatedTimeAndIds() {
+        ReplayEngine replay = new ReplayEngine(7);
+        List<MatchResult> results = new ArrayList<>();
+        replay.getEngine().addSubscriber(results::add);
+        long time = 1_000_000_123L;
+
+        replay.replay(List.of(
+            new NewOrderCommand(time, null, JOHN, OrderType.LIMIT, OrderSide.BUY, 10, 100),
+            new NewOrderCommand(time + 5, null, JANE, OrderType.LIMIT, OrderSide.SELL, 4, 100)));
+
+        assertEquals(2, results.size());
+        assertEquals(new UUID(7, 0), results.get(0).getOrderId());
+        assertEquals(new UUID(7, 1), results.get(1).getOrderId());
+        assertEquals(LocalDateTime.ofEpochSecond(1, 123, ZoneOffset.UTC), results.get(0).getTimestamp());
+        assertEquals(LocalDateTime.ofEpochSecond(1, 128, ZoneOffset.UTC), results.get(1).getTimestamp());
+        assertEquals(6, replay.getBook().getBestBid().getVolume());
+    }
+
+    @Test
+    @DisplayName("Invalid orders are counted as rejections rather than ending the replay")
+    public void rejections() {
+        ReplayResult res = new ReplayEngine(7).replay(List.of(
+            new NewOrderCommand(1, null, JOHN, OrderType.LIMIT, OrderSide.BUY, 0, 100),
+            new NewOrderCommand(2, null, JOHN, OrderType.LIMIT, OrderSide.BUY, 10, 100)));
+
+        assertEquals(2, res.events());
+        assertEquals(1, res.ordersRejected());
+        assertEquals(1, res.ordersPlaced());
+    }
+
+    @Test
+    @DisplayName("The simulated clock never moves backwards")
+    public void clockMonotonic() {
+        SimulatedClock clock = new SimulatedClock();
+        clock.setTimeNanos(100);
+        clock.setTimeNanos(50);
+        assertEquals(100, clock.getTimeNanos());
+        clock.advanceNanos(1_000_000_000);
+        assertEquals(1_000_000_100L, clock.getTimeNanos());
+        assertEquals(1000, clock.millis());
+        assertThrows(IllegalArgumentException.class, () -> clock.advanceNanos(-1));
+    }
+}
@@ -0,0 +1,143 @@
+package market.replication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.orders.OrderSide;
+import market.orders.OrderType;
+import market.replay.NewOrderCommand;
+import market.replay.RandomFlow;
+import market.replay.ReplayCommand;
+import market.replay.ReplayEngine;
+
+@Timeout(30)
+public class ReplicationTests {
+    private static final UUID JOHN = new UUID(1, 1);
+    private static final UUID JANE = new UUID(1, 2);
+    private static final InetSocketAddress LOCALHOST = new InetSocketAddress("127.0.0.1", 0);
+
+    /**
+     * Runs in a second JVM: connects a standby to the primary it is given and prints "STARTED" once it is running. Once
+     * promoted it prints the sequence number applied, the book checksum and the sequence number at which it diverged
+     */
+    public static class StandbyProcess {
+        public static void main(String[] args) throws Exception {
+            ReplicationStandby standby = ReplicationStandby.connect(new ReplayEngine(Long.parseLong(args[3])),
+                new InetSocketAddress(args[0], Integer.parseInt(args[1])), Duration.ofMillis(Long.parseLong(args[2])));
+            standby.setPromotionHandler(s -> System.out.println("PROMOTED " + s.getAppliedSeq() + " "
+                + s.getEngine().getBook().checksum() + " " + s.getDivergedSeq()));
+            standby.start();
+            System.out.println("STARTED");
+            standby.awaitPromotion(Duration.ofMinutes(1));
+        }
+    }
+
+    @Test
+    @DisplayName("The standby applies the primary's log and takes over with an identical book when the primary goes")
+    public void replicateAndFailover() throws Exception {
+        List<ReplayCommand> flow = RandomFlow.generate(41, 20_000);
+        try (ReplicationPrimary primary = new ReplicationPrimary(new ReplayEngine(1), LOCALHOST, Duration.ofMillis(20), 100)) {
+            ReplicationStandby standby = ReplicationStandby.connect(new ReplayEngine(1),
+                new InetSocketAddress("127.0.0.1", primary.getPort()), Duration.ofMillis(500));
+            primary.awaitStandby();
+            standby.start();
+
+            // A quarter one at a time and waiting for each ack, a quarter pipelined one by one and the rest in batches
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(primary.awaitAck(primary.submit(flow.get(i)), Duration.ofSeconds(5)));
+            }
+            for (int i = 5_000; i < 10_000; i++) {
+                primary.submit(flow.get(i));
+            }
+            long last = 0;
+            for (int i = 10_000; i < flow.size(); i += 500) {
+                last = primary.submitAll(flow.subList(i, i + 500));
+            }
+            assertEquals(flow.size(), last);
+            assertTrue(primary.awaitAck(last, Duration.ofSeconds(5)));
+
+            primary.close();
+            assertTrue(standby.awaitPromotion(Duration.ofSeconds(5)));
+            assertEquals(flow.size(), standby.getAppliedSeq());
+            assertEquals(-1, standby.getDivergedSeq());
+            assertEquals(primary.getEngine().getBook().checksum(), standby.getEngine().getBook().checksum());
+
+            // The promoted engine carries on from where the primary stopped
+            assertTrue(standby.getEngine().apply(new NewOrderCommand(Long.MAX_VALUE / 2, null, JOHN, OrderType.LIMIT,
+                OrderSide.BUY, 10, 1.00)));
+            standby.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Heartbeats keep an idle standby from taking over")
+    public void heartbeats() throws Exception {
+        try (ReplicationPrimary primary = new ReplicationPrimary(new ReplayEngine(1), LOCALHOST, Duration.ofMillis(10), 0)) {
+            ReplicationStandby standby = ReplicationStandby.connect(new ReplayEngine(1),
+                new InetSocketAddress("127.0.0.1", primary.getPort()), Duration.ofMillis(200));
+            primary.awaitStandby();
+            standby.start();
+
+            assertFalse(standby.awaitPromotion(Duration.ofMillis(600)));
+            assertTrue(primary.isStandbyConnected());
+            standby.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A standby whose book differs from the primary's reports the divergence at the next checksum")
+    public void divergence() throws Exception {
+        List<ReplayCommand> flow = RandomFlow.generate(3, 1_000);
+        ReplayEngine replica = new ReplayEngine(1);
+        replica.apply(new NewOrderCommand(0, new UUID(9, 9), JOHN, OrderType.LIMIT, OrderSide.BUY, 1_000_000, 50.00));
+
+        try (ReplicationPrimary primary = new ReplicationPrimary(new ReplayEngine(1), LOCALHOST, Duration.ofMillis(20), 100)) {
+            ReplicationStandby standby = ReplicationStandby.connect(replica,
+                new InetSocketAddress("127.0.0.1", primary.getPort()), Duration.ofSeconds(5));
+            primary.awaitStandby();
+            standby.start();
+
+            assertTrue(primary.awaitAck(primary.submitAll(flow), Duration.ofSeconds(5)));
+            assertEquals(100, standby.getDivergedSeq());
+            standby.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A standby in another process takes over with an identical book")
+    public void separateProcess() throws Exception {
+        List<ReplayCommand> flow = RandomFlow.generate(7, 10_000);
+        try (ReplicationPrimary primary = new ReplicationPrimary(new ReplayEngine(5), LOCALHOST, Duration.ofMillis(20), 250)) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                StandbyProcess.class.getName(), "127.0.0.1", String.valueOf(primary.getPort()), "2000", "5")
+                .redirectErrorStream(true).start();
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                primary.awaitStandby();
+                assertEquals("STARTED", reader.readLine());
+                assertTrue(primary.awaitAck(primary.submitAll(flow), Duration.ofSeconds(10)));
+                primary.close();
+
+                String expected = "PROMOTED " + flow.size() + " " + primary.getEngine().getBook().checksum() + " -1";
+                assertEquals(expected, reader.readLine());
+            } catch (IOException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+            assertEquals(0, process.waitFor());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package market.risk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.OrderBook;
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.matching.QuoteResult;
+import market.matching.RejectReason;
+import market.orders.FOKOrder;
+import market.orders.LimitOrder;
+import market.orders.MarketOrder;
+import market.orders.OrderSide;
+import market.orders.Quote;
+import market.trader.Trader;
+
+@Timeout(10)
+public class PreTradeRiskCheckTests {
+    private OrderBook book;
+    private MatchingEngine eng;
+    private PreTradeRiskCheck risk;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        book = new TreeOrderBook();
+        eng = new MatchingEngine(book);
+        risk = new PreTradeRiskCheck(RiskLimits.UNLIMITED);
+        eng.setRiskCheck(risk);
+        john = new Trader("John");
+        jane = new Trader("Jane");
+        risk.setLimits(john.getId(), new RiskLimits(100, 4_000, 150, 3, 0.05));
+    }
+
+    private void assertRejected(RiskRejection reason, MatchResult res) {
+        assertEquals(OrderStatus.ALL_REJECTED, res.getStatus());
+        assertEquals(reason.getMessage(), res.getNote());
+        assertEquals(RejectReason.of(reason), res.getRejectReason());
+        assertTrue(res.getTrades().isEmpty());
+        assertEquals(0, res.getFilledVolume());
+    }
+
+    @Test
+    @DisplayName("Orders over the size or notional limit are rejected without touching the book")
+    public void sizeAndNotional() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 500, 50.00));
+
+        assertRejected(RiskRejection.ORDER_TOO_LARGE, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 101, 50.00)));
+        assertRejected(RiskRejection.NOTIONAL_TOO_LARGE, eng.placeOrder(new FOKOrder(OrderSide.BUY, john, 100, 51.00)));
+        assertRejected(RiskRejection.NOTIONAL_TOO_LARGE, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 100)));
+        assertEquals(500, book.getBestOffer().getVolume());
+
+        MatchResult res = eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 80));
+        assertEquals(OrderStatus.FILLED, res.getStatus());
+    }
+
+    @Test
+    @DisplayName("Positions are updated on every fill, for both sides, and limit later orders")
+    public void positionLimit() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 500, 10.00));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 80));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 60));
+        assertEquals(140, risk.getPosition(john.getId()));
+        assertEquals(-140, risk.getPosition(jane.getId()));
+
+        assertRejected(RiskRejection.POSITION_LIMIT, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 11)));
+
+        // Selling brings the position back within the limit
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 100, 9.90));
+        eng.placeOrder(new MarketOrder(OrderSide.SELL, john, 50));
+        assertEquals(90, risk.getPosition(john.getId()));
+        assertEquals(OrderStatus.FILLED, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 60)).getStatus());
+    }
+
+    @Test
+    @DisplayName("Clearing the engine resets positions but keeps limits")
+    public void clearResetsPositions() {
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 500, 10.00));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 80));
+        eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 60));
+        assertEquals(140, risk.getPosition(john.getId()));
+
+        eng.clear();
+        assertEquals(0, risk.getPosition(john.getId()));
+        assertEquals(0, risk.getPosition(jane.getId()));
+        assertEquals(150, risk.getLimits(john.getId()).maxPosition());
+
+        // The whole limit is available again
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 500, 10.00));
+        assertEquals(OrderStatus.FILLED, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 100)).getStatus());
+    }
+
+    @Test
+    @DisplayName("Resting orders on the same side count towards the worst case position")
+    public void restingExposure() {
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 100, 10.00)).getStatus());
+        assertEquals(100, book.getTraderVolume(john.getId(), OrderSide.BUY));
+        assertRejected(RiskRejection.POSITION_LIMIT, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 60, 10.00)));
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 50, 10.00)).getStatus());
+
+        // Offers don't add to the worst case long position
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 100, 10.50)).getStatus());
+
+        // Fills move volume from resting to the position, which stays within the limit
+        eng.placeOrder(new MarketOrder(OrderSide.SELL, jane, 120));
+        assertEquals(120, risk.getPosition(john.getId()));
+        assertEquals(30, book.getTraderVolume(john.getId(), OrderSide.BUY));
+        assertRejected(RiskRejection.POSITION_LIMIT, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 1)));
+    }
+
+    @Test
+    @DisplayName("Amending an order up is checked like placing it at its new volume, and amending down always passes")
+    public void amendLimits() {
+        LimitOrder order = new LimitOrder(OrderSide.BUY, john, 1, 41.00);
+        eng.placeOrder(order);
+
+        // Over the size limit, then over the notional limit
+        assertFalse(eng.amendOrder(order.getOrderId(), OrderSide.BUY, 101));
+        assertFalse(eng.amendOrder(order.getOrderId(), OrderSide.BUY, 100));
+        assertEquals(1, order.getVolume());
+
+        assertTrue(eng.amendOrder(order.getOrderId(), OrderSide.BUY, 90));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 55, 41.00));
+        assertEquals(145, book.getTraderVolume(john.getId(), OrderSide.BUY));
+
+        // Over the position limit once the other resting bid is counted
+        assertFalse(eng.amendOrder(order.getOrderId(), OrderSide.BUY, 96));
+        assertTrue(eng.amendOrder(order.getOrderId(), OrderSide.BUY, 20));
+        assertEquals(75, book.getTraderVolume(john.getId(), OrderSide.BUY));
+    }
+
+    @Test
+    @DisplayName("A quote side that can't be amended within limits is placed afresh and rejected")
+    public void quoteAmendLimits() {
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeQuote(new Quote(john, 10, 10.00, 10, 10.20)).bid().getStatus());
+
+        QuoteResult res = eng.placeQuote(new Quote(john, 200, 10.00, 10, 10.20));
+        assertFalse(res.bidAmended());
+        assertRejected(RiskRejection.ORDER_TOO_LARGE, res.bid());
+        assertTrue(res.offerAmended());
+        assertEquals(0, book.getNumBids());
+    }
+
+    @Test
+    @DisplayName("Traders can't rest more than their open order limit")
+    public void openOrderLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 10.00)).getStatus());
+        }
+        assertRejected(RiskRejection.TOO_MANY_OPEN_ORDERS, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 10.00)));
+
+        // Orders that can't rest are still allowed
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 5, 10.10));
+        assertEquals(OrderStatus.FILLED, eng.placeOrder(new MarketOrder(OrderSide.BUY, john, 1)).getStatus());
+
+        eng.cancelOrder(book.getBestBid().getOrderId(), OrderSide.BUY);
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 10.00)).getStatus());
+    }
+
+    @Test
+    @DisplayName("Limit prices must be within the collar of the best price")
+    public void priceCollar() {
+        // No reference price yet
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 1.00)).getStatus());
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 20.00));
+        assertRejected(RiskRejection.OUTSIDE_PRICE_COLLAR, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 18.90)));
+        assertRejected(RiskRejection.OUTSIDE_PRICE_COLLAR, eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 1, 21.10)));
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 1, 19.00)).getStatus());
+
+        // Other traders have no collar
+        assertEquals(OrderStatus.ALL_RESTING, eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 1, 5.00)).getStatus());
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Checks take nanoseconds")
+    public void checkSpeed() {
+        for (int i = 0; i < 100; i++) {
+            eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 20.00 + i / 100.0));
+            eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 19.99 - i / 100.0));
+        }
+        LimitOrder order = new LimitOrder(OrderSide.BUY, john, 10, 19.50);
+
+        int checks = 5_000_000;
+        int passed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            if (risk.check(order, book, Double.NaN) == null) {
+                passed++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(checks, passed);
+        System.out.printf("Risk check: %.1f ns per order%n", (double) elapsed / checks);
+    }
+}
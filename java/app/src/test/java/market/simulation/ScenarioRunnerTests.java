@@ -0,0 +1,95 @@
+package market.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.replay.RandomFlow;
+import market.replay.ReplayCommand;
+import market.replay.ReplayEngine;
+import market.replay.ReplayResult;
+
+@Timeout(30)
+public class ScenarioRunnerTests {
+    private static List<Scenario> sweep(int scenarios, int flowSize) {
+        List<Scenario> sweep = new ArrayList<>();
+        for (int i = 0; i < scenarios; i++) {
+            long seed = i;
+            double marketRatio = (i % 5) / 10.0;
+            sweep.add(new Scenario("mix-" + i, seed,
+                () -> RandomFlow.of(seed).marketRatio(marketRatio).generate(flowSize)));
+        }
+        return sweep;
+    }
+
+    @Test
+    @DisplayName("Scenarios on reused worker books give the same results as on fresh books, in order")
+    public void matchesSequentialRuns() {
+        List<Scenario> scenarios = sweep(40, 2_000);
+
+        SweepResult sweep;
+        try (ScenarioRunner runner = new ScenarioRunner(4)) {
+            sweep = runner.run(scenarios);
+        }
+
+        assertEquals(40, sweep.results().size());
+        ScenarioStats expected = ScenarioStats.EMPTY;
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario scenario = scenarios.get(i);
+            ReplayResult fresh = new ReplayEngine(scenario.idSeed()).replay(scenario.flow().get());
+            assertEquals(fresh.digest(), sweep.results().get(i).digest(), scenario.name());
+            expected = expected.combine(ScenarioStats.of(fresh));
+        }
+
+        assertEquals(40, sweep.totals().scenarios());
+        assertEquals(expected.events(), sweep.totals().events());
+        assertEquals(expected.trades(), sweep.totals().trades());
+        assertEquals(expected.ordersPlaced(), sweep.totals().ordersPlaced());
+    }
+
+    @Test
+    @DisplayName("A reset replay engine behaves like a new one")
+    public void resetEngine() {
+        List<ReplayCommand> flow = RandomFlow.of(3).marketRatio(0.2).generate(1_000);
+        ReplayEngine reused = new ReplayEngine(1);
+        reused.replay(RandomFlow.of(4).marketRatio(0.1).generate(1_000));
+        reused.reset(9);
+
+        assertEquals(new ReplayEngine(9).replay(flow).digest(), reused.replay(flow).digest());
+    }
+
+    @Test
+    @DisplayName("An empty sweep gives empty totals")
+    public void emptySweep() {
+        try (ScenarioRunner runner = new ScenarioRunner(2)) {
+            SweepResult sweep = runner.run(List.of());
+            assertEquals(ScenarioStats.EMPTY, sweep.totals());
+            assertTrue(sweep.results().isEmpty());
+        }
+    }
+
+    @Disabled
+    @Test
+    @DisplayName("Sweeps spread across cores")
+    public void scaling() {
+        List<Scenario> scenarios = sweep(64, 5_000);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        try (ScenarioRunner single = new ScenarioRunner(1); ScenarioRunner all = new ScenarioRunner(cores)) {
+            single.run(scenarios.subList(0, 8));
+            SweepResult serial = single.run(scenarios);
+            SweepResult parallel = all.run(scenarios);
+
+            assertEquals(serial.totals().events(), parallel.totals().events());
+            assertEquals(serial.totals().trades(), parallel.totals().trades());
+            System.out.printf("%d cores: serial %.0f events/s, parallel %.0f events/s (speedup %.2f)%n", cores,
+                serial.getEventsPerSecond(), parallel.getEventsPerSecond(), parallel.getSpeedup());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package market.trader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import market.TreeOrderBook;
+import market.matching.MatchResult;
+import market.matching.MatchingEngine;
+import market.matching.OrderStatus;
+import market.orders.LimitOrder;
+import market.orders.OrderSide;
+
+@Timeout(10)
+public class MatchRouterTests {
+    private MatchingEngine eng;
+    private Trader john;
+    private Trader jane;
+
+    @BeforeEach
+    public void setupMarket() {
+        eng = new MatchingEngine(new TreeOrderBook());
+        john = new Trader("John");
+        jane = new Trader("Jane");
+    }
+
+    @Test
+    @DisplayName("Trader subscriptions only receive the results of that trader's orders")
+    public void byTrader() {
+        List<MatchResult> johns = new ArrayList<>();
+        List<MatchResult> all = new ArrayList<>();
+        eng.addSubscriber(MatchFilter.ofTrader(john.getId()), johns::add);
+        eng.addSubscriber(all::add);
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 5, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 5, 9.0));
+
+        assertEquals(3, all.size());
+        assertEquals(List.of(all.get(0), all.get(2)), johns);
+    }
+
+    @Test
+    @DisplayName("Order subscriptions receive the order's own result and each result that trades against it, once")
+    public void byOrder() {
+        LimitOrder resting = new LimitOrder(OrderSide.SELL, john, 30, 10.0);
+        List<MatchResult> notified = new ArrayList<>();
+        eng.addSubscriber(MatchFilter.ofOrder(resting.getOrderId()), notified::add);
+
+        eng.placeOrder(resting);
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, jane, 10, 10.0));
+        MatchResult fill = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 15, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 5, 9.0));
+
+        assertEquals(2, notified.size());
+        assertEquals(resting.getOrderId(), notified.get(0).getOrderId());
+        assertEquals(fill, notified.get(1));
+    }
+
+    @Test
+    @DisplayName("Side and status subscriptions, alone or combined with a trader, only receive matching results")
+    public void bySideAndStatus() {
+        List<MatchResult> buys = new ArrayList<>();
+        List<MatchResult> filled = new ArrayList<>();
+        List<MatchResult> johnsResting = new ArrayList<>();
+        eng.addSubscriber(MatchFilter.ofSide(OrderSide.BUY), buys::add);
+        eng.addSubscriber(MatchFilter.ofStatus(OrderStatus.FILLED), filled::add);
+        eng.addSubscriber(MatchFilter.ofTrader(john.getId()).withStatus(OrderStatus.ALL_RESTING), johnsResting::add);
+
+        MatchResult sell = eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0));
+        MatchResult buy = eng.placeOrder(new LimitOrder(OrderSide.BUY, jane, 10, 10.0));
+        MatchResult rest = eng.placeOrder(new LimitOrder(OrderSide.BUY, john, 10, 9.0));
+
+        assertEquals(List.of(buy, rest), buys);
+        assertEquals(List.of(buy), filled);
+        assertEquals(List.of(sell, rest), johnsResting);
+    }
+
+    @Test
+    @DisplayName("Removed subscriptions stop receiving results, including removal while a result is being delivered")
+    public void removal() {
+        List<MatchResult> notified = new ArrayList<>();
+        MatchFilter filter = MatchFilter.ofTrader(john.getId());
+        MatchSubscriber once = new MatchSubscriber() {
+            @Override
+            public void notifyOfMatch(MatchResult res) {
+                notified.add(res);
+                eng.removeSubscriber(filter, this);
+            }
+        };
+        List<MatchResult> other = new ArrayList<>();
+        eng.addSubscriber(filter, once);
+        eng.addSubscriber(filter, other::add);
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, john, 10, 11.0));
+
+        assertEquals(1, notified.size());
+        assertEquals(2, other.size());
+        assertFalse(eng.removeSubscriber(filter, once));
+        assertFalse(eng.removeSubscriber(MatchFilter.ofTrader(jane.getId()), once));
+    }
+
+    @Test
+    @DisplayName("Each of many portfolios only sees its own trader's trades")
+    public void manyPortfolios() {
+        List<Trader> traders = new ArrayList<>();
+        List<Portfolio> portfolios = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Trader trader = new Trader("Trader " + i);
+            traders.add(trader);
+            portfolios.add(new Portfolio(trader, eng));
+        }
+        List<Integer> calls = new ArrayList<>();
+        eng.addSubscriber(MatchFilter.ofTrader(traders.get(7).getId()), res -> calls.add(1));
+
+        eng.placeOrder(new LimitOrder(OrderSide.SELL, traders.get(3), 10, 10.0));
+        eng.placeOrder(new LimitOrder(OrderSide.BUY, traders.get(7), 10, 10.0));
+
+        assertEquals(1, calls.size());
+        for (int i = 0; i < portfolios.size(); i++) {
+            assertEquals(i == 3 || i == 7 ? 1 : 0, portfolios.get(i).tradeHistory.size(), "Portfolio " + i);
+        }
+    }
+}